@@ -6,6 +6,7 @@ import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.FirebaseApp;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
@@ -190,6 +191,58 @@ public class EventControllerTest {
         assertEquals(42L, snap.getLong("maxAttendees").longValue());
     }
 
+    /**
+     * Verify updateEvent(Event) only writes changed fields, so a stale copy doesn't undo a waiting list join.
+     */
+    @Test
+    public void testUpdateEventOnlyWritesChanges() throws Exception {
+        Event event = new Event();
+        event.setName("Stale Copy");
+        event.setOrganizerID(organizerID);
+        String id = Tasks.await(controller.createEvent(event),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdEventIds.add(id);
+
+        Event stale = Tasks.await(controller.getEvent(id), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertTrue(stale.changedFields().isEmpty());
+
+        // someone joins while the organizer is editing
+        Tasks.await(controller.addToWaitingList(id, "user3", null),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+
+        stale.setName("Renamed");
+        assertEquals(Collections.singleton("name"), stale.changedFields());
+        Tasks.await(controller.updateEvent(stale), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertTrue(stale.changedFields().isEmpty());
+
+        DocumentSnapshot snap = getEvent(id);
+        assertEquals("Renamed", snap.getString("name"));
+        assertEquals(Collections.singletonList("user3"), snap.get("waitingList"));
+    }
+
+    /**
+     * Verify updateEvent(Event) refuses to write the waiting list from a copy.
+     */
+    @Test
+    public void testUpdateEventRejectsListChanges() throws Exception {
+        Event event = new Event();
+        event.setName("List Event");
+        event.setOrganizerID(organizerID);
+        String id = Tasks.await(controller.createEvent(event),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdEventIds.add(id);
+
+        Event copy = Tasks.await(controller.getEvent(id), TIMEOUT_SEC, TimeUnit.SECONDS);
+        copy.setWaitingList(new ArrayList<>(Collections.singletonList("user4")));
+
+        try {
+            Tasks.await(controller.updateEvent(copy), TIMEOUT_SEC, TimeUnit.SECONDS);
+            fail("Expected the waiting list change to be rejected");
+        } catch (java.util.concurrent.ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
     /**
      * Verify deleteEvent removes the document.
      */
@@ -233,4 +286,37 @@ public class EventControllerTest {
                         TIMEOUT_SEC, TimeUnit.SECONDS));
         assertNotNull(ex);
     }
+
+    /**
+     * Verify getArchivedEvents reads the summaries the user was an entrant of, newest first.
+     */
+    @Test
+    public void testGetArchivedEvents() throws Exception {
+        String userID = organizerID + "_entrant";
+        ArrayList<String> summaryIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("eventID", organizerID + "_archived_" + i);
+            summary.put("name", "Archived " + i);
+            summary.put("organizerID", organizerID);
+            summary.put("eventTime", new Timestamp(1000L * (i + 1), 0));
+            summary.put("entrantIDs", i == 1 ? Arrays.asList("someoneElse") : Arrays.asList(userID, "someoneElse"));
+            summaryIds.add(organizerID + "_archived_" + i);
+            Tasks.await(db.collection("eventSummaries").document(summaryIds.get(i)).set(summary),
+                    TIMEOUT_SEC, TimeUnit.SECONDS);
+        }
+
+        try {
+            List<Event> archived = Tasks.await(controller.getArchivedEvents(userID),
+                    TIMEOUT_SEC, TimeUnit.SECONDS);
+
+            assertEquals(2, archived.size());
+            assertEquals(summaryIds.get(2), archived.get(0).getEventID());
+            assertEquals(summaryIds.get(0), archived.get(1).getEventID());
+            assertEquals("Archived 2", archived.get(0).getName());
+        } finally {
+            Tasks.await(BatchDeleter.deleteCollectionIds("eventSummaries", summaryIds),
+                    30, TimeUnit.SECONDS);
+        }
+    }
 }
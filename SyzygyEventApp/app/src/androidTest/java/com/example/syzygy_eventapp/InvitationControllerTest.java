@@ -4,11 +4,15 @@ import static org.junit.Assert.*;
 
 import androidx.test.platform.app.InstrumentationRegistry;
 
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
 
 import org.checkerframework.checker.units.qual.A;
 import org.junit.After;
@@ -22,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -43,6 +48,7 @@ public class InvitationControllerTest {
     private static String recipientB;
 
     static private final ArrayList<String> createdInviteIds = new ArrayList<>();
+    static private final ArrayList<String> createdEventIds = new ArrayList<>();
 
     @BeforeClass
     public static void setup() throws Exception {
@@ -60,6 +66,21 @@ public class InvitationControllerTest {
         organizerID = "user001" + run;
         recipientA = "user002" + run;
         recipientB = "user003" + run;
+
+        // invitations keep counters on their event, so it has to exist
+        createEventDoc(event);
+    }
+
+    /**
+     * Creates a bare event document for invitations to point at.
+     */
+    private static void createEventDoc(String eventID) throws Exception {
+        Tasks.await(db.collection("events").document(eventID).set(new HashMap<String, Object>() {{
+            put("eventID", eventID);
+            put("name", "Invitation test event");
+            put("organizerID", organizerID);
+        }}), TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdEventIds.add(eventID);
     }
 
     /**
@@ -70,6 +91,9 @@ public class InvitationControllerTest {
         Tasks.await(
                 BatchDeleter.deleteCollectionIds("invitations", createdInviteIds),
                 30, TimeUnit.SECONDS);
+        Tasks.await(
+                BatchDeleter.deleteCollectionIds("events", createdEventIds),
+                30, TimeUnit.SECONDS);
     }
 
     private DocumentSnapshot getInvite(String invitation) throws Exception {
@@ -236,4 +260,251 @@ public class InvitationControllerTest {
                 TIMEOUT_SEC, TimeUnit.SECONDS);
         assertFalse(wasCancelledWhenAccepted);
     }
+
+    /**
+     * Verify the event's counters follow invitations as they are created, answered and cancelled.
+     */
+    @Test
+    public void testCountersFollowInvites() throws Exception {
+        String counterEvent = event + "counters";
+        createEventDoc(counterEvent);
+
+        List<String> ids = Tasks.await(
+                controller.createInvites(counterEvent, organizerID, Arrays.asList(recipientA, recipientB)),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(ids);
+
+        Map<String, Long> counters = readCounters(counterEvent);
+        assertEquals(Long.valueOf(2), counters.get("pendingCount"));
+
+        assertTrue(Tasks.await(controller.acceptInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS));
+        assertTrue(Tasks.await(controller.cancelInvite(ids.get(1)), TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        counters = readCounters(counterEvent);
+        assertEquals(Long.valueOf(0), counters.get("pendingCount"));
+        assertEquals(Long.valueOf(1), counters.get("acceptedCount"));
+
+        // cancelling attendance moves the invite from accepted to declined
+        assertTrue(Tasks.await(controller.declineInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        counters = readCounters(counterEvent);
+        assertEquals(Long.valueOf(0), counters.get("acceptedCount"));
+        assertEquals(Long.valueOf(1), counters.get("declinedCount"));
+    }
+
+    /**
+     * Verify recountEventCounters corrects drifted counters: the recount is written over the event's counters,
+     * and counter shards left from when counters were kept in them are folded in and deleted.
+     */
+    @Test
+    public void testRecountCorrectsDrift() throws Exception {
+        String recountEvent = event + "recount";
+        createEventDoc(recountEvent);
+        DocumentReference eventRef = db.collection("events").document(recountEvent);
+        Tasks.await(eventRef.update("waitingList", Arrays.asList(recipientA + "w1", recipientA + "w2")),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+
+        List<String> ids = Tasks.await(
+                controller.createInvites(recountEvent, organizerID, Arrays.asList(recipientA, recipientB)),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(ids);
+        assertTrue(Tasks.await(controller.acceptInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        // drift the event, and leave a shard behind, like writes that were lost
+        Tasks.await(eventRef.update("pendingCount", FieldValue.increment(5)), TIMEOUT_SEC, TimeUnit.SECONDS);
+        DocumentReference shard = eventRef.collection(ShardedCounter.SHARDS_COLLECTION).document("0");
+        Tasks.await(shard.set(Collections.singletonMap("waitingCount", FieldValue.increment(5)), SetOptions.merge()),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+
+        Tasks.await(EventController.getInstance().recountEventCounters(recountEvent), TIMEOUT_SEC, TimeUnit.SECONDS);
+
+        assertFalse(Tasks.await(shard.get(), TIMEOUT_SEC, TimeUnit.SECONDS).exists());
+        Map<String, Long> counters = readCounters(recountEvent);
+        assertEquals(Long.valueOf(1), counters.get("pendingCount"));
+        assertEquals(Long.valueOf(1), counters.get("acceptedCount"));
+        assertEquals(Long.valueOf(0), counters.get("declinedCount"));
+        DocumentSnapshot eventSnap = Tasks.await(eventRef.get(), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(Long.valueOf(2), eventSnap.getLong("waitingCount"));
+    }
+
+    /**
+     * Verify cancelPendingInvites cancels only the pending invites of an event, leaving answered ones alone.
+     */
+    @Test
+    public void testCancelPendingInvites() throws Exception {
+        String bulkEvent = event + "bulk";
+        createEventDoc(bulkEvent);
+        String recipientC = recipientB + "c";
+
+        List<String> ids = Tasks.await(
+                controller.createInvites(bulkEvent, organizerID, Arrays.asList(recipientA, recipientB, recipientC)),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(ids);
+        assertTrue(Tasks.await(controller.acceptInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        InvitationController.CancelSummary summary = Tasks.await(controller.cancelPendingInvites(bulkEvent),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(2, summary.cancelled);
+        assertEquals(0, summary.skipped);
+        assertEquals(0, summary.failed);
+
+        Invitation accepted = Tasks.await(controller.getInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertFalse(accepted.getCancelled());
+        for (String id : ids.subList(1, 3)) {
+            Invitation invite = Tasks.await(controller.getInvite(id), TIMEOUT_SEC, TimeUnit.SECONDS);
+            assertTrue(invite.getCancelled());
+        }
+
+        // nothing is left to cancel
+        summary = Tasks.await(controller.cancelPendingInvites(bulkEvent), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(0, summary.cancelled);
+    }
+
+    /**
+     * Verify invites can be read by state, and that every write keeps the state up to date.
+     */
+    @Test
+    public void testGetEventInvitesByState() throws Exception {
+        String stateEvent = event + "state";
+        createEventDoc(stateEvent);
+        String recipientC = recipientB + "c";
+
+        List<String> ids = Tasks.await(
+                controller.createInvites(stateEvent, organizerID, Arrays.asList(recipientA, recipientB, recipientC)),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(ids);
+        assertTrue(Tasks.await(controller.acceptInvite(ids.get(0)), TIMEOUT_SEC, TimeUnit.SECONDS));
+        assertTrue(Tasks.await(controller.cancelInvite(ids.get(1)), TIMEOUT_SEC, TimeUnit.SECONDS));
+
+        List<Invitation> accepted = Tasks.await(controller.getEventInvites(stateEvent, InvitationState.ACCEPTED),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(1, accepted.size());
+        assertEquals(recipientA, accepted.get(0).getRecipientID());
+
+        List<Invitation> pending = Tasks.await(controller.getEventInvites(stateEvent, InvitationState.PENDING),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(1, pending.size());
+        assertEquals(recipientC, pending.get(0).getRecipientID());
+
+        // a raw update of the older fields moves the state along with them
+        Tasks.await(controller.updateInvite(ids.get(2), new HashMap<>() {{
+            put("accepted", false);
+            put("responseTime", Timestamp.now());
+        }}), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(InvitationState.DECLINED.name(), getInvite(ids.get(2)).getString("state"));
+
+        Map<String, Long> counts = Tasks.await(controller.countEventInvites(stateEvent, true),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(Long.valueOf(0), counts.get("pendingCount"));
+        assertEquals(Long.valueOf(1), counts.get("acceptedCount"));
+        assertEquals(Long.valueOf(1), counts.get("declinedCount"));
+    }
+
+    /**
+     * Verify concurrent accepts and cancels of the same invites never both succeed, and always leave each
+     * invite in one state that agrees with its other fields and the event's counters.
+     */
+    @Test
+    public void testConcurrentAcceptAndCancel() throws Exception {
+        String raceEvent = event + "race";
+        createEventDoc(raceEvent);
+
+        int pairs = 20;
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            recipients.add(recipientA + "race" + i);
+        }
+        List<String> ids = Tasks.await(controller.createInvites(raceEvent, organizerID, recipients),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(ids);
+
+        // start every accept and cancel before any of them finish
+        List<Task<Boolean>> accepts = new ArrayList<>();
+        List<Task<Boolean>> cancels = new ArrayList<>();
+        for (String id : ids) {
+            accepts.add(controller.acceptInvite(id));
+            cancels.add(controller.cancelInvite(id));
+        }
+        List<Task<Boolean>> all = new ArrayList<>(accepts);
+        all.addAll(cancels);
+        Tasks.await(Tasks.whenAllComplete(all), TIMEOUT_SEC * 6, TimeUnit.SECONDS);
+
+        long acceptedCount = 0;
+        for (int i = 0; i < pairs; i++) {
+            boolean accepted = accepts.get(i).getResult();
+            boolean cancelled = cancels.get(i).getResult();
+            assertNotEquals("Exactly one of accept and cancel should win", accepted, cancelled);
+
+            DocumentSnapshot snap = getInvite(ids.get(i));
+            assertEquals(Long.valueOf(1), snap.getLong("version"));
+            if (accepted) {
+                acceptedCount++;
+                assertEquals(InvitationState.ACCEPTED.name(), snap.getString("state"));
+                assertEquals(Boolean.TRUE, snap.getBoolean("accepted"));
+                assertNotNull(snap.get("responseTime"));
+                assertEquals(Boolean.FALSE, snap.getBoolean("cancelled"));
+            } else {
+                assertEquals(InvitationState.CANCELLED.name(), snap.getString("state"));
+                assertEquals(Boolean.TRUE, snap.getBoolean("cancelled"));
+                assertNotNull(snap.get("cancelTime"));
+                assertNull(snap.get("responseTime"));
+            }
+        }
+
+        Map<String, Long> counters = readCounters(raceEvent);
+        assertEquals(Long.valueOf(0), counters.get("pendingCount"));
+        assertEquals(Long.valueOf(acceptedCount), counters.get("acceptedCount"));
+
+        // the same race against the bulk cancel, which queries the invites before cancelling them
+        String bulkRaceEvent = event + "bulkrace";
+        createEventDoc(bulkRaceEvent);
+        List<String> bulkIds = Tasks.await(controller.createInvites(bulkRaceEvent, organizerID, recipients),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        createdInviteIds.addAll(bulkIds);
+
+        List<Task<Boolean>> bulkAccepts = new ArrayList<>();
+        for (String id : bulkIds) {
+            bulkAccepts.add(controller.acceptInvite(id));
+        }
+        Task<InvitationController.CancelSummary> bulkCancel = controller.cancelPendingInvites(bulkRaceEvent);
+        List<Task<?>> bulkAll = new ArrayList<>(bulkAccepts);
+        bulkAll.add(bulkCancel);
+        Tasks.await(Tasks.whenAllComplete(bulkAll), TIMEOUT_SEC * 6, TimeUnit.SECONDS);
+
+        long bulkAccepted = 0;
+        long bulkCancelled = 0;
+        for (int i = 0; i < pairs; i++) {
+            DocumentSnapshot snap = getInvite(bulkIds.get(i));
+            assertEquals(Long.valueOf(1), snap.getLong("version"));
+            if (bulkAccepts.get(i).getResult()) {
+                bulkAccepted++;
+                assertEquals(InvitationState.ACCEPTED.name(), snap.getString("state"));
+                assertEquals(Boolean.FALSE, snap.getBoolean("cancelled"));
+            } else {
+                bulkCancelled++;
+                assertEquals(InvitationState.CANCELLED.name(), snap.getString("state"));
+                assertNull(snap.get("responseTime"));
+            }
+        }
+
+        assertEquals(0, bulkCancel.getResult().failed);
+        assertEquals(bulkCancelled, bulkCancel.getResult().cancelled);
+        Map<String, Long> bulkCounters = readCounters(bulkRaceEvent);
+        assertEquals(Long.valueOf(0), bulkCounters.get("pendingCount"));
+        assertEquals(Long.valueOf(bulkAccepted), bulkCounters.get("acceptedCount"));
+    }
+
+    /**
+     * Reads an event's invitation counters from its document
+     */
+    private static Map<String, Long> readCounters(String eventID) throws Exception {
+        DocumentSnapshot snap = Tasks.await(db.collection("events").document(eventID).get(),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        Map<String, Long> counters = new HashMap<>();
+        for (String field : Arrays.asList("pendingCount", "acceptedCount", "declinedCount")) {
+            Long value = snap.getLong(field);
+            counters.put(field, value == null ? 0L : value);
+        }
+        return counters;
+    }
 }
@@ -0,0 +1,195 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Load test for {@link ShardedCounter}, comparing join throughput on a single event
+ * with the waiting list counter on the event document and with it in counter shards.
+ * <p>
+ * Only runs against the Firestore emulator, never the real database. Start the emulator, then run with:
+ * <pre>
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=10.0.2.2
+ * </pre>
+ * Throughput is written to logcat under the "ShardedCounterLoadTest" tag.
+ * </p>
+ */
+public class ShardedCounterLoadTest {
+
+    private static final String TAG = "ShardedCounterLoadTest";
+    private static final int JOINS = 200;
+    private static final int TIMEOUT_SEC = 120;
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void setUp() {
+        String host = InstrumentationRegistry.getArguments().getString("firestoreEmulatorHost");
+        Assume.assumeNotNull(host);
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        try {
+            FirebaseApp.initializeApp(context);
+        } catch (IllegalStateException ignore) {}
+
+        // a separate app, so the emulator can be used even if other tests already used the default instance
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(TAG);
+        } catch (IllegalStateException e) {
+            app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), TAG);
+        }
+        db = FirebaseFirestore.getInstance(app);
+        try {
+            db.useEmulator(host, 8080);
+        } catch (IllegalStateException ignore) {
+            // already pointed at the emulator by an earlier test
+        }
+    }
+
+    private DocumentReference newEvent() throws Exception {
+        DocumentReference event = db.collection("events").document();
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventID", event.getId());
+        data.put("name", "Load test " + event.getId());
+        data.put("waitingList", new ArrayList<String>());
+        data.put(EventController.WAITING_COUNT, 0L);
+        Tasks.await(event.set(data), TIMEOUT_SEC, TimeUnit.SECONDS);
+        return event;
+    }
+
+    /**
+     * Starts every join at once, then waits for all of them
+     *
+     * @return joins per second
+     */
+    private double measure(String name, IntFunction<Task<Void>> join) throws Exception {
+        List<Task<Void>> joins = new ArrayList<>();
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < JOINS; i++) {
+            joins.add(join.apply(i));
+        }
+        Tasks.await(Tasks.whenAllComplete(joins), TIMEOUT_SEC, TimeUnit.SECONDS);
+        long elapsed = Math.max(1, SystemClock.elapsedRealtime() - start);
+
+        int failed = 0;
+        for (Task<Void> task : joins) {
+            if (!task.isSuccessful()) {
+                failed++;
+            }
+        }
+
+        double perSecond = JOINS * 1000.0 / elapsed;
+        Log.i(TAG, String.format(Locale.US, "%s: %d joins in %dms, %.1f joins/s, %d failed",
+                name, JOINS, elapsed, perSecond, failed));
+        assertEquals(name + " had failed joins", 0, failed);
+        return perSecond;
+    }
+
+    /**
+     * Joins the way they were written before sharding: the user and the counter both on the event document
+     */
+    @Test
+    public void testJoinsWithoutSharding() throws Exception {
+        DocumentReference event = newEvent();
+
+        measure("without sharding", i -> event.update(
+                "waitingList", FieldValue.arrayUnion("user" + i),
+                EventController.WAITING_COUNT, FieldValue.increment(1)));
+
+        DocumentSnapshot snap = Tasks.await(event.get(), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(JOINS, ((List<?>) snap.get("waitingList")).size());
+        assertEquals(JOINS, (long) snap.getLong(EventController.WAITING_COUNT));
+
+        Tasks.await(event.delete(), TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Joins the way {@link EventController#addToWaitingList} writes them, with the counter in a shard
+     */
+    @Test
+    public void testJoinsWithSharding() throws Exception {
+        DocumentReference event = newEvent();
+        ShardedCounter counter = ShardedCounter.of(event);
+
+        measure("with sharding", i -> {
+            WriteBatch batch = db.batch();
+            batch.update(event, "waitingList", FieldValue.arrayUnion("user" + i));
+            counter.increment(batch, EventController.WAITING_COUNT, 1);
+            return batch.commit();
+        });
+
+        DocumentSnapshot snap = Tasks.await(event.get(), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(JOINS, ((List<?>) snap.get("waitingList")).size());
+        Map<String, Long> sums = Tasks.await(counter.sum(TAG,
+                Collections.singletonList(EventController.WAITING_COUNT)), TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(JOINS, (long) sums.get(EventController.WAITING_COUNT));
+
+        WriteBatch cleanup = db.batch();
+        cleanup.delete(event);
+        counter.delete(cleanup);
+        Tasks.await(cleanup.commit(), TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Invitation answers only change counters, so they no longer write to the event document at all
+     */
+    @Test
+    public void testInviteAnswersWithAndWithoutSharding() throws Exception {
+        DocumentReference event = newEvent();
+        ShardedCounter counter = ShardedCounter.of(event);
+
+        double single = measure("answers without sharding", i -> event.update(
+                InvitationController.PENDING_COUNT, FieldValue.increment(-1),
+                InvitationController.ACCEPTED_COUNT, FieldValue.increment(1)));
+
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(InvitationController.PENDING_COUNT, -1L);
+        deltas.put(InvitationController.ACCEPTED_COUNT, 1L);
+        double sharded = measure("answers with sharding", i -> {
+            WriteBatch batch = db.batch();
+            counter.increment(batch, deltas);
+            return batch.commit();
+        });
+        Log.i(TAG, String.format(Locale.US, "sharding changed answer throughput by %.1fx", sharded / single));
+
+        Map<String, Long> sums = Tasks.await(counter.sum(TAG,
+                        Arrays.asList(InvitationController.PENDING_COUNT, InvitationController.ACCEPTED_COUNT)),
+                TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(-JOINS, (long) sums.get(InvitationController.PENDING_COUNT));
+        assertEquals(JOINS, (long) sums.get(InvitationController.ACCEPTED_COUNT));
+
+        WriteBatch cleanup = db.batch();
+        cleanup.delete(event);
+        counter.delete(cleanup);
+        Tasks.await(cleanup.commit(), TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.syzygy_eventapp;
+
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import org.json.JSONException;
+
+/**
+ * Hidden admin screen showing the Firestore I/O recorded by {@link FirestoreMetrics}.
+ * Opened by long pressing the title of the admin dashboard.
+ */
+public class AdminDiagnosticsFragment extends Fragment {
+
+    private TextView metricsText;
+
+    /// Navigation stack fragment
+    private final NavigationStackFragment navStack;
+
+    /// Required empty constructor
+    public AdminDiagnosticsFragment() {
+        this.navStack = null;
+    }
+
+    /**
+     * Constructor with navigation stack
+     */
+    AdminDiagnosticsFragment(NavigationStackFragment navStack) {
+        this.navStack = navStack;
+    }
+
+    /**
+     * Inflates the fragment layout and binds views.
+     */
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        View root = inflater.inflate(R.layout.fragment_admin_diagnostics, container, false);
+
+        metricsText = root.findViewById(R.id.metrics_text);
+        Button refreshButton = root.findViewById(R.id.refresh_button);
+        Button exportButton = root.findViewById(R.id.export_button);
+        Button resetButton = root.findViewById(R.id.reset_button);
+
+        refreshButton.setOnClickListener(v -> refresh());
+        exportButton.setOnClickListener(v -> exportJson());
+        resetButton.setOnClickListener(v -> {
+            FirestoreMetrics.reset();
+            refresh();
+        });
+
+        refresh();
+
+        return root;
+    }
+
+    /**
+     * Sets up the back button menu when the fragment starts
+     */
+    @Override
+    public void onStart() {
+        super.onStart();
+
+        // Back button menu
+        navStack.setScreenNavMenu(R.menu.back_nav_menu, (i) -> {
+            navStack.popScreen();
+            return true;
+        });
+    }
+
+    /**
+     * Shows the latest counts
+     */
+    private void refresh() {
+        metricsText.setText(FirestoreMetrics.summary()
+                + "\nScreen timing\n" + ScreenTracer.summary()
+                + "\nQR scanning\n  " + ScanLatencyMetrics.summary());
+    }
+
+    /**
+     * Shares the counts as JSON, so they can be saved and compared between releases
+     */
+    private void exportJson() {
+        String json;
+        try {
+            json = FirestoreMetrics.toJson(getAppVersion());
+        } catch (JSONException e) {
+            Toast.makeText(requireContext(), "Failed to export metrics", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Intent share = new Intent(Intent.ACTION_SEND);
+        share.setType("application/json");
+        share.putExtra(Intent.EXTRA_SUBJECT, "Syzygy Firestore metrics " + getAppVersion());
+        share.putExtra(Intent.EXTRA_TEXT, json);
+        startActivity(Intent.createChooser(share, "Export metrics"));
+    }
+
+    private String getAppVersion() {
+        try {
+            return requireContext().getPackageManager()
+                    .getPackageInfo(requireContext().getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
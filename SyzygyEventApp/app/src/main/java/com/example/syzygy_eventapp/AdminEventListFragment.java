@@ -62,6 +62,8 @@ public class AdminEventListFragment extends Fragment {
         this.upcomingEventList.setTitle("Upcoming Events");
         this.pastEventList.setTitle("Past Events");
 
+        startEventObserver();
+
         return root;
     }
 
@@ -77,15 +79,14 @@ public class AdminEventListFragment extends Fragment {
             navStack.popScreen();
             return true;
         });
-
-        startEventObserver();
     }
 
     /**
      * Starts observing all events from the EventController and updates the UI accordingly.
+     * The listener is only kept while the screen is showing.
      */
     private void startEventObserver() {
-        EventController.getInstance().observeAllEvents(events -> {
+        eventsListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> EventController.getInstance().observeAllEvents(events -> {
             List<Event> upcoming = new ArrayList<>();
             List<Event> past = new ArrayList<>();
             Date now = new Date();
@@ -120,7 +121,7 @@ public class AdminEventListFragment extends Fragment {
                     this::eventRemoveBannerButtonClickedCallback,
                     this::eventDeleteButtonClickedCallback
             );
-        });
+        }));
     }
 
     /**
@@ -163,6 +164,8 @@ public class AdminEventListFragment extends Fragment {
                 .setPositiveButton("Remove", (dialog, which) -> {
                     // User confirmed
                     event.setPosterUrl(null);
+                    event.setPosterThumbnail(null);
+                    event.setPosterPlaceholder(null);
                     EventController.getInstance().updateEvent(event);
                 })
                 .setNegativeButton("Cancel", (dialog, which) -> {
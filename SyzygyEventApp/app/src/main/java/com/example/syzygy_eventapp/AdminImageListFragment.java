@@ -97,16 +97,16 @@ public class AdminImageListFragment extends Fragment {
      * Sets up Firestore observers for users 
      */
     private void setupUserObservers() {
-        userListener = UserController.getInstance()
-                .observeAllUsers(this::onUsersChanged);
+        userListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> UserController.getInstance()
+                .observeAllUsers(this::onUsersChanged));
     }
 
     /**
      * Sets up Firestore observers for events
      */
     private void setupEventObservers() {
-        eventListener = EventController.getInstance()
-                .observeAllEvents(this::onEventsChanged);
+        eventListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> EventController.getInstance()
+                .observeAllEvents(this::onEventsChanged));
     }
 
     /**
@@ -167,6 +167,7 @@ public class AdminImageListFragment extends Fragment {
                             // Delete the image
                             HashMap<String, Object> updates = new HashMap<>();
                             updates.put("photoURL", null);
+                            updates.put("photoPlaceholder", null);
                             UserController.getInstance().updateFields(
                                     image.getUserID(),
                                     updates
@@ -184,6 +185,8 @@ public class AdminImageListFragment extends Fragment {
                             // Delete the image
                             HashMap<String, Object> updates = new HashMap<>();
                             updates.put("posterUrl", null);
+                            updates.put("posterThumbnail", null);
+                            updates.put("posterPlaceholder", null);
                             EventController.getInstance().updateEvent(
                                     image.getEventID(),
                                     updates
@@ -83,8 +83,8 @@ public class AdminNotificationListFragment extends Fragment {
      */
     private void setupNotificationListener() {
         Filter filter = Filter.notEqualTo("deleted", true);
-        notificationListener = NotificationController.getInstance()
-                .observeNotifications(filter, this::onNotificationsChanged);
+        notificationListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> NotificationController.getInstance()
+                .observeNotifications(filter, this::onNotificationsChanged));
     }
 
 
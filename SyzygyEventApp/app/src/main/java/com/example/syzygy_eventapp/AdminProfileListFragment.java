@@ -85,8 +85,8 @@ public class AdminProfileListFragment extends Fragment {
     }
 
     private void setupUserObservers() {
-        userListener = UserController.getInstance()
-                .observeAllUsers(this::onUsersChanged);
+        userListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> UserController.getInstance()
+                .observeAllUsers(this::onUsersChanged));
     }
 
     private void onUsersChanged(List<User> users) {
@@ -10,6 +10,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.LinearLayout;
+import android.widget.TextView;
 
 import com.google.firebase.firestore.ListenerRegistration;
 
@@ -35,6 +36,10 @@ public class AdministratorFragment extends Fragment {
     private LinearLayout imageButton;
     /// Notification button
     private LinearLayout notificationButton;
+    /// Number of events, under the event button
+    private TextView eventCountText;
+    /// Number of notifications, under the notification button
+    private TextView notificationCountText;
 
     /// Navigation stack fragment
     private NavigationStackFragment navStack;
@@ -61,6 +66,8 @@ public class AdministratorFragment extends Fragment {
         eventButton = root.findViewById(R.id.event_button);
         imageButton = root.findViewById(R.id.image_button);
         notificationButton = root.findViewById(R.id.notification_button);
+        eventCountText = root.findViewById(R.id.event_count_text);
+        notificationCountText = root.findViewById(R.id.notification_count_text);
 
         // Set listeners
         profileButton.setOnClickListener(v -> navStack.pushScreen(
@@ -76,6 +83,36 @@ public class AdministratorFragment extends Fragment {
                 new AdminNotificationListFragment(navStack)
         ));
 
+        // hidden diagnostics screen
+        root.findViewById(R.id.header_title_text).setOnLongClickListener(v -> {
+            navStack.pushScreen(new AdminDiagnosticsFragment(navStack));
+            return true;
+        });
+
+        loadCounts();
+
         return root;
     }
+
+    /**
+     * Shows how many events and notifications there are, using aggregation counts
+     * so the dashboard doesn't download every document.
+     */
+    private void loadCounts() {
+        EventController.getInstance().countEvents()
+                .addOnSuccessListener(count -> showCount(eventCountText, count, "event"))
+                .addOnFailureListener(e -> System.err.println("Failed to count events: " + e));
+
+        NotificationController.getInstance().countAllNotifications()
+                .addOnSuccessListener(count -> showCount(notificationCountText, count, "notification"))
+                .addOnFailureListener(e -> System.err.println("Failed to count notifications: " + e));
+    }
+
+    private void showCount(TextView countText, long count, String noun) {
+        if (!isAdded() || countText == null) {
+            return;
+        }
+        countText.setText(count + " " + noun + (count == 1 ? "" : "s"));
+        countText.setVisibility(View.VISIBLE);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.example.syzygy_eventapp;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a backend that keeps failing, so callers fail fast instead of waiting on it.
+ * <p>
+ * The breaker starts closed and lets every call through. After {@link #FAILURE_THRESHOLD} transient failures
+ * in a row it opens, and calls are refused for {@link #OPEN_MS}. After that one trial call is let through
+ * (half open): if it succeeds the breaker closes again, if it fails the breaker opens for another period.
+ * </p>
+ * Only transient failures count, a call rejected for bad arguments or permissions says nothing about the backend.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a breaker
+     */
+    public enum State {
+        /** calls are let through */
+        CLOSED,
+        /** calls are refused */
+        OPEN,
+        /** a single trial call is let through */
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown, through a failed task, for calls refused while a breaker is open
+     */
+    public static class OpenException extends IllegalStateException {
+        public OpenException(String name) {
+            super(name + " is failing, try again in a little while");
+        }
+    }
+
+    /**
+     * How many transient failures in a row open the breaker
+     */
+    public static final int FAILURE_THRESHOLD = 5;
+
+    /**
+     * How long the breaker stays open before a trial call, in milliseconds
+     */
+    public static final long OPEN_MS = 30_000;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMs;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long openedAt = 0;
+    private boolean trialRunning = false;
+
+    /**
+     * Creates a breaker with custom limits
+     *
+     * @param name             what the breaker protects, for error messages
+     * @param failureThreshold how many transient failures in a row open the breaker
+     * @param openMs           how long the breaker stays open, in milliseconds
+     * @param clock            the current time in milliseconds
+     */
+    CircuitBreaker(String name, int failureThreshold, long openMs, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a breaker with the default limits
+     *
+     * @param name  what the breaker protects, for error messages
+     * @param clock the current time in milliseconds
+     */
+    public CircuitBreaker(String name, LongSupplier clock) {
+        this(name, FAILURE_THRESHOLD, OPEN_MS, clock);
+    }
+
+    /**
+     * @return what the breaker protects
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current state, moving from open to half open once the open period is over
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            trialRunning = false;
+        }
+        return state;
+    }
+
+    /**
+     * Asks to make a call. Every call that is allowed must be followed by
+     * {@link #onSuccess()} or {@link #onFailure(boolean)}.
+     *
+     * @return true if the call can be made
+     */
+    public synchronized boolean allow() {
+        switch (getState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialRunning) {
+                    return false;
+                }
+                trialRunning = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records that an allowed call succeeded
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialRunning = false;
+    }
+
+    /**
+     * Records that an allowed call failed
+     *
+     * @param transientFailure true if the failure could be the backend's fault, like being unavailable
+     */
+    public synchronized void onFailure(boolean transientFailure) {
+        if (!transientFailure) {
+            // the backend answered, so it's working
+            onSuccess();
+            return;
+        }
+
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            trialRunning = false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.syzygy_eventapp;
+
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.Query;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A short-lived cache of counts, shared by the controllers' count APIs.
+ * <p>
+ * Counts are loaded with Firestore count() aggregation queries, which cost a single read
+ * no matter how many documents match. Results are kept for a few seconds so that several views
+ * asking for the same count at once (or a screen being reopened) only cause one query.
+ * Callers asking while a count is still loading share the same Task.
+ * </p>
+ * Controllers invalidate their keys after their own writes, so counts never lag behind this device's changes.
+ * Changes made by other devices show up once the entry expires.
+ */
+public class CountCache {
+    public static final long DEFAULT_TTL_MS = 10_000;
+
+    private static class Entry {
+        final Task<Long> task;
+        final long loadedAt;
+
+        Entry(Task<Long> task, long loadedAt) {
+            this.task = task;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Creates a cache that keeps counts for {@link #DEFAULT_TTL_MS}
+     */
+    public CountCache() {
+        this(DEFAULT_TTL_MS, SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * Creates a cache with a custom lifetime and clock
+     *
+     * @param ttlMs how long a count is reused for, in milliseconds
+     * @param clock the current time, in milliseconds
+     */
+    public CountCache(long ttlMs, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a cached count, or loads it if it's missing, expired or failed to load last time.
+     *
+     * @param key  identifies the count, keys should start with the collection they count
+     * @param load starts loading the count
+     * @return Task that completes with the count
+     */
+    public synchronized Task<Long> get(String key, Supplier<Task<Long>> load) {
+        long now = clock.getAsLong();
+
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt <= ttlMs
+                && !(entry.task.isComplete() && !entry.task.isSuccessful())) {
+            return entry.task;
+        }
+
+        Task<Long> task = load.get();
+        entries.put(key, new Entry(task, now));
+        return task;
+    }
+
+    /**
+     * Gets a cached count of the documents matching a query, or counts them on the server.
+     *
+     * @param operation the controller method counting, for {@link FirestoreMetrics}
+     * @param key       identifies the count, keys should start with the collection they count
+     * @param query     the query to count the results of
+     * @return Task that completes with the number of matching documents
+     */
+    public Task<Long> count(String operation, String key, Query query) {
+        return get(key, () -> OperationPolicy.getDefault().aggregate(operation,
+                () -> query.count().get(AggregateSource.SERVER)).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.forException(Objects.requireNonNull(task.getException()));
+            }
+            return Tasks.forResult(task.getResult().getCount());
+        }));
+    }
+
+    /**
+     * Forgets every count whose key starts with a prefix
+     *
+     * @param keyPrefix the start of the keys to forget
+     */
+    public synchronized void invalidate(String keyPrefix) {
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(keyPrefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets every count
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.syzygy_eventapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV file one record at a time, so the whole file is never in memory.
+ * <p>
+ * Follows RFC 4180: fields are separated by commas, records by LF or CRLF, and fields in double quotes
+ * may contain commas, line breaks and doubled quotes ("") standing for a quote.
+ * A byte order mark at the start of the file is skipped.
+ * </p>
+ * Not thread safe, read from a single background thread.
+ */
+public class CsvReader implements Closeable {
+    private final Reader reader;
+    private int peeked = -2; // -2 when nothing has been peeked
+    private int line = 1;
+    private int recordLine = 1;
+    private boolean started = false;
+
+    /**
+     * @param reader where to read from, should be buffered
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record
+     *
+     * @return the record's fields, or null at the end of the file
+     * @throws IOException if the file can't be read, or a quoted field is never closed
+     */
+    public List<String> readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') {
+                next();
+            }
+        }
+        if (peek() == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            int c = next();
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Line " + recordLine + ": quoted field is never closed");
+                } else if (c == '"') {
+                    if (peek() == '"') {
+                        field.append((char) next());
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' && peek() == '\n') {
+                // the \n ends the record next time around
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * @return the line of the file the last record read started on, starting at 1
+     */
+    public int getLineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
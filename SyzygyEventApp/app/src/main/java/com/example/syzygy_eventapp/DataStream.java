@@ -0,0 +1,326 @@
+package com.example.syzygy_eventapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A stream of values from a controller query, like the latest list of events, that can be transformed
+ * before it reaches a screen.
+ * <p>
+ * Any controller observe method can be turned into a stream with {@link #from(Source)}.
+ * Nothing is observed until the stream is subscribed to, and every subscription observes its own source.
+ * Removing the subscription removes the underlying listeners, and cancels anything still scheduled,
+ * so no value is delivered after it's removed.
+ * </p>
+ * Operators are meant to be used from one thread at a time, usually the main thread, which is where the
+ * controllers deliver their results. Use {@link #observeOn(Executor)} to move work to another thread.
+ * The time based operators only keep the latest value, so a fast source can never queue up work downstream.
+ */
+public class DataStream<T> {
+
+    /**
+     * Starts observing something, like a controller observe method
+     */
+    public interface Source<T> {
+        /**
+         * @param onNext receives each value
+         * @return ListenerRegistration that stops observing
+         */
+        ListenerRegistration subscribe(Consumer<T> onNext);
+    }
+
+    /**
+     * Runs tasks after a delay, for the time based operators
+     */
+    public interface Scheduler {
+        /**
+         * @param task    the task to run
+         * @param delayMs how long to wait first, in milliseconds
+         * @return cancels the task if it hasn't run yet
+         */
+        Runnable schedule(Runnable task, long delayMs);
+    }
+
+    private final Source<T> source;
+
+    private DataStream(Source<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Makes a stream from an observe method, like {@code onNext -> controller.observeAllEvents(onNext)}
+     *
+     * @param source starts observing the values
+     * @return the stream
+     */
+    public static <T> DataStream<T> from(Source<T> source) {
+        return new DataStream<>(source);
+    }
+
+    /**
+     * Starts observing the stream
+     *
+     * @param onNext receives each value
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public ListenerRegistration subscribe(Consumer<T> onNext) {
+        Subscription subscription = new Subscription();
+        subscription.add(source.subscribe(value -> {
+            if (!subscription.removed) {
+                onNext.accept(value);
+            }
+        }));
+        return subscription;
+    }
+
+    //-----------------------
+    // OPERATORS
+    //-----------------------
+
+    /**
+     * @param transform turns each value into a new value
+     * @return a stream of the transformed values
+     */
+    public <R> DataStream<R> map(Function<T, R> transform) {
+        return from(onNext -> subscribe(value -> onNext.accept(transform.apply(value))));
+    }
+
+    /**
+     * @param keep which values to keep
+     * @return a stream of only the kept values
+     */
+    public DataStream<T> filter(Predicate<T> keep) {
+        return from(onNext -> subscribe(value -> {
+            if (keep.test(value)) {
+                onNext.accept(value);
+            }
+        }));
+    }
+
+    /**
+     * Skips values that are equal to the last value delivered
+     *
+     * @return a stream without repeated values
+     */
+    public DataStream<T> distinctUntilChanged() {
+        return distinctUntilChanged(Objects::equals);
+    }
+
+    /**
+     * Skips values that are the same as the last value delivered
+     *
+     * @param same checks if two values are the same, given the last value and the new one
+     * @return a stream without repeated values
+     */
+    public DataStream<T> distinctUntilChanged(BiPredicate<T, T> same) {
+        return from(onNext -> {
+            Object[] last = {null};
+            boolean[] hasLast = {false};
+            return subscribe(value -> {
+                @SuppressWarnings("unchecked")
+                T previous = (T) last[0];
+                if (hasLast[0] && same.test(previous, value)) {
+                    return;
+                }
+                last[0] = value;
+                hasLast[0] = true;
+                onNext.accept(value);
+            });
+        });
+    }
+
+    /**
+     * Delivers values on an executor, like a background thread for expensive transforms
+     *
+     * @param executor where values are delivered
+     * @return a stream delivered on the executor
+     */
+    public DataStream<T> observeOn(Executor executor) {
+        return from(onNext -> {
+            Subscription subscription = new Subscription();
+            subscription.add(subscribe(value -> executor.execute(() -> {
+                if (!subscription.removed) {
+                    onNext.accept(value);
+                }
+            })));
+            return subscription;
+        });
+    }
+
+    /**
+     * Only delivers a value once no new value has arrived for a while, like a search box that is still being typed in
+     *
+     * @param delayMs   how long the stream must be quiet for, in milliseconds
+     * @param scheduler where the delay is timed and the value is delivered
+     * @return a stream of the values that were followed by a quiet period
+     */
+    public DataStream<T> debounce(long delayMs, Scheduler scheduler) {
+        return from(onNext -> {
+            Subscription subscription = new Subscription();
+            subscription.add(subscribe(value -> {
+                subscription.cancelPending();
+                subscription.pending = scheduler.schedule(() -> {
+                    subscription.pending = null;
+                    if (!subscription.removed) {
+                        onNext.accept(value);
+                    }
+                }, delayMs);
+            }));
+            return subscription;
+        });
+    }
+
+    /**
+     * Delivers at most one value per period, the latest one that arrived during it.
+     * The period starts when a value arrives, so a quiet stream isn't delayed by an old period.
+     *
+     * @param periodMs  how long to collect values for, in milliseconds
+     * @param scheduler where the period is timed and the value is delivered
+     * @return a stream of the latest value of each period
+     */
+    public DataStream<T> sample(long periodMs, Scheduler scheduler) {
+        return from(onNext -> {
+            Subscription subscription = new Subscription();
+            Object[] latest = {null};
+            subscription.add(subscribe(value -> {
+                latest[0] = value;
+                if (subscription.pending != null) {
+                    return;
+                }
+
+                subscription.pending = scheduler.schedule(() -> {
+                    subscription.pending = null;
+                    @SuppressWarnings("unchecked")
+                    T sampled = (T) latest[0];
+                    latest[0] = null;
+                    if (!subscription.removed) {
+                        onNext.accept(sampled);
+                    }
+                }, periodMs);
+            }));
+            return subscription;
+        });
+    }
+
+    /**
+     * Delivers at most one value per frame, the latest one, just before the frame is drawn.
+     * Must be subscribed to on the main thread.
+     *
+     * @return a stream of the latest value of each frame
+     */
+    public DataStream<T> coalesceToFrame() {
+        return sample(0, nextFrame());
+    }
+
+    /**
+     * Combines the latest values of two streams. Nothing is delivered until both have delivered a value,
+     * then a new combined value is delivered whenever either of them changes.
+     *
+     * @param first   the first stream
+     * @param second  the second stream
+     * @param combine combines the latest values of both streams
+     * @return a stream of the combined values
+     */
+    public static <A, B, R> DataStream<R> combineLatest(DataStream<A> first, DataStream<B> second,
+                                                        BiFunction<A, B, R> combine) {
+        return from(onNext -> {
+            Object[] latest = {null, null};
+            boolean[] has = {false, false};
+            Runnable emit = () -> {
+                if (has[0] && has[1]) {
+                    @SuppressWarnings("unchecked")
+                    A a = (A) latest[0];
+                    @SuppressWarnings("unchecked")
+                    B b = (B) latest[1];
+                    onNext.accept(combine.apply(a, b));
+                }
+            };
+
+            Subscription subscription = new Subscription();
+            subscription.add(first.subscribe(a -> {
+                latest[0] = a;
+                has[0] = true;
+                emit.run();
+            }));
+            subscription.add(second.subscribe(b -> {
+                latest[1] = b;
+                has[1] = true;
+                emit.run();
+            }));
+            return subscription;
+        });
+    }
+
+    //-----------------------
+    // SCHEDULERS
+    //-----------------------
+
+    /**
+     * @return a scheduler that runs tasks on the main thread
+     */
+    public static Scheduler mainThread() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return (task, delayMs) -> {
+            handler.postDelayed(task, delayMs);
+            return () -> handler.removeCallbacks(task);
+        };
+    }
+
+    /**
+     * @return a scheduler that runs tasks just before the next frame after their delay, on the main thread
+     */
+    public static Scheduler nextFrame() {
+        return (task, delayMs) -> {
+            Choreographer choreographer = Choreographer.getInstance();
+            Choreographer.FrameCallback callback = frameTimeNanos -> task.run();
+            choreographer.postFrameCallbackDelayed(callback, delayMs);
+            return () -> choreographer.removeFrameCallback(callback);
+        };
+    }
+
+    /**
+     * The listeners behind one subscription, along with any task it has scheduled
+     */
+    private static class Subscription implements ListenerRegistration {
+        private ListenerRegistration[] upstream = new ListenerRegistration[0];
+        volatile boolean removed = false;
+        Runnable pending = null;
+
+        void add(ListenerRegistration registration) {
+            ListenerRegistration[] added = Arrays.copyOf(upstream, upstream.length + 1);
+            added[upstream.length] = registration;
+            upstream = added;
+        }
+
+        void cancelPending() {
+            if (pending != null) {
+                pending.run();
+                pending = null;
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (removed) {
+                return;
+            }
+            removed = true;
+            cancelPending();
+            for (ListenerRegistration registration : upstream) {
+                registration.remove();
+            }
+        }
+    }
+}
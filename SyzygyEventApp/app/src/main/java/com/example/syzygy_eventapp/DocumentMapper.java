@@ -0,0 +1,476 @@
+package com.example.syzygy_eventapp;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts Firestore document data to model objects and back, without reflection.
+ * <p>
+ * DocumentSnapshot.toObject() and set(Object) look up the getters, setters and fields of a class
+ * through reflection, which is slow on the first use of each class and allocates for every field after that.
+ * These mappers read and write each field by name instead. They use the same field names and defaults as
+ * toObject(), so documents written either way can be read either way.
+ * </p>
+ * They are kept in sync with the models by hand, so any field added to a model must be added here too.
+ * DocumentMapperTest compares every mapper against Firestore's reflective mapper to catch missing fields.
+ */
+public final class DocumentMapper {
+
+    private DocumentMapper() {
+    }
+
+    //-----------------------
+    // EVENTS
+    //-----------------------
+
+    /**
+     * Converts an event document to an Event
+     *
+     * @param id   the document's ID, used as the event's ID
+     * @param data the document's data
+     * @return the event
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static Event toEvent(String id, Map<String, Object> data) {
+        requireData(id, data);
+
+        Event event = new Event();
+        event.setEventID(id != null ? id : getString(data, "eventID"));
+        event.setName(getString(data, "name"));
+        event.setDescription(getString(data, "description"));
+        event.setOrganizerID(getString(data, "organizerID"));
+        event.setEventTime(getTimestamp(data, "eventTime"));
+        event.setLocationName(getString(data, "locationName"));
+        event.setLocationCoordinates(get(data, "locationCoordinates", GeoPoint.class));
+        event.setGeolocationRequired(getBoolean(data, "geolocationRequired", false));
+        event.setPosterUrl(getString(data, "posterUrl"));
+        event.setPosterThumbnail(getString(data, "posterThumbnail"));
+        event.setPosterPlaceholder(getString(data, "posterPlaceholder"));
+        List<String> waitingList = getStringList(data, "waitingList");
+        if (waitingList != null) {
+            event.setWaitingList(waitingList);
+        }
+        List<String> invites = getStringList(data, "invites");
+        if (invites != null) {
+            event.setInvites(invites);
+        }
+        event.setMaxWaitingList(getInteger(data, "maxWaitingList"));
+        event.setRegistrationStart(getTimestamp(data, "registrationStart"));
+        event.setRegistrationEnd(getTimestamp(data, "registrationEnd"));
+        event.setMaxAttendees(getInteger(data, "maxAttendees"));
+        event.setLotteryComplete(getBoolean(data, "lotteryComplete", false));
+        event.setAcceptedCount(getInteger(data, "acceptedCount"));
+        event.setPendingCount(getInteger(data, "pendingCount"));
+        event.setDeclinedCount(getInteger(data, "declinedCount"));
+        event.setWaitingCount(getInteger(data, "waitingCount"));
+        event.setCreatedAt(getTimestamp(data, "createdAt"));
+        event.setUpdatedAt(getTimestamp(data, "updatedAt"));
+        // waitingSize and open are only written, for queries, they're recalculated from the other fields
+        event.clearChanges();
+        return event;
+    }
+
+    /**
+     * Converts an Event to document data, including the derived waitingSize and open fields
+     *
+     * @param event the event
+     * @return the event's document data
+     */
+    public static Map<String, Object> toMap(Event event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventID", event.getEventID());
+        data.put("name", event.getName());
+        data.put("description", event.getDescription());
+        data.put("organizerID", event.getOrganizerID());
+        data.put("eventTime", event.getEventTime());
+        data.put("locationName", event.getLocationName());
+        data.put("locationCoordinates", event.getLocationCoordinates());
+        data.put("geolocationRequired", event.isGeolocationRequired());
+        data.put("posterUrl", event.getPosterUrl());
+        data.put("posterThumbnail", event.getPosterThumbnail());
+        data.put("posterPlaceholder", event.getPosterPlaceholder());
+        data.put("waitingSize", event.getWaitingSize());
+        data.put("waitingList", copy(event.getWaitingList()));
+        data.put("invites", copy(event.getInvites()));
+        data.put("maxWaitingList", event.getMaxWaitingList());
+        data.put("registrationStart", event.getRegistrationStart());
+        data.put("registrationEnd", event.getRegistrationEnd());
+        data.put("open", event.isOpen());
+        data.put("maxAttendees", event.getMaxAttendees());
+        data.put("lotteryComplete", event.isLotteryComplete());
+        data.put("acceptedCount", event.getAcceptedCount());
+        data.put("pendingCount", event.getPendingCount());
+        data.put("declinedCount", event.getDeclinedCount());
+        data.put("waitingCount", event.getWaitingCount());
+        data.put("createdAt", event.getCreatedAt());
+        data.put("updatedAt", event.getUpdatedAt());
+        return data;
+    }
+
+    //-----------------------
+    // USERS
+    //-----------------------
+
+    /**
+     * Converts a user document to a {@link User}, {@link Organizer} or {@link Admin}, depending on its role.
+     * A user without a role is read as an entrant.
+     *
+     * @param id   the document's ID, used as the user's ID
+     * @param data the document's data
+     * @return the user
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static User toUser(String id, Map<String, Object> data) {
+        requireData(id, data);
+
+        String userID = id != null ? id : getString(data, "userID");
+        Role role = getRole(data);
+        String name = getString(data, "name");
+        if (name == null) {
+            name = new User().getName();
+        }
+        String email = getString(data, "email");
+        String phone = getString(data, "phone");
+        String photoURL = getString(data, "photoURL");
+        String photoPlaceholder = getString(data, "photoPlaceholder");
+        boolean photoHidden = getBoolean(data, "photoHidden", false);
+        boolean demoted = getBoolean(data, "demoted", false);
+
+        User user;
+        if (role == Role.ENTRANT) {
+            user = new User(null, name, email, phone, photoURL, photoHidden, demoted, role);
+        } else {
+            List<String> ownedEventIDs = getStringList(data, "ownedEventIDs");
+            if (ownedEventIDs == null) {
+                ownedEventIDs = new ArrayList<>();
+            }
+
+            if (role == Role.ORGANIZER) {
+                user = new Organizer(null, name, email, phone, photoURL, photoHidden, demoted, ownedEventIDs, role);
+            } else {
+                user = new Admin(null, name, email, phone, photoURL, photoHidden, demoted, ownedEventIDs, role);
+            }
+        }
+
+        // the ID is set last, since these setters only write to the DB once the user has one
+        user.setSystemNotifications(getBoolean(data, "systemNotifications", true));
+        user.setOrganizerNotifications(getBoolean(data, "organizerNotifications", true));
+        user.setPhotoPlaceholder(photoPlaceholder);
+        user.setUserID(userID);
+        return user;
+    }
+
+    /**
+     * Converts a user to document data, including the owned events of organizers and admins
+     *
+     * @param user the user
+     * @return the user's document data
+     */
+    public static Map<String, Object> toMap(User user) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userID", user.getUserID());
+        data.put("name", user.getName());
+        data.put("email", user.getEmail());
+        data.put("phone", user.getPhone());
+        data.put("photoURL", user.getPhotoURL());
+        data.put("photoPlaceholder", user.getPhotoPlaceholder());
+        data.put("photoHidden", user.isPhotoHidden());
+        data.put("demoted", user.isDemoted());
+        data.put("role", user.getRole() != null ? user.getRole().name() : null);
+        data.put("systemNotifications", user.isSystemNotifications());
+        data.put("organizerNotifications", user.isOrganizerNotifications());
+        if (user instanceof Organizer) {
+            data.put("ownedEventIDs", copy(((Organizer) user).getOwnedEventIDs()));
+        }
+        return data;
+    }
+
+    //-----------------------
+    // INVITATIONS
+    //-----------------------
+
+    /**
+     * Converts an invitation document to an Invitation
+     *
+     * @param id   the document's ID, used as the invitation's ID
+     * @param data the document's data
+     * @return the invitation
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static Invitation toInvitation(String id, Map<String, Object> data) {
+        requireData(id, data);
+
+        Invitation invite = new Invitation(
+                id != null ? id : getString(data, "invitation"),
+                getString(data, "event"),
+                getString(data, "organizerID"),
+                getString(data, "recipientID"),
+                get(data, "accepted", Boolean.class),
+                getTimestamp(data, "sendTime"),
+                getTimestamp(data, "responseTime"),
+                get(data, "cancelled", Boolean.class),
+                getTimestamp(data, "cancelTime")
+        );
+        invite.setState(getInvitationState(data));
+        Integer version = getInteger(data, "version");
+        invite.setVersion(version != null ? version : 0);
+        return invite;
+    }
+
+    /**
+     * Converts an invitation to document data
+     *
+     * @param invite the invitation
+     * @return the invitation's document data
+     */
+    public static Map<String, Object> toMap(Invitation invite) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("invitation", invite.getInvitation());
+        data.put("event", invite.getEvent());
+        data.put("organizerID", invite.getOrganizerID());
+        data.put("recipientID", invite.getRecipientID());
+        data.put("accepted", invite.getAccepted());
+        data.put("sendTime", invite.getSendTime());
+        data.put("responseTime", invite.getResponseTime());
+        data.put("cancelled", invite.getCancelled());
+        data.put("cancelTime", invite.getCancelTime());
+        data.put("state", invite.getState().name());
+        data.put("version", invite.getVersion());
+        return data;
+    }
+
+    //-----------------------
+    // NOTIFICATIONS
+    //-----------------------
+
+    /**
+     * Converts a notification document to a Notification
+     *
+     * @param data the document's data
+     * @return the notification
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static Notification toNotification(Map<String, Object> data) {
+        requireData(null, data);
+
+        Notification notif = new Notification();
+        Integer id = getInteger(data, "id");
+        if (id != null) {
+            notif.setId(id);
+        }
+        notif.setTitle(getString(data, "title"));
+        notif.setDescription(getString(data, "description"));
+        notif.setEventId(getString(data, "eventId"));
+        notif.setOrganizerId(getString(data, "organizerId"));
+        Timestamp creationDate = getTimestamp(data, "creationDate");
+        if (creationDate != null) {
+            notif.setCreationDate(creationDate);
+        }
+        notif.setSent(getBoolean(data, "sent", false));
+        notif.setDeleted(getBoolean(data, "deleted", false));
+        return notif;
+    }
+
+    /**
+     * Converts a notification to document data
+     *
+     * @param notif the notification
+     * @return the notification's document data
+     */
+    public static Map<String, Object> toMap(Notification notif) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", notif.getId());
+        data.put("title", notif.getTitle());
+        data.put("description", notif.getDescription());
+        data.put("eventId", notif.getEventId());
+        data.put("organizerId", notif.getOrganizerId());
+        data.put("creationDate", notif.getCreationDate());
+        data.put("sent", notif.isSent());
+        data.put("deleted", notif.isDeleted());
+        return data;
+    }
+
+    /**
+     * Converts a user notification document to a UserNotification
+     *
+     * @param data the document's data
+     * @return the user notification
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static UserNotification toUserNotification(Map<String, Object> data) {
+        requireData(null, data);
+
+        UserNotification userNotif = new UserNotification();
+        userNotif.setUserId(getString(data, "userId"));
+        Integer notificationId = getInteger(data, "notificationId");
+        if (notificationId != null) {
+            userNotif.setNotificationId(notificationId);
+        }
+        userNotif.setSent(getBoolean(data, "sent", false));
+        return userNotif;
+    }
+
+    /**
+     * Converts a user notification to document data
+     *
+     * @param userNotif the user notification
+     * @return the user notification's document data
+     */
+    public static Map<String, Object> toMap(UserNotification userNotif) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userNotif.getUserId());
+        data.put("notificationId", userNotif.getNotificationId());
+        data.put("sent", userNotif.isSent());
+        return data;
+    }
+
+    //-----------------------
+    // WAITING LIST ENTRIES
+    //-----------------------
+
+    /**
+     * Converts a waiting list entry document to a WaitlistEntry
+     *
+     * @param data the document's data
+     * @return the entry
+     * @throws IllegalArgumentException if a field has the wrong type
+     */
+    public static WaitlistEntry toWaitlistEntry(Map<String, Object> data) {
+        requireData(null, data);
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUserId(getString(data, "userId"));
+        entry.setUserName(getString(data, "userName"));
+        entry.setJoinedAt(getTimestamp(data, "joinedAt"));
+        entry.setRegistrationDate(getTimestamp(data, "registrationDate"));
+        entry.setCancellationDate(getTimestamp(data, "cancellationDate"));
+        entry.setStatus(getString(data, "status"));
+        return entry;
+    }
+
+    /**
+     * Converts a waiting list entry to document data
+     *
+     * @param entry the entry
+     * @return the entry's document data
+     */
+    public static Map<String, Object> toMap(WaitlistEntry entry) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", entry.getUserId());
+        data.put("userName", entry.getUserName());
+        data.put("joinedAt", entry.getJoinedAt());
+        data.put("registrationDate", entry.getRegistrationDate());
+        data.put("cancellationDate", entry.getCancellationDate());
+        data.put("status", entry.getStatus());
+        return data;
+    }
+
+    //-----------------------
+    // FIELD HELPERS
+    //-----------------------
+
+    private static void requireData(String id, Map<String, Object> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Document " + id + " has no data");
+        }
+    }
+
+    /**
+     * Gets a field, checking its type
+     *
+     * @return the field's value, or null if it's missing
+     * @throws IllegalArgumentException if the value isn't a {@code type}
+     */
+    private static <T> T get(Map<String, Object> data, String field, Class<T> type) {
+        Object value = data.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Field " + field + " should be a " + type.getSimpleName()
+                    + " but was a " + value.getClass().getSimpleName());
+        }
+        return type.cast(value);
+    }
+
+    private static String getString(Map<String, Object> data, String field) {
+        return get(data, field, String.class);
+    }
+
+    private static boolean getBoolean(Map<String, Object> data, String field, boolean fallback) {
+        Boolean value = get(data, field, Boolean.class);
+        return value != null ? value : fallback;
+    }
+
+    /**
+     * Gets a whole number field. Firestore always returns these as longs.
+     */
+    private static Integer getInteger(Map<String, Object> data, String field) {
+        Number value = get(data, field, Number.class);
+        return value != null ? value.intValue() : null;
+    }
+
+    private static Timestamp getTimestamp(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value instanceof Date) {
+            return new Timestamp((Date) value);
+        }
+        return get(data, field, Timestamp.class);
+    }
+
+    private static Role getRole(Map<String, Object> data) {
+        String role = getString(data, "role");
+        if (role == null) {
+            return Role.ENTRANT;
+        }
+        try {
+            return Role.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown role " + role);
+        }
+    }
+
+    /**
+     * Gets an invitation's state, or null if it was written before invitations had one
+     */
+    private static InvitationState getInvitationState(Map<String, Object> data) {
+        String state = getString(data, "state");
+        if (state == null) {
+            return null;
+        }
+        try {
+            return InvitationState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown invitation state " + state);
+        }
+    }
+
+    /**
+     * Gets a list of strings, copying it so the model owns its list
+     */
+    private static List<String> getStringList(Map<String, Object> data, String field) {
+        List<?> value = get(data, field, List.class);
+        if (value == null) {
+            return null;
+        }
+
+        List<String> strings = new ArrayList<>(value.size());
+        for (Object item : value) {
+            if (item != null && !(item instanceof String)) {
+                throw new IllegalArgumentException("Field " + field + " should only contain strings");
+            }
+            strings.add((String) item);
+        }
+        return strings;
+    }
+
+    private static List<String> copy(List<String> list) {
+        return list != null ? new ArrayList<>(list) : null;
+    }
+}
@@ -7,15 +7,17 @@ import android.util.Base64;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.Filter;
 import com.google.firebase.firestore.GeoPoint;
 
 import java.sql.Time;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Event (model)
@@ -64,6 +66,8 @@ public class Event {
 
     // --- Poster / Media ---
     private String posterUrl;             // Stored in Firebase Storage, referenced by URL
+    private String posterThumbnail;       // Small Base64 copy of the poster for list rows, null for older events
+    private String posterPlaceholder;     // Tiny blurred copy shown while the poster loads, see ImagePlaceholder
 
     // --- Waiting List ---
     private List<String> waitingList = new ArrayList<>();     // List of user IDs in waiting list
@@ -80,10 +84,22 @@ public class Event {
     private Integer maxAttendees;         // Max entrants selected from lottery
     private boolean lotteryComplete;      // True when lottery is done
 
+    // --- Counters ---
+    // Kept up to date by the controllers in the same write as the change they count, null if never counted
+    private Integer acceptedCount;        // Invitations accepted
+    private Integer pendingCount;         // Invitations not yet answered or cancelled
+    private Integer declinedCount;        // Invitations declined
+    private Integer waitingCount;         // Users on the waiting list
+
     // --- Metadata ---
     private Timestamp createdAt;
     private Timestamp updatedAt;
 
+    // --- Change tracking ---
+    // Fields set to a new value since the event was read or saved, so EventController.updateEvent(Event)
+    // only writes those. Not a property, so it's never stored.
+    private final Set<String> changedFields = new HashSet<>();
+
     // --- Required empty constructor for Firestore ---
     public Event() {
     }
@@ -115,6 +131,52 @@ public class Event {
         this.updatedAt = updatedAt;
     }
 
+    // --- Change tracking ---
+
+    /**
+     * Records a field as changed if its new value is different
+     *
+     * @return the new value
+     */
+    private <T> T change(String field, T oldValue, T newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            changedFields.add(field);
+        }
+        return newValue;
+    }
+
+    /**
+     * @return the fields set to a new value since the event was read or last saved
+     */
+    public Set<String> changedFields() {
+        return Collections.unmodifiableSet(new HashSet<>(changedFields));
+    }
+
+    /**
+     * Marks fields as saved, like once they're written to the database
+     *
+     * @param fields the saved fields
+     */
+    public void clearChanges(Collection<String> fields) {
+        changedFields.removeAll(fields);
+    }
+
+    /**
+     * Marks every field as saved, like once the event is read from the database
+     */
+    public void clearChanges() {
+        changedFields.clear();
+    }
+
+    /**
+     * Marks fields as changed again, like when writing them failed
+     *
+     * @param fields the unsaved fields
+     */
+    void restoreChanges(Collection<String> fields) {
+        changedFields.addAll(fields);
+    }
+
     // --- Getters and Setters ---
 
     public Task<Status> calculateRelativeStatus(String userId) {
@@ -127,38 +189,27 @@ public class Event {
             return Tasks.forResult(Status.Waitlisted);
         }
 
-        Filter filter = Filter.and(
-                Filter.equalTo("recipientID", userId),
-                Filter.equalTo("event", eventID));
-        return InvitationController.getInstance().getInvites(filter)
+        // the user's invites that weren't cancelled, with one indexed query
+        return InvitationController.getInstance().getUserEventInvite(eventID, userId)
                 .continueWithTask((task) -> {
                     if (!task.isSuccessful()) {
                         return Tasks.forResult(Status.Unknown);
                     }
 
-                    List<Invitation> invites = task.getResult();
-
-                    // remove cancelled invites
-                    List<Invitation> filteredInvites = invites.stream()
-                            .filter(invite -> !invite.getCancelled())
-                            .sorted(Comparator.comparing(Invitation::getResponseTime))
-                            .collect(Collectors.toList());
-
-                    if (filteredInvites.isEmpty()) {
+                    Invitation invite = task.getResult();
+                    if (invite == null) {
                         return Tasks.forResult(absoluteStatus);
                     }
 
-                    // remove cancelled invites
-                    Invitation invite = filteredInvites.get(filteredInvites.size() - 1);
-
-                    if (invite.hasResponse()) {
-                        if (invite.getAccepted()) {
+                    switch (invite.getState()) {
+                        case ACCEPTED:
                             return Tasks.forResult(Status.Accepted);
-                        } else {
+                        case DECLINED:
                             return Tasks.forResult(Status.Declined);
-                        }
-                    } else {
-                        return Tasks.forResult(Status.Pending);
+                        case PENDING:
+                            return Tasks.forResult(Status.Pending);
+                        default:
+                            return Tasks.forResult(absoluteStatus);
                     }
                 });
     }
@@ -192,7 +243,7 @@ public class Event {
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.name = change("name", this.name, name);
     }
 
     public String getDescription() {
@@ -200,7 +251,7 @@ public class Event {
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        this.description = change("description", this.description, description);
     }
 
     public String getOrganizerID() {
@@ -220,7 +271,7 @@ public class Event {
     }
 
     public void setEventTime(Timestamp eventTime) {
-        this.eventTime = eventTime;
+        this.eventTime = change("eventTime", this.eventTime, eventTime);
     }
 
     public String getLocationName() {
@@ -228,7 +279,7 @@ public class Event {
     }
 
     public void setLocationName(String locationName) {
-        this.locationName = locationName;
+        this.locationName = change("locationName", this.locationName, locationName);
     }
 
     public GeoPoint getLocationCoordinates() {
@@ -236,7 +287,7 @@ public class Event {
     }
 
     public void setLocationCoordinates(GeoPoint locationCoordinates) {
-        this.locationCoordinates = locationCoordinates;
+        this.locationCoordinates = change("locationCoordinates", this.locationCoordinates, locationCoordinates);
     }
 
     public boolean isGeolocationRequired() {
@@ -244,7 +295,7 @@ public class Event {
     }
 
     public void setGeolocationRequired(boolean geolocationRequired) {
-        this.geolocationRequired = geolocationRequired;
+        this.geolocationRequired = change("geolocationRequired", this.geolocationRequired, geolocationRequired);
     }
 
     public String getPosterUrl() {
@@ -252,12 +303,44 @@ public class Event {
     }
 
     public void setPosterUrl(String posterUrl) {
-        this.posterUrl = posterUrl;
+        this.posterUrl = change("posterUrl", this.posterUrl, posterUrl);
+    }
+
+    public String getPosterThumbnail() {
+        return posterThumbnail;
+    }
+
+    public void setPosterThumbnail(String posterThumbnail) {
+        this.posterThumbnail = change("posterThumbnail", this.posterThumbnail, posterThumbnail);
+    }
+
+    public String getPosterPlaceholder() {
+        return posterPlaceholder;
+    }
+
+    public void setPosterPlaceholder(String posterPlaceholder) {
+        this.posterPlaceholder = change("posterPlaceholder", this.posterPlaceholder, posterPlaceholder);
+    }
+
+    /**
+     * The poster's thumbnail, falling back to the full poster for events saved before thumbnails existed.
+     *
+     * @return the smallest copy of the poster good enough for list rows, or null if the event has no poster
+     */
+    public String posterPreview() {
+        return posterThumbnail != null ? posterThumbnail : posterUrl;
     }
 
     public Bitmap generatePosterBitmap() {
+        return decodeBitmap(posterUrl);
+    }
+
+    private static Bitmap decodeBitmap(String base64) {
+        if (base64 == null) {
+            return null;
+        }
         try {
-            byte[] decodedBytes = Base64.decode(posterUrl, Base64.DEFAULT);
+            byte[] decodedBytes = Base64.decode(base64, Base64.DEFAULT);
             return BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
         } catch (Exception e) {
             return null;
@@ -275,7 +358,7 @@ public class Event {
     }
 
     public void setWaitingList(List<String> waitingList) {
-        this.waitingList = waitingList;
+        this.waitingList = change("waitingList", this.waitingList, waitingList);
     }
 
     public List<String> getInvites() {
@@ -283,7 +366,7 @@ public class Event {
     }
 
     public void setInvites(List<String> invites) {
-        this.invites = invites;
+        this.invites = change("invites", this.invites, invites);
     }
 
     public Integer getMaxWaitingList() {
@@ -291,7 +374,7 @@ public class Event {
     }
 
     public void setMaxWaitingList(Integer maxWaitingList) {
-        this.maxWaitingList = maxWaitingList;
+        this.maxWaitingList = change("maxWaitingList", this.maxWaitingList, maxWaitingList);
     }
 
     public Timestamp getRegistrationStart() {
@@ -299,7 +382,7 @@ public class Event {
     }
 
     public void setRegistrationStart(Timestamp registrationStart) {
-        this.registrationStart = registrationStart;
+        this.registrationStart = change("registrationStart", this.registrationStart, registrationStart);
     }
 
     public Timestamp getRegistrationEnd() {
@@ -307,7 +390,7 @@ public class Event {
     }
 
     public void setRegistrationEnd(Timestamp registrationEnd) {
-        this.registrationEnd = registrationEnd;
+        this.registrationEnd = change("registrationEnd", this.registrationEnd, registrationEnd);
     }
 
     public Integer getMaxAttendees() {
@@ -315,7 +398,7 @@ public class Event {
     }
 
     public void setMaxAttendees(Integer maxAttendees) {
-        this.maxAttendees = maxAttendees;
+        this.maxAttendees = change("maxAttendees", this.maxAttendees, maxAttendees);
     }
 
     public boolean isLotteryComplete() {
@@ -323,7 +406,49 @@ public class Event {
     }
 
     public void setLotteryComplete(boolean lotteryComplete) {
-        this.lotteryComplete = lotteryComplete;
+        this.lotteryComplete = change("lotteryComplete", this.lotteryComplete, lotteryComplete);
+    }
+
+    public Integer getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public void setAcceptedCount(Integer acceptedCount) {
+        this.acceptedCount = acceptedCount;
+    }
+
+    public Integer getPendingCount() {
+        return pendingCount;
+    }
+
+    public void setPendingCount(Integer pendingCount) {
+        this.pendingCount = pendingCount;
+    }
+
+    public Integer getDeclinedCount() {
+        return declinedCount;
+    }
+
+    public void setDeclinedCount(Integer declinedCount) {
+        this.declinedCount = declinedCount;
+    }
+
+    public Integer getWaitingCount() {
+        return waitingCount;
+    }
+
+    public void setWaitingCount(Integer waitingCount) {
+        this.waitingCount = waitingCount;
+    }
+
+    /**
+     * Checks if the invitation counters have ever been filled in for this event.
+     * Events created before the counters existed need them to be recounted once.
+     *
+     * @return true if all the invitation counters are present
+     */
+    public boolean hasInvitationCounters() {
+        return acceptedCount != null && pendingCount != null && declinedCount != null;
     }
 
     public boolean isOpen() {
@@ -11,11 +11,18 @@ import com.google.firebase.functions.HttpsCallableReference;
 import com.google.firebase.functions.HttpsCallableResult;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Controller for reading/writing {@link Event} data in Firestore DB.
@@ -25,13 +32,48 @@ import java.util.function.Consumer;
 public class EventController {
     private static EventController singletonInstance = null;
 
+    // Every field an organizer or admin can edit through updateEvent(Event).
+    // The waiting list, invites and counters are left out so a stale copy of the event can never overwrite them,
+    // they're only changed by the controllers' own transactions and array updates.
+    private static final List<String> EDITABLE_FIELDS = Arrays.asList(
+            "name", "description", "eventTime",
+            "locationName", "locationCoordinates", "geolocationRequired",
+            "posterUrl", "posterThumbnail", "posterPlaceholder",
+            "maxWaitingList", "registrationStart", "registrationEnd",
+            "maxAttendees", "lotteryComplete"
+    );
+
+    /**
+     * The most events {@link #createEvents(List)} writes in one batch, under Firestore's limit of 500 writes
+     */
+    public static final int MAX_BATCH_EVENTS = 400;
+
+    // the most document IDs one "in" query can check
+    static final int MAX_IN_QUERY = 30;
+
+    static final String WAITING_COUNT = "waitingCount";
+    // the counters kept on each event
+    static final List<String> COUNTER_FIELDS = Arrays.asList(WAITING_COUNT,
+            InvitationController.ACCEPTED_COUNT, InvitationController.PENDING_COUNT, InvitationController.DECLINED_COUNT);
+
     private final CollectionReference eventsRef;
+    // compact summaries of archived events, written by the server's archival job
+    private final CollectionReference summariesRef;
     private final HttpsCallableReference drawLotteryEarly;
     private final InvitationController invitationController;
+    // events that have already been asked to recount, so each is only recounted once per run
+    private final Set<String> recountedEventIDs = new HashSet<>();
+    // keys: "events", "waitingList:{eventID}"
+    private final CountCache counts = new CountCache();
+    // decodes snapshots off the main thread
+    private SnapshotDecoder decoder = SnapshotDecoder.getDefault();
+    // retries, backoff and deadlines for every call
+    private final OperationPolicy policy = OperationPolicy.getDefault();
 
     private EventController() {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         eventsRef = db.collection("events");
+        summariesRef = db.collection("eventSummaries");
 
         FirebaseFunctions fbFunctions = FirebaseFunctions.getInstance();
         drawLotteryEarly = fbFunctions.getHttpsCallable("drawLotteryEarly");
@@ -51,6 +93,17 @@ public class EventController {
         return singletonInstance;
     }
 
+    /**
+     * Sets where snapshots and query results are decoded, and where listener callbacks are called.
+     * By default decoding happens on a shared background thread, and callbacks on the main thread.
+     *
+     * @param decodeExecutor where snapshots are decoded, filtered and sorted
+     * @param mainExecutor   where listener callbacks are called
+     */
+    public void setExecutors(Executor decodeExecutor, Executor mainExecutor) {
+        decoder = new SnapshotDecoder(decodeExecutor, mainExecutor);
+    }
+
     //-----------------------
     // EVENT CREATION
     //-----------------------
@@ -70,33 +123,149 @@ public class EventController {
         event.setCreatedAt(Timestamp.now());
         event.setUpdatedAt(event.getCreatedAt());
 
+        // a new event has no invitations yet
+        event.setAcceptedCount(0);
+        event.setPendingCount(0);
+        event.setDeclinedCount(0);
+        event.setWaitingCount(event.getWaitingSize());
+
         // Create a new document in the events collection
         DocumentReference doc = eventsRef.document();
         String eventID = doc.getId();
         event.setEventID(eventID);
 
-        return doc.set(event).continueWith(task -> {
+        Task<Void> write = policy.write("EventController.createEvent", 1, doc.set(DocumentMapper.toMap(event)));
+        event.clearChanges();
+        return write.continueWith(task -> {
             if (!task.isSuccessful()) {
                 throw Objects.requireNonNull(task.getException());
             }
+            counts.invalidate("events");
             return eventID;
         });
     }
 
+    /**
+     * Create many events with a single batched write, like when importing them.
+     * Each event must already have its document ID. Events whose ID is already taken are skipped instead of
+     * overwritten, so writing the same events again can't reset the waiting lists, invites and counters
+     * of events people have joined since. The IDs are checked with "in" queries before the batch is written.
+     *
+     * @param events events with their details and IDs filled in, at most {@link #MAX_BATCH_EVENTS}
+     * @return Task that completes with the IDs that already existed, and weren't written, once every other event
+     * is created
+     * @throws IllegalArgumentException if any required fields are missing, or there are too many events.
+     */
+    public Task<List<String>> createEvents(List<Event> events) {
+        if (events.size() > MAX_BATCH_EVENTS) {
+            return Tasks.forException(new IllegalArgumentException(
+                    "At most " + MAX_BATCH_EVENTS + " events can be created at once"));
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (Event event : events) {
+            if (event.getEventID() == null || event.getName() == null || event.getOrganizerID() == null) {
+                return Tasks.forException(new IllegalArgumentException("Event ID, name and organizerID are required"));
+            }
+            ids.add(event.getEventID());
+        }
+
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += MAX_IN_QUERY) {
+            List<String> chunk = ids.subList(start, Math.min(start + MAX_IN_QUERY, ids.size()));
+            reads.add(policy.query("EventController.createEvents",
+                    () -> eventsRef.whereIn(FieldPath.documentId(), chunk).get()));
+        }
+
+        return Tasks.whenAllComplete(reads).continueWithTask(done -> {
+            Set<String> taken = new HashSet<>();
+            for (Task<QuerySnapshot> read : reads) {
+                if (!read.isSuccessful()) {
+                    return Tasks.forException(Objects.requireNonNull(read.getException()));
+                }
+                for (DocumentSnapshot doc : read.getResult().getDocuments()) {
+                    taken.add(doc.getId());
+                }
+            }
+
+            Timestamp now = Timestamp.now();
+            WriteBatch batch = eventsRef.getFirestore().batch();
+            List<String> skipped = new ArrayList<>();
+            for (Event event : events) {
+                if (taken.contains(event.getEventID())) {
+                    skipped.add(event.getEventID());
+                    continue;
+                }
+
+                event.setCreatedAt(now);
+                event.setUpdatedAt(now);
+                event.setAcceptedCount(0);
+                event.setPendingCount(0);
+                event.setDeclinedCount(0);
+                event.setWaitingCount(event.getWaitingSize());
+
+                batch.set(eventsRef.document(event.getEventID()), DocumentMapper.toMap(event));
+                event.clearChanges();
+            }
+
+            int writes = events.size() - skipped.size();
+            if (writes == 0) {
+                return Tasks.forResult(skipped);
+            }
+            return policy.write("EventController.createEvents", writes, batch.commit())
+                    .continueWith(task -> {
+                        if (!task.isSuccessful()) {
+                            throw Objects.requireNonNull(task.getException());
+                        }
+                        counts.invalidate("events");
+                        return skipped;
+                    });
+        });
+    }
+
     /**
      * Update event with provided details.
+     * Only the fields changed since the event was read are written, in a single update, so saving a new name
+     * doesn't upload the poster again or overwrite anything changed by someone else meanwhile.
+     * The waiting list, invites and counters are never written, they are maintained by the controllers.
      *
-     * @param event Event object with the details filled in.
-     * @return Task that completes when the document is created.
-     * @throws IllegalArgumentException if any required fields are missing.
+     * @param event Event object with the details changed.
+     * @return Task that completes when the document is updated, right away if nothing changed.
+     * @throws IllegalArgumentException if the event has no ID, or a field that can't be edited was changed.
      */
     public Task<Void> updateEvent(Event event) {
+        if (event.getEventID() == null || event.getEventID().isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventID is required"));
+        }
+
+        Set<String> changed = event.changedFields();
+        if (changed.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        for (String field : changed) {
+            if (!EDITABLE_FIELDS.contains(field)) {
+                return Tasks.forException(new IllegalArgumentException(
+                        field + " can't be changed through updateEvent(Event)"));
+            }
+        }
+
         event.setUpdatedAt(Timestamp.now());
+        Map<String, Object> data = DocumentMapper.toMap(event);
+        Map<String, Object> updates = new HashMap<>();
+        for (String field : changed) {
+            updates.put(field, data.get(field));
+        }
+        // open is derived from the registration period, for queries
+        if (changed.contains("registrationStart") || changed.contains("registrationEnd")) {
+            updates.put("open", data.get("open"));
+        }
+        updates.put("updatedAt", data.get("updatedAt"));
 
-        // Create a new document in the events collection
+        // the write is queued right away, so later changes are tracked separately from these
+        event.clearChanges(changed);
         DocumentReference doc = eventsRef.document(event.getEventID());
-
-        return doc.set(event, SetOptions.merge());
+        return policy.write("EventController.updateEvent", 1, doc.update(updates))
+                .addOnFailureListener(e -> event.restoreChanges(changed));
     }
 
     //-----------------------
@@ -117,28 +286,13 @@ public class EventController {
             throw new IllegalArgumentException("eventID is required");
         }
         DocumentReference doc = eventsRef.document(eventID);
-        return doc.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
-
-            // snap can't be null because none of it's implementations can return null
-            if (!snap.exists()) {
+        return decoder.observe(doc, "EventController.observeEvent", EventController::decodeEvent, event -> {
+            if (event == null) {
                 onDelete.run();
-                return;
-            }
-            // Convert to Event object
-            Event event = snap.toObject(Event.class);
-            if (event != null) {
-                if (event.getEventID() == null) {
-                    event.setEventID(snap.getId());
-                    onEventChange.accept(event);
-                }
+            } else {
                 onEventChange.accept(event);
             }
         });
-
     }
 
     /**
@@ -148,24 +302,44 @@ public class EventController {
      * @return ListenerRegistration that must be removed when no longer needed
      */
     public ListenerRegistration observeAllEvents(Consumer<List<Event>> onChange) {
-        return eventsRef.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
+        return observeAllEvents(null, null, onChange);
+    }
 
-            List<Event> events = new ArrayList<>();
-            if (snap != null) {
-                for (DocumentSnapshot doc : snap.getDocuments()) {
-                    Event event = doc.toObject(Event.class);
-                    if (event != null) {
-                        event.setEventID(doc.getId());
-                        events.add(event);
-                    }
-                }
-            }
-            onChange.accept(events);
-        });
+    /**
+     * Observe the events matching a filter in real time.
+     * The filter and sort run in the background along with the decoding, so the callback only gets the final list.
+     *
+     * @param filter   which events to keep, or null to keep all of them
+     * @param order    how to sort the events, or null to keep Firestore's order
+     * @param onChange Callback invoked with the latest list of Event objects
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public ListenerRegistration observeAllEvents(Predicate<Event> filter, Comparator<Event> order,
+                                                 Consumer<List<Event>> onChange) {
+        return decoder.observe(eventsRef, "EventController.observeAllEvents",
+                snap -> decodeEvents(snap, filter, order), onChange);
+    }
+
+    /**
+     * Streams all events in real time, see {@link #observeAllEvents(Consumer)}
+     *
+     * @return DataStream of the latest list of Event objects
+     */
+    public DataStream<List<Event>> streamAllEvents() {
+        return DataStream.from(onChange -> observeAllEvents(onChange));
+    }
+
+    /**
+     * Observe the changes to every event, for keeping a copy of the events like the {@link LocalMirror}.
+     * Both the decoding and the callback run on the given executor, so the callback can write to disk.
+     *
+     * @param executor where snapshots are decoded and delivered
+     * @param onChange Callback invoked with the events that changed since the last snapshot
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public ListenerRegistration observeEventChanges(Executor executor, Consumer<SnapshotDelta<Event>> onChange) {
+        return new SnapshotDecoder(executor, executor).observe(eventsRef, "EventController.observeEventChanges",
+                SnapshotDelta.decoding(DocumentMapper::toEvent), onChange);
     }
 
     /**
@@ -181,25 +355,53 @@ public class EventController {
             throw new IllegalArgumentException("organizerID is required");
         }
 
-        return eventsRef.whereEqualTo("organizerID", organizerID)
-                .addSnapshotListener((snap, error) -> {
-                    if (error != null) {
-                        System.err.println(error);
-                        return;
-                    }
+        return decoder.observe(eventsRef.whereEqualTo("organizerID", organizerID),
+                "EventController.observeOrganizerEvents",
+                snap -> decodeEvents(snap, null, null), onChange);
+    }
 
-                    List<Event> events = new ArrayList<>();
-                    if (snap != null) {
-                        for (DocumentSnapshot doc : snap.getDocuments()) {
-                            Event event = doc.toObject(Event.class);
-                            if (event != null) {
-                                event.setEventID(doc.getId());
-                                events.add(event);
-                            }
-                        }
-                    }
-                    onChange.accept(events);
-                });
+    /**
+     * Converts an event snapshot to an Event, in the background.
+     *
+     * @param snap the event's snapshot
+     * @return the event, or null if it has been deleted
+     * @throws IllegalStateException if the event can't be parsed
+     */
+    private static Event decodeEvent(DocumentSnapshot snap) {
+        // snap can't be null because none of it's implementations can return null
+        if (!snap.exists()) {
+            return null;
+        }
+
+        try {
+            return DocumentMapper.toEvent(snap.getId(), snap.getData());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to parse Event " + snap.getId(), e);
+        }
+    }
+
+    /**
+     * Converts a query snapshot to a filtered and sorted list of events, in the background.
+     *
+     * @param snap   the query's snapshot
+     * @param filter which events to keep, or null to keep all of them
+     * @param order  how to sort the events, or null to keep Firestore's order
+     * @return an unmodifiable list of the events
+     */
+    private static List<Event> decodeEvents(QuerySnapshot snap, Predicate<Event> filter, Comparator<Event> order) {
+        List<Event> events = new ArrayList<>();
+        if (snap != null) {
+            for (DocumentSnapshot doc : snap.getDocuments()) {
+                Event event = DocumentMapper.toEvent(doc.getId(), doc.getData());
+                if (filter == null || filter.test(event)) {
+                    events.add(event);
+                }
+            }
+        }
+        if (order != null) {
+            events.sort(order);
+        }
+        return SnapshotDecoder.immutable(events);
     }
 
     /**
@@ -214,30 +416,54 @@ public class EventController {
             throw new IllegalArgumentException("eventID is required");
         }
 
-        return eventsRef.document(eventID)
-                .collection("entrantLocations")
-                .addSnapshotListener((snap, error) -> {
-                    if (error != null) {
-                        System.err.println(error);
-                        return;
-                    }
+        Query locationsQuery = eventsRef.document(eventID).collection("entrantLocations");
+        return decoder.observe(locationsQuery, "EventController.observeEntrantLocations", snap -> {
+            List<Map<String, Object>> locations = new ArrayList<>();
+            if (snap != null) {
+                for (DocumentSnapshot doc : snap.getDocuments()) {
+                    locations.add(doc.getData());
+                }
+            }
+            return SnapshotDecoder.immutable(locations);
+        }, onChange);
+    }
 
-                    List<Map<String, Object>> locations = new ArrayList<>();
-                    if (snap != null) {
-                        for (DocumentSnapshot doc : snap.getDocuments()) {
-                            locations.add(doc.getData());
-                        }
-                    }
-                    onChange.accept(locations);
-                });
+    //-----------------------
+    // COUNTS
+    //-----------------------
+
+    /**
+     * Count every event, with a single aggregation read.
+     *
+     * @return Task that completes with the number of events
+     */
+    public Task<Long> countEvents() {
+        return counts.count("EventController.countEvents", "events", eventsRef);
     }
 
     //-----------------------
     // WAITING LIST OPERATIONS
     //-----------------------
 
+    /**
+     * Gets the counter shards of an event, left from when its counters were kept in them.
+     * Every counter is kept on the event document now, the shards are only folded into it by a recount
+     * and deleted along with the event.
+     *
+     * @param eventID Event document ID
+     * @return the event's counters
+     */
+    ShardedCounter counters(String eventID) {
+        return ShardedCounter.of(eventsRef.document(eventID));
+    }
+
     /**
      * Get the current number of Entrants on a waiting list for an event.
+     * <p>
+     * Counts the event's waitingList itself, so the size is always exact, unlike the waitingCount counter
+     * that can drift until the next recount. Only the list is decoded, not the whole event,
+     * and the size is cached briefly for callers asking at the same time.
+     * </p>
      *
      * @param eventID Event document ID
      * @return Task that completes with the count of users on the waiting list
@@ -247,24 +473,33 @@ public class EventController {
         if (eventID == null || eventID.isEmpty()) {
             return Tasks.forException(new IllegalArgumentException("eventID is required"));
         }
-        return eventsRef.document(eventID).get().continueWith(task -> {
+
+        Task<Long> size = counts.get("waitingList:" + eventID, () -> policy.read(
+                "EventController.getWaitingListSize", () -> eventsRef.document(eventID).get())
+                .continueWith(task -> {
+                    if (!task.isSuccessful()) {
+                        throw Objects.requireNonNull(task.getException());
+                    }
+                    DocumentSnapshot snap = task.getResult();
+                    if (snap == null || !snap.exists()) {
+                        throw new IllegalStateException("Event: " + eventID + " not found.");
+                    }
+                    Object waitingList = snap.get("waitingList");
+                    return waitingList instanceof List ? (long) ((List<?>) waitingList).size() : 0L;
+                }));
+
+        return size.continueWith(task -> {
             if (!task.isSuccessful()) {
                 throw Objects.requireNonNull(task.getException());
             }
-            DocumentSnapshot snap = task.getResult();
-            if (snap == null || !snap.exists()) {
-                throw new IllegalStateException("Event: " + eventID + " not found.");
-            }
-            Event event = snap.toObject(Event.class);
-            if (event == null || event.getWaitingList() == null) {
-                return 0;
-            }
-            return event.getWaitingList().size();
+            return task.getResult().intValue();
         });
     }
 
     /**
      * Add a user to the waiting list for an event.
+     * The user is added with arrayUnion, so joins made at the same time can't overwrite each other,
+     * and the waitingCount counter is increased in the same update, so a join is one write to the event.
      *
      * @param eventID Event document ID
      * @param userID  User document ID
@@ -276,7 +511,7 @@ public class EventController {
             return Tasks.forException(new IllegalArgumentException("eventID and userID are required"));
         }
         DocumentReference doc = eventsRef.document(eventID);
-        return doc.get().continueWithTask(task -> {
+        return policy.read("EventController.addToWaitingList", () -> doc.get()).continueWithTask(task -> {
             if (!task.isSuccessful()) {
                 return Tasks.forException(Objects.requireNonNull(task.getException()));
             }
@@ -284,9 +519,11 @@ public class EventController {
             if (snap == null || !snap.exists()) {
                 return Tasks.forException(new IllegalStateException("Event: " + eventID + " not found."));
             }
-            Event event = snap.toObject(Event.class);
-            if (event == null) {
-                return Tasks.forException(new IllegalStateException("Event failed to load."));
+            Event event;
+            try {
+                event = DocumentMapper.toEvent(eventID, snap.getData());
+            } catch (IllegalArgumentException e) {
+                return Tasks.forException(new IllegalStateException("Event failed to load.", e));
             }
             List<String> waitingList = event.getWaitingList();
             if (waitingList == null) {
@@ -300,14 +537,12 @@ public class EventController {
             if (event.getMaxWaitingList() != null && waitingList.size() >= event.getMaxWaitingList()) {
                 return Tasks.forException(new IllegalStateException("Waiting list is full"));
             }
-            waitingList.add(userID);
-
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("waitingList", waitingList);
-            updates.put("updatedAt", FieldValue.serverTimestamp());
-
             // Store location data in a subcollection if provided
-            Task<Void> updateTask = doc.update(updates);
+            Task<Void> updateTask = policy.write("EventController.addToWaitingList", 1, doc.update(
+                            "waitingList", FieldValue.arrayUnion(userID),
+                            WAITING_COUNT, FieldValue.increment(1),
+                            "updatedAt", FieldValue.serverTimestamp()))
+                    .addOnSuccessListener(nothing -> counts.invalidate("waitingList:" + eventID));
 
             if (userLocation != null) {
                 return updateTask.continueWithTask(t -> {
@@ -320,8 +555,8 @@ public class EventController {
                     locationData.put("location", userLocation);
                     locationData.put("joinedAt", FieldValue.serverTimestamp());
 
-                    return eventsRef.document(eventID)
-                            .collection("entrantLocations").document(userID).set(locationData);
+                    return policy.write("EventController.addToWaitingList", 1, eventsRef.document(eventID)
+                            .collection("entrantLocations").document(userID).set(locationData));
                 });
             }
 
@@ -334,6 +569,7 @@ public class EventController {
 
     /**
      * Remove a user from the waiting list for an event.
+     * Like joining, the user is removed with arrayRemove and the counter is decreased in the same update.
      *
      * @param eventID Event document ID
      * @param userID  User document ID
@@ -345,7 +581,7 @@ public class EventController {
             return Tasks.forException(new IllegalArgumentException("eventID and userID are required"));
         }
         DocumentReference doc = eventsRef.document(eventID);
-        return doc.get().continueWithTask(task -> {
+        return policy.read("EventController.removeFromWaitingList", () -> doc.get()).continueWithTask(task -> {
             if (!task.isSuccessful()) {
                 return Tasks.forException(Objects.requireNonNull(task.getException()));
             }
@@ -353,16 +589,21 @@ public class EventController {
             if (snap == null || !snap.exists()) {
                 return Tasks.forException(new IllegalStateException("Event: " + eventID + " not found."));
             }
-            Event event = snap.toObject(Event.class);
-            if (event == null) {
-                return Tasks.forException(new IllegalStateException("Event failed to load."));
+            Event event;
+            try {
+                event = DocumentMapper.toEvent(eventID, snap.getData());
+            } catch (IllegalArgumentException e) {
+                return Tasks.forException(new IllegalStateException("Event failed to load.", e));
             }
             List<String> waitingList = event.getWaitingList();
             if (waitingList == null || !waitingList.contains(userID)) {
                 return Tasks.forException(new IllegalStateException("User not on waiting list"));
             }
-            waitingList.remove(userID);
-            return doc.update("waitingList", waitingList, "updatedAt", FieldValue.serverTimestamp());
+            return policy.write("EventController.removeFromWaitingList", 1, doc.update(
+                            "waitingList", FieldValue.arrayRemove(userID),
+                            WAITING_COUNT, FieldValue.increment(-1),
+                            "updatedAt", FieldValue.serverTimestamp()))
+                    .addOnSuccessListener(nothing -> counts.invalidate("waitingList:" + eventID));
         });
     }
 
@@ -387,7 +628,7 @@ public class EventController {
         }
         // Always update the updatedAt timestamp
         updates.put("updatedAt", FieldValue.serverTimestamp());
-        return eventsRef.document(eventID).update(updates);
+        return policy.write("EventController.updateEvent", 1, eventsRef.document(eventID).update(updates));
     }
 
     /**
@@ -402,7 +643,8 @@ public class EventController {
             return Tasks.forException(new IllegalArgumentException("eventID is required"));
         }
 
-        return eventsRef.document(eventID).get().continueWithTask(task -> {
+        Task<DocumentSnapshot> read = policy.read("EventController.getEvent", () -> eventsRef.document(eventID).get());
+        return read.continueWithTask(decoder.getDecodeExecutor(), task -> {
             if (!task.isSuccessful()) {
                 return Tasks.forException(Objects.requireNonNull(task.getException()));
             }
@@ -415,16 +657,39 @@ public class EventController {
                 );
             }
 
-            Event event = snap.toObject(Event.class);
-            if (event == null) {
-                return Tasks.forException(
-                        new IllegalStateException("Failed to parse Event " + eventID)
-                );
+            try {
+                return Tasks.forResult(decodeEvent(snap));
+            } catch (IllegalStateException e) {
+                return Tasks.forException(e);
             }
+        });
+    }
 
-            event.setEventID(snap.getId());
+    /**
+     * Gets the archived events a user was an entrant of, newest first.
+     * <p>
+     * Events are archived by the server some time after they take place, and only their summary is left,
+     * with the fields history views show. The summaries are read like events, but don't have
+     * waiting lists, invitations or counter shards anymore.
+     * </p>
+     *
+     * @param userID the user's ID
+     * @return Task that completes with the user's archived events
+     */
+    public Task<List<Event>> getArchivedEvents(String userID) {
+        if (userID == null || userID.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("userID is required"));
+        }
 
-            return Tasks.forResult(event);
+        Query query = summariesRef.whereArrayContains("entrantIDs", userID);
+        Task<QuerySnapshot> read = policy.query("EventController.getArchivedEvents", query::get);
+        return read.continueWithTask(decoder.getDecodeExecutor(), task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.forException(Objects.requireNonNull(task.getException()));
+            }
+            return Tasks.forResult(decodeEvents(task.getResult(), null, (a, b) ->
+                    Comparator.nullsLast(Comparator.<Timestamp>reverseOrder())
+                            .compare(a.getEventTime(), b.getEventTime())));
         });
     }
 
@@ -447,24 +712,164 @@ public class EventController {
                         );
                     }
 
-                    // Wait for all invite deletions, then delete the event itself
+                    // Wait for all invite deletions, then delete the event itself along with its counter shards
                     return Tasks.whenAllComplete(deleteInviteTasks)
-                            .continueWithTask(allDone ->
-                                    eventsRef.document(eventID).delete()
-                            );
+                            .continueWithTask(allDone -> {
+                                WriteBatch batch = eventsRef.getFirestore().batch();
+                                batch.delete(eventsRef.document(eventID));
+                                ShardedCounter counter = counters(eventID);
+                                counter.delete(batch);
+                                return policy.write("EventController.deleteEvent",
+                                        1 + counter.getShardCount(), batch.commit());
+                            })
+                            .addOnSuccessListener(nothing -> {
+                                counts.invalidate("events");
+                                counts.invalidate("waitingList:" + eventID);
+                            });
                 });
     }
 
     /**
-     * Tell the server to draw the lottery of an event right now
+     * Tell the server to draw the lottery of an event right now.
+     * The server creates the invitations and moves the winners from the waiting list counter
+     * to the pending one, in the same write.
+     * Retried if the server can't be reached, and the server skips attempts it already handled.
      *
      * @param eventId
      * @return
      */
     public Task<HttpsCallableResult> drawLotteryEarly(String eventId) {
-        return drawLotteryEarly.call(new HashMap<>() {{
+        return policy.call("EventController.drawLotteryEarly", drawLotteryEarly, new HashMap<>() {{
             put("lotteryID", eventId);
-        }});
+        }}).addOnSuccessListener(result -> counts.invalidate("waitingList:" + eventId));
+    }
+
+    /**
+     * Thrown, through a failed task, when an event's counters changed while it was being recounted
+     */
+    public static class CountersChangedException extends IllegalStateException {
+        public CountersChangedException(String eventID) {
+            super("The counters of event " + eventID + " changed while it was being recounted");
+        }
+    }
+
+    /**
+     * How many times a recount is started over when the counters change while counting
+     */
+    static final int MAX_RECOUNT_ATTEMPTS = 3;
+
+    /**
+     * Recounts an event's invitation and waiting list counters from scratch.
+     * <p>
+     * The event's counters, and the sums of any counter shards left from when counters were kept in them,
+     * are read first, then its invitations are counted. One transaction then reads the event and its shards
+     * again, writes the recount over the event's counters, with the waiting list's size read in the transaction
+     * itself, and deletes the shards, whose changes are part of the recount. Every change to an invitation
+     * changes a counter in the same write, so if the counters aren't what they were before counting,
+     * an invitation changed while it was counted: the transaction fails and the recount starts over,
+     * at most {@link #MAX_RECOUNT_ATTEMPTS} times.
+     * </p>
+     * Used to fill in counters on events created before they existed.
+     *
+     * @param eventID Event document ID
+     * @return Task that completes when the counters are written, fails with a {@link CountersChangedException}
+     *         if the counters kept changing
+     */
+    public Task<Void> recountEventCounters(String eventID) {
+        if (eventID == null || eventID.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventID is required"));
+        }
+        return recountEventCounters(eventID, 1);
+    }
+
+    private Task<Void> recountEventCounters(String eventID, int attempt) {
+        DocumentReference doc = eventsRef.document(eventID);
+        ShardedCounter counter = counters(eventID);
+        AtomicReference<Map<String, Object>> before = new AtomicReference<>();
+        AtomicReference<Map<String, Long>> shardsBefore = new AtomicReference<>();
+
+        return policy.read("EventController.recountEventCounters", () -> doc.get())
+                .onSuccessTask(snap -> {
+                    if (snap == null || !snap.exists()) {
+                        return Tasks.forException(new IllegalStateException("Event: " + eventID + " not found."));
+                    }
+                    before.set(countersOf(snap));
+                    counter.invalidate();
+                    return counter.sum("EventController.recountEventCounters", COUNTER_FIELDS);
+                })
+                .onSuccessTask(sums -> {
+                    shardsBefore.set(sums);
+                    // always fresh, the point is to correct counters that have drifted
+                    return invitationController.countEventInvites(eventID, true);
+                })
+                .onSuccessTask(invites ->
+                        policy.transaction("EventController.recountEventCounters", 1 + counter.getShardCount(),
+                                () -> eventsRef.getFirestore().runTransaction(t -> {
+                                    DocumentSnapshot snap = t.get(doc);
+                                    if (!snap.exists()) {
+                                        throw new IllegalStateException("Event: " + eventID + " not found.");
+                                    }
+                                    if (!countersOf(snap).equals(before.get())
+                                            || !counter.sum(t, COUNTER_FIELDS).equals(shardsBefore.get())) {
+                                        throw new CountersChangedException(eventID);
+                                    }
+
+                                    Map<String, Object> updates = new HashMap<>(invites);
+                                    updates.put(WAITING_COUNT,
+                                            (long) DocumentMapper.toEvent(eventID, snap.getData()).getWaitingSize());
+                                    t.update(doc, updates);
+                                    for (int i = 0; i < counter.getShardCount(); i++) {
+                                        t.delete(counter.shard(i));
+                                    }
+                                    return null;
+                                })))
+                .continueWithTask(task -> {
+                    if (task.isSuccessful()) {
+                        counts.invalidate("waitingList:" + eventID);
+                        counter.invalidate();
+                        return Tasks.forResult(null);
+                    }
+                    Exception e = Objects.requireNonNull(task.getException());
+                    if (causedBy(e, CountersChangedException.class) && attempt < MAX_RECOUNT_ATTEMPTS) {
+                        return recountEventCounters(eventID, attempt + 1);
+                    }
+                    return Tasks.forException(e);
+                });
+    }
+
+    /**
+     * Gets the counters on an event document, to tell if they changed
+     */
+    private static Map<String, Object> countersOf(DocumentSnapshot snap) {
+        Map<String, Object> counters = new HashMap<>();
+        for (String field : COUNTER_FIELDS) {
+            counters.put(field, snap.get(field));
+        }
+        return counters;
+    }
+
+    private static boolean causedBy(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recounts an event's counters if it has never been counted, at most once per run of the app.
+     *
+     * @param event the event to check
+     */
+    public void recountCountersIfMissing(Event event) {
+        if (event == null || event.getEventID() == null || event.hasInvitationCounters()) {
+            return;
+        }
+
+        if (recountedEventIDs.add(event.getEventID())) {
+            recountEventCounters(event.getEventID());
+        }
     }
 }
 
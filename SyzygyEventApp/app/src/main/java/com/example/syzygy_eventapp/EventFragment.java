@@ -7,13 +7,9 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Base64;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -79,6 +75,9 @@ public class EventFragment extends Fragment {
     private String userID;
     private boolean isOnWaitingList = false;
     private Invitation currentInvite;
+    // the poster data currently shown, so the same poster isn't decoded again on every update
+    private String shownPosterData;
+    private EventPrefetcher.Prefetched prefetched;
 
     private final ActivityResultLauncher<String> requestPermissionLauncher = registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
         if (isGranted) {
@@ -120,6 +119,10 @@ public class EventFragment extends Fragment {
         // Set up button listeners
         setupButtonListeners();
 
+        // Render anything that was prefetched straight away, the listeners update it when they deliver
+        shownPosterData = null;
+        applyPrefetched();
+
         return view;
     }
 
@@ -137,7 +140,7 @@ public class EventFragment extends Fragment {
         });
 
         //start observing the event
-        eventListener = eventController.observeEvent(eventID, this::onEventUpdated, navStack::popScreen);
+        eventListener = eventController.observeEvent(eventID, this::onEventUpdated, () -> navStack.removeScreen(this));
 
         inviteListener = invitationController.observeUserEventInvite(
                 eventID,
@@ -161,6 +164,25 @@ public class EventFragment extends Fragment {
         }
     }
 
+    /**
+     * Shows the event, invite and poster that {@link EventPrefetcher} has already loaded, if any.
+     */
+    private void applyPrefetched() {
+        prefetched = EventPrefetcher.getInstance().peek(eventID, userID);
+        if (prefetched == null) {
+            return;
+        }
+
+        if (prefetched.isInviteLoaded()) {
+            currentInvite = prefetched.getInvite();
+        }
+
+        if (prefetched.getEvent() != null) {
+            currentEvent = prefetched.getEvent();
+            updateUI();
+        }
+    }
+
     /**
      * Initialize all view components
      */
@@ -197,6 +219,9 @@ public class EventFragment extends Fragment {
 
         this.currentEvent = event;
         updateUI();
+
+        // only counts when this event was just opened from a QR scan
+        ScanLatencyMetrics.markEventShown(eventID);
     }
 
     /**
@@ -262,39 +287,37 @@ public class EventFragment extends Fragment {
 
         // Update button states
         updateButtons();
+
+        ScreenTracer.markContentShown(this);
     }
 
     /**
-     * Load poster image from Base64 string, which needs to be decoded
+     * Load poster image from Base64 string, which needs to be decoded.
+     * The poster's placeholder shows right away, and the poster fades in once it's decoded in the background.
      */
     private void loadPosterImage() {
         // Get the base64 string
         String posterData = currentEvent.getPosterUrl();
 
-        if (posterData != null && !posterData.isEmpty()) {
-            try {
-                // Decode Base64 string to bitmap
-                byte[] decodedBytes = Base64.decode(posterData, Base64.DEFAULT);
-                Bitmap bitmap = BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-
-                if (bitmap != null) {
-                    posterImage.setImageBitmap(bitmap);
-                    posterImage.setVisibility(View.VISIBLE);
-                } else {
-                    Log.e(TAG, "Failed to decode bitmap from Base64");
-                    posterImage.setImageResource(R.drawable.image_placeholder);
-                    posterImage.setVisibility(View.VISIBLE);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading poster image", e);
-                posterImage.setImageResource(R.drawable.image_placeholder);
-                posterImage.setVisibility(View.VISIBLE);
-            }
-        } else {
-            // No poster image, show placeholder
-            posterImage.setImageResource(R.drawable.image_placeholder);
-            posterImage.setVisibility(View.VISIBLE);
+        // The same poster is already showing
+        if (posterData != null && posterData.equals(shownPosterData)) {
+            return;
+        }
+        posterImage.setVisibility(View.VISIBLE);
+
+        // Use the prefetched poster if it was decoded from the same data
+        if (posterData != null && prefetched != null
+                && prefetched.getPoster() != null && posterData.equals(prefetched.getPosterData())) {
+            ImagePlaceholder.cancel(posterImage);
+            posterImage.setImageBitmap(prefetched.getPoster());
+            shownPosterData = posterData;
+            return;
         }
+
+        // No poster image shows the default placeholder
+        ImagePlaceholder.load(posterImage, currentEvent.getPosterPlaceholder(), posterData,
+                R.drawable.image_placeholder);
+        shownPosterData = posterData;
     }
 
     /**
@@ -355,24 +378,17 @@ public class EventFragment extends Fragment {
         // Pending invite: hide join/leave, no cancel attendance
         // Accepted invite: hide join/leave, show cancel attendance
         if (currentInvite != null) {
-            Boolean cancelled = currentInvite.getCancelled();
-            Boolean accepted = currentInvite.getAccepted();
-            com.google.firebase.Timestamp responseTime = currentInvite.getResponseTime();
-
-            boolean isCancelled = Boolean.TRUE.equals(cancelled);
-            boolean isAccepted = Boolean.TRUE.equals(accepted);
-            boolean hasResponded = responseTime != null;
+            InvitationState state = currentInvite.getState();
 
-            // Pending = not cancelled and no response yet
-            if (!isCancelled && !hasResponded) {
+            if (state == InvitationState.PENDING) {
                 joinWaitingListButton.setVisibility(View.GONE);
                 leaveWaitingListButton.setVisibility(View.GONE);
                 cancelAttendanceButton.setVisibility(View.GONE);
                 return;
             }
 
-            // Accepted & not cancelled: show Cancel Attendance
-            if (!isCancelled && isAccepted) {
+            // Accepted: show Cancel Attendance
+            if (state == InvitationState.ACCEPTED) {
                 joinWaitingListButton.setVisibility(View.GONE);
                 leaveWaitingListButton.setVisibility(View.GONE);
                 cancelAttendanceButton.setVisibility(View.VISIBLE);
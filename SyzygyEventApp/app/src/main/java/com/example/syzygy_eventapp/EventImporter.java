@@ -0,0 +1,489 @@
+package com.example.syzygy_eventapp;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Imports many events at once from a CSV file picked with the Storage Access Framework.
+ * <p>
+ * The file is read twice, one record at a time, and never held in memory. The first pass
+ * ({@link #validate(Uri, String)}) checks every row and hashes the file. The second pass
+ * ({@link #importEvents(Uri, Organizer, Report, Consumer)}) writes the valid rows in batches of
+ * {@link EventController#MAX_BATCH_EVENTS}, then adds every new event to the organizer's owned events
+ * with one update at the end.
+ * </p>
+ * <p>
+ * Imports can be resumed. Each event's ID comes from the file's hash and its line, and events whose ID
+ * already exists are skipped, so importing the same file again neither copies nor overwrites events that
+ * people may have joined since. After each batch is committed its last line is saved, and an interrupted import
+ * of the same file picks up after it. A file that changed since it was validated isn't imported.
+ * </p>
+ * The first row must name the columns, in any order: name, location, maxAttendees, registrationStart and
+ * registrationEnd are required, description, eventTime, maxWaitingList and geolocationRequired are optional.
+ * Times are like "2026-01-15 18:00" in the device's time zone, or ISO 8601 with an offset.
+ */
+public class EventImporter {
+
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String LOCATION = "location";
+    static final String EVENT_TIME = "eventtime";
+    static final String REGISTRATION_START = "registrationstart";
+    static final String REGISTRATION_END = "registrationend";
+    static final String MAX_ATTENDEES = "maxattendees";
+    static final String MAX_WAITING_LIST = "maxwaitinglist";
+    static final String GEOLOCATION_REQUIRED = "geolocationrequired";
+
+    // header names are compared in lower case
+    static final List<String> REQUIRED_COLUMNS = Arrays.asList(
+            NAME, LOCATION, MAX_ATTENDEES, REGISTRATION_START, REGISTRATION_END);
+
+    /**
+     * How many row errors a report keeps, the rest are only counted
+     */
+    static final int MAX_REPORTED_ERRORS = 50;
+
+    private static final String[] TIME_FORMATS = {
+            "yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd'T'HH:mmXXX",
+            "yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd'T'HH:mm",
+            "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy-MM-dd"
+    };
+
+    private static final String PREFS_NAME = "event_import";
+    private static final long BATCH_TIMEOUT_SEC = 60;
+
+    // imports are rare and sequential, one thread keeps batches in order
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * A row that couldn't be imported
+     */
+    public static class RowError {
+        public final int line;
+        public final String message;
+
+        RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * The result of reading a file
+     */
+    public static class Report {
+        /** identifies the file's contents and organizer, the start of every imported event's ID */
+        public String importKey;
+        /** rows in the file, not counting the header and blank lines */
+        public int rows = 0;
+        /** rows that are valid events */
+        public int valid = 0;
+        /** rows that aren't, only the first {@link #MAX_REPORTED_ERRORS} are in {@link #errors} */
+        public int errorCount = 0;
+        public final List<RowError> errors = new ArrayList<>();
+        /** events written by this import */
+        public int written = 0;
+        /** valid rows skipped because an earlier, interrupted import already wrote them */
+        public int resumed = 0;
+        /** valid rows skipped because their event already exists, from an earlier import of the same file */
+        public int alreadyImported = 0;
+        /** the IDs of every valid row's event, only when importing */
+        public final List<String> eventIDs = new ArrayList<>();
+        // the line of every valid row
+        final List<Integer> validLines = new ArrayList<>();
+
+        void addError(int line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+    }
+
+    /**
+     * Writes one batch of events
+     */
+    interface BatchWriter {
+        /**
+         * @param events   the events, with their IDs
+         * @param lastLine the line of the last event, to save as the checkpoint once written
+         * @return how many of the events already existed, and weren't written
+         */
+        int write(List<Event> events, int lastLine) throws Exception;
+    }
+
+    private final ContentResolver resolver;
+    private final SharedPreferences checkpoints;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param context any context, used to open files and save checkpoints
+     */
+    public EventImporter(Context context) {
+        this.resolver = context.getContentResolver();
+        this.checkpoints = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Checks every row of a file in the background, without writing anything
+     *
+     * @param uri         the CSV file, from a document picker
+     * @param organizerID the organizer the events will belong to
+     * @return Task that completes with the valid rows and errors, or fails if the file can't be read
+     * or is missing columns
+     */
+    public Task<Report> validate(Uri uri, String organizerID) {
+        return Tasks.call(executor, () -> {
+            try (InputStream in = open(uri)) {
+                Report report = read(in, organizerID, TimeZone.getDefault(), null, 0, null);
+                // rows an interrupted import of this file already wrote
+                int checkpoint = checkpoint(report.importKey);
+                for (int line : report.validLines) {
+                    if (line <= checkpoint) {
+                        report.resumed++;
+                    }
+                }
+                return report;
+            }
+        });
+    }
+
+    /**
+     * Writes the valid rows of a validated file as events, continuing an earlier interrupted import of it.
+     *
+     * @param uri        the same file that was validated
+     * @param organizer  the organizer the events belong to
+     * @param validated  the file's report from {@link #validate(Uri, String)}
+     * @param onProgress called on the main thread with how many events have been written after each batch
+     * @return Task that completes with what was written, or fails with the first batch that couldn't be written,
+     * or with an IllegalStateException if the file changed since it was validated.
+     * Importing the same file again continues after the last batch that was written.
+     */
+    public Task<Report> importEvents(Uri uri, Organizer organizer, Report validated, Consumer<Integer> onProgress) {
+        String importKey = validated.importKey;
+        int checkpoint = checkpoint(importKey);
+
+        return Tasks.call(executor, () -> {
+            // events are written under the validated file's key, so nothing is written if it changed since
+            try (InputStream in = open(uri)) {
+                checkUnchanged(importKey, read(in, organizer.getUserID(), TimeZone.getDefault(), null, 0, null));
+            }
+
+            Report report;
+            try (InputStream in = open(uri)) {
+                int[] done = {0};
+                report = read(in, organizer.getUserID(), TimeZone.getDefault(), importKey, checkpoint,
+                        (events, lastLine) -> {
+                            List<String> existing = Tasks.await(EventController.getInstance().createEvents(events),
+                                    BATCH_TIMEOUT_SEC, TimeUnit.SECONDS);
+                            checkpoints.edit().putInt(importKey, lastLine).apply();
+
+                            done[0] += events.size();
+                            int written = done[0];
+                            mainHandler.post(() -> onProgress.accept(written));
+                            return existing.size();
+                        });
+            }
+            // changed while it was being imported, the rows written after the change may not be the validated ones
+            checkUnchanged(importKey, report);
+
+            Tasks.await(organizer.addOwnedEventIDs(report.eventIDs), BATCH_TIMEOUT_SEC, TimeUnit.SECONDS);
+            checkpoints.edit().remove(importKey).apply();
+            return report;
+        });
+    }
+
+    private InputStream open(Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException("Can't open " + uri);
+        }
+        return in;
+    }
+
+    /**
+     * @param importKey the key of the file when it was validated
+     * @param report    what was read from it since
+     * @throws IllegalStateException if what was read has a different key
+     */
+    private static void checkUnchanged(String importKey, Report report) {
+        if (!importKey.equals(report.importKey)) {
+            throw new IllegalStateException("The file changed since it was checked, pick it again");
+        }
+    }
+
+    private int checkpoint(String importKey) {
+        return importKey == null ? 0 : checkpoints.getInt(importKey, 0);
+    }
+
+    /**
+     * Reads a whole file one record at a time, checking every row and writing valid ones in batches
+     *
+     * @param in          the file
+     * @param organizerID the organizer the events belong to
+     * @param zone        the time zone of times without an offset
+     * @param importKey   the key of the file from validating it, or null to only check the rows
+     * @param skipThrough rows on or before this line were already written, and aren't written again
+     * @param writer      writes batches of valid rows, or null to only check them
+     * @return what was read and written. Its importKey is always the key of what was read.
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the header is missing columns
+     */
+    static Report read(InputStream in, String organizerID, TimeZone zone, String importKey,
+                       int skipThrough, BatchWriter writer) throws Exception {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // the same file imported by two organizers must give different events
+        digest.update(String.valueOf(organizerID).getBytes(StandardCharsets.UTF_8));
+
+        Report report = new Report();
+        List<Event> batch = new ArrayList<>();
+        int batchLastLine = 0;
+
+        try (CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(
+                new DigestInputStream(in, digest), StandardCharsets.UTF_8)))) {
+            Map<String, Integer> columns = readHeader(csv.readRecord());
+
+            for (List<String> record = csv.readRecord(); record != null; record = csv.readRecord()) {
+                if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                int line = csv.getLineNumber();
+                report.rows++;
+
+                Event event;
+                try {
+                    event = parseRow(columns, record, organizerID, zone);
+                } catch (IllegalArgumentException e) {
+                    report.addError(line, e.getMessage());
+                    continue;
+                }
+
+                report.valid++;
+                report.validLines.add(line);
+                if (importKey == null || writer == null) {
+                    continue;
+                }
+
+                String eventID = eventID(importKey, line);
+                report.eventIDs.add(eventID);
+                if (line <= skipThrough) {
+                    report.resumed++;
+                    continue;
+                }
+
+                event.setEventID(eventID);
+                batch.add(event);
+                batchLastLine = line;
+                if (batch.size() == EventController.MAX_BATCH_EVENTS) {
+                    write(writer, batch, batchLastLine, report);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            write(writer, batch, batchLastLine, report);
+        }
+
+        report.importKey = toHex(digest.digest()).substring(0, 16);
+        return report;
+    }
+
+    private static void write(BatchWriter writer, List<Event> batch, int lastLine, Report report) throws Exception {
+        int existing = writer.write(batch, lastLine);
+        report.alreadyImported += existing;
+        report.written += batch.size() - existing;
+    }
+
+    /**
+     * Gets the ID an imported row's event is written with
+     *
+     * @param importKey the file's key
+     * @param line      the row's line in the file
+     * @return the event's document ID
+     */
+    static String eventID(String importKey, int line) {
+        return importKey + "-" + line;
+    }
+
+    /**
+     * Finds where each column is
+     *
+     * @param header the first record of the file
+     * @return each column's index, by its lower case name
+     * @throws IllegalArgumentException if the file is empty or a required column is missing
+     */
+    static Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("The file has no \"" + column + "\" column");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Turns a row into an event, with the same rules as creating one by hand
+     *
+     * @param columns     each column's index, by its lower case name
+     * @param record      the row's fields
+     * @param organizerID the organizer the event belongs to
+     * @param zone        the time zone of times without an offset
+     * @return the event, without an ID
+     * @throws IllegalArgumentException describing the first problem with the row
+     */
+    static Event parseRow(Map<String, Integer> columns, List<String> record, String organizerID, TimeZone zone) {
+        String name = field(columns, record, NAME);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Name is required");
+        }
+        String location = field(columns, record, LOCATION);
+        if (location.isEmpty()) {
+            throw new IllegalArgumentException("Location is required");
+        }
+
+        Integer maxAttendees = parsePositive(field(columns, record, MAX_ATTENDEES), "maxAttendees");
+        if (maxAttendees == null) {
+            throw new IllegalArgumentException("maxAttendees is required");
+        }
+        Integer maxWaitingList = parsePositive(field(columns, record, MAX_WAITING_LIST), "maxWaitingList");
+
+        Timestamp start = parseTime(field(columns, record, REGISTRATION_START), "registrationStart", zone);
+        Timestamp end = parseTime(field(columns, record, REGISTRATION_END), "registrationEnd", zone);
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Registration start and end are required");
+        }
+        if (end.compareTo(start) < 0) {
+            throw new IllegalArgumentException("Registration end must be after its start");
+        }
+        Timestamp eventTime = parseTime(field(columns, record, EVENT_TIME), "eventTime", zone);
+
+        String geolocation = field(columns, record, GEOLOCATION_REQUIRED).toLowerCase(Locale.ROOT);
+        boolean geolocationRequired;
+        if (geolocation.isEmpty() || geolocation.equals("false") || geolocation.equals("no")) {
+            geolocationRequired = false;
+        } else if (geolocation.equals("true") || geolocation.equals("yes")) {
+            geolocationRequired = true;
+        } else {
+            throw new IllegalArgumentException("geolocationRequired must be true or false");
+        }
+
+        Event event = new Event();
+        event.setName(name);
+        event.setDescription(field(columns, record, DESCRIPTION));
+        event.setOrganizerID(organizerID);
+        event.setLocationName(location);
+        event.setMaxAttendees(maxAttendees);
+        event.setMaxWaitingList(maxWaitingList);
+        event.setRegistrationStart(start);
+        event.setRegistrationEnd(end);
+        event.setEventTime(eventTime);
+        event.setGeolocationRequired(geolocationRequired);
+        return event;
+    }
+
+    private static String field(Map<String, Integer> columns, List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return "";
+        }
+        return record.get(index).trim();
+    }
+
+    private static Integer parsePositive(String value, String column) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number <= 0) {
+                throw new IllegalArgumentException(column + " must be greater than 0");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Parses a time in one of {@link #TIME_FORMATS}
+     *
+     * @return the time, or null if the value is empty
+     * @throws IllegalArgumentException if it's in none of the formats
+     */
+    static Timestamp parseTime(String value, String column, TimeZone zone) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        for (String pattern : TIME_FORMATS) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+            format.setLenient(false);
+            format.setTimeZone(zone);
+
+            ParsePosition position = new ParsePosition(0);
+            Date date = format.parse(value, position);
+            if (date != null && position.getIndex() == value.length()) {
+                return new Timestamp(date);
+            }
+        }
+        throw new IllegalArgumentException(column + " is not a time like 2026-01-15 18:00: " + value);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format(Locale.ROOT, "%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -19,7 +19,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.firestore.ListenerRegistration;
-import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,7 +36,6 @@ import java.util.stream.Collectors;
 public class EventListFragment extends Fragment {
 
     private final NavigationStackFragment navStack;
-    private final EventController eventController;
     private final boolean isOrganizerView;
     private final String organizerID;
 
@@ -76,7 +74,6 @@ public class EventListFragment extends Fragment {
         this.navStack = navStack;
         this.isOrganizerView = isOrganizerView;
         this.organizerID = organizerID;
-        this.eventController = EventController.getInstance();
         this.allEvents = new ArrayList<>();
         this.filteredEvents = new ArrayList<>();
     }
@@ -100,18 +97,19 @@ public class EventListFragment extends Fragment {
     public void onStart() {
         super.onStart();
 
-        // Start observing events
+        // Start observing events in the local mirror, which has the last known events straight away
         loadingSpinner.setVisibility(View.VISIBLE);
+        LocalMirror mirror = LocalMirror.getInstance(requireContext());
 
         if (isOrganizerView && organizerID != null) {
             // Observe only organizer's events
-            eventListener = eventController.observeOrganizerEvents(
-                    organizerID,
+            eventListener = mirror.observe(
+                    store -> store.getOrganizerEvents(organizerID),
                     this::onEventsUpdated
             );
         } else {
             // Observe all events
-            eventListener = eventController.observeAllEvents(this::onEventsUpdated);
+            eventListener = mirror.observe(LocalEventStore::getAllEvents, this::onEventsUpdated);
         }
     }
 
@@ -145,7 +143,7 @@ public class EventListFragment extends Fragment {
     }
 
     /**
-     * Called when events are updated from Firestore
+     * Called when events are updated in the local mirror
      */
     private void onEventsUpdated(List<Event> events) {
         if (!isAdded()) return; // Safety check
@@ -321,17 +319,13 @@ public class EventListFragment extends Fragment {
             int waitingListSize = event.getWaitingList() != null ? event.getWaitingList().size() : 0;
             waitingListText.setText(waitingListSize + " on waiting list");
 
-            // Poster thumbnail
-            if (event.getPosterUrl() != null && !event.getPosterUrl().isEmpty()) {
-                Picasso.get()
-                        .load(event.getPosterUrl())
-                        .placeholder(android.R.drawable.ic_menu_gallery)
-                        .error(android.R.drawable.ic_menu_report_image)
-                        .resize(100, 100)
-                        .centerCrop()
-                        .into(posterThumbnail);
+            // Poster thumbnail, stored as Base64 so it's decoded here rather than loaded from a URL
+            if (event.posterPreview() != null && !event.posterPreview().isEmpty()) {
+                ImagePlaceholder.load(posterThumbnail, event.getPosterPlaceholder(), event.posterPreview(),
+                        android.R.drawable.ic_menu_gallery);
                 posterThumbnail.setVisibility(View.VISIBLE);
             } else {
+                ImagePlaceholder.cancel(posterThumbnail);
                 posterThumbnail.setVisibility(View.GONE);
             }
 
@@ -119,11 +119,13 @@ public class EventOrganizerDetailsView extends Fragment {
         invitationController = InvitationController.getInstance();
         notificationController = NotificationController.getInstance();
 
-        eventListener = eventController.observeEvent(event.getEventID(), this::setEvent, navStack::popScreen);
-        inviteListener = invitationController.observeEventInvites(event.getEventID(),
+        // only listen while the screen is showing, not while it's hidden under the waitlist or map
+        eventListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> eventController.observeEvent(
+                event.getEventID(), this::setEvent, () -> navStack.removeScreen(this)));
+        inviteListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> invitationController.observeEventInvites(event.getEventID(),
                 (newEvent) -> {
                     refreshInterface();
-                });
+                }));
 
         setupListeners();
         setupNavBar();
@@ -179,8 +181,7 @@ public class EventOrganizerDetailsView extends Fragment {
         FirebaseFirestore.getInstance()
                 .collection("invitations")
                 .whereEqualTo("event", eventId)
-                .whereEqualTo("accepted", true)
-                .whereEqualTo("cancelled", false)
+                .where(InvitationController.stateIs(InvitationState.ACCEPTED))
                 .get()
                 .addOnSuccessListener(snapshot -> {
 
@@ -215,8 +216,9 @@ public class EventOrganizerDetailsView extends Fragment {
                                     if (obj instanceof DocumentSnapshot) {
                                         DocumentSnapshot doc = (DocumentSnapshot) obj;
 
-                                        User user = doc.toObject(User.class);
-                                        if (user != null) users.add(user);
+                                        if (doc.exists()) {
+                                            users.add(DocumentMapper.toUser(doc.getId(), doc.getData()));
+                                        }
                                     }
                                 }
 
@@ -341,8 +343,9 @@ public class EventOrganizerDetailsView extends Fragment {
             viewWaitlistMapButton.setVisibility(View.GONE);
         }
 
-        refreshInvitedUsers();
-        refreshWaitlistUsers();
+        // the entrant lists are the content organizers open this screen for
+        Tasks.whenAllComplete(refreshInvitedUsers(), refreshWaitlistUsers())
+                .addOnCompleteListener(task -> ScreenTracer.markContentShown(this));
     }
 
 
@@ -364,36 +367,24 @@ public class EventOrganizerDetailsView extends Fragment {
      * Fills in information about invited users into the UI
      */
     private Task<?> refreshInvitedUsers() {
-        Task<List<Invitation>> loadInvitesTask = invitationController.getEventInvites(event.getEventID());
-
-        return loadInvitesTask.continueWithTask(task -> {
-                    List<Invitation> invites = task.getResult();
+        // only the accepted and pending invites are read, each with one indexed query
+        Task<List<Invitation>> loadAcceptedTask =
+                invitationController.getEventInvites(event.getEventID(), InvitationState.ACCEPTED);
+        Task<List<Invitation>> loadPendingTask =
+                invitationController.getEventInvites(event.getEventID(), InvitationState.PENDING);
+
+        return Tasks.whenAllSuccess(loadAcceptedTask, loadPendingTask).continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(Objects.requireNonNull(task.getException()));
+                    }
 
                     List<String> acceptedUserIds = new ArrayList<>();
+                    for (Invitation invite : loadAcceptedTask.getResult()) {
+                        acceptedUserIds.add(invite.getRecipientID());
+                    }
                     List<String> pendingUserIds = new ArrayList<>();
-
-                    // sort user invites into two groups
-                    for (Invitation invite : invites) {
-                        Boolean cancelled = invite.getCancelled();
-                        Boolean accepted = invite.getAccepted();
-                        com.google.firebase.Timestamp responseTime = invite.getResponseTime();
-
-                        // Skip invites the organizer has cancelled
-                        if (Boolean.TRUE.equals(cancelled)) {
-                            continue;
-                        }
-
-                        // Accepted list
-                        if (Boolean.TRUE.equals(accepted)) {
-                            acceptedUserIds.add(invite.getRecipientID());
-                            continue;
-                        }
-
-                        // Pending = no response yet (responseTime still null)
-                        if (responseTime == null) {
-                            pendingUserIds.add(invite.getRecipientID());
-                            // declined = responded + not accepted, ignored
-                        }
+                    for (Invitation invite : loadPendingTask.getResult()) {
+                        pendingUserIds.add(invite.getRecipientID());
                     }
 
                     Task<List<User>> loadAcceptedUsersTask = userController.getUsers(acceptedUserIds);
@@ -423,48 +414,33 @@ public class EventOrganizerDetailsView extends Fragment {
     }
 
     private Task<Void> cancelInvites() {
-        List<String> inviteIds = event.getInvites();
-
         if (pendingListView.getUsers().size() == 0) {
             showToast("There are no pending invites");
             return Tasks.forResult(null);
         }
 
-        List<Task<Boolean>> cancelTasks = new ArrayList<>();
-        for (String inviteId : inviteIds) {
-            cancelTasks.add(invitationController.cancelInvite(inviteId));
-        }
-
-        return Tasks.whenAllComplete(cancelTasks)
-                .continueWithTask(allCompleteTask -> {
-                    List<Task<Boolean>> tasks = (List<Task<Boolean>>) (List<?>) allCompleteTask.getResult();
-
-                    boolean someSucceded = false;
-                    boolean someFailed = false;
-
-                    for (Task<Boolean> task : tasks) {
-                        if (!task.isSuccessful()) {
-                            someFailed = true;
-                        } else if (task.getResult() == true) {
-                            someSucceded = true;
-                        }
+        cancelInvitesButton.setEnabled(false);
+        return invitationController.cancelPendingInvites(event.getEventID())
+                .continueWith(task -> {
+                    cancelInvitesButton.setEnabled(true);
+                    if (!task.isSuccessful()) {
+                        showToast("Failed to cancel all invites");
+                        return null;
                     }
 
-                    if (someSucceded) {
-                        if (someFailed) {
-                            showToast("Cancelled some invites, others failed");
+                    InvitationController.CancelSummary summary = task.getResult();
+                    if (summary.cancelled > 0) {
+                        if (summary.failed > 0) {
+                            showToast("Cancelled " + summary.cancelled + " invites, " + summary.failed + " failed");
                         } else {
-                            showToast("Cancelled all invites");
+                            showToast("Cancelled " + summary.cancelled + " invites");
                         }
+                    } else if (summary.failed > 0) {
+                        showToast("Failed to cancel all invites");
                     } else {
-                        if (someFailed) {
-                            showToast("Failed to cancel all invites");
-                        } else {
-                            showToast("There are no pending invites");
-                        }
+                        showToast("There are no pending invites");
                     }
-
-                    return Tasks.forResult(null);
+                    return null;
                 });
     }
 
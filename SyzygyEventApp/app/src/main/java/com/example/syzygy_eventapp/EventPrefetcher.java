@@ -0,0 +1,253 @@
+package com.example.syzygy_eventapp;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts loading the data an {@link EventFragment} needs before it is opened.
+ * <p>
+ * When an event is likely to be opened soon (its QR code was just decoded, or it is visible in a list)
+ * the event document, the user's invitation and the decoded poster are fetched in the background.
+ * The EventFragment can then pick up whatever is ready and render it straight away,
+ * instead of waiting for its own listeners to deliver the first snapshot.
+ * </p>
+ * Results are only kept for a short time and for a limited number of events,
+ * live listeners in the EventFragment still take over as soon as they deliver.
+ */
+public class EventPrefetcher {
+    private static EventPrefetcher singletonInstance = null;
+
+    private static final int MAX_ENTRIES = 16;
+    private static final long MAX_AGE_MS = 60_000;
+
+    /**
+     * Everything that has been prefetched for one event.
+     * Fields are null until they have loaded, or if they failed to load.
+     */
+    public static class Prefetched {
+        public final String eventID;
+        public final String userID;
+        private final long startedAt = SystemClock.elapsedRealtime();
+
+        private Task<Event> eventTask;
+        private volatile Event event;
+        private volatile boolean inviteLoaded = false;
+        private volatile Invitation invite;
+        private volatile String posterData;
+        private volatile Bitmap poster;
+        private volatile String decodedPosterData;
+
+        Prefetched(String eventID, String userID) {
+            this.eventID = eventID;
+            this.userID = userID;
+        }
+
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * @return true once the invitation lookup has finished, even if the user has no invitation
+         */
+        public boolean isInviteLoaded() {
+            return inviteLoaded;
+        }
+
+        public Invitation getInvite() {
+            return invite;
+        }
+
+        /**
+         * @return the decoded poster, or null if it isn't ready yet
+         */
+        public Bitmap getPoster() {
+            return poster;
+        }
+
+        /**
+         * @return the Base64 poster data that {@link #getPoster()} was decoded from
+         */
+        public String getPosterData() {
+            return decodedPosterData;
+        }
+
+        private boolean isExpired() {
+            return SystemClock.elapsedRealtime() - startedAt > MAX_AGE_MS;
+        }
+    }
+
+    private final EventController eventController;
+    private final InvitationController invitationController;
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+
+    // access ordered, so the least recently used entry is dropped first
+    private final Map<String, Prefetched> entries = new LinkedHashMap<String, Prefetched>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Prefetched> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private EventPrefetcher() {
+        eventController = EventController.getInstance();
+        invitationController = InvitationController.getInstance();
+    }
+
+    /**
+     * Gets a single global instance of the EventPrefetcher
+     *
+     * @return a EventPrefetcher singleton
+     */
+    public static EventPrefetcher getInstance() {
+        if (singletonInstance == null)
+            singletonInstance = new EventPrefetcher();
+
+        return singletonInstance;
+    }
+
+    /**
+     * Starts fetching an event, the user's invitation to it, and its poster.
+     * Does nothing new if the event is already being prefetched for this user.
+     *
+     * @param eventID Event document ID
+     * @param userID  the current user's ID
+     * @return Task that completes with the Event
+     */
+    public synchronized Task<Event> prefetch(String eventID, String userID) {
+        if (eventID == null || eventID.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventID is required"));
+        }
+
+        Prefetched entry = getFresh(eventID, userID);
+        if (entry != null) {
+            return entry.eventTask;
+        }
+
+        Prefetched created = new Prefetched(eventID, userID);
+        created.eventTask = eventController.getEvent(eventID);
+        created.eventTask
+                .addOnSuccessListener(event -> onEventLoaded(created, event))
+                .addOnFailureListener(e -> forget(created));
+        startInviteLookup(created);
+
+        entries.put(eventID, created);
+        return created.eventTask;
+    }
+
+    /**
+     * Starts fetching the user's invitation and the poster for an event that has already been loaded,
+     * for example one that came from a list snapshot.
+     *
+     * @param event  the already loaded event
+     * @param userID the current user's ID
+     */
+    public synchronized void prefetch(Event event, String userID) {
+        if (event == null || event.getEventID() == null) {
+            return;
+        }
+
+        Prefetched entry = getFresh(event.getEventID(), userID);
+        if (entry != null) {
+            // keep the newest copy of the event, the snapshot may be newer than what was fetched,
+            // unless it's a list copy without the full poster the fetched event has
+            Event fetched = entry.event;
+            if (event.getPosterUrl() != null || fetched == null || fetched.getPosterUrl() == null) {
+                onEventLoaded(entry, event);
+            }
+            return;
+        }
+
+        Prefetched created = new Prefetched(event.getEventID(), userID);
+        created.eventTask = Tasks.forResult(event);
+        onEventLoaded(created, event);
+        startInviteLookup(created);
+
+        entries.put(event.getEventID(), created);
+    }
+
+    /**
+     * Gets whatever has been prefetched for an event so far.
+     *
+     * @param eventID Event document ID
+     * @param userID  the current user's ID
+     * @return the prefetched data, or null if nothing recent was prefetched
+     */
+    public synchronized Prefetched peek(String eventID, String userID) {
+        return getFresh(eventID, userID);
+    }
+
+    /**
+     * Forgets everything that was prefetched
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Drops an entry whose event failed to load, so the next prefetch tries again
+     */
+    private synchronized void forget(Prefetched entry) {
+        if (entries.get(entry.eventID) == entry) {
+            entries.remove(entry.eventID);
+        }
+    }
+
+    private Prefetched getFresh(String eventID, String userID) {
+        Prefetched entry = entries.get(eventID);
+        if (entry == null) {
+            return null;
+        }
+
+        // a failed load may not have been forgotten yet
+        boolean failed = entry.eventTask.isComplete() && !entry.eventTask.isSuccessful();
+        if (failed || entry.isExpired() || (userID != null && !userID.equals(entry.userID))) {
+            entries.remove(eventID);
+            return null;
+        }
+
+        return entry;
+    }
+
+    private void startInviteLookup(Prefetched entry) {
+        if (entry.userID == null) {
+            entry.inviteLoaded = true;
+            return;
+        }
+
+        invitationController.getUserEventInvite(entry.eventID, entry.userID)
+                .addOnSuccessListener(invite -> {
+                    entry.invite = invite;
+                    entry.inviteLoaded = true;
+                });
+    }
+
+    /**
+     * Stores a loaded event and decodes its poster off the main thread, if it has changed.
+     */
+    private void onEventLoaded(Prefetched entry, Event event) {
+        entry.event = event;
+
+        String posterData = event.getPosterUrl();
+        if (posterData == null || posterData.isEmpty() || posterData.equals(entry.posterData)) {
+            return;
+        }
+
+        entry.posterData = posterData;
+        decodeExecutor.execute(() -> {
+            Bitmap bitmap = event.generatePosterBitmap();
+            // a newer poster may have arrived while this one was decoding
+            if (posterData.equals(entry.posterData)) {
+                entry.decodedPosterData = posterData;
+                entry.poster = bitmap;
+            }
+        });
+    }
+}
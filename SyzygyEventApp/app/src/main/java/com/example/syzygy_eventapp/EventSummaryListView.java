@@ -1,17 +1,30 @@
 package com.example.syzygy_eventapp;
 
 import android.content.Context;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Displays a titled, collapsible list of EventSummaryView rows with a count.
  * Used by pages like “Find Events” or “Joined Events”.
+ * Rows are shown in a RecyclerView, so only the rows on screen are bound and new lists only rebind changed events.
+ * That needs the list to have a bounded height: give it a fixed or constrained height, or a layout_weight in a
+ * LinearLayout, never wrap_content inside a ScrollView, where every row would be bound at once.
+ * A list with a weight gives its share of the height to the others while it's collapsed.
  */
 public class EventSummaryListView extends LinearLayout {
 
@@ -20,11 +33,19 @@ public class EventSummaryListView extends LinearLayout {
      * Allows the list to display user-specific status coloring when needed.
      */
 
-    private LinearLayout listContainer;
+    private RecyclerView listContainer;
+    private LinearLayoutManager layoutManager;
+    private EventSummaryListViewAdapter adapter;
+    private String userID;
     private ImageView arrow;
     private TextView titleText;
     private TextView countText;
     private boolean expanded = true;
+    // the layout_weight the list had when it was first expanded or collapsed, 0 if it has none
+    private float expandedWeight = -1;
+
+    // most rows that are prefetched each time the visible rows change
+    private static final int MAX_PREFETCH_ROWS = 8;
 
     /**
      * Constructs the view programmatically.
@@ -63,6 +84,21 @@ public class EventSummaryListView extends LinearLayout {
         titleText    = findViewById(R.id.title);
         countText    = findViewById(R.id.count);
 
+        layoutManager = new LinearLayoutManager(context);
+        layoutManager.setItemPrefetchEnabled(true);
+        userID = AppInstallationId.get(context);
+        adapter = new EventSummaryListViewAdapter(userID);
+        listContainer.setLayoutManager(layoutManager);
+        listContainer.setAdapter(adapter);
+        // rows change text and chips in place, fading them in and out would only flicker
+        listContainer.setItemAnimator(null);
+        listContainer.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                prefetchVisibleRows();
+            }
+        });
+
         findViewById(R.id.header).setOnClickListener(v -> toggle());
 
         setExpanded(expanded);
@@ -85,6 +121,33 @@ public class EventSummaryListView extends LinearLayout {
         listContainer.setVisibility(expanded ? VISIBLE : GONE);
         arrow.animate().rotation(expanded ? 90f : 0f).setDuration(120).start();
         arrow.setContentDescription(expanded ? "Collapse" : "Expand");
+        expandedWeight = shareHeight(this, expanded, expandedWeight);
+    }
+
+    /**
+     * Gives a collapsed list's share of a LinearLayout's height to the lists beside it, and takes it back once
+     * it's expanded again. Lists without a layout_weight keep their height.
+     *
+     * @param list           the list
+     * @param expanded       whether the list is expanded
+     * @param expandedWeight the list's weight while expanded, or -1 if it isn't known yet
+     * @return the list's weight while expanded, to pass in next time, or -1 if it isn't known yet
+     */
+    static float shareHeight(View list, boolean expanded, float expandedWeight) {
+        if (!(list.getLayoutParams() instanceof LinearLayout.LayoutParams)) {
+            return expandedWeight;
+        }
+        LinearLayout.LayoutParams params = (LinearLayout.LayoutParams) list.getLayoutParams();
+        if (expandedWeight < 0) {
+            // the list hasn't been collapsed yet, so its weight is the one it was laid out with
+            expandedWeight = params.weight;
+        }
+        if (expandedWeight > 0) {
+            params.weight = expanded ? expandedWeight : 0;
+            params.height = expanded ? 0 : ViewGroup.LayoutParams.WRAP_CONTENT;
+            list.setLayoutParams(params);
+        }
+        return expandedWeight;
     }
 
     /**
@@ -92,6 +155,29 @@ public class EventSummaryListView extends LinearLayout {
      */
     public void toggle() { setExpanded(!expanded); }
 
+    /**
+     * Asks {@link EventPrefetcher} to start loading the details of rows that are on screen,
+     * since those are the events the user is most likely to open next.
+     */
+    private void prefetchVisibleRows() {
+        if (!expanded || !isShown()) {
+            return;
+        }
+
+        EventPrefetcher prefetcher = EventPrefetcher.getInstance();
+        Rect visible = new Rect();
+        int prefetchedRows = 0;
+
+        // only rows near the screen are attached, but they may still be partly hidden
+        for (int i = 0; i < layoutManager.getChildCount() && prefetchedRows < MAX_PREFETCH_ROWS; i++) {
+            View row = layoutManager.getChildAt(i);
+            if (row != null && row.getLocalVisibleRect(visible) && row.getTag() instanceof Event) {
+                prefetcher.prefetch((Event) row.getTag(), userID);
+                prefetchedRows++;
+            }
+        }
+    }
+
     /**
      * Populates the list with a set of {@link EventSummaryView} items and assigns callbacks for user actions.
      * <p>
@@ -111,40 +197,30 @@ public class EventSummaryListView extends LinearLayout {
             OnClickListener onToggleBannerClick,
             OnClickListener onRemoveClick
     ) {
-        listContainer.removeAllViews();
+        int size = (events == null) ? 0 : events.size();
+        countText.setText(String.valueOf(size));
 
+        // wait for the rows to be laid out before checking which are visible
+        adapter.setItems(events == null ? Collections.emptyList() : events, isAdmin,
+                onRowClick, onToggleBannerClick, onRemoveClick,
+                () -> post(this::prefetchVisibleRows));
+    }
+
+    /**
+     * Version of {@link #setItems(List, boolean, OnClickListener)} for entrant-facing lists that know the user's
+     * invite state in each event, so a status shown is reloaded as soon as the user's invite changes.
+     *
+     * @param events       the list of {@link Event} objects to display
+     * @param inviteStates the user's invite state in each event, by event ID
+     * @param onRowClick   click listener for opening event details
+     */
+    public void setItems(List<Event> events, Map<String, InvitationState> inviteStates, OnClickListener onRowClick) {
         int size = (events == null) ? 0 : events.size();
         countText.setText(String.valueOf(size));
-        if (size == 0) return;
-
-        for (Event event : events) {
-            EventSummaryView row = new EventSummaryView(getContext());
-
-            row.bind(event, Event.Status.Unknown, isAdmin);
-
-            String userID = AppInstallationId.get(getContext());
-            event.calculateRelativeStatus(userID)
-                    .addOnSuccessListener((status) -> {
-                row.bind(event, status, isAdmin);
-            });
-
-            row.setTag(event);
-
-            row.setOnOpenDetailsClickListener(v -> {
-                v.setTag(event);
-                onRowClick.onClick(v);
-            });
-            row.setOnToggleBannerClickListener(v -> {
-                v.setTag(event);
-                onToggleBannerClick.onClick(v);
-            });
-            row.setOnRemoveClickListener(v -> {
-                v.setTag(event);
-                onRemoveClick.onClick(v);
-            });
-
-            listContainer.addView(row);
-        }
+
+        adapter.setItems(events == null ? Collections.emptyList() : events, inviteStates, false,
+                onRowClick, v -> {}, v -> {},
+                () -> post(this::prefetchVisibleRows));
     }
 
     /**
@@ -0,0 +1,324 @@
+package com.example.syzygy_eventapp;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * RecyclerView Adapter for the rows of an {@link EventSummaryListView}.
+ * <p>
+ * Rows are recycled, and new lists are compared with {@link DiffUtil} on a background thread,
+ * so a snapshot only rebinds the events that actually changed.
+ * The entrant's status in each event is loaded once and kept while it can't have changed,
+ * instead of being loaded again every time a row is bound (see {@link LoadedStatus#stillHolds}).
+ * </p>
+ */
+public class EventSummaryListViewAdapter extends ListAdapter<Event, EventSummaryListViewAdapter.ListItemViewHolder> {
+
+    /**
+     * Compares events by ID, and by the fields that are shown or change the entrant's status
+     */
+    static final DiffUtil.ItemCallback<Event> DIFF_CALLBACK = new DiffUtil.ItemCallback<Event>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Event oldEvent, @NonNull Event newEvent) {
+            return Objects.equals(oldEvent.getEventID(), newEvent.getEventID());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Event oldEvent, @NonNull Event newEvent) {
+            return Objects.equals(oldEvent.getName(), newEvent.getName())
+                    && Objects.equals(oldEvent.getLocationName(), newEvent.getLocationName())
+                    && Objects.equals(oldEvent.getEventTime(), newEvent.getEventTime())
+                    && Objects.equals(oldEvent.getRegistrationStart(), newEvent.getRegistrationStart())
+                    && Objects.equals(oldEvent.getRegistrationEnd(), newEvent.getRegistrationEnd())
+                    && oldEvent.isLotteryComplete() == newEvent.isLotteryComplete()
+                    && Objects.equals(oldEvent.getWaitingList(), newEvent.getWaitingList())
+                    && Objects.equals(oldEvent.getAcceptedCount(), newEvent.getAcceptedCount())
+                    && Objects.equals(oldEvent.getPendingCount(), newEvent.getPendingCount())
+                    && Objects.equals(oldEvent.getDeclinedCount(), newEvent.getDeclinedCount());
+        }
+    };
+
+    /**
+     * Checks if two lists would show the same, with the same events in the same order and nothing shown changed
+     *
+     * @param oldEvents the list that's shown
+     * @param newEvents the new list
+     * @return true if showing the new list would change nothing
+     */
+    static boolean sameEvents(List<Event> oldEvents, List<Event> newEvents) {
+        if (oldEvents.size() != newEvents.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldEvents.size(); i++) {
+            Event oldEvent = oldEvents.get(i);
+            Event newEvent = newEvents.get(i);
+            if (!DIFF_CALLBACK.areItemsTheSame(oldEvent, newEvent)
+                    || !DIFF_CALLBACK.areContentsTheSame(oldEvent, newEvent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// The ID of the current user, for their status in each event.
+    private final String userID;
+    /// How long a loaded status is kept at most, for changes to the user's invites the caller can't see.
+    static final long MAX_STATUS_AGE_MILLIS = 60_000;
+
+    /// Statuses that have already been loaded, by event ID.
+    private final Map<String, LoadedStatus> statuses = new HashMap<>();
+    /// The user's invite state in each event, as last given by the caller, by event ID.
+    private Map<String, InvitationState> inviteStates = Collections.emptyMap();
+    /// Stable item IDs, by event ID.
+    private final Map<String, Long> itemIds = new HashMap<>();
+
+    private boolean isAdmin = false;
+    private View.OnClickListener onRowClick = v -> {};
+    private View.OnClickListener onToggleBannerClick = v -> {};
+    private View.OnClickListener onRemoveClick = v -> {};
+
+    /**
+     * @param userID the ID of the current user, used to show their status in each event
+     */
+    public EventSummaryListViewAdapter(String userID) {
+        super(DIFF_CALLBACK);
+        this.userID = userID;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Replaces the events shown, along with the row callbacks.
+     *
+     * @param events              the events to show
+     * @param isAdmin             whether the rows are shown for an admin
+     * @param onRowClick          click listener for opening event details
+     * @param onToggleBannerClick click listener for enabling/disabling banners
+     * @param onRemoveClick       click listener for removing events
+     * @param onCommitted         called once the rows have been updated
+     */
+    public void setItems(List<Event> events, boolean isAdmin,
+                         View.OnClickListener onRowClick,
+                         View.OnClickListener onToggleBannerClick,
+                         View.OnClickListener onRemoveClick,
+                         Runnable onCommitted) {
+        setItems(events, null, isAdmin, onRowClick, onToggleBannerClick, onRemoveClick, onCommitted);
+    }
+
+    /**
+     * Replaces the events shown along with the user's invite state in each of them, and the row callbacks.
+     * A status already loaded is only kept while the user's invite state in its event stays the same.
+     *
+     * @param events              the events to show
+     * @param inviteStates        the user's invite state in each event, by event ID, or null if unknown
+     * @param isAdmin             whether the rows are shown for an admin
+     * @param onRowClick          click listener for opening event details
+     * @param onToggleBannerClick click listener for enabling/disabling banners
+     * @param onRemoveClick       click listener for removing events
+     * @param onCommitted         called once the rows have been updated
+     */
+    public void setItems(List<Event> events, Map<String, InvitationState> inviteStates, boolean isAdmin,
+                         View.OnClickListener onRowClick,
+                         View.OnClickListener onToggleBannerClick,
+                         View.OnClickListener onRemoveClick,
+                         Runnable onCommitted) {
+        boolean adminChanged = this.isAdmin != isAdmin;
+        this.isAdmin = isAdmin;
+        this.onRowClick = onRowClick;
+        this.onToggleBannerClick = onToggleBannerClick;
+        this.onRemoveClick = onRemoveClick;
+        this.inviteStates = inviteStates == null ? Collections.emptyMap() : new HashMap<>(inviteStates);
+
+        // forget the statuses that may be wrong now
+        Map<String, Event> previous = new HashMap<>();
+        for (Event event : getCurrentList()) {
+            previous.put(event.getEventID(), event);
+        }
+        long now = System.currentTimeMillis();
+        Map<String, LoadedStatus> kept = new HashMap<>();
+        // events that stay the same, but whose rows show a status that's been forgotten
+        Set<String> stale = new HashSet<>();
+        for (Event event : events) {
+            Event old = previous.get(event.getEventID());
+            LoadedStatus loaded = statuses.get(event.getEventID());
+            if (old == null || loaded == null) {
+                continue;
+            }
+            if (loaded.stillHolds(old, event, inviteStateOf(event), now)) {
+                kept.put(event.getEventID(), loaded);
+            } else {
+                stale.add(event.getEventID());
+            }
+        }
+        statuses.clear();
+        statuses.putAll(kept);
+
+        // the caller may keep changing its list, so diff against a copy
+        submitList(new ArrayList<>(events), () -> {
+            if (adminChanged) {
+                notifyItemRangeChanged(0, getItemCount());
+            } else if (!stale.isEmpty()) {
+                // the diff only rebinds events that changed, so rows whose status was forgotten are rebound here
+                List<Event> shown = getCurrentList();
+                for (int i = 0; i < shown.size(); i++) {
+                    if (stale.contains(shown.get(i).getEventID())) {
+                        notifyItemChanged(i);
+                    }
+                }
+            }
+            onCommitted.run();
+        });
+    }
+
+    private InvitationState inviteStateOf(Event event) {
+        return inviteStates.get(event.getEventID());
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String eventID = getItem(position).getEventID();
+        Long id = itemIds.get(eventID);
+        if (id == null) {
+            id = (long) itemIds.size();
+            itemIds.put(eventID, id);
+        }
+        return id;
+    }
+
+    /**
+     * Creates a new ViewHolder for an event row.
+     * @param parent The parent ViewGroup.
+     * @param viewType The view type of the new View.
+     * @return A new ListItemViewHolder instance.
+     */
+    @NonNull
+    @Override
+    public ListItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        EventSummaryView row = new EventSummaryView(parent.getContext());
+        row.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+        ListItemViewHolder holder = new ListItemViewHolder(row);
+        row.setOnOpenDetailsClickListener(v -> {
+            v.setTag(holder.event);
+            onRowClick.onClick(v);
+        });
+        row.setOnToggleBannerClickListener(v -> {
+            v.setTag(holder.event);
+            onToggleBannerClick.onClick(v);
+        });
+        row.setOnRemoveClickListener(v -> {
+            v.setTag(holder.event);
+            onRemoveClick.onClick(v);
+        });
+        return holder;
+    }
+
+    /**
+     * Binds an event to a row, loading the entrant's status in it if it isn't known yet.
+     * @param holder The ListItemViewHolder to bind data to.
+     * @param position The position of the event in the list.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ListItemViewHolder holder, int position) {
+        Event event = getItem(position);
+        holder.event = event;
+        holder.row.setTag(event);
+
+        LoadedStatus known = statuses.get(event.getEventID());
+        if (known != null && !known.stillHolds(event, event, inviteStateOf(event), System.currentTimeMillis())) {
+            statuses.remove(event.getEventID());
+            known = null;
+        }
+        holder.row.bind(event, known != null ? known.status : Event.Status.Unknown, isAdmin);
+        if (known != null) {
+            return;
+        }
+
+        InvitationState inviteState = inviteStateOf(event);
+        event.calculateRelativeStatus(userID).addOnSuccessListener(loaded -> {
+            if (isCurrent(event) && inviteState == inviteStateOf(event)) {
+                statuses.put(event.getEventID(), new LoadedStatus(loaded, event.calculateAbsoluteStatus(),
+                        inviteState, System.currentTimeMillis()));
+            }
+            // the row may have been recycled for another event while loading
+            if (holder.event == event) {
+                holder.row.bind(event, loaded, isAdmin);
+            }
+        });
+    }
+
+    /**
+     * Checks if an event is still shown unchanged, so a status loaded for it is still right
+     */
+    private boolean isCurrent(Event event) {
+        for (Event shown : getCurrentList()) {
+            if (Objects.equals(shown.getEventID(), event.getEventID())) {
+                return DIFF_CALLBACK.areContentsTheSame(shown, event);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An entrant's status in an event, along with what it was loaded from.
+     */
+    static class LoadedStatus {
+        final Event.Status status;
+        /// The event's absolute status when this was loaded, which changes as its deadlines pass.
+        final Event.Status absolute;
+        /// The user's invite state in the event when this was loaded, null if unknown.
+        final InvitationState inviteState;
+        final long loadedAt;
+
+        LoadedStatus(Event.Status status, Event.Status absolute, InvitationState inviteState, long loadedAt) {
+            this.status = status;
+            this.absolute = absolute;
+            this.inviteState = inviteState;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * Checks if this status is still right for an event. It isn't once the event changed,
+         * a deadline of the event passed, the user's invite in it changed, or it's been kept too long.
+         *
+         * @param old         the event this status was kept for
+         * @param event       the event as it is now
+         * @param inviteState the user's invite state in the event now, null if unknown
+         * @param now         the current time, in milliseconds
+         * @return true if the status can still be shown
+         */
+        boolean stillHolds(Event old, Event event, InvitationState inviteState, long now) {
+            return DIFF_CALLBACK.areContentsTheSame(old, event)
+                    && absolute == event.calculateAbsoluteStatus()
+                    && this.inviteState == inviteState
+                    && now - loadedAt < MAX_STATUS_AGE_MILLIS;
+        }
+    }
+
+    /**
+     * ViewHolder class for event rows.
+     */
+    public static class ListItemViewHolder extends RecyclerView.ViewHolder {
+        final EventSummaryView row;
+        Event event;
+
+        public ListItemViewHolder(@NonNull EventSummaryView row) {
+            super(row);
+            this.row = row;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.util.List;
  *         <li>A button to open the QR code scanner</li>
  *         <li>An {@link EventSummaryListView} that displays all currently open events</li>
  * </ul>
+ * The open events are queried from the {@link LocalMirror}, so the last known events show as soon as the screen opens.
  * </p>
  *
  * Only events that meet the following criteria are shown:
@@ -113,19 +114,15 @@ public class FindEventsFragment extends Fragment {
 
         String currentUserID = AppInstallationId.get(requireContext());
 
-        EventController.getInstance().observeAllEvents((events) -> {
-            joinableEvents.clear();
+        // only open events by other organizers can be joined, these are picked out by the local query
+        eventsListener = LocalMirror.getInstance(requireContext()).observe(
+                store -> store.getOpenEvents(currentUserID, System.currentTimeMillis()), (events) -> {
+                    joinableEvents.clear();
+                    joinableEvents.addAll(events);
 
-            for (Event event : events) {
-                boolean isOwnEvent = currentUserID.equals(event.getOrganizerID());
-
-                if (event.isOpen() && !isOwnEvent) {
-                    joinableEvents.add(event);
-                }
-            }
-
-            applySearchFilter(searchBox.getText().toString());
-        });
+                    applySearchFilter(searchBox.getText().toString());
+                    ScreenTracer.markContentShown(this);
+                });
         return view;
     }
 
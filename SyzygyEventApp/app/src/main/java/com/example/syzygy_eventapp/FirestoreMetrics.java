@@ -0,0 +1,747 @@
+package com.example.syzygy_eventapp;
+
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records every Firestore read, write, query and listener the controllers make.
+ * <p>
+ * Each operation is identified by its call-site: the screen that was showing when it started
+ * (see {@link #setCurrentScreen(String)}) and the controller method that made it, like "EventController.getEvent".
+ * For each call-site the number of calls, failures, documents, approximate bytes,
+ * whether results came from the local cache or the server, and a latency histogram are kept.
+ * </p>
+ * <p>
+ * Everything is counted with {@link LongAdder}s, which spread concurrent updates over separate cells
+ * instead of locking, so recording from listener callbacks and background threads stays cheap.
+ * Counts can be read as a text summary on the admin diagnostics screen, or exported as JSON.
+ * </p>
+ * <p>
+ * Sizing a document means decoding all of its fields, so bytes are only estimated for one in every
+ * {@link #SIZE_SAMPLE_RATE} documents, and scaled up. Byte counts are approximate in any case.
+ * </p>
+ * <p>
+ * Snapshots that arrive while the app is in the background (see {@link #setInBackground(boolean)}) are also
+ * counted separately, along with how often listeners were suspended and resumed by a {@link LifecycleListener},
+ * so the background traffic of two builds can be compared.
+ * </p>
+ * <p>
+ * Retries, give-ups and circuit breaker rejections from the {@link OperationPolicy} are counted per call-site too.
+ * </p>
+ */
+public class FirestoreMetrics {
+
+    /**
+     * The kinds of Firestore operations
+     */
+    public enum Kind {
+        /** a single document get */
+        READ,
+        /** a query get */
+        QUERY,
+        /** a snapshot delivered to a listener */
+        LISTEN,
+        /** a count or other aggregation */
+        AGGREGATE,
+        /** a set, update, delete or batch commit */
+        WRITE,
+        /** a cloud function call */
+        CALL
+    }
+
+    // one in this many documents has its size estimated
+    static final int SIZE_SAMPLE_RATE = 16;
+
+    // upper bounds of the latency histogram buckets, in milliseconds. The last bucket holds everything slower.
+    static final long[] LATENCY_BUCKETS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    /**
+     * All counts recorded for a single call-site
+     */
+    public static class OperationStats {
+        public final String screen;
+        public final String operation;
+        public final Kind kind;
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder fromCache = new LongAdder();
+        private final LongAdder fromServer = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder giveUps = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder latencySamples = new LongAdder();
+        private final LongAdder latencyTotalMs = new LongAdder();
+        private final LongAccumulator latencyMaxMs = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+
+        OperationStats(String screen, String operation, Kind kind) {
+            this.screen = screen;
+            this.operation = operation;
+            this.kind = kind;
+
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                latencyBuckets[i] = new LongAdder();
+            }
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getDocuments() {
+            return documents.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getFromCache() {
+            return fromCache.sum();
+        }
+
+        public long getFromServer() {
+            return fromServer.sum();
+        }
+
+        /**
+         * @return how many times a failed attempt was tried again by the {@link OperationPolicy}
+         */
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        /**
+         * @return how many times the {@link OperationPolicy} stopped retrying and reported a transient failure
+         */
+        public long getGiveUps() {
+            return giveUps.sum();
+        }
+
+        /**
+         * @return how many calls failed fast because their {@link CircuitBreaker} was open
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public long getMaxLatencyMs() {
+            return latencyMaxMs.get();
+        }
+
+        /**
+         * @return the average latency in milliseconds, or 0 if there are no samples
+         */
+        public long getMeanLatencyMs() {
+            long samples = latencySamples.sum();
+            return samples == 0 ? 0 : latencyTotalMs.sum() / samples;
+        }
+
+        /**
+         * Estimates a latency percentile from the histogram.
+         *
+         * @param percentile between 0 and 1, like 0.95
+         * @return the upper bound of the bucket the percentile falls in, or 0 if there are no samples
+         */
+        public long getLatencyPercentileMs(double percentile) {
+            long[] counts = new long[latencyBuckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = latencyBuckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(LATENCY_BUCKETS_MS[i], getMaxLatencyMs());
+                }
+            }
+            return getMaxLatencyMs();
+        }
+
+        private void recordLatency(long latencyMs) {
+            latencySamples.increment();
+            latencyTotalMs.add(latencyMs);
+            latencyMaxMs.accumulate(latencyMs);
+
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            latencyBuckets[bucket].increment();
+        }
+
+        private JSONObject toJson() throws JSONException {
+            JSONObject histogram = new JSONObject();
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                String bucket = i < LATENCY_BUCKETS_MS.length ? "<=" + LATENCY_BUCKETS_MS[i] : ">" + LATENCY_BUCKETS_MS[i - 1];
+                histogram.put(bucket, latencyBuckets[i].sum());
+            }
+
+            JSONObject latency = new JSONObject();
+            latency.put("mean", getMeanLatencyMs());
+            latency.put("p50", getLatencyPercentileMs(0.5));
+            latency.put("p95", getLatencyPercentileMs(0.95));
+            latency.put("p99", getLatencyPercentileMs(0.99));
+            latency.put("max", getMaxLatencyMs());
+            latency.put("histogram", histogram);
+
+            JSONObject json = new JSONObject();
+            json.put("screen", screen);
+            json.put("operation", operation);
+            json.put("kind", kind.name());
+            json.put("calls", getCalls());
+            json.put("failures", getFailures());
+            json.put("documents", getDocuments());
+            json.put("bytes", getBytes());
+            json.put("fromCache", getFromCache());
+            json.put("fromServer", getFromServer());
+            json.put("retries", getRetries());
+            json.put("giveUps", getGiveUps());
+            json.put("rejected", getRejected());
+            json.put("latencyMs", latency);
+            return json;
+        }
+    }
+
+    private static final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+    private static volatile String currentScreen = "App";
+    private static volatile boolean enabled = true;
+    private static volatile long startedAt = System.currentTimeMillis();
+    private static volatile boolean inBackground = false;
+    private static volatile int sizeSampleRate = SIZE_SAMPLE_RATE;
+    // counts documents seen, to pick the ones that are sized
+    private static final AtomicLong sizeSequence = new AtomicLong();
+
+    private static final LongAdder backgroundSnapshots = new LongAdder();
+    private static final LongAdder backgroundDocuments = new LongAdder();
+    private static final LongAdder backgroundBytes = new LongAdder();
+    private static final LongAdder suspensions = new LongAdder();
+    private static final LongAdder resumes = new LongAdder();
+
+    private FirestoreMetrics() {
+    }
+
+    /**
+     * Sets which screen operations should be blamed on from now on.
+     * Listeners are blamed on the screen that was showing when they were added.
+     *
+     * @param screen the name of the screen, usually its fragment's class name
+     */
+    public static void setCurrentScreen(String screen) {
+        currentScreen = screen == null ? "App" : screen;
+    }
+
+    /**
+     * @return the screen operations are currently blamed on
+     */
+    public static String getCurrentScreen() {
+        return currentScreen;
+    }
+
+    /**
+     * Turns recording on or off. Tracking still passes results through when off.
+     *
+     * @param enabled if operations should be recorded
+     */
+    public static void setEnabled(boolean enabled) {
+        FirestoreMetrics.enabled = enabled;
+    }
+
+    /**
+     * Sets how many documents are seen for each one whose size is estimated.
+     *
+     * @param rate 1 to size every document
+     */
+    static void setSizeSampleRate(int rate) {
+        sizeSampleRate = Math.max(1, rate);
+    }
+
+    /**
+     * Sets if the app is in the background, so snapshots received from now on are counted as background traffic
+     *
+     * @param inBackground true once no screen of the app is visible
+     */
+    public static void setInBackground(boolean inBackground) {
+        FirestoreMetrics.inBackground = inBackground;
+    }
+
+    /**
+     * Records that a listener was removed while it wasn't needed, to be added again later
+     */
+    public static void recordSuspended() {
+        if (enabled) {
+            suspensions.increment();
+        }
+    }
+
+    /**
+     * Records that a suspended listener was added again
+     */
+    public static void recordResumed() {
+        if (enabled) {
+            resumes.increment();
+        }
+    }
+
+    /**
+     * @return how many snapshots listeners received while the app was in the background
+     */
+    public static long getBackgroundSnapshots() {
+        return backgroundSnapshots.sum();
+    }
+
+    /**
+     * @return how many changed documents listeners received while the app was in the background
+     */
+    public static long getBackgroundDocuments() {
+        return backgroundDocuments.sum();
+    }
+
+    /**
+     * @return approximately how many bytes listeners received while the app was in the background
+     */
+    public static long getBackgroundBytes() {
+        return backgroundBytes.sum();
+    }
+
+    /**
+     * @return how many times listeners were suspended
+     */
+    public static long getSuspensions() {
+        return suspensions.sum();
+    }
+
+    /**
+     * @return how many times suspended listeners were resumed
+     */
+    public static long getResumes() {
+        return resumes.sum();
+    }
+
+    /**
+     * Records a single document get when it completes.
+     *
+     * @param operation the controller method making the call, like "EventController.getEvent"
+     * @param task      the get
+     * @return the same task
+     */
+    public static Task<DocumentSnapshot> read(String operation, Task<DocumentSnapshot> task) {
+        return track(operation, Kind.READ, 0, task);
+    }
+
+    /**
+     * Records a query get when it completes.
+     *
+     * @param operation the controller method making the call
+     * @param task      the get
+     * @return the same task
+     */
+    public static Task<QuerySnapshot> query(String operation, Task<QuerySnapshot> task) {
+        return track(operation, Kind.QUERY, 0, task);
+    }
+
+    /**
+     * Records an aggregation query when it completes.
+     *
+     * @param operation the controller method making the call
+     * @param task      the aggregation
+     * @return the same task
+     */
+    public static Task<AggregateQuerySnapshot> aggregate(String operation, Task<AggregateQuerySnapshot> task) {
+        return track(operation, Kind.AGGREGATE, 0, task);
+    }
+
+    /**
+     * Records a write when it completes.
+     *
+     * @param operation the controller method making the call
+     * @param documents the number of documents written
+     * @param task      the write
+     * @return the same task
+     */
+    public static <T> Task<T> write(String operation, int documents, Task<T> task) {
+        return track(operation, Kind.WRITE, documents, task);
+    }
+
+    /**
+     * Records a cloud function call when it completes.
+     *
+     * @param operation the controller method making the call
+     * @param task      the call
+     * @return the same task
+     */
+    public static <T> Task<T> call(String operation, Task<T> task) {
+        return track(operation, Kind.CALL, 0, task);
+    }
+
+    /**
+     * Wraps a snapshot listener so every snapshot it receives is recorded.
+     * Latency is only recorded for the first snapshot, as the time it took for the listener to get its first data.
+     *
+     * @param operation the controller method adding the listener
+     * @param listener  the listener to wrap
+     * @return a listener to pass to addSnapshotListener
+     */
+    public static <T> EventListener<T> listen(String operation, EventListener<T> listener) {
+        String screen = currentScreen;
+        long addedAt = SystemClock.elapsedRealtime();
+        boolean[] first = {true};
+
+        return (snap, error) -> {
+            if (enabled) {
+                long latency = -1;
+                if (first[0]) {
+                    first[0] = false;
+                    latency = SystemClock.elapsedRealtime() - addedAt;
+                }
+                recordResult(screen, operation, Kind.LISTEN, 0, snap, error == null, latency);
+            }
+
+            listener.onEvent(snap, error);
+        };
+    }
+
+    /**
+     * Records that a failed attempt will be tried again
+     *
+     * @param operation the controller method making the call
+     * @param kind      the kind of operation
+     */
+    public static void recordRetry(String operation, Kind kind) {
+        if (enabled) {
+            entry(currentScreen, operation, kind).retries.increment();
+        }
+    }
+
+    /**
+     * Records that an operation ran out of attempts or time, and its last failure was reported
+     *
+     * @param operation the controller method making the call
+     * @param kind      the kind of operation
+     */
+    public static void recordGiveUp(String operation, Kind kind) {
+        if (enabled) {
+            entry(currentScreen, operation, kind).giveUps.increment();
+        }
+    }
+
+    /**
+     * Records that a call wasn't made because its circuit breaker was open
+     *
+     * @param operation the controller method making the call
+     * @param kind      the kind of operation
+     */
+    public static void recordRejected(String operation, Kind kind) {
+        if (enabled) {
+            entry(currentScreen, operation, kind).rejected.increment();
+        }
+    }
+
+    private static <T> Task<T> track(String operation, Kind kind, int documents, Task<T> task) {
+        if (!enabled) {
+            return task;
+        }
+
+        String screen = currentScreen;
+        long start = SystemClock.elapsedRealtime();
+
+        task.addOnCompleteListener(done -> {
+            long latency = SystemClock.elapsedRealtime() - start;
+            Object result = done.isSuccessful() ? done.getResult() : null;
+            recordResult(screen, operation, kind, documents, result, done.isSuccessful(), latency);
+        });
+        return task;
+    }
+
+    private static void recordResult(String screen, String operation, Kind kind, long documents,
+                                     Object result, boolean success, long latencyMs) {
+        long bytes = 0;
+        Boolean fromCache = null;
+
+        if (result instanceof DocumentSnapshot) {
+            DocumentSnapshot doc = (DocumentSnapshot) result;
+            fromCache = doc.getMetadata().isFromCache();
+            if (doc.exists()) {
+                documents = 1;
+                bytes = sampleBytes(doc);
+            }
+        } else if (result instanceof QuerySnapshot) {
+            QuerySnapshot snap = (QuerySnapshot) result;
+            fromCache = snap.getMetadata().isFromCache();
+            if (kind == Kind.LISTEN) {
+                // only changed documents are sent again, and billed, after a listener's first snapshot
+                for (DocumentChange change : snap.getDocumentChanges()) {
+                    if (change.getType() != DocumentChange.Type.REMOVED) {
+                        documents++;
+                        bytes += sampleBytes(change.getDocument());
+                    }
+                }
+            } else {
+                documents = snap.size();
+                for (DocumentSnapshot doc : snap.getDocuments()) {
+                    bytes += sampleBytes(doc);
+                }
+            }
+        } else if (result instanceof AggregateQuerySnapshot) {
+            fromCache = false;
+            documents = 1; // billed as a single read
+        }
+
+        record(screen, operation, kind, success, documents, bytes, fromCache, latencyMs);
+    }
+
+    /**
+     * Records a finished operation.
+     *
+     * @param fromCache true if results came from the cache, false if they came from the server, null if there were none
+     * @param latencyMs how long the operation took, or -1 if it shouldn't be counted
+     */
+    static void record(String screen, String operation, Kind kind, boolean success,
+                       long documents, long bytes, Boolean fromCache, long latencyMs) {
+        OperationStats entry = entry(screen, operation, kind);
+        entry.calls.increment();
+        if (!success) {
+            entry.failures.increment();
+        }
+        entry.documents.add(documents);
+        entry.bytes.add(bytes);
+        if (fromCache != null) {
+            (fromCache ? entry.fromCache : entry.fromServer).increment();
+        }
+        if (latencyMs >= 0) {
+            entry.recordLatency(latencyMs);
+        }
+
+        if (kind == Kind.LISTEN && inBackground) {
+            backgroundSnapshots.increment();
+            backgroundDocuments.add(documents);
+            backgroundBytes.add(bytes);
+        }
+    }
+
+    private static OperationStats entry(String screen, String operation, Kind kind) {
+        String key = screen + "|" + operation + "|" + kind;
+        OperationStats entry = stats.get(key);
+        if (entry == null) {
+            entry = stats.computeIfAbsent(key, k -> new OperationStats(screen, operation, kind));
+        }
+        return entry;
+    }
+
+    /**
+     * Checks if the next document seen should have its size estimated
+     *
+     * @param rate how many documents are seen for each one that's sized
+     * @return true for one in every rate documents
+     */
+    static boolean sampleSize(int rate) {
+        return sizeSequence.getAndIncrement() % rate == 0;
+    }
+
+    /**
+     * Estimates a document's share of the bytes, see {@link #sampleSize(int)}
+     *
+     * @param doc the document
+     * @return its estimated size times the sample rate if it's sampled, otherwise 0
+     */
+    private static long sampleBytes(DocumentSnapshot doc) {
+        int rate = sizeSampleRate;
+        return sampleSize(rate) ? estimateBytes(doc) * rate : 0;
+    }
+
+    /**
+     * Estimates how many bytes a document takes up, following Firestore's storage size rules.
+     *
+     * @param doc the document
+     * @return the approximate size in bytes
+     */
+    static long estimateBytes(DocumentSnapshot doc) {
+        // the document's name plus a fixed overhead per document
+        long size = doc.getReference().getPath().length() + 16 + 32;
+
+        Map<String, Object> data = doc.getData();
+        if (data != null) {
+            size += estimateBytes(data);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates how many bytes a Firestore value takes up.
+     *
+     * @param value a value as returned by DocumentSnapshot.getData()
+     * @return the approximate size in bytes
+     */
+    static long estimateBytes(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        } else if (value instanceof Number || value instanceof Timestamp) {
+            return 8;
+        } else if (value instanceof String) {
+            return ((String) value).length() + 1;
+        } else if (value instanceof GeoPoint) {
+            return 16;
+        } else if (value instanceof Blob) {
+            return ((Blob) value).toBytes().length;
+        } else if (value instanceof DocumentReference) {
+            return ((DocumentReference) value).getPath().length() + 16;
+        } else if (value instanceof List) {
+            long size = 0;
+            for (Object item : (List<?>) value) {
+                size += estimateBytes(item);
+            }
+            return size;
+        } else if (value instanceof Map) {
+            long size = 0;
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+                size += String.valueOf(field.getKey()).length() + 1 + estimateBytes(field.getValue());
+            }
+            return size;
+        }
+        return 8;
+    }
+
+    /**
+     * @return every call-site's counts, the busiest by documents first
+     */
+    public static List<OperationStats> getAll() {
+        List<OperationStats> all = new ArrayList<>(stats.values());
+        all.sort(Comparator.comparingLong(OperationStats::getDocuments).reversed()
+                .thenComparing(s -> s.screen)
+                .thenComparing(s -> s.operation));
+        return all;
+    }
+
+    /**
+     * Summarizes the counts as text, grouped by screen.
+     *
+     * @return a human readable summary
+     */
+    public static String summary() {
+        List<OperationStats> all = getAll();
+        if (all.isEmpty()) {
+            return "No Firestore operations recorded yet.";
+        }
+
+        Map<String, long[]> screens = new TreeMap<>();
+        for (OperationStats entry : all) {
+            long[] totals = screens.computeIfAbsent(entry.screen, s -> new long[2]);
+            totals[0] += entry.getDocuments();
+            totals[1] += entry.getBytes();
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US,
+                "Background\n  %d snapshots, %d docs, %s\n  %d listeners suspended, %d resumed\n\n",
+                getBackgroundSnapshots(), getBackgroundDocuments(), formatBytes(getBackgroundBytes()),
+                getSuspensions(), getResumes()));
+        text.append("Screens\n");
+        for (Map.Entry<String, long[]> screen : screens.entrySet()) {
+            text.append(String.format(Locale.US, "  %s: %d docs, %s\n",
+                    screen.getKey(), screen.getValue()[0], formatBytes(screen.getValue()[1])));
+        }
+
+        text.append("\nCall-sites\n");
+        for (OperationStats entry : all) {
+            text.append(String.format(Locale.US,
+                    "  %s > %s (%s)\n    %d calls, %d failed, %d docs, %s, %d cache / %d server\n    p50 %dms, p95 %dms, max %dms\n"
+                            + "    %d retries, %d gave up, %d rejected\n",
+                    entry.screen, entry.operation, entry.kind.name().toLowerCase(Locale.US),
+                    entry.getCalls(), entry.getFailures(), entry.getDocuments(), formatBytes(entry.getBytes()),
+                    entry.getFromCache(), entry.getFromServer(),
+                    entry.getLatencyPercentileMs(0.5), entry.getLatencyPercentileMs(0.95), entry.getMaxLatencyMs(),
+                    entry.getRetries(), entry.getGiveUps(), entry.getRejected()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Exports every call-site's counts as JSON, so releases can be compared.
+     *
+     * @param appVersion the app's version name, included in the export
+     * @return the JSON text
+     * @throws JSONException if the JSON can't be built
+     */
+    public static String toJson(String appVersion) throws JSONException {
+        JSONArray operations = new JSONArray();
+        for (OperationStats entry : getAll()) {
+            operations.put(entry.toJson());
+        }
+
+        JSONObject background = new JSONObject();
+        background.put("snapshots", getBackgroundSnapshots());
+        background.put("documents", getBackgroundDocuments());
+        background.put("bytes", getBackgroundBytes());
+        background.put("suspensions", getSuspensions());
+        background.put("resumes", getResumes());
+
+        JSONObject json = new JSONObject();
+        json.put("appVersion", appVersion);
+        json.put("startedAt", startedAt);
+        json.put("exportedAt", System.currentTimeMillis());
+        json.put("background", background);
+        json.put("operations", operations);
+        return json.toString(2);
+    }
+
+    /**
+     * Forgets every recorded count
+     */
+    public static void reset() {
+        stats.clear();
+        backgroundSnapshots.reset();
+        backgroundDocuments.reset();
+        backgroundBytes.reset();
+        suspensions.reset();
+        resumes.reset();
+        startedAt = System.currentTimeMillis();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
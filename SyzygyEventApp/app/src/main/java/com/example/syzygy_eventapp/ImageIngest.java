@@ -0,0 +1,346 @@
+package com.example.syzygy_eventapp;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns a picked image into the compact Base64 images stored on events and users.
+ * <p>
+ * Everything runs on a background thread: the image is decoded already downsampled close to the size it's
+ * needed at, rotated upright from its EXIF orientation, scaled, then encoded as WebP (JPEG before Android 11).
+ * The encoding quality is binary searched for the best quality that fits a byte budget, so every stored
+ * image stays small no matter what was picked. A thumbnail and an {@link ImagePlaceholder} are made from the
+ * same decoded image.
+ * </p>
+ * Progress is reported on the main thread while the image is processed.
+ */
+public class ImageIngest {
+
+    /**
+     * How an image is stored
+     */
+    public static class Spec {
+        /** the longest side of the full image, in pixels */
+        public final int maxSize;
+        /** the most bytes the full image can take once encoded */
+        public final int maxBytes;
+        /** the longest side of the thumbnail in pixels, or 0 for no thumbnail */
+        public final int thumbnailSize;
+        /** the most bytes the thumbnail can take once encoded */
+        public final int thumbnailMaxBytes;
+
+        public Spec(int maxSize, int maxBytes, int thumbnailSize, int thumbnailMaxBytes) {
+            this.maxSize = maxSize;
+            this.maxBytes = maxBytes;
+            this.thumbnailSize = thumbnailSize;
+            this.thumbnailMaxBytes = thumbnailMaxBytes;
+        }
+    }
+
+    /**
+     * Event posters, with a thumbnail for list rows
+     */
+    public static final Spec POSTER = new Spec(800, 120_000, 160, 8_000);
+
+    /**
+     * Profile photos, already small enough for list rows
+     */
+    public static final Spec AVATAR = new Spec(200, 16_000, 0, 0);
+
+    /**
+     * The result of processing an image
+     */
+    public static class Result {
+        /** the full image, for showing right away without decoding it again */
+        public final Bitmap bitmap;
+        public final byte[] full;
+        /** null if the spec has no thumbnail */
+        public final byte[] thumbnail;
+        /** the image's placeholder, already in Base64 */
+        public final String placeholder;
+
+        Result(Bitmap bitmap, byte[] full, byte[] thumbnail, String placeholder) {
+            this.bitmap = bitmap;
+            this.full = full;
+            this.thumbnail = thumbnail;
+            this.placeholder = placeholder;
+        }
+
+        /**
+         * @return the full image in Base64, as stored in Firestore
+         */
+        public String getFullBase64() {
+            return Base64.encodeToString(full, Base64.DEFAULT);
+        }
+
+        /**
+         * @return the thumbnail in Base64, or null if there is none
+         */
+        public String getThumbnailBase64() {
+            return thumbnail == null ? null : Base64.encodeToString(thumbnail, Base64.DEFAULT);
+        }
+    }
+
+    /**
+     * Receives progress while an image is processed
+     */
+    public interface ProgressListener {
+        /**
+         * @param percent how much is done, from 0 to 100
+         */
+        void onProgress(int percent);
+    }
+
+    /**
+     * Encodes an image at a quality
+     */
+    interface Encoder {
+        byte[] encode(int quality);
+    }
+
+    // below this images look visibly blocky, so they're scaled down instead
+    static final int MIN_QUALITY = 40;
+    static final int MAX_QUALITY = 92;
+    // how much smaller to scale an image that doesn't fit its budget even at the lowest quality
+    private static final float SHRINK_STEP = 0.75f;
+
+    // one background thread, images are processed one at a time
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ImageIngest() {
+    }
+
+    /**
+     * Processes a picked image in the background
+     *
+     * @param context  any context, used to open the image
+     * @param uri      the image, from a picker
+     * @param spec     how big the image and its thumbnail can be
+     * @param progress called on the main thread as the image is processed, may be null
+     * @return Task that completes with the encoded image and thumbnail, or fails if the image can't be read
+     */
+    public static Task<Result> ingest(Context context, Uri uri, Spec spec, ProgressListener progress) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        return Tasks.call(executor, () -> {
+            report(progress, 0);
+            Bitmap decoded = decode(resolver, uri, spec.maxSize);
+            report(progress, 30);
+
+            Bitmap bitmap = orient(decoded, readOrientation(resolver, uri), spec.maxSize);
+            report(progress, 45);
+
+            byte[] full = encodeWithinBudget(bitmap, spec.maxBytes);
+            report(progress, spec.thumbnailSize > 0 ? 85 : 100);
+
+            byte[] thumbnail = null;
+            if (spec.thumbnailSize > 0) {
+                thumbnail = encodeWithinBudget(scale(bitmap, spec.thumbnailSize), spec.thumbnailMaxBytes);
+                report(progress, 100);
+            }
+            return new Result(bitmap, full, thumbnail, ImagePlaceholder.encode(bitmap));
+        });
+    }
+
+    private static void report(ProgressListener progress, int percent) {
+        if (progress != null) {
+            mainHandler.post(() -> progress.onProgress(percent));
+        }
+    }
+
+    /**
+     * Decodes an image, downsampled while decoding so a huge photo never has to fit in memory at full size
+     */
+    private static Bitmap decode(ContentResolver resolver, Uri uri, int maxSize) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image");
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight, maxSize);
+        try (InputStream in = open(resolver, uri)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) {
+                throw new IOException("Failed to decode image");
+            }
+            return bitmap;
+        }
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException("Can't open " + uri);
+        }
+        return in;
+    }
+
+    /**
+     * Picks the largest power of two to downsample by while decoding that still leaves
+     * the image's longest side at least the size it's needed at
+     *
+     * @param width   the image's width
+     * @param height  the image's height
+     * @param maxSize the longest side it's needed at
+     * @return the inSampleSize to decode with
+     */
+    static int sampleSizeFor(int width, int height, int maxSize) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int readOrientation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // not every image has EXIF data
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * Rotates and flips an image upright, and scales it down to fit, in a single pass
+     */
+    private static Bitmap orient(Bitmap bitmap, int orientation, int maxSize) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                break;
+        }
+
+        float ratio = scaleFor(bitmap.getWidth(), bitmap.getHeight(), maxSize);
+        matrix.postScale(ratio, ratio);
+        if (matrix.isIdentity()) {
+            return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    private static Bitmap scale(Bitmap bitmap, int maxSize) {
+        float ratio = scaleFor(bitmap.getWidth(), bitmap.getHeight(), maxSize);
+        if (ratio >= 1) {
+            return bitmap;
+        }
+        return Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * ratio)),
+                Math.max(1, Math.round(bitmap.getHeight() * ratio)), true);
+    }
+
+    private static float scaleFor(int width, int height, int maxSize) {
+        return Math.min(1f, Math.min((float) maxSize / width, (float) maxSize / height));
+    }
+
+    /**
+     * Encodes an image at the best quality that fits a budget, scaling it down if even the lowest quality doesn't
+     */
+    private static byte[] encodeWithinBudget(Bitmap bitmap, int maxBytes) {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.JPEG;
+
+        while (true) {
+            Bitmap image = bitmap;
+            byte[] bytes = searchQuality(quality -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                image.compress(format, quality, out);
+                return out.toByteArray();
+            }, maxBytes);
+
+            if (bytes.length <= maxBytes || Math.max(bitmap.getWidth(), bitmap.getHeight()) <= 16) {
+                return bytes;
+            }
+            int size = Math.round(Math.max(bitmap.getWidth(), bitmap.getHeight()) * SHRINK_STEP);
+            bitmap = scale(bitmap, size);
+        }
+    }
+
+    /**
+     * Binary searches for the highest quality, between {@link #MIN_QUALITY} and {@link #MAX_QUALITY},
+     * whose encoding fits a budget. Encoded size grows with quality, so about 6 encodings are needed.
+     *
+     * @param encoder  encodes at a quality
+     * @param maxBytes the budget
+     * @return the best encoding that fits, or the lowest quality encoding if none do
+     */
+    static byte[] searchQuality(Encoder encoder, int maxBytes) {
+        byte[] best = encoder.encode(MAX_QUALITY);
+        if (best.length <= maxBytes) {
+            return best;
+        }
+
+        byte[] lowest = null;
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY - 1;
+        best = null;
+        while (low <= high) {
+            int quality = (low + high) / 2;
+            byte[] bytes = encoder.encode(quality);
+            if (quality == MIN_QUALITY) {
+                lowest = bytes;
+            }
+
+            if (bytes.length <= maxBytes) {
+                best = bytes;
+                low = quality + 1;
+            } else {
+                high = quality - 1;
+            }
+        }
+
+        if (best != null) {
+            return best;
+        }
+        return lowest != null ? lowest : encoder.encode(MIN_QUALITY);
+    }
+}
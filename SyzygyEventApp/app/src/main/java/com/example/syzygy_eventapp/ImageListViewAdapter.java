@@ -1,9 +1,6 @@
 package com.example.syzygy_eventapp;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.media.Image;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -67,8 +64,8 @@ public class ImageListViewAdapter extends RecyclerView.Adapter<ImageListViewAdap
     public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
         ImageWrapper image = images.get(position);
 
-        // Show a temporary placeholder so recycled cells don’t show old images
-        holder.imageView.setImageBitmap(null);
+        // Show the image's placeholder right away, so recycled cells don’t show old images
+        ImagePlaceholder.load(holder.imageView, image.getPlaceholder(), image.getPreviewBase64(), 0);
         holder.metaText.setText("Loading...");
 
         switch (image.getImageSourceType()) {
@@ -76,12 +73,6 @@ public class ImageListViewAdapter extends RecyclerView.Adapter<ImageListViewAdap
                 UserController.getInstance()
                         .getUser(image.getUserID())
                         .addOnSuccessListener(user -> {
-                            if (user != null && user.getPhotoURL() != null) {
-                                byte[] decoded = Base64.decode(user.getPhotoURL(), Base64.DEFAULT);
-                                Bitmap bm = BitmapFactory.decodeByteArray(decoded, 0, decoded.length);
-                                holder.imageView.setImageBitmap(bm);
-                            }
-
                             holder.metaText.setText(user != null ?
                                     "From User: " + user.getName() :
                                     "From User: (Unknown)");
@@ -95,12 +86,6 @@ public class ImageListViewAdapter extends RecyclerView.Adapter<ImageListViewAdap
                 EventController.getInstance()
                         .getEvent(image.getEventID())
                         .addOnSuccessListener(event -> {
-                            if (event != null && event.getPosterUrl() != null) {
-                                byte[] decoded = Base64.decode(event.getPosterUrl(), Base64.DEFAULT);
-                                Bitmap bm = BitmapFactory.decodeByteArray(decoded, 0, decoded.length);
-                                holder.imageView.setImageBitmap(bm);
-                            }
-
                             holder.metaText.setText(event != null ?
                                     "From Event: " + event.getName() :
                                     "From Event: (Unknown)");
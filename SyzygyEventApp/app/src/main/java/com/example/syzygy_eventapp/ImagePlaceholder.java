@@ -0,0 +1,184 @@
+package com.example.syzygy_eventapp;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.TransitionDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tiny blurred stand-ins for posters and profile photos.
+ * <p>
+ * A placeholder is the image shrunk to {@link #SIZE} pixels, a few hundred bytes in Base64, stored on the same
+ * document as the image it stands in for. Since it's already in the snapshot, a view can show it right away
+ * while the full image is decoded in the background, then fade the full image in over it.
+ * </p>
+ */
+public class ImagePlaceholder {
+    private static final String TAG = "ImagePlaceholder";
+
+    // the longest side of a placeholder, in pixels
+    static final int SIZE = 16;
+    private static final int QUALITY = 50;
+    // placeholders claim to be this big, so views scale them up to fill the space like the full image would
+    private static final int SHOWN_SIZE = 1024;
+    private static final int FADE_MS = 200;
+
+    // one background thread, so decoding never holds up scrolling
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * A placeholder being shown, so the full image knows to fade in over it
+     */
+    private static class PlaceholderDrawable extends BitmapDrawable {
+        private final int width;
+        private final int height;
+
+        PlaceholderDrawable(Resources resources, Bitmap bitmap) {
+            super(resources, bitmap);
+            float ratio = (float) SHOWN_SIZE / Math.max(bitmap.getWidth(), bitmap.getHeight());
+            width = Math.round(bitmap.getWidth() * ratio);
+            height = Math.round(bitmap.getHeight() * ratio);
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return height;
+        }
+    }
+
+    private ImagePlaceholder() {
+    }
+
+    /**
+     * Makes the placeholder for an image. Call it off the main thread, along with the image's own encoding.
+     *
+     * @param bitmap the full image
+     * @return the placeholder, in Base64
+     */
+    public static String encode(Bitmap bitmap) {
+        float ratio = Math.min(1f, (float) SIZE / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        Bitmap small = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * ratio)),
+                Math.max(1, Math.round(bitmap.getHeight() * ratio)), true);
+
+        // JPEG, so every device can read it back no matter which one wrote it
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        small.compress(Bitmap.CompressFormat.JPEG, QUALITY, out);
+        return Base64.encodeToString(out.toByteArray(), Base64.NO_WRAP);
+    }
+
+    /**
+     * Shows a placeholder, cancelling any full image the view was waiting on
+     *
+     * @param view        the view
+     * @param placeholder the placeholder in Base64, may be null
+     * @return true if it was shown, false if there is none or it's unreadable, in which case the view is unchanged
+     */
+    public static boolean show(ImageView view, String placeholder) {
+        view.setTag(R.id.image_request, null);
+        Bitmap bitmap = decode(placeholder);
+        if (bitmap == null) {
+            return false;
+        }
+        view.setImageDrawable(new PlaceholderDrawable(view.getResources(), bitmap));
+        return true;
+    }
+
+    /**
+     * Shows an image's placeholder right away, then decodes the image in the background and fades it in.
+     * If the view is given another image before this one is decoded, this one is dropped.
+     *
+     * @param view        the view
+     * @param placeholder the image's placeholder in Base64, may be null
+     * @param image       the image in Base64, may be null
+     * @param fallback    shown if there's no image, or while it loads if there's no placeholder
+     */
+    public static void load(ImageView view, String placeholder, String image, @DrawableRes int fallback) {
+        if (!show(view, placeholder)) {
+            view.setImageResource(fallback);
+        }
+        if (image == null || image.isEmpty()) {
+            view.setImageResource(fallback);
+            return;
+        }
+
+        view.setTag(R.id.image_request, image);
+        executor.execute(() -> {
+            Bitmap bitmap = decode(image);
+            mainHandler.post(() -> {
+                // the view has moved on to another image, like a recycled list row
+                if (view.getTag(R.id.image_request) != image) {
+                    return;
+                }
+                view.setTag(R.id.image_request, null);
+
+                if (bitmap == null) {
+                    Log.e(TAG, "Failed to decode image");
+                    view.setImageResource(fallback);
+                } else {
+                    fadeIn(view, bitmap);
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the full image a view is waiting on, before showing something else in it
+     *
+     * @param view the view
+     */
+    public static void cancel(ImageView view) {
+        view.setTag(R.id.image_request, null);
+    }
+
+    /**
+     * Shows a full image, fading it in if a placeholder is showing
+     *
+     * @param view   the view
+     * @param bitmap the full image
+     */
+    public static void fadeIn(ImageView view, Bitmap bitmap) {
+        Drawable current = view.getDrawable();
+        if (!(current instanceof PlaceholderDrawable)) {
+            view.setImageBitmap(bitmap);
+            return;
+        }
+
+        TransitionDrawable transition = new TransitionDrawable(new Drawable[]{
+                current, new BitmapDrawable(view.getResources(), bitmap)});
+        transition.setCrossFadeEnabled(true);
+        view.setImageDrawable(transition);
+        transition.startTransition(FADE_MS);
+    }
+
+    private static Bitmap decode(String base64) {
+        if (base64 == null || base64.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -4,6 +4,12 @@ public class ImageWrapper {
     /// The image, encoded in Base64
     private String imageBase64 = null;
 
+    /// The smallest copy of the image good enough for the image list, encoded in Base64
+    private String previewBase64 = null;
+
+    /// The image's tiny blurred placeholder, encoded in Base64. Null for images saved before placeholders existed.
+    private String placeholder = null;
+
     /// The source type of the image, either User or Event
     private ImageSourceType imageSourceType = null;
 
@@ -19,6 +25,14 @@ public class ImageWrapper {
         return this.imageBase64;
     }
 
+    public String getPreviewBase64() {
+        return this.previewBase64;
+    }
+
+    public String getPlaceholder() {
+        return this.placeholder;
+    }
+
     public ImageSourceType getImageSourceType() {
         return this.imageSourceType;
     }
@@ -33,6 +47,8 @@ public class ImageWrapper {
 
     public ImageWrapper(User user) {
         this.imageBase64 = user.getPhotoURL();
+        this.previewBase64 = user.getPhotoURL();
+        this.placeholder = user.getPhotoPlaceholder();
         this.imageSourceType = ImageSourceType.USER;
         this.userID = user.getUserID();
         this.eventID = null;
@@ -40,6 +56,8 @@ public class ImageWrapper {
 
     public ImageWrapper(Event event) {
         this.imageBase64 = event.getPosterUrl();
+        this.previewBase64 = event.posterPreview();
+        this.placeholder = event.getPosterPlaceholder();
         this.imageSourceType = ImageSourceType.EVENT;
         this.userID = null;
         this.eventID = event.getEventID();
@@ -20,6 +20,11 @@ public class Invitation {
     private Timestamp responseTime;
     private Timestamp cancelTime;
 
+    /** The state the invite is in, always kept in agreement with accepted, responseTime and cancelled. */
+    private InvitationState state;
+    /** How many times the invite has changed state, increased by every transition. */
+    private int version;
+
     /** Default Constructor used for creating invitations normally. */
     public Invitation() {
     }
@@ -113,4 +118,26 @@ public class Invitation {
     public void setCancelTime(Timestamp cancelTime) {
         this.cancelTime = cancelTime;
     }
+
+    /**
+     * @return the invite's state, worked out from its other fields if it was written before invites had one
+     */
+    public InvitationState getState() {
+        if (state == null) {
+            return InvitationState.of(accepted, cancelled, hasResponse());
+        }
+        return state;
+    }
+
+    public void setState(InvitationState state) {
+        this.state = state;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
@@ -18,11 +18,15 @@ import com.google.firebase.functions.FirebaseFunctions;
 import com.google.firebase.functions.HttpsCallableReference;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -32,12 +36,40 @@ import java.util.function.Predicate;
 public class InvitationController {
     private static InvitationController singletonInstance = null;
 
+    // Names of the counters on event documents, see {@link Event}
+    static final String ACCEPTED_COUNT = "acceptedCount";
+    static final String PENDING_COUNT = "pendingCount";
+    static final String DECLINED_COUNT = "declinedCount";
+
+    // The most invitations cancelPendingInvites cancels in one transaction, each is read again in it one at a time
+    static final int MAX_CANCEL_TRANSACTION = 100;
+
+    /**
+     * The result of {@link #cancelPendingInvites(String)}
+     */
+    public static class CancelSummary {
+        /** invitations that are now cancelled */
+        public int cancelled = 0;
+        /** invitations that were answered or cancelled by the time they were checked */
+        public int skipped = 0;
+        /** invitations that couldn't be written */
+        public int failed = 0;
+    }
+
     private final FirebaseFirestore db;
     private final CollectionReference invitationsRef;
+    private final CollectionReference eventsRef;
+    // keys: "eventInvites:{eventID}:{pending|accepted|declined}"
+    private final CountCache counts = new CountCache();
+    // decodes snapshots off the main thread
+    private SnapshotDecoder decoder = SnapshotDecoder.getDefault();
+    // retries, backoff and deadlines for every call
+    private final OperationPolicy policy = OperationPolicy.getDefault();
 
     private InvitationController() {
         this.db = FirebaseFirestore.getInstance();
         this.invitationsRef = db.collection("invitations");
+        this.eventsRef = db.collection("events");
     }
 
     /**
@@ -52,9 +84,21 @@ public class InvitationController {
         return singletonInstance;
     }
 
+    /**
+     * Sets where snapshots and query results are decoded, and where listener callbacks are called.
+     * By default decoding happens on a shared background thread, and callbacks on the main thread.
+     *
+     * @param decodeExecutor where snapshots are decoded, filtered and sorted
+     * @param mainExecutor   where listener callbacks are called
+     */
+    public void setExecutors(Executor decodeExecutor, Executor mainExecutor) {
+        decoder = new SnapshotDecoder(decodeExecutor, mainExecutor);
+    }
+
     /**
      * Create one or many invitations for an event in a single Firestore batch write.
-     * Each recipient gets its own document. Initial state: accepted == null (pending), sendTime = serverTimestamp(), cancelled = false, cancelTime = null.
+     * Each recipient gets its own document. Initial state: state = PENDING, version = 0, accepted == null, sendTime = serverTimestamp(), cancelled = false, cancelTime = null.
+     * The event's pendingCount is increased in the same batch.
      *
      * @param event        Event document ID
      * @param organizerID  Organizer user ID creating the invitations
@@ -89,14 +133,20 @@ public class InvitationController {
             data.put("responseTime", null);
             data.put("cancelled", false);
             data.put("cancelTime", null);
+            data.put("state", InvitationState.PENDING.name());
+            data.put("version", 0);
 
             batch.set(doc, data);
         }
 
-        return batch.commit().continueWith(task -> {
+        // every new invitation starts out pending
+        batch.update(eventsRef.document(event), PENDING_COUNT, FieldValue.increment(recipientIDs.size()));
+
+        return policy.write("InvitationController.createInvites", recipientIDs.size() + 1, batch.commit()).continueWith(task -> {
             if (!task.isSuccessful()) {
                 throw Objects.requireNonNull(task.getException());
             }
+            counts.invalidate("eventInvites:" + event + ":");
             return invitations;
         });
     }
@@ -119,91 +169,273 @@ public class InvitationController {
     }
 
     /**
-     * Updates fields on an invite, under some condition
+     * Updates fields on an invite under some condition, in a transaction.
+     * The invite's state is worked out again from the accepted, responseTime and cancelled it ends up with,
+     * so it always agrees with them, and its version is increased. The event's counters aren't changed,
+     * use {@link #acceptInvite(String)}, {@link #declineInvite(String)} and {@link #cancelInvite(String)} for that.
      *
      * @param invitationID Invitation document ID
      * @param fields The fields in the database to update
      * @param condition The condition under which the update should be made, takes a DocumentSnapshot of the invite
      * @return Task that completes when updated, results to true if updated
-     * @return Task that completes when updated, results to true if updated
      * @throws IllegalStateException if not found
      */
-
     public Task<Boolean> updateInvite(String invitationID, HashMap<String, Object> fields, Predicate<DocumentSnapshot> condition) {
         DocumentReference doc = invitationsRef.document(invitationID);
 
-        return doc.get().continueWithTask(task -> {
-            if (!task.isSuccessful()) {
-                return Tasks.forException(task.getException());
+        return policy.transaction("InvitationController.updateInvite", 1, () -> db.runTransaction(t -> {
+            DocumentSnapshot snap = t.get(doc);
+            if (!snap.exists()) {
+                throw new IllegalStateException("Invitation: " + invitationID + " not found.");
+            }
+            if (!condition.test(snap)) {
+                return false;
             }
 
-            DocumentSnapshot snap = task.getResult();
+            Map<String, Object> data = new HashMap<>(fields);
+            InvitationState state = InvitationState.of(
+                    (Boolean) (fields.containsKey("accepted") ? fields.get("accepted") : snap.get("accepted")),
+                    (Boolean) (fields.containsKey("cancelled") ? fields.get("cancelled") : snap.get("cancelled")),
+                    (fields.containsKey("responseTime") ? fields.get("responseTime") : snap.get("responseTime")) != null);
+            data.put("state", state.name());
+            data.put("version", versionOf(snap) + 1);
+            t.set(doc, data, SetOptions.merge());
+            return true;
+        }));
+    }
+
+    /**
+     * Moves an invite to another state, as long as its current state can become it (see {@link InvitationState}).
+     * <p>
+     * The invite is read and written in one transaction, so two devices changing the same invite at once,
+     * like its recipient accepting it while its organizer cancels it, can't both succeed: the one that commits
+     * second is retried by Firestore, reads the new state, and is turned down. The invite's state, its version,
+     * the older fields kept in agreement with its state, and the event's counters are all written together.
+     * The counters are changed with increments on the event document, which isn't read in the transaction,
+     * so listeners on the event see every answer right away.
+     * </p>
+     * Moving to the state the invite is already in writes nothing.
+     *
+     * @param invitationID Invitation document ID
+     * @param next         the state to move to
+     * @param fields       the older fields to write along with the state
+     * @return Task that completes when updated, results to true if the invite is now in the next state
+     * @throws IllegalStateException if not found
+     */
+    private Task<Boolean> transition(String invitationID, InvitationState next, Map<String, Object> fields) {
+        DocumentReference doc = invitationsRef.document(invitationID);
+        // set by the last attempt, so only the counters of a committed transition are forgotten
+        AtomicReference<String> changedEvent = new AtomicReference<>();
+
+        return policy.transaction("InvitationController.transition", 2, () -> db.runTransaction(t -> {
+            changedEvent.set(null);
+            DocumentSnapshot snap = t.get(doc);
             if (!snap.exists()) {
-                return Tasks.forException(new IllegalStateException("Invitation: " + invitationID + " not found."));
+                throw new IllegalStateException("Invitation: " + invitationID + " not found.");
             }
 
-            if (condition.test(snap)) {
-                return doc.set(fields, SetOptions.merge()).onSuccessTask((nothing) -> {
-                    return Tasks.forResult(true);
-                });
-            } else {
-                return Tasks.forResult(false);
+            InvitationState current = stateOf(snap);
+            if (!current.canBecome(next)) {
+                return false;
+            }
+            if (current == next) {
+                return true;
+            }
+
+            Map<String, Object> data = new HashMap<>(fields);
+            data.put("state", next.name());
+            data.put("version", versionOf(snap) + 1);
+            t.update(doc, data);
+
+            String eventID = snap.getString("event");
+            if (eventID != null) {
+                Map<String, Object> counterUpdates = new HashMap<>();
+                if (current.counterField() != null) {
+                    counterUpdates.put(current.counterField(), FieldValue.increment(-1));
+                }
+                if (next.counterField() != null) {
+                    counterUpdates.put(next.counterField(), FieldValue.increment(1));
+                }
+                if (!counterUpdates.isEmpty()) {
+                    t.update(eventsRef.document(eventID), counterUpdates);
+                }
+                changedEvent.set(eventID);
+            }
+            return true;
+        })).onSuccessTask((updated) -> {
+            String eventID = changedEvent.get();
+            if (eventID != null) {
+                counts.invalidate("eventInvites:" + eventID + ":");
             }
+            return Tasks.forResult(updated);
         });
     }
 
     /**
      * Mark an invitation as accepted by its recipient, as long as it hasn't been cancelled or decliend.
-     * Sets accepted = true and responseTime = serverTimestamp().
+     * Sets state = ACCEPTED, accepted = true and responseTime = serverTimestamp().
+     * Moves the invite between the event's counters in the same transaction.
      *
      * @param invitationID Invitation document ID (required, non-empty)
      * @return Task that completes when updated, results to true if updated
      * @throws IllegalStateException if not found
      */
     public Task<Boolean> acceptInvite(String invitationID) {
-        return updateInvite(invitationID, new HashMap<>(){{
+        return transition(invitationID, InvitationState.ACCEPTED, new HashMap<>(){{
             put("accepted", true);
             put("responseTime", FieldValue.serverTimestamp());
-        }}, (snap) -> {
-            boolean isDecliend = snap.get("responseTime") != null && !snap.getBoolean("accepted");
-            return !snap.getBoolean("cancelled") && !isDecliend;
-        });
+        }});
     }
 
     /**
      * Mark an invitation as declined by its recipient, as long as it hasn't been cancelled.
-     * Sets accepted = false and responseTime = serverTimestamp().
+     * Sets state = DECLINED, accepted = false and responseTime = serverTimestamp().
+     * Moves the invite between the event's counters in the same transaction.
      *
      * @param invitationID Invitation document ID (required, non-empty)
      * @return Task that completes when updated, results to true if updated
      * @throws IllegalStateException if not found
      */
     public Task<Boolean> declineInvite(String invitationID) {
-        return updateInvite(invitationID, new HashMap<>(){{
+        return transition(invitationID, InvitationState.DECLINED, new HashMap<>(){{
             put("accepted", false);
             put("responseTime", FieldValue.serverTimestamp());
-        }}, (snap) -> {
-            return !snap.getBoolean("cancelled");
-        });
+        }});
     }
 
     /**
      * Mark an invitation as cancelled, as long as it hasn't been responded to.
-     * Sets cancelled = true and cancelTime = serverTimestamp().
+     * Sets state = CANCELLED, cancelled = true and cancelTime = serverTimestamp().
+     * Moves the invite between the event's counters in the same transaction.
      *
      * @param invitationID Invitation document ID (required, non-empty)
      * @return Task that completes when updated, results to true if updated
      * @throws IllegalStateException if not found
      */
     public Task<Boolean> cancelInvite(String invitationID) {
-        return updateInvite(invitationID, new HashMap<>(){{
+        return transition(invitationID, InvitationState.CANCELLED, new HashMap<>(){{
             put("cancelled", true);
             put("cancelTime", FieldValue.serverTimestamp());
-        }}, (snap) -> {
-            return snap.get("responseTime") == null && !snap.getBoolean("cancelled");
+        }});
+    }
+
+    /**
+     * Cancels every pending invitation to an event, like {@link #cancelInvite(String)} but in bulk.
+     * Only the pending invitations are read, in one indexed query, then they're cancelled in transactions of up to
+     * {@link #MAX_CANCEL_TRANSACTION}. Each transaction reads its invitations again and only cancels the ones that
+     * can still become cancelled, so an invite answered after the query isn't overwritten, and lowers the event's
+     * pendingCount by as many as it cancelled. If a transaction fails, its invitations are cancelled one at a time
+     * instead, so one bad invitation doesn't fail the rest.
+     *
+     * @param eventId eventID of the event
+     * @return Task that completes with how many invitations were cancelled, skipped and failed
+     * @throws IllegalArgumentException if eventId is null/empty
+     */
+    public Task<CancelSummary> cancelPendingInvites(String eventId) {
+        if (eventId == null || eventId.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventId is required"));
+        }
+
+        // served by the (event, state) index
+        Query pending = invitationsRef.where(Filter.and(
+                Filter.equalTo("event", eventId), stateIs(InvitationState.PENDING)));
+
+        return policy.query("InvitationController.cancelPendingInvites", () -> pending.get()).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.forException(Objects.requireNonNull(task.getException()));
+            }
+
+            CancelSummary summary = new CancelSummary();
+            List<DocumentReference> toCancel = new ArrayList<>();
+            for (DocumentSnapshot snap : task.getResult().getDocuments()) {
+                if (isCancellable(snap)) {
+                    toCancel.add(snap.getReference());
+                } else {
+                    summary.skipped++;
+                }
+            }
+
+            DocumentReference eventRef = eventsRef.document(eventId);
+            List<Task<Void>> chunks = new ArrayList<>();
+            for (int start = 0; start < toCancel.size(); start += MAX_CANCEL_TRANSACTION) {
+                List<DocumentReference> chunk = toCancel.subList(start,
+                        Math.min(start + MAX_CANCEL_TRANSACTION, toCancel.size()));
+                chunks.add(cancelChunk(chunk, eventRef, summary));
+            }
+
+            return Tasks.whenAllComplete(chunks).continueWith(done -> {
+                counts.invalidate("eventInvites:" + eventId + ":");
+                return summary;
+            });
         });
     }
 
+    /**
+     * Cancels a chunk of pending invitations in one transaction, falling back to cancelling them one at a time.
+     * Every invitation is read again in the transaction, and the ones that can't become cancelled anymore,
+     * like ones accepted since they were queried, are skipped.
+     *
+     * @return Task that completes once the chunk is counted in the summary, never fails.
+     *         Its callbacks run on the main thread, like every other here, so the summary is only changed there.
+     */
+    private Task<Void> cancelChunk(List<DocumentReference> chunk, DocumentReference eventRef, CancelSummary summary) {
+        return policy.transaction("InvitationController.cancelPendingInvites", chunk.size() + 1,
+                () -> db.runTransaction(t -> {
+                    // every read has to come before the first write
+                    List<DocumentSnapshot> snaps = new ArrayList<>();
+                    for (DocumentReference doc : chunk) {
+                        snaps.add(t.get(doc));
+                    }
+
+                    long cancelled = 0;
+                    for (DocumentSnapshot snap : snaps) {
+                        if (!snap.exists() || !isCancellable(snap)) {
+                            continue;
+                        }
+                        t.update(snap.getReference(), "state", InvitationState.CANCELLED.name(),
+                                "version", versionOf(snap) + 1,
+                                "cancelled", true, "cancelTime", FieldValue.serverTimestamp());
+                        cancelled++;
+                    }
+                    if (cancelled > 0) {
+                        t.update(eventRef, PENDING_COUNT, FieldValue.increment(-cancelled));
+                    }
+                    return cancelled;
+                }))
+                .continueWithTask(task -> {
+                    if (task.isSuccessful()) {
+                        int cancelled = task.getResult().intValue();
+                        summary.cancelled += cancelled;
+                        summary.skipped += chunk.size() - cancelled;
+                        return Tasks.forResult(null);
+                    }
+
+                    List<Task<Boolean>> singles = new ArrayList<>();
+                    for (DocumentReference doc : chunk) {
+                        singles.add(cancelInvite(doc.getId()));
+                    }
+                    return Tasks.whenAllComplete(singles).continueWith(done -> {
+                        for (Task<Boolean> single : singles) {
+                            if (!single.isSuccessful()) {
+                                summary.failed++;
+                            } else if (Boolean.TRUE.equals(single.getResult())) {
+                                summary.cancelled++;
+                            } else {
+                                summary.skipped++;
+                            }
+                        }
+                        return null;
+                    });
+                });
+    }
+
+    /**
+     * The condition for cancelling an invitation: it's still pending
+     */
+    private static boolean isCancellable(DocumentSnapshot snap) {
+        return stateOf(snap).canBecome(InvitationState.CANCELLED);
+    }
+
     /**
      * Observe invitations to an event in real time.
      * Caller must hold the returned ListenerRegistration and remove it appropriately.
@@ -238,25 +470,62 @@ public class InvitationController {
             query = query.where(filter);
         }
 
-        return query.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
+        return observeInvites(query, invites -> invites, onChange);
+    }
 
-            List<Invitation> matchingInvites = new ArrayList<>();
-            if (snap != null) {
-                for (DocumentSnapshot doc : snap.getDocuments()) {
-                    Invitation invite = doc.toObject(Invitation.class);
-                    if (invite != null) {
-                        invite.setInvitation(doc.getId());
-                        matchingInvites.add(invite);
-                    }
-                }
-            }
+    /**
+     * Streams invitations for any filter in real time, see {@link #observeInvites(Filter, Consumer)}
+     *
+     * @param filter Filter to select which invites to stream
+     * @return DataStream of the latest list of Invitation objects
+     */
+    public DataStream<List<Invitation>> streamInvites(Filter filter) {
+        return DataStream.from(onChange -> observeInvites(filter, onChange));
+    }
 
-            onChange.accept(matchingInvites);
-        });
+    /**
+     * Observe the changes to the invitations matching a filter, for keeping a copy of them like the {@link LocalMirror}.
+     * Both the decoding and the callback run on the given executor, so the callback can write to disk.
+     *
+     * @param filter   Filter to select which invites to observe
+     * @param executor where snapshots are decoded and delivered
+     * @param onChange Callback invoked with the invitations that changed since the last snapshot
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public ListenerRegistration observeInviteChanges(Filter filter, Executor executor,
+                                                     Consumer<SnapshotDelta<Invitation>> onChange) {
+        return new SnapshotDecoder(executor, executor).observe(invitationsRef.where(filter),
+                "InvitationController.observeInviteChanges",
+                SnapshotDelta.decoding(DocumentMapper::toInvitation), onChange);
+    }
+
+    /**
+     * Observe invitations for a query, turning each list into a result in the background.
+     *
+     * @param query    the invitations to observe
+     * @param select   turns the latest list of invitations into the result
+     * @param onChange Callback invoked with the latest result
+     */
+    private <T> ListenerRegistration observeInvites(Query query, Function<List<Invitation>, T> select,
+                                                    Consumer<T> onChange) {
+        return decoder.observe(query, "InvitationController.observeInvites",
+                snap -> select.apply(SnapshotDecoder.immutable(decodeInvites(snap))), onChange);
+    }
+
+    /**
+     * Converts a query snapshot to invitations
+     *
+     * @param snap the query's snapshot
+     * @return the invitations, with their IDs set
+     */
+    private static List<Invitation> decodeInvites(QuerySnapshot snap) {
+        List<Invitation> matchingInvites = new ArrayList<>();
+        if (snap != null) {
+            for (DocumentSnapshot doc : snap.getDocuments()) {
+                matchingInvites.add(DocumentMapper.toInvitation(doc.getId(), doc.getData()));
+            }
+        }
+        return matchingInvites;
     }
 
     /**
@@ -269,7 +538,8 @@ public class InvitationController {
     public Task<Invitation> getInvite(String inviteID) {
         DocumentReference doc = invitationsRef.document(inviteID);
 
-        return doc.get().continueWithTask(task -> {
+        Task<DocumentSnapshot> read = policy.read("InvitationController.getInvite", () -> doc.get());
+        return read.continueWithTask(decoder.getDecodeExecutor(), task -> {
             // snap can't be null because none of it's implementations can return null
             DocumentSnapshot snap = task.getResult();
 
@@ -279,9 +549,7 @@ public class InvitationController {
                 );
             }
 
-            Invitation invite = snap.toObject(Invitation.class);
-
-            return Tasks.forResult(invite);
+            return Tasks.forResult(DocumentMapper.toInvitation(snap.getId(), snap.getData()));
         });
     }
 
@@ -294,6 +562,87 @@ public class InvitationController {
         return getInvites(Filter.equalTo("event", eventId));
     }
 
+    /**
+     * Get the invitations to an event that are in one state, like the accepted ones.
+     * Only the matching invitations are read, with the (event, state) index.
+     *
+     * @param eventId eventID of the event to get
+     * @param state   the state of the invitations to get
+     */
+    public Task<List<Invitation>> getEventInvites(String eventId, InvitationState state) {
+        return getInvites(Filter.and(Filter.equalTo("event", eventId), stateIs(state)));
+    }
+
+    /**
+     * Matches invitations in a state
+     *
+     * @param state the state
+     * @return a filter on the invitations' indexed "state"
+     */
+    public static Filter stateIs(InvitationState state) {
+        return Filter.equalTo("state", state.name());
+    }
+
+    /**
+     * Matches invitations that weren't cancelled
+     *
+     * @return a filter on the invitations' indexed "state"
+     */
+    public static Filter notCancelled() {
+        return Filter.inArray("state", Arrays.asList(InvitationState.PENDING.name(),
+                InvitationState.ACCEPTED.name(), InvitationState.DECLINED.name()));
+    }
+
+    /**
+     * Count an event's invitations by state, with one aggregation read per state instead of downloading them.
+     * Cancelled invitations aren't counted.
+     *
+     * @param eventId eventID of the event to count
+     * @return Task that completes with the acceptedCount, pendingCount and declinedCount of the event
+     * @throws IllegalArgumentException if eventId is null/empty
+     */
+    public Task<Map<String, Long>> countEventInvites(String eventId) {
+        return countEventInvites(eventId, false);
+    }
+
+    /**
+     * Count an event's invitations by state.
+     *
+     * @param eventId eventID of the event to count
+     * @param fresh   if cached counts should be ignored
+     * @return Task that completes with the acceptedCount, pendingCount and declinedCount of the event
+     * @throws IllegalArgumentException if eventId is null/empty
+     */
+    Task<Map<String, Long>> countEventInvites(String eventId, boolean fresh) {
+        if (eventId == null || eventId.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventId is required"));
+        }
+
+        String key = "eventInvites:" + eventId + ":";
+        if (fresh) {
+            counts.invalidate(key);
+        }
+
+        // one count per state, each served by the (event, state) index
+        String operation = "InvitationController.countEventInvites";
+        Query invites = invitationsRef.whereEqualTo("event", eventId);
+        Task<Long> pendingTask = counts.count(operation, key + "pending", invites.where(stateIs(InvitationState.PENDING)));
+        Task<Long> acceptedTask = counts.count(operation, key + "accepted", invites.where(stateIs(InvitationState.ACCEPTED)));
+        Task<Long> declinedTask = counts.count(operation, key + "declined", invites.where(stateIs(InvitationState.DECLINED)));
+
+        return Tasks.whenAllSuccess(pendingTask, acceptedTask, declinedTask).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw Objects.requireNonNull(task.getException());
+            }
+
+            Map<String, Long> result = new HashMap<>();
+            result.put(PENDING_COUNT, pendingTask.getResult());
+            result.put(ACCEPTED_COUNT, acceptedTask.getResult());
+            result.put(DECLINED_COUNT, declinedTask.getResult());
+            return result;
+        });
+    }
+
     /**
      * Get *all* invitations for a given event.
      */
@@ -307,27 +656,10 @@ public class InvitationController {
      * @param filter Filter to select which invites to observe
      */
     public Task<List<Invitation>> getInvites(Filter filter) {
-        Query query = invitationsRef;
-        if (filter != null) {
-            query = query.where(filter);
-        }
-
-        return query.get().continueWithTask((task) -> {
-            QuerySnapshot snap = task.getResult();
-
-            List<Invitation> matchingInvites = new ArrayList<>();
-            if (snap != null) {
-                for (DocumentSnapshot doc : snap.getDocuments()) {
-                    Invitation invite = doc.toObject(Invitation.class);
-                    if (invite != null) {
-                        invite.setInvitation(doc.getId());
-                        matchingInvites.add(invite);
-                    }
-                }
-            }
+        Query query = filter == null ? invitationsRef : invitationsRef.where(filter);
 
-            return Tasks.forResult(matchingInvites);
-        });
+        Task<QuerySnapshot> read = policy.query("InvitationController.getInvites", () -> query.get());
+        return read.continueWithTask(decoder.getDecodeExecutor(), (task) -> Tasks.forResult(decodeInvites(task.getResult())));
     }
 
     public Task<Void> deleteInvite(String invitationId) {
@@ -336,7 +668,7 @@ public class InvitationController {
                     new IllegalArgumentException("invitationId is required"));
         }
 
-        return invitationsRef.document(invitationId).delete();
+        return policy.write("InvitationController.deleteInvite", 1, invitationsRef.document(invitationId).delete());
     }
 
     /**
@@ -356,44 +688,111 @@ public class InvitationController {
         Filter filter = Filter.and(
                 Filter.equalTo("event", eventId),
                 Filter.equalTo("recipientID", recipientId),
-                Filter.equalTo("cancelled", false)
+                notCancelled()
+        );
+
+        return observeInvites(invitationsRef.where(filter), this::chooseUserEventInvite, onChange);
+    }
+
+    /**
+     * Get the invitation (if any) for a specific event/recipient once.
+     * Picks the same invitation as {@link #observeUserEventInvite(String, String, Consumer)}.
+     *
+     * @param eventId     Event document ID
+     * @param recipientId Recipient user ID
+     * @return Task that completes with the Invitation, or null if none
+     */
+    public Task<Invitation> getUserEventInvite(String eventId, String recipientId) {
+        Filter filter = Filter.and(
+                Filter.equalTo("event", eventId),
+                Filter.equalTo("recipientID", recipientId),
+                notCancelled()
         );
 
-        return observeInvites(filter, invites -> {
-            if (invites == null || invites.isEmpty()) {
-                onChange.accept(null);
-                return;
+        return getInvites(filter).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw Objects.requireNonNull(task.getException());
             }
+            return chooseUserEventInvite(task.getResult());
+        });
+    }
 
-            Invitation bestPending = null;
-            Invitation newest = null;
+    /**
+     * Picks which of a user's non-cancelled invites to an event is the relevant one.
+     * Prefers the newest pending invite, otherwise the newest invite overall.
+     *
+     * @param invites the user's non-cancelled invites to one event
+     * @return the chosen invite, or null if there are none
+     */
+    private Invitation chooseUserEventInvite(List<Invitation> invites) {
+        if (invites == null || invites.isEmpty()) {
+            return null;
+        }
 
-            for (Invitation inv : invites) {
-                if (inv == null) {
-                    continue;
-                }
+        Invitation bestPending = null;
+        Invitation newest = null;
+
+        for (Invitation inv : invites) {
+            if (inv == null) {
+                continue;
+            }
 
-                com.google.firebase.Timestamp sendTime = inv.getSendTime();
-                com.google.firebase.Timestamp responseTime = inv.getResponseTime();
-                boolean hasResponded = (responseTime != null);
+            com.google.firebase.Timestamp sendTime = inv.getSendTime();
 
-                // Track newest non-cancelled invite overall
-                if (newest == null || isAfter(sendTime, newest.getSendTime())) {
-                    newest = inv;
-                }
+            // Track newest non-cancelled invite overall
+            if (newest == null || isAfter(sendTime, newest.getSendTime())) {
+                newest = inv;
+            }
 
-                // Pending = non-cancelled + no response
-                if (!hasResponded) {
-                    if (bestPending == null || isAfter(sendTime, bestPending.getSendTime())) {
-                        bestPending = inv;
-                    }
+            if (inv.getState() == InvitationState.PENDING) {
+                if (bestPending == null || isAfter(sendTime, bestPending.getSendTime())) {
+                    bestPending = inv;
                 }
             }
+        }
 
-            // Prefer the newest pending invite; otherwise fallback to newest non-cancelled invite
-            Invitation chosen = (bestPending != null) ? bestPending : newest;
-            onChange.accept(chosen);
-        });
+        // Prefer the newest pending invite; otherwise fallback to newest non-cancelled invite
+        return (bestPending != null) ? bestPending : newest;
+    }
+
+    /**
+     * Finds which of an event's counters an invitation document counts towards.
+     *
+     * @param snap the invitation document
+     * @return the counter's field name, or null if it doesn't count towards any (cancelled)
+     */
+    static String counterFieldFor(DocumentSnapshot snap) {
+        return stateOf(snap).counterField();
+    }
+
+    /**
+     * Finds which of an event's counters an invitation counts towards.
+     *
+     * @param invite the invitation
+     * @return the counter's field name, or null if it doesn't count towards any (cancelled)
+     */
+    static String counterFieldFor(Invitation invite) {
+        return invite.getState().counterField();
+    }
+
+    /**
+     * Gets the state of an invitation document, worked out from its other fields if it was written before
+     * invitations had one
+     *
+     * @param snap the invitation document
+     * @return the invitation's state
+     */
+    static InvitationState stateOf(DocumentSnapshot snap) {
+        String state = snap.getString("state");
+        if (state != null) {
+            return InvitationState.valueOf(state);
+        }
+        return InvitationState.of(snap.getBoolean("accepted"), snap.getBoolean("cancelled"), snap.get("responseTime") != null);
+    }
+
+    private static long versionOf(DocumentSnapshot snap) {
+        Long version = snap.getLong("version");
+        return version != null ? version : 0;
     }
 
     private boolean isAfter(com.google.firebase.Timestamp a, com.google.firebase.Timestamp b) {
@@ -10,9 +10,6 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
@@ -140,10 +137,9 @@ public class InvitationFragment extends Fragment {
         String timeText = DateFormat.format("h:mm a", event.getEventTime().toDate()).toString();
         eventTimeTextView.setText(timeText);
 
-        Bitmap poster = event.generatePosterBitmap();
-        if (poster != null) {
-            eventImageView.setImageBitmap(poster);
-        }
+        // the placeholder shows right away, the poster fades in once it's decoded
+        ImagePlaceholder.load(eventImageView, event.getPosterPlaceholder(), event.getPosterUrl(),
+                R.drawable.image_placeholder);
     }
 
     /**
@@ -154,22 +150,8 @@ public class InvitationFragment extends Fragment {
     private void bindOrganizerToViews(User organizer) {
         organizerNameTextView.setText(organizer.getName());
 
-        String photo = organizer.getPhotoURL();
-        if (photo != null && !photo.isEmpty()) {
-            try {
-                byte[] decodedBytes = Base64.decode(photo, Base64.DEFAULT);
-                Bitmap bmp = BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-                if (bmp != null) {
-                    organizerImageView.setImageBitmap(bmp);
-                } else {
-                    organizerImageView.setImageResource(R.drawable.profile_placeholder);
-                }
-            } catch (Exception e) {
-                organizerImageView.setImageResource(R.drawable.profile_placeholder);
-            }
-        } else {
-            organizerImageView.setImageResource(R.drawable.profile_placeholder);
-        }
+        ImagePlaceholder.load(organizerImageView, organizer.getPhotoPlaceholder(), organizer.getPhotoURL(),
+                R.drawable.profile_placeholder);
     }
 
     /**
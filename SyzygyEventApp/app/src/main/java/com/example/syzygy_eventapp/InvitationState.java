@@ -0,0 +1,80 @@
+package com.example.syzygy_eventapp;
+
+/**
+ * The states an invitation moves through, stored on the invitation as "state".
+ * <p>
+ *     Every invitation starts out pending. Its recipient can accept or decline it, and its organizer can cancel it
+ *     while it's still pending. Declining after accepting is allowed, that's how an entrant cancels their attendance.
+ *     Declined and cancelled invitations are final.
+ * </p>
+ *
+ * <ul>
+ *     <li>PENDING - Sent, but not answered yet.</li>
+ *     <li>ACCEPTED - The recipient is attending.</li>
+ *     <li>DECLINED - The recipient isn't attending.</li>
+ *     <li>CANCELLED - The organizer took the invitation back before it was answered.</li>
+ * </ul>
+ */
+public enum InvitationState {
+    PENDING,
+    ACCEPTED,
+    DECLINED,
+    CANCELLED;
+
+    /**
+     * Checks if an invitation in this state can move to another.
+     * Answering the same way twice is allowed, but changes nothing.
+     *
+     * @param next the state to move to
+     * @return true if the invitation can move to next
+     */
+    public boolean canBecome(InvitationState next) {
+        switch (next) {
+            case ACCEPTED:
+                return this == PENDING || this == ACCEPTED;
+            case DECLINED:
+                return this != CANCELLED;
+            case CANCELLED:
+                return this == PENDING;
+            default:
+                // nothing goes back to pending
+                return false;
+        }
+    }
+
+    /**
+     * Finds which of an event's counters invitations in this state count towards
+     *
+     * @return the counter's field name, or null if they don't count towards any (cancelled)
+     */
+    String counterField() {
+        switch (this) {
+            case PENDING:
+                return InvitationController.PENDING_COUNT;
+            case ACCEPTED:
+                return InvitationController.ACCEPTED_COUNT;
+            case DECLINED:
+                return InvitationController.DECLINED_COUNT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Works out the state of an invitation written before invitations had one, from its other fields
+     *
+     * @param accepted    the invitation's "accepted"
+     * @param cancelled   the invitation's "cancelled"
+     * @param hasResponse if the invitation has a "responseTime"
+     * @return the invitation's state
+     */
+    public static InvitationState of(Boolean accepted, Boolean cancelled, boolean hasResponse) {
+        if (Boolean.TRUE.equals(cancelled)) {
+            return CANCELLED;
+        }
+        if (!hasResponse) {
+            return PENDING;
+        }
+        return Boolean.TRUE.equals(accepted) ? ACCEPTED : DECLINED;
+    }
+}
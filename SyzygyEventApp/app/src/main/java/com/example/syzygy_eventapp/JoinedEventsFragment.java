@@ -12,16 +12,22 @@ import android.widget.TextView;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Shows the events the user has joined:
  *    - Upcoming events that the user is in the waiting list for, which are still open or awaiting lottery
  *    - History of events the user has interacted with or participated in
  * <p>
- *    Uses EventSummaryListView for both lists, and real-time listeners keep them updated whenever
- *    event docs change on Firestore
+ *    Uses EventSummaryListView for both lists. The events are queried from the {@link LocalMirror},
+ *    so the last known lists show as soon as the screen opens, and are updated whenever
+ *    event or invitation docs change on Firestore. Events the server has archived are loaded
+ *    once from their summaries, and added to the history
  * </p>
  */
 public class JoinedEventsFragment extends Fragment {
@@ -29,18 +35,17 @@ public class JoinedEventsFragment extends Fragment {
     private EventSummaryListView upcomingListView;
     private EventSummaryListView historyListView;
 
-    private EventController eventController;
-    private ListenerRegistration allEventsListener;
+    private ListenerRegistration joinedEventsListener;
+
+    // the latest events from the local mirror, and the archived ones, shown together
+    private List<Event> joinedEvents = Collections.emptyList();
+    // the user's invite state in each of their events, from the local mirror
+    private Map<String, InvitationState> inviteStates = Collections.emptyMap();
+    private List<Event> archivedEvents = Collections.emptyList();
 
     private String userID;
     private NavigationStackFragment navStack;
 
-    private InvitationController invitationController;
-    private ListenerRegistration invitesListener;
-
-    private List<Event> lastEvents = new ArrayList<>();
-    private List<Invitation> userInvites = new ArrayList<>();
-
     // required empty constructor
     public JoinedEventsFragment() {
         this.navStack = null;
@@ -76,10 +81,8 @@ public class JoinedEventsFragment extends Fragment {
         upcomingListView.setTitle("Upcoming Events");
         historyListView.setTitle("Past Events");
 
-        // Load current user ID and event controller
+        // Load current user ID
         userID = AppInstallationId.get(requireContext());
-        eventController = EventController.getInstance();
-        invitationController = InvitationController.getInstance();
 
         // Start listening for event updates
         startObservers();
@@ -87,32 +90,38 @@ public class JoinedEventsFragment extends Fragment {
     }
 
     /**
-     * Starts the Firestore real-time listener that monitors all events
+     * Starts observing the user's events in the local mirror.
      *<p>
-     * When events update, the callback will:
-     *    - Filter events to show only the ones that the user is associated with
+     * The mirror picks out the events the user is on the waiting list of, or has an invitation to
+     * that wasn't cancelled, sorted by registration deadline, along with the state of the user's invite
+     * to each. Results that wouldn't change what's shown, the events or the user's invites, are skipped,
+     * and a burst of changes is only shown once per frame. The callback will:
      *    - Splits the events into "upcoming" and "past"
      *    - Updates the list views, including click behavior, for upcoming events
      * </p>
      * ListenerRegistration is stored so it can be removed in onDestroyView
      */
     private void startObservers() {
-        allEventsListener = eventController.observeAllEvents(events -> {
-            lastEvents = events;
-            recomputeLists();
-        });
+        joinedEventsListener = LocalMirror.getInstance(requireContext())
+                .stream(store -> new JoinedEvents(store.getJoinedEvents(userID), store.getInviteStates(userID)))
+                .distinctUntilChanged(JoinedEvents::sameAs)
+                .coalesceToFrame()
+                .subscribe(joined -> {
+                    joinedEvents = joined.events;
+                    inviteStates = joined.inviteStates;
+                    recomputeLists();
+                });
 
-        invitesListener = invitationController.observeInvites(
-                com.google.firebase.firestore.Filter.equalTo("recipientID", userID),
-                invites -> {
-                    userInvites = invites != null ? invites : new ArrayList<>();
+        // archived events don't change, so they're only read once
+        EventController.getInstance().getArchivedEvents(userID)
+                .addOnSuccessListener(events -> {
+                    archivedEvents = events;
                     recomputeLists();
-                }
-        );
+                });
     }
 
     private void recomputeLists() {
-        if (lastEvents == null || upcomingListView == null || historyListView == null) {
+        if (upcomingListView == null || historyListView == null) {
             return;
         }
 
@@ -125,36 +134,9 @@ public class JoinedEventsFragment extends Fragment {
         List<Event> past = new ArrayList<>();
         Date now = new Date();
 
-        java.util.HashSet<String> userEventIds = new java.util.HashSet<>();
-
-        for (Event event : lastEvents) {
-            List<String> waiting = event.getWaitingList();
-            if (waiting != null && waiting.contains(userID)) {
-                userEventIds.add(event.getEventID());
-            }
-        }
-
-        for (Invitation inv : userInvites) {
-            if (inv == null) {
-                continue;
-            }
-
-            Boolean cancelled = inv.getCancelled();
-            if (Boolean.TRUE.equals(cancelled)) {
-                continue;
-            }
-
-            String eventId = inv.getEvent();
-            if (eventId != null) {
-                userEventIds.add(eventId);
-            }
-        }
-
-        for (Event event : lastEvents) {
-            if (!userEventIds.contains(event.getEventID())) {
-                continue;
-            }
-
+        Set<String> shownIDs = new HashSet<>();
+        for (Event event : joinedEvents) {
+            shownIDs.add(event.getEventID());
             Date eventDate = null;
 
             if (event.getRegistrationEnd() != null) {
@@ -172,6 +154,13 @@ public class JoinedEventsFragment extends Fragment {
             }
         }
 
+        // the mirror can still have an event that was just archived
+        for (Event event : archivedEvents) {
+            if (!shownIDs.contains(event.getEventID())) {
+                past.add(event);
+            }
+        }
+
         TextView countText = root.findViewById(R.id.event_count_text);
         int totalEvents = upcoming.size() + past.size();
         if (totalEvents == 1) {
@@ -186,12 +175,14 @@ public class JoinedEventsFragment extends Fragment {
         upcomingEmpty.setVisibility(upcoming.isEmpty() ? View.VISIBLE : View.GONE);
         historyEmpty.setVisibility(past.isEmpty() ? View.VISIBLE : View.GONE);
 
-        upcomingListView.setItems(upcoming, false, v -> {
+        upcomingListView.setItems(upcoming, inviteStates, v -> {
             Event clicked = (Event) v.getTag();
             navStack.pushScreen(new EventFragment(navStack, clicked.getEventID()));
         });
 
-        historyListView.setItems(past, false, v -> {});
+        historyListView.setItems(past, inviteStates, v -> {});
+
+        ScreenTracer.markContentShown(this);
     }
 
     /**
@@ -200,13 +191,30 @@ public class JoinedEventsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (allEventsListener != null) {
-            allEventsListener.remove();
-            allEventsListener = null;
+        if (joinedEventsListener != null) {
+            joinedEventsListener.remove();
+            joinedEventsListener = null;
         }
-        if (invitesListener != null) {
-            invitesListener.remove();
-            invitesListener = null;
+    }
+
+    /**
+     * The user's events from the local mirror, along with their invite state in each
+     */
+    private static class JoinedEvents {
+        final List<Event> events;
+        final Map<String, InvitationState> inviteStates;
+
+        JoinedEvents(List<Event> events, Map<String, InvitationState> inviteStates) {
+            this.events = events;
+            this.inviteStates = inviteStates;
+        }
+
+        /**
+         * Checks if showing the other result would change nothing, including the statuses shown
+         */
+        boolean sameAs(JoinedEvents other) {
+            return EventSummaryListViewAdapter.sameEvents(events, other.events)
+                    && inviteStates.equals(other.inviteStates);
         }
     }
-}
\ No newline at end of file
+}
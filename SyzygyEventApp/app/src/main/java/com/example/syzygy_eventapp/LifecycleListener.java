@@ -0,0 +1,129 @@
+package com.example.syzygy_eventapp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps a listener added only while a screen or activity is resumed.
+ * <p>
+ * When the owner is paused, like when the app goes to the background or a screen is hidden
+ * by the {@link NavigationStackFragment}, the listener is removed after a grace period, so quickly switching
+ * back and forth doesn't add it again. When the owner is resumed the listener is added again,
+ * and Firestore delivers its cached results first, so the screen is up to date right away.
+ * The listener is removed for good when the owner is destroyed, or when this is removed.
+ * Fragments bind to {@code getViewLifecycleOwner()}, so callbacks that update their views stop with the views,
+ * instead of running on a fragment that's kept on the back stack after its views are gone.
+ * </p>
+ * Must be used on the main thread.
+ */
+public class LifecycleListener implements DefaultLifecycleObserver, ListenerRegistration {
+
+    /**
+     * How long a listener is kept after its owner is paused, in milliseconds
+     */
+    public static final long GRACE_PERIOD_MS = 10_000;
+
+    private final Lifecycle lifecycle;
+    private final Supplier<ListenerRegistration> start;
+    private final long gracePeriodMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable suspend = this::suspend;
+
+    private ListenerRegistration registration = null;
+    private boolean suspended = false;
+
+    private LifecycleListener(Lifecycle lifecycle, Supplier<ListenerRegistration> start, long gracePeriodMs) {
+        this.lifecycle = lifecycle;
+        this.start = start;
+        this.gracePeriodMs = gracePeriodMs;
+    }
+
+    /**
+     * Ties a listener to an owner, with the default grace period.
+     * If the owner is already resumed, the listener is added right away.
+     *
+     * @param owner the activity, or the fragment's view lifecycle owner, the listener is for
+     * @param start adds the listener, like {@code () -> controller.observeAllEvents(this::onEvents)}
+     * @return LifecycleListener that can be removed early, otherwise it's removed when the owner is destroyed
+     */
+    public static LifecycleListener bind(LifecycleOwner owner, Supplier<ListenerRegistration> start) {
+        return bind(owner, start, GRACE_PERIOD_MS);
+    }
+
+    /**
+     * Ties a listener to an owner.
+     * If the owner is already resumed, the listener is added right away.
+     *
+     * @param owner         the activity, or the fragment's view lifecycle owner, the listener is for
+     * @param start         adds the listener
+     * @param gracePeriodMs how long to keep the listener after the owner is paused, in milliseconds
+     * @return LifecycleListener that can be removed early, otherwise it's removed when the owner is destroyed
+     */
+    public static LifecycleListener bind(LifecycleOwner owner, Supplier<ListenerRegistration> start,
+                                         long gracePeriodMs) {
+        LifecycleListener listener = new LifecycleListener(owner.getLifecycle(), start, gracePeriodMs);
+        owner.getLifecycle().addObserver(listener);
+        return listener;
+    }
+
+    /**
+     * @return true if the listener is currently added
+     */
+    public boolean isListening() {
+        return registration != null;
+    }
+
+    @Override
+    public void onResume(@NonNull LifecycleOwner owner) {
+        handler.removeCallbacks(suspend);
+        if (registration == null) {
+            registration = start.get();
+            if (suspended) {
+                suspended = false;
+                FirestoreMetrics.recordResumed();
+            }
+        }
+    }
+
+    @Override
+    public void onPause(@NonNull LifecycleOwner owner) {
+        handler.removeCallbacks(suspend);
+        handler.postDelayed(suspend, gracePeriodMs);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        remove();
+    }
+
+    /**
+     * Removes the listener for good
+     */
+    @Override
+    public void remove() {
+        lifecycle.removeObserver(this);
+        handler.removeCallbacks(suspend);
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    private void suspend() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+            suspended = true;
+            FirestoreMetrics.recordSuspended();
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.syzygy_eventapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local SQLite copy of the events, their waiting lists, and the current user's invitations.
+ * <p>
+ * The copy is kept up to date by the {@link LocalMirror} from Firestore snapshot deltas,
+ * and list screens query it instead of waiting on Firestore, so they can show their last known events
+ * as soon as they open, even while offline. Queries are indexed on the fields lists are filtered and sorted by.
+ * </p>
+ * Timestamps are stored as nanoseconds since the epoch so they read back exactly as Firestore sent them.
+ * List queries leave out the full Base64 poster of events that have a thumbnail, since they're rerun on every change
+ * and rows only show the thumbnail. The event screen loads the full poster from Firestore.
+ * All reads and writes should happen off the main thread, on the mirror's executor.
+ */
+public class LocalEventStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "local_mirror.db";
+    private static final int DATABASE_VERSION = 4;
+
+    // SQLite limits how many arguments a query can have
+    private static final int MAX_QUERY_ARGS = 500;
+
+    private static final String EVENTS = "events";
+    private static final String WAITLIST = "waitlist";
+    private static final String INVITATIONS = "invitations";
+
+    /**
+     * @param context any context, only its application context is kept
+     * @param name    the database file, or null for an in-memory database
+     */
+    LocalEventStore(Context context, String name) {
+        super(context.getApplicationContext(), name, null, DATABASE_VERSION);
+    }
+
+    /**
+     * @param context any context, only its application context is kept
+     */
+    public LocalEventStore(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + EVENTS + " ("
+                + "event_id TEXT PRIMARY KEY NOT NULL, "
+                + "name TEXT, "
+                + "description TEXT, "
+                + "organizer_id TEXT, "
+                + "event_time INTEGER, "
+                + "location_name TEXT, "
+                + "latitude REAL, "
+                + "longitude REAL, "
+                + "geolocation_required INTEGER NOT NULL, "
+                + "poster_url TEXT, "
+                + "poster_thumbnail TEXT, "
+                + "poster_placeholder TEXT, "
+                + "invites TEXT, "
+                + "max_waiting_list INTEGER, "
+                + "registration_start INTEGER, "
+                + "registration_end INTEGER, "
+                + "max_attendees INTEGER, "
+                + "lottery_complete INTEGER NOT NULL, "
+                + "accepted_count INTEGER, "
+                + "pending_count INTEGER, "
+                + "declined_count INTEGER, "
+                + "waiting_count INTEGER, "
+                + "created_at INTEGER, "
+                + "updated_at INTEGER)");
+        db.execSQL("CREATE INDEX events_registration_end ON " + EVENTS + " (registration_end)");
+        db.execSQL("CREATE INDEX events_organizer ON " + EVENTS + " (organizer_id, registration_end)");
+
+        // the waiting list is kept in order, so it can be rebuilt exactly
+        db.execSQL("CREATE TABLE " + WAITLIST + " ("
+                + "event_id TEXT NOT NULL, "
+                + "user_id TEXT NOT NULL, "
+                + "position INTEGER NOT NULL, "
+                + "PRIMARY KEY (event_id, position))");
+        db.execSQL("CREATE INDEX waitlist_user ON " + WAITLIST + " (user_id)");
+
+        db.execSQL("CREATE TABLE " + INVITATIONS + " ("
+                + "invitation_id TEXT PRIMARY KEY NOT NULL, "
+                + "event_id TEXT, "
+                + "organizer_id TEXT, "
+                + "recipient_id TEXT, "
+                + "accepted INTEGER, "
+                + "cancelled INTEGER, "
+                + "send_time INTEGER, "
+                + "response_time INTEGER, "
+                + "cancel_time INTEGER, "
+                + "state TEXT)");
+        db.execSQL("CREATE INDEX invitations_recipient ON " + INVITATIONS + " (recipient_id, event_id)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // it's only a copy, so it can be rebuilt from Firestore
+        db.execSQL("DROP TABLE IF EXISTS " + EVENTS);
+        db.execSQL("DROP TABLE IF EXISTS " + WAITLIST);
+        db.execSQL("DROP TABLE IF EXISTS " + INVITATIONS);
+        onCreate(db);
+    }
+
+    //-----------------------
+    // WRITES
+    //-----------------------
+
+    /**
+     * Applies the changes from a snapshot of every event
+     *
+     * @param delta the events that changed, or every event if the delta is complete
+     */
+    public void applyEvents(SnapshotDelta<Event> delta) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (delta.complete) {
+                db.delete(EVENTS, null, null);
+                db.delete(WAITLIST, null, null);
+            }
+
+            for (Event event : delta.changed) {
+                db.insertWithOnConflict(EVENTS, null, toValues(event), SQLiteDatabase.CONFLICT_REPLACE);
+
+                db.delete(WAITLIST, "event_id = ?", new String[]{event.getEventID()});
+                List<String> waitingList = event.getWaitingList();
+                if (waitingList != null) {
+                    for (int i = 0; i < waitingList.size(); i++) {
+                        ContentValues entry = new ContentValues();
+                        entry.put("event_id", event.getEventID());
+                        entry.put("user_id", waitingList.get(i));
+                        entry.put("position", i);
+                        db.insert(WAITLIST, null, entry);
+                    }
+                }
+            }
+
+            for (String eventID : delta.removed) {
+                db.delete(EVENTS, "event_id = ?", new String[]{eventID});
+                db.delete(WAITLIST, "event_id = ?", new String[]{eventID});
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Applies the changes from a snapshot of a user's invitations
+     *
+     * @param delta       the invitations that changed, or all of them if the delta is complete
+     * @param recipientID the user the invitations were sent to
+     */
+    public void applyInvitations(SnapshotDelta<Invitation> delta, String recipientID) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (delta.complete) {
+                db.delete(INVITATIONS, "recipient_id = ?", new String[]{recipientID});
+            }
+
+            for (Invitation invite : delta.changed) {
+                db.insertWithOnConflict(INVITATIONS, null, toValues(invite), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+
+            for (String inviteID : delta.removed) {
+                db.delete(INVITATIONS, "invitation_id = ?", new String[]{inviteID});
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Forgets everything, like when the copy belongs to another user
+     */
+    public void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.delete(EVENTS, null, null);
+        db.delete(WAITLIST, null, null);
+        db.delete(INVITATIONS, null, null);
+    }
+
+    //-----------------------
+    // QUERIES
+    //-----------------------
+
+    /**
+     * Gets every event, soonest registration deadline first
+     *
+     * @return the events
+     */
+    public List<Event> getAllEvents() {
+        return queryEvents("SELECT " + LIST_COLUMNS + " FROM " + EVENTS + " ORDER BY " + BY_REGISTRATION_END);
+    }
+
+    /**
+     * Gets the events owned by an organizer, soonest registration deadline first
+     *
+     * @param organizerID the organizer's user ID
+     * @return the organizer's events
+     */
+    public List<Event> getOrganizerEvents(String organizerID) {
+        return queryEvents("SELECT " + LIST_COLUMNS + " FROM " + EVENTS + " WHERE organizer_id = ?"
+                + " ORDER BY " + BY_REGISTRATION_END, organizerID);
+    }
+
+    /**
+     * Gets the events that are open for registration, closing soonest first, like {@link Event#isOpen()}
+     *
+     * @param excludedOrganizerID leaves out the events of this organizer, usually the current user
+     * @param nowMs               the current time, in milliseconds since the epoch
+     * @return the open events
+     */
+    public List<Event> getOpenEvents(String excludedOrganizerID, long nowMs) {
+        String now = Long.toString(nowMs * 1_000_000L);
+        return queryEvents("SELECT " + LIST_COLUMNS + " FROM " + EVENTS
+                        + " WHERE registration_end > ?"
+                        + " AND (registration_start IS NULL OR registration_start < ?)"
+                        + " AND (organizer_id IS NULL OR organizer_id != ?)"
+                        + " ORDER BY registration_end",
+                now, now, excludedOrganizerID != null ? excludedOrganizerID : "");
+    }
+
+    /**
+     * Gets the events a user is on the waiting list of, or has an invitation to that wasn't cancelled,
+     * soonest registration deadline first
+     *
+     * @param userID the user's ID
+     * @return the user's events
+     */
+    public List<Event> getJoinedEvents(String userID) {
+        return queryEvents("SELECT " + LIST_COLUMNS + " FROM " + EVENTS
+                        + " WHERE event_id IN (SELECT event_id FROM " + WAITLIST + " WHERE user_id = ?)"
+                        + " OR event_id IN (SELECT event_id FROM " + INVITATIONS
+                        + " WHERE recipient_id = ? AND (cancelled IS NULL OR cancelled = 0))"
+                        + " ORDER BY " + BY_REGISTRATION_END,
+                userID, userID);
+    }
+
+    /**
+     * Gets the state of a user's invitation to each event they have one to that wasn't cancelled
+     *
+     * @param userID the user's ID
+     * @return the user's invitation states, by event ID
+     */
+    public Map<String, InvitationState> getInviteStates(String userID) {
+        Map<String, InvitationState> states = new HashMap<>();
+        // the newest invitation to an event wins, like when a user was drawn again after declining
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT event_id, state FROM " + INVITATIONS
+                        + " WHERE recipient_id = ? AND (cancelled IS NULL OR cancelled = 0) ORDER BY send_time",
+                new String[]{userID})) {
+            while (cursor.moveToNext()) {
+                InvitationState state = cursor.isNull(1) ? InvitationState.PENDING
+                        : InvitationState.valueOf(cursor.getString(1));
+                states.put(cursor.getString(0), state);
+            }
+        }
+        return states;
+    }
+
+    // every column but the full poster, which is only read for old events that have no thumbnail to show instead
+    private static final String LIST_COLUMNS = "event_id, name, description, organizer_id, event_time, "
+            + "location_name, latitude, longitude, geolocation_required, "
+            + "CASE WHEN poster_thumbnail IS NULL THEN poster_url END AS poster_url, "
+            + "poster_thumbnail, poster_placeholder, invites, max_waiting_list, registration_start, registration_end, "
+            + "max_attendees, lottery_complete, accepted_count, pending_count, declined_count, waiting_count, "
+            + "created_at, updated_at";
+
+    // events without a deadline go last
+    private static final String BY_REGISTRATION_END = "registration_end IS NULL, registration_end";
+
+    private List<Event> queryEvents(String sql, String... args) {
+        SQLiteDatabase db = getReadableDatabase();
+        List<Event> events = new ArrayList<>();
+        Map<String, Event> byID = new HashMap<>();
+
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            EventColumns columns = new EventColumns(cursor);
+            while (cursor.moveToNext()) {
+                Event event = columns.read(cursor);
+                events.add(event);
+                byID.put(event.getEventID(), event);
+            }
+        }
+
+        loadWaitingLists(db, byID);
+        return events;
+    }
+
+    /**
+     * Fills in the waiting lists of events, a batch of events at a time
+     */
+    private void loadWaitingLists(SQLiteDatabase db, Map<String, Event> byID) {
+        List<String> eventIDs = new ArrayList<>(byID.keySet());
+        for (int start = 0; start < eventIDs.size(); start += MAX_QUERY_ARGS) {
+            List<String> batch = eventIDs.subList(start, Math.min(start + MAX_QUERY_ARGS, eventIDs.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+
+            try (Cursor cursor = db.rawQuery("SELECT event_id, user_id FROM " + WAITLIST
+                            + " WHERE event_id IN (" + placeholders + ") ORDER BY event_id, position",
+                    batch.toArray(new String[0]))) {
+                while (cursor.moveToNext()) {
+                    byID.get(cursor.getString(0)).getWaitingList().add(cursor.getString(1));
+                }
+            }
+        }
+    }
+
+    //-----------------------
+    // ROWS
+    //-----------------------
+
+    private static ContentValues toValues(Event event) {
+        ContentValues values = new ContentValues();
+        values.put("event_id", event.getEventID());
+        values.put("name", event.getName());
+        values.put("description", event.getDescription());
+        values.put("organizer_id", event.getOrganizerID());
+        values.put("event_time", toNanos(event.getEventTime()));
+        values.put("location_name", event.getLocationName());
+        GeoPoint coordinates = event.getLocationCoordinates();
+        values.put("latitude", coordinates != null ? coordinates.getLatitude() : null);
+        values.put("longitude", coordinates != null ? coordinates.getLongitude() : null);
+        values.put("geolocation_required", event.isGeolocationRequired());
+        values.put("poster_url", event.getPosterUrl());
+        values.put("poster_thumbnail", event.getPosterThumbnail());
+        values.put("poster_placeholder", event.getPosterPlaceholder());
+        values.put("invites", event.getInvites() != null ? new JSONArray(event.getInvites()).toString() : null);
+        values.put("max_waiting_list", event.getMaxWaitingList());
+        values.put("registration_start", toNanos(event.getRegistrationStart()));
+        values.put("registration_end", toNanos(event.getRegistrationEnd()));
+        values.put("max_attendees", event.getMaxAttendees());
+        values.put("lottery_complete", event.isLotteryComplete());
+        values.put("accepted_count", event.getAcceptedCount());
+        values.put("pending_count", event.getPendingCount());
+        values.put("declined_count", event.getDeclinedCount());
+        values.put("waiting_count", event.getWaitingCount());
+        values.put("created_at", toNanos(event.getCreatedAt()));
+        values.put("updated_at", toNanos(event.getUpdatedAt()));
+        return values;
+    }
+
+    /**
+     * The column indexes of an events query, looked up once per query
+     */
+    private static class EventColumns {
+        final int eventID, name, description, organizerID, eventTime, locationName, latitude, longitude,
+                geolocationRequired, posterUrl, posterThumbnail, posterPlaceholder, invites, maxWaitingList,
+                registrationStart, registrationEnd, maxAttendees, lotteryComplete, acceptedCount, pendingCount, declinedCount, waitingCount,
+                createdAt, updatedAt;
+
+        EventColumns(Cursor cursor) {
+            eventID = cursor.getColumnIndexOrThrow("event_id");
+            name = cursor.getColumnIndexOrThrow("name");
+            description = cursor.getColumnIndexOrThrow("description");
+            organizerID = cursor.getColumnIndexOrThrow("organizer_id");
+            eventTime = cursor.getColumnIndexOrThrow("event_time");
+            locationName = cursor.getColumnIndexOrThrow("location_name");
+            latitude = cursor.getColumnIndexOrThrow("latitude");
+            longitude = cursor.getColumnIndexOrThrow("longitude");
+            geolocationRequired = cursor.getColumnIndexOrThrow("geolocation_required");
+            posterUrl = cursor.getColumnIndexOrThrow("poster_url");
+            posterThumbnail = cursor.getColumnIndexOrThrow("poster_thumbnail");
+            posterPlaceholder = cursor.getColumnIndexOrThrow("poster_placeholder");
+            invites = cursor.getColumnIndexOrThrow("invites");
+            maxWaitingList = cursor.getColumnIndexOrThrow("max_waiting_list");
+            registrationStart = cursor.getColumnIndexOrThrow("registration_start");
+            registrationEnd = cursor.getColumnIndexOrThrow("registration_end");
+            maxAttendees = cursor.getColumnIndexOrThrow("max_attendees");
+            lotteryComplete = cursor.getColumnIndexOrThrow("lottery_complete");
+            acceptedCount = cursor.getColumnIndexOrThrow("accepted_count");
+            pendingCount = cursor.getColumnIndexOrThrow("pending_count");
+            declinedCount = cursor.getColumnIndexOrThrow("declined_count");
+            waitingCount = cursor.getColumnIndexOrThrow("waiting_count");
+            createdAt = cursor.getColumnIndexOrThrow("created_at");
+            updatedAt = cursor.getColumnIndexOrThrow("updated_at");
+        }
+
+        Event read(Cursor cursor) {
+            Event event = new Event();
+            event.setEventID(cursor.getString(eventID));
+            event.setName(cursor.getString(name));
+            event.setDescription(cursor.getString(description));
+            event.setOrganizerID(cursor.getString(organizerID));
+            event.setEventTime(getTimestamp(cursor, eventTime));
+            event.setLocationName(cursor.getString(locationName));
+            if (!cursor.isNull(latitude) && !cursor.isNull(longitude)) {
+                event.setLocationCoordinates(new GeoPoint(cursor.getDouble(latitude), cursor.getDouble(longitude)));
+            }
+            event.setGeolocationRequired(cursor.getInt(geolocationRequired) != 0);
+            event.setPosterUrl(cursor.getString(posterUrl));
+            event.setPosterThumbnail(cursor.getString(posterThumbnail));
+            event.setPosterPlaceholder(cursor.getString(posterPlaceholder));
+            event.setInvites(getStringList(cursor, invites));
+            event.setMaxWaitingList(getInteger(cursor, maxWaitingList));
+            event.setRegistrationStart(getTimestamp(cursor, registrationStart));
+            event.setRegistrationEnd(getTimestamp(cursor, registrationEnd));
+            event.setMaxAttendees(getInteger(cursor, maxAttendees));
+            event.setLotteryComplete(cursor.getInt(lotteryComplete) != 0);
+            event.setAcceptedCount(getInteger(cursor, acceptedCount));
+            event.setPendingCount(getInteger(cursor, pendingCount));
+            event.setDeclinedCount(getInteger(cursor, declinedCount));
+            event.setWaitingCount(getInteger(cursor, waitingCount));
+            event.setCreatedAt(getTimestamp(cursor, createdAt));
+            event.setUpdatedAt(getTimestamp(cursor, updatedAt));
+            event.clearChanges();
+            return event;
+        }
+    }
+
+    private static ContentValues toValues(Invitation invite) {
+        ContentValues values = new ContentValues();
+        values.put("invitation_id", invite.getInvitation());
+        values.put("event_id", invite.getEvent());
+        values.put("organizer_id", invite.getOrganizerID());
+        values.put("recipient_id", invite.getRecipientID());
+        values.put("accepted", invite.getAccepted());
+        values.put("cancelled", invite.getCancelled());
+        values.put("send_time", toNanos(invite.getSendTime()));
+        values.put("response_time", toNanos(invite.getResponseTime()));
+        values.put("cancel_time", toNanos(invite.getCancelTime()));
+        values.put("state", invite.getState().name());
+        return values;
+    }
+
+    static Long toNanos(Timestamp timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        return timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanoseconds();
+    }
+
+    static Timestamp fromNanos(long nanos) {
+        return new Timestamp(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    private static Timestamp getTimestamp(Cursor cursor, int column) {
+        return cursor.isNull(column) ? null : fromNanos(cursor.getLong(column));
+    }
+
+    private static Integer getInteger(Cursor cursor, int column) {
+        return cursor.isNull(column) ? null : cursor.getInt(column);
+    }
+
+    private static List<String> getStringList(Cursor cursor, int column) {
+        List<String> strings = new ArrayList<>();
+        if (cursor.isNull(column)) {
+            return strings;
+        }
+
+        try {
+            JSONArray array = new JSONArray(cursor.getString(column));
+            for (int i = 0; i < array.length(); i++) {
+                strings.add(array.getString(i));
+            }
+        } catch (JSONException e) {
+            // a broken row is still worth showing, it's replaced on the next snapshot
+            System.err.println(e);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.syzygy_eventapp;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.Filter;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the {@link LocalEventStore} in sync with Firestore, and lets screens observe queries on it.
+ * <p>
+ * Once started for a user, the mirror listens to every event and to the user's invitations,
+ * and applies each snapshot's changes to the store on its own background thread.
+ * Screens observe queries on the store rather than Firestore. A query is run as soon as it's observed,
+ * so the screen shows the last known events right away, and again after every change that's applied.
+ * </p>
+ * Results are delivered on the main thread, and only for observers that haven't been removed yet.
+ */
+public class LocalMirror {
+    private static LocalMirror singletonInstance = null;
+
+    private final LocalEventStore store;
+    private final Executor storeExecutor;
+    private final Executor mainExecutor;
+    private final List<Runnable> observers = new CopyOnWriteArrayList<>();
+
+    private String userID = null;
+    private ListenerRegistration eventsListener = null;
+    private ListenerRegistration invitesListener = null;
+
+    /**
+     * Creates a mirror with custom executors
+     *
+     * @param store         the local copy to keep in sync
+     * @param storeExecutor where the store is read and written, must run one task at a time
+     * @param mainExecutor  where query results are delivered, usually the main thread
+     */
+    LocalMirror(LocalEventStore store, Executor storeExecutor, Executor mainExecutor) {
+        this.store = store;
+        this.storeExecutor = storeExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    /**
+     * Gets the mirror of the app's local database
+     *
+     * @param context any context, only its application context is kept
+     * @return the shared mirror
+     */
+    public static synchronized LocalMirror getInstance(Context context) {
+        if (singletonInstance == null) {
+            Executor storeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LocalMirror");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            singletonInstance = new LocalMirror(new LocalEventStore(context), storeExecutor, mainHandler::post);
+        }
+        return singletonInstance;
+    }
+
+    /**
+     * Starts keeping the store in sync for a user. Does nothing if it's already syncing for them.
+     *
+     * @param userID the current user's ID, whose invitations are mirrored
+     */
+    public synchronized void start(String userID) {
+        if (userID.equals(this.userID) && eventsListener != null) {
+            return;
+        }
+        stop();
+        this.userID = userID;
+
+        eventsListener = EventController.getInstance().observeEventChanges(storeExecutor,
+                delta -> apply(local -> local.applyEvents(delta)));
+        invitesListener = InvitationController.getInstance().observeInviteChanges(
+                Filter.equalTo("recipientID", userID), storeExecutor,
+                delta -> apply(local -> local.applyInvitations(delta, userID)));
+    }
+
+    /**
+     * Stops syncing the store. Observers keep their last results, and can still be added.
+     */
+    public synchronized void stop() {
+        if (eventsListener != null) {
+            eventsListener.remove();
+            eventsListener = null;
+        }
+        if (invitesListener != null) {
+            invitesListener.remove();
+            invitesListener = null;
+        }
+    }
+
+    /**
+     * Observes a query on the local store.
+     * The query runs right away, then again whenever the store changes.
+     *
+     * @param query    reads the result from the store, runs in the background
+     * @param onResult receives each result on the main thread
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public <T> ListenerRegistration observe(Function<LocalEventStore, T> query, Consumer<T> onResult) {
+        AtomicBoolean removed = new AtomicBoolean(false);
+        Runnable observer = () -> {
+            T result;
+            try {
+                result = query.apply(store);
+            } catch (SQLException e) {
+                System.err.println(e);
+                return;
+            }
+
+            mainExecutor.execute(() -> {
+                if (!removed.get()) {
+                    onResult.accept(result);
+                }
+            });
+        };
+
+        observers.add(observer);
+        storeExecutor.execute(observer);
+        return () -> {
+            removed.set(true);
+            observers.remove(observer);
+        };
+    }
+
+    /**
+     * Streams a query on the local store, see {@link #observe(Function, Consumer)}
+     *
+     * @param query reads the result from the store, runs in the background
+     * @return DataStream of the results, delivered on the main thread
+     */
+    public <T> DataStream<T> stream(Function<LocalEventStore, T> query) {
+        return DataStream.from(onResult -> observe(query, onResult));
+    }
+
+    /**
+     * Applies a change to the store in the background, then reruns the observed queries
+     *
+     * @param change the change to make
+     */
+    void update(Consumer<LocalEventStore> change) {
+        storeExecutor.execute(() -> apply(change));
+    }
+
+    /**
+     * Applies a change to the store then reruns every observed query, called on the store executor
+     */
+    private void apply(Consumer<LocalEventStore> change) {
+        try {
+            change.accept(store);
+        } catch (SQLException e) {
+            // the copy is behind until the next complete snapshot, the screens still have their last results
+            System.err.println(e);
+            return;
+        }
+
+        for (Runnable observer : observers) {
+            observer.run();
+        }
+    }
+}
@@ -60,6 +60,13 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
 
         String userID = AppInstallationId.get(this);
         userController = UserController.getInstance();
+
+        // keep the local copy of events and invitations in sync while the app is open, so the event lists can open from it
+        LocalMirror mirror = LocalMirror.getInstance(this);
+        LifecycleListener.bind(this, () -> {
+            mirror.start(userID);
+            return mirror::stop;
+        });
         inviteController = InvitationController.getInstance();
 
         // Ensure user exists before proceeding.
@@ -84,7 +91,7 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
         updateMainNavBar(user);
         setupInviteListener(user);
 
-        userController.observeUser(user.getUserID(),
+        LifecycleListener.bind(this, () -> userController.observeUser(user.getUserID(),
                 this::updateMainNavBar,
                 () -> {
                     // User was deleted
@@ -93,7 +100,7 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
                     intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TASK | Intent.FLAG_ACTIVITY_NEW_TASK);
                     startActivity(intent);
                     finish();
-                });
+                }));
 
         FirebaseMessaging.getInstance().getToken()
                 .addOnCompleteListener(task -> {
@@ -114,7 +121,13 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
     @Override
     protected void onStart() {
         super.onStart();
+        FirestoreMetrics.setInBackground(false);
+    }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        FirestoreMetrics.setInBackground(true);
     }
 
     private void updateMainNavBar(User user) {
@@ -134,15 +147,15 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
         int id = item.getItemId();
 
         if (id == R.id.profile_nav_button) {
-            navStack.replaceScreen(profileFragment);
+            navStack.replaceScreen(profileFragment, true);
         } else if (id == R.id.find_nav_button) {
-            navStack.replaceScreen(findFragment);
+            navStack.replaceScreen(findFragment, true);
         } else if (id == R.id.events_nav_button) {
-            navStack.replaceScreen(joinedFragment);
+            navStack.replaceScreen(joinedFragment, true);
         } else if (id == R.id.organize_nav_button) {
-            navStack.replaceScreen(organizerFragment);
+            navStack.replaceScreen(organizerFragment, true);
         } else if (id == R.id.admin_nav_button) {
-            navStack.replaceScreen(adminFragment);
+            navStack.replaceScreen(adminFragment, true);
         } else {
             return false;
         }
@@ -172,22 +185,24 @@ public class MainActivity extends AppCompatActivity implements OnItemSelectedLis
     /**
      * Checks Firestore for any pending invitations for this user and, if found,
      * opens InvitationActivity for the first pending invite.
+     * The listener is suspended while the app is in the background, when new invitations
+     * are announced by push notifications from {@link MessagingService} instead.
+     * Invites that arrived meanwhile are opened once the app is resumed.
      */
     private void setupInviteListener(User user) {
+        // only the pending invites are sent, with the (recipientID, state) index
         Filter filter = Filter.and(
                 Filter.equalTo("recipientID", user.getUserID()),
-                Filter.equalTo("cancelled", false)
+                InvitationController.stateIs(InvitationState.PENDING)
         );
 
-        inviteController.observeInvites(filter, invitations -> {
+        LifecycleListener.bind(this, () -> inviteController.observeInvites(filter, invitations -> {
             for (Invitation invite : invitations) {
-                if (invite.getResponseTime() == null) {
-                    if (!openedInvites.contains(invite.getInvitation())) {
-                        showInviteFragment(invite);
-                        openedInvites.add(invite.getInvitation());
-                    }
+                if (!openedInvites.contains(invite.getInvitation())) {
+                    showInviteFragment(invite);
+                    openedInvites.add(invite.getInvitation());
                 }
             }
-        });
+        }));
     }
 }
\ No newline at end of file
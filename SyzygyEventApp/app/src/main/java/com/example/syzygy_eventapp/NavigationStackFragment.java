@@ -3,11 +3,17 @@ package com.example.syzygy_eventapp;
 import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
 
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.os.Bundle;
 
 import androidx.activity.OnBackPressedCallback;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import android.view.LayoutInflater;
 import android.view.MenuItem;
@@ -17,13 +23,23 @@ import android.view.ViewGroup;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationBarView.OnItemSelectedListener;
 
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Stack;
 import java.util.UUID;
+import java.util.WeakHashMap;
 
 /**
  * Manages a stack of different screens (fragments) that can be pushed and popped.
  * This allows one screen to open a sub screen and then return back.
  * Displays a bottom navigation bar which screens can customize and then listen to.
+ * <p>
+ * Screens that are covered by a new screen, or switched away from with {@link #replaceScreen(Fragment, boolean)},
+ * are hidden instead of destroyed, so their views and listeners are still there when they are shown again.
+ * Only the {@link #MAX_RETAINED_SCREENS} most recently hidden screens are kept (fewer when memory is low),
+ * older ones are removed and have their view state, like scroll positions, restored when shown again.
+ * </p>
  */
 public class NavigationStackFragment extends Fragment implements OnItemSelectedListener {
     private static class Screen {
@@ -39,17 +55,74 @@ public class NavigationStackFragment extends Fragment implements OnItemSelectedL
         }
     }
 
+    /**
+     * How many hidden screens are kept alive at once
+     */
+    public static final int MAX_RETAINED_SCREENS = 4;
+
     final private Stack<Screen> screenStack;
+    // hidden screens that still have their views, least recently shown first
+    private final LinkedHashSet<Fragment> retainedScreens = new LinkedHashSet<>();
+    // view state of screens that were no longer retained, for when they are shown again
+    private final Map<Fragment, Fragment.SavedState> droppedScreenStates = new WeakHashMap<>();
+    private Fragment shownScreen = null;
     private OnBackPressedCallback backCallback;
     private BottomNavigationView navBar;
     private UUID displayedScreenUUID = null;
 
+    // lets the ScreenTracer time the first frame of each screen
+    private final FragmentManager.FragmentLifecycleCallbacks screenTimingCallbacks =
+            new FragmentManager.FragmentLifecycleCallbacks() {
+                @Override
+                public void onFragmentViewCreated(@NonNull FragmentManager manager, @NonNull Fragment fragment,
+                                                  @NonNull View view, @Nullable Bundle savedInstanceState) {
+                    ScreenTracer.onViewCreated(fragment, view);
+                }
+            };
+
+    // drops hidden screens when the system is low on memory
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                trimRetainedScreens(0);
+            } else if (level == TRIM_MEMORY_RUNNING_LOW) {
+                trimRetainedScreens(1);
+            } else if (level == TRIM_MEMORY_RUNNING_MODERATE) {
+                trimRetainedScreens(MAX_RETAINED_SCREENS / 2);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimRetainedScreens(0);
+        }
+    };
+
     public NavigationStackFragment() {
         screenStack = new Stack<Screen>();
         // one empty screen in the stack to hold the main menu
         screenStack.push(new Screen(null));
     }
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        getParentFragmentManager().registerFragmentLifecycleCallbacks(screenTimingCallbacks, false);
+        requireContext().registerComponentCallbacks(memoryCallbacks);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        getParentFragmentManager().unregisterFragmentLifecycleCallbacks(screenTimingCallbacks);
+        requireContext().unregisterComponentCallbacks(memoryCallbacks);
+    }
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         // Inflate the layout for this fragment
@@ -89,15 +162,12 @@ public class NavigationStackFragment extends Fragment implements OnItemSelectedL
     }
 
     /**
-     * Adds a screen to the stack.
+     * Adds a screen to the stack. The screen below is hidden and kept until it's shown again.
      *
      * @param fragment a fragment with new screen contents
      */
     public void pushScreen(Fragment fragment) {
-        FragmentManager manager = getParentFragmentManager();
-        manager.beginTransaction()
-                .replace(R.id.fragment_frame, fragment)
-                .commit();
+        showScreen(fragment, true);
 
         Screen screen;
         if (isEmpty()) {
@@ -135,25 +205,59 @@ public class NavigationStackFragment extends Fragment implements OnItemSelectedL
 
         backCallback.setEnabled(screenStack.size() > 1 && screen.backEnabled);
 
-        FragmentManager manager = getParentFragmentManager();
-        manager.beginTransaction()
-                .replace(R.id.fragment_frame, screen.fragment)
-                .commit();
+        showScreen(screen.fragment, false);
 
         refreshNavBar();
     }
 
+    /**
+     * Removes a screen from the stack, wherever it is.
+     * Use this instead of {@link #popScreen()} when a screen may be hidden under another one,
+     * like when the event it shows is deleted.
+     *
+     * @param fragment the fragment of the screen to remove
+     */
+    public void removeScreen(Fragment fragment) {
+        if (screenStack.peek().fragment == fragment) {
+            popScreen();
+            return;
+        }
+
+        for (int i = screenStack.size() - 2; i >= 1; i--) {
+            if (screenStack.get(i).fragment == fragment) {
+                screenStack.remove(i);
+                if (retainedScreens.remove(fragment)) {
+                    getParentFragmentManager().beginTransaction()
+                            .remove(fragment)
+                            .commit();
+                }
+                droppedScreenStates.remove(fragment);
+                refreshNavBar();
+                return;
+            }
+        }
+    }
+
     /**
      * Replaces the screen at the top of the stack, keeping whatever nav menu may have had.
      * This means the old screen's onNavigationItemSelected listener can still be called.
+     * The old screen is destroyed.
      *
      * @param fragment a fragment to replace the screen contents
      */
     public void replaceScreen(Fragment fragment) {
-        FragmentManager manager = getParentFragmentManager();
-        manager.beginTransaction()
-                .replace(R.id.fragment_frame, fragment)
-                .commit();
+        replaceScreen(fragment, false);
+    }
+
+    /**
+     * Replaces the screen at the top of the stack, keeping whatever nav menu may have had.
+     * This means the old screen's onNavigationItemSelected listener can still be called.
+     *
+     * @param fragment a fragment to replace the screen contents
+     * @param keepOld  if the old screen should be hidden and kept, because it's likely to be shown again, like a tab
+     */
+    public void replaceScreen(Fragment fragment, boolean keepOld) {
+        showScreen(fragment, keepOld);
 
         // there will always be at least one screen on the stack, even if it's fragment may be null
         Screen screen = screenStack.peek();
@@ -162,6 +266,107 @@ public class NavigationStackFragment extends Fragment implements OnItemSelectedL
         refreshNavBar();
     }
 
+    /**
+     * Shows a fragment in place of the one currently shown.
+     * A fragment that was retained is shown again as it was, without recreating its view.
+     *
+     * @param fragment  the fragment to show
+     * @param keepShown if the currently shown fragment should be hidden and retained, instead of removed
+     */
+    private void showScreen(Fragment fragment, boolean keepShown) {
+        FirestoreMetrics.setCurrentScreen(fragment.getClass().getSimpleName());
+        if (fragment == shownScreen) {
+            return;
+        }
+
+        FragmentManager manager = getParentFragmentManager();
+        boolean retained = retainedScreens.remove(fragment);
+        if (!retained) {
+            Fragment.SavedState state = droppedScreenStates.remove(fragment);
+            if (state != null || fragment.isAdded()) {
+                // the fragment can only be added again once its removal has gone through
+                manager.executePendingTransactions();
+            }
+            if (state != null && !fragment.isAdded()) {
+                fragment.setInitialSavedState(state);
+            }
+        }
+
+        FragmentTransaction transaction = manager.beginTransaction().setReorderingAllowed(true);
+        if (shownScreen != null) {
+            if (keepShown) {
+                // hidden screens are paused, but keep their views and listeners
+                transaction.hide(shownScreen).setMaxLifecycle(shownScreen, Lifecycle.State.STARTED);
+                retainedScreens.add(shownScreen);
+            } else {
+                transaction.remove(shownScreen);
+                droppedScreenStates.remove(shownScreen);
+            }
+        }
+
+        if (retained) {
+            transaction.show(fragment).setMaxLifecycle(fragment, Lifecycle.State.RESUMED);
+        } else {
+            transaction.add(R.id.fragment_frame, fragment);
+        }
+        shownScreen = fragment;
+
+        trimRetainedScreens(manager, transaction, MAX_RETAINED_SCREENS);
+        transaction.commit();
+
+        ScreenTracer.markPushed(fragment);
+        if (retained) {
+            // its content is already there, only a frame is needed to show it
+            ScreenTracer.markContentShown(fragment);
+        }
+    }
+
+    /**
+     * Removes the least recently shown hidden screens, until only a number of them are left.
+     * Their view state is saved so it can be restored if they are shown again.
+     *
+     * @param limit how many hidden screens to keep
+     */
+    public void trimRetainedScreens(int limit) {
+        if (!isAdded() || retainedScreens.size() <= limit) {
+            return;
+        }
+
+        FragmentManager manager = getParentFragmentManager();
+        if (manager.isStateSaved()) {
+            return; // can't change fragments now, the next navigation will trim them
+        }
+
+        FragmentTransaction transaction = manager.beginTransaction().setReorderingAllowed(true);
+        trimRetainedScreens(manager, transaction, limit);
+        transaction.commit();
+    }
+
+    private void trimRetainedScreens(FragmentManager manager, FragmentTransaction transaction, int limit) {
+        Iterator<Fragment> oldest = retainedScreens.iterator();
+        while (retainedScreens.size() > limit && oldest.hasNext()) {
+            Fragment fragment = oldest.next();
+            oldest.remove();
+
+            if (fragment.isAdded()) {
+                Fragment.SavedState state = manager.saveFragmentInstanceState(fragment);
+                if (state != null) {
+                    droppedScreenStates.put(fragment, state);
+                }
+            }
+            transaction.remove(fragment);
+        }
+    }
+
+    /**
+     * Gets how many hidden screens are currently kept alive
+     *
+     * @return the number of retained screens
+     */
+    public int getRetainedScreenCount() {
+        return retainedScreens.size();
+    }
+
     /**
      * Calls {@link #setScreenNavMenu(int, int, OnItemSelectedListener)} with the index of the top stack item
      */
@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -15,11 +16,15 @@ import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 
@@ -30,8 +35,19 @@ public class NotificationController {
     // A single global instance shared by the whole program
     private static NotificationController singletonInstance = null;
 
+    // Notifications and their UserNotifications are deleted by Firestore's TTL policy on this field,
+    // this many days after they're created, so the collections don't grow forever
+    static final String EXPIRE_AT = "expireAt";
+    static final long RETENTION_DAYS = 90;
+
     private final CollectionReference notifsRef;
     private final CollectionReference userNotifsRef;
+    // keys: "notifications:all"
+    private final CountCache counts = new CountCache();
+    // decodes snapshots off the main thread
+    private SnapshotDecoder decoder = SnapshotDecoder.getDefault();
+    // retries, backoff and deadlines for every call
+    private final OperationPolicy policy = OperationPolicy.getDefault();
 
     /**
      * Gets a single global instance of the NotificationController
@@ -45,6 +61,17 @@ public class NotificationController {
         return singletonInstance;
     }
 
+    /**
+     * Sets where snapshots and query results are decoded, and where listener callbacks are called.
+     * By default decoding happens on a shared background thread, and callbacks on the main thread.
+     *
+     * @param decodeExecutor where snapshots are decoded, filtered and sorted
+     * @param mainExecutor   where listener callbacks are called
+     */
+    public void setExecutors(Executor decodeExecutor, Executor mainExecutor) {
+        decoder = new SnapshotDecoder(decodeExecutor, mainExecutor);
+    }
+
     private NotificationController() {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         this.notifsRef = db.collection("notifications");
@@ -113,24 +140,15 @@ public class NotificationController {
             query = query.where(filter);
         }
 
-        return query.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
-
+        return decoder.observe(query, "NotificationController.observeNotifications", snap -> {
             List<Notification> matchingNotifs = new ArrayList<>();
             if (snap != null) {
                 for (DocumentSnapshot doc : snap.getDocuments()) {
-                    Notification notif = doc.toObject(Notification.class);
-                    if (notif != null) {
-                        matchingNotifs.add(notif);
-                    }
+                    matchingNotifs.add(DocumentMapper.toNotification(doc.getData()));
                 }
             }
-
-            onChange.accept(matchingNotifs);
-        });
+            return SnapshotDecoder.immutable(matchingNotifs);
+        }, onChange);
     }
 
     /**
@@ -146,24 +164,15 @@ public class NotificationController {
             query = query.where(filter);
         }
 
-        return query.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
-
+        return decoder.observe(query, "NotificationController.observeUserNotifications", snap -> {
             List<UserNotification> matchingUserNotifs = new ArrayList<>();
             if (snap != null) {
                 for (DocumentSnapshot doc : snap.getDocuments()) {
-                    UserNotification userNotif = doc.toObject(UserNotification.class);
-                    if (userNotif != null) {
-                        matchingUserNotifs.add(userNotif);
-                    }
+                    matchingUserNotifs.add(DocumentMapper.toUserNotification(doc.getData()));
                 }
             }
-
-            onChange.accept(matchingUserNotifs);
-        });
+            return SnapshotDecoder.immutable(matchingUserNotifs);
+        }, onChange);
     }
 
     /**
@@ -175,9 +184,9 @@ public class NotificationController {
     public Task<Void> deleteNotification(int notificationId) {
         DocumentReference notifRef = notifsRef.document(Integer.toString(notificationId));
 
-        return notifRef.set(new HashMap<>() {{
+        return policy.write("NotificationController.deleteNotification", 1, notifRef.set(new HashMap<>() {{
             put("deleted", true);
-        }}, SetOptions.merge());
+        }}, SetOptions.merge()));
     }
 
 
@@ -193,6 +202,7 @@ public class NotificationController {
         }
 
         DocumentReference notifRef = notifsRef.document(Integer.toString(notification.getId()));
+        Timestamp expireAt = expireAt(notification.getCreationDate());
 
         List<Task<Void>> tasks = new ArrayList<>();
 
@@ -201,7 +211,9 @@ public class NotificationController {
             UserNotification userNotif = new UserNotification(recipientId, notification.getId());
 
             DocumentReference userNotifRef = userNotifsRef.document();
-            tasks.add(userNotifRef.set(userNotif));
+            Map<String, Object> userNotifData = DocumentMapper.toMap(userNotif);
+            userNotifData.put(EXPIRE_AT, expireAt);
+            tasks.add(policy.write("NotificationController.postNotification", 1, userNotifRef.set(userNotifData)));
         }
 
         // create Notification after every UserNotifications so it is valid
@@ -210,12 +222,24 @@ public class NotificationController {
                 return Tasks.forException(Objects.requireNonNull(task.getException()));
             }
 
-            return notifRef.set(notification);
-        });
+            Map<String, Object> notifData = DocumentMapper.toMap(notification);
+            notifData.put(EXPIRE_AT, expireAt);
+            return policy.write("NotificationController.postNotification", 1, notifRef.set(notifData));
+        }).addOnSuccessListener(nothing -> counts.invalidate("notifications:"));
+    }
+
+    /**
+     * Count every notification, with a single aggregation read.
+     *
+     * @return Task that completes with the number of notifications
+     */
+    public Task<Long> countAllNotifications() {
+        return counts.count("NotificationController.countAllNotifications", "notifications:all", notifsRef);
     }
 
     public Task<List<Notification>> getAllNotifications() {
-        return notifsRef.get().continueWithTask(task -> {
+        Task<QuerySnapshot> read = policy.query("NotificationController.getAllNotifications", () -> notifsRef.get());
+        return read.continueWithTask(decoder.getDecodeExecutor(), task -> {
             if (!task.isSuccessful()) {
                 return Tasks.forException(task.getException());
             }
@@ -224,11 +248,21 @@ public class NotificationController {
 
             List<Notification> notifs = new ArrayList<>();
             for(DocumentSnapshot docSnap : snap.getDocuments()) {
-                notifs.add(docSnap.toObject(Notification.class));
+                notifs.add(DocumentMapper.toNotification(docSnap.getData()));
             }
 
             return Tasks.forResult(notifs);
         });
     }
 
+    /**
+     * Works out when a notification and its UserNotifications are deleted
+     *
+     * @param creationDate when the notification was created, or null for now
+     * @return the time to store in {@link #EXPIRE_AT}
+     */
+    static Timestamp expireAt(Timestamp creationDate) {
+        long created = creationDate != null ? creationDate.toDate().getTime() : System.currentTimeMillis();
+        return new Timestamp(new Date(created + TimeUnit.DAYS.toMillis(RETENTION_DAYS)));
+    }
 }
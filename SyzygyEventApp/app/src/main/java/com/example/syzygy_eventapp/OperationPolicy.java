@@ -0,0 +1,372 @@
+package com.example.syzygy_eventapp;
+
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.functions.FirebaseFunctionsException;
+import com.google.firebase.functions.HttpsCallableReference;
+import com.google.firebase.functions.HttpsCallableResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The retry, backoff and timeout rules for every Firestore and cloud function call the controllers make.
+ * <p>
+ * Reads, queries, aggregations and transactions are retried when they fail for a transient reason
+ * (see {@link #isTransient(Exception)}), waiting an exponentially growing, randomly jittered delay between
+ * attempts, until they succeed, run out of attempts, or pass their deadline. Retrying them is always safe:
+ * reads change nothing, and a failed transaction wrote nothing.
+ * </p>
+ * <p>
+ * Plain writes and batches only get a deadline. Firestore keeps them in its local queue and retries them on
+ * its own until the server accepts them, so they never fail for transient reasons, and retrying them here
+ * would send them twice. When the deadline passes the task fails, but the write is still sent later.
+ * </p>
+ * <p>
+ * Cloud function calls are retried too, with an idempotency key added to their data that stays the same
+ * for every attempt, so the function can skip attempts that it already handled. Each function also has a
+ * {@link CircuitBreaker}, so calls fail fast while it keeps failing.
+ * </p>
+ * Every retry, give-up and rejected call is recorded in {@link FirestoreMetrics}.
+ */
+public class OperationPolicy {
+
+    /**
+     * Deadline for a read, query or aggregation, including every retry, in milliseconds
+     */
+    public static final long READ_DEADLINE_MS = 15_000;
+
+    /**
+     * Deadline for a write or transaction, in milliseconds
+     */
+    public static final long WRITE_DEADLINE_MS = 20_000;
+
+    /**
+     * Deadline for a cloud function call, including every retry, in milliseconds
+     */
+    public static final long CALL_DEADLINE_MS = 60_000;
+
+    /**
+     * The most attempts an operation gets, including the first
+     */
+    public static final int MAX_ATTEMPTS = 4;
+
+    /**
+     * Name of the field added to cloud function data, see {@link #call(String, HttpsCallableReference, Map)}
+     */
+    public static final String IDEMPOTENCY_KEY = "idempotencyKey";
+
+    static final long BASE_DELAY_MS = 250;
+    static final long MAX_DELAY_MS = 5_000;
+
+    private static OperationPolicy defaultPolicy;
+
+    private final DataStream.Scheduler scheduler;
+    private final LongSupplier clock;
+    private final Random random;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a policy with its own time source, for tests
+     *
+     * @param scheduler runs retries and deadlines after a delay
+     * @param clock     the current time in milliseconds
+     * @param random    picks the jitter of each delay
+     */
+    OperationPolicy(DataStream.Scheduler scheduler, LongSupplier clock, Random random) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * @return the policy shared by every controller
+     */
+    public static synchronized OperationPolicy getDefault() {
+        if (defaultPolicy == null) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "OperationPolicy");
+                thread.setDaemon(true);
+                return thread;
+            });
+            DataStream.Scheduler scheduler = (task, delayMs) -> {
+                ScheduledFuture<?> future = executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+                return () -> future.cancel(false);
+            };
+            defaultPolicy = new OperationPolicy(scheduler, SystemClock::elapsedRealtime, new Random());
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Checks if a failure could go away by itself, so trying again might work
+     *
+     * @param e the failure
+     * @return true for timeouts, an unavailable or overloaded backend, and aborted transactions
+     */
+    public static boolean isTransient(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            } else if (cause instanceof FirebaseFirestoreException) {
+                switch (((FirebaseFirestoreException) cause).getCode()) {
+                    case UNAVAILABLE:
+                    case ABORTED:
+                    case DEADLINE_EXCEEDED:
+                    case RESOURCE_EXHAUSTED:
+                        return true;
+                    default:
+                        return false;
+                }
+            } else if (cause instanceof FirebaseFunctionsException) {
+                switch (((FirebaseFunctionsException) cause).getCode()) {
+                    case UNAVAILABLE:
+                    case ABORTED:
+                    case DEADLINE_EXCEEDED:
+                    case RESOURCE_EXHAUSTED:
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a single document, retrying transient failures
+     *
+     * @param operation the controller method making the call, like "EventController.getEvent"
+     * @param get       starts one attempt, like {@code () -> eventRef.get()}
+     * @return Task that completes with the document, or the last failure
+     */
+    public Task<DocumentSnapshot> read(String operation, Supplier<Task<DocumentSnapshot>> get) {
+        return retry(operation, FirestoreMetrics.Kind.READ, READ_DEADLINE_MS,
+                () -> FirestoreMetrics.read(operation, get.get()));
+    }
+
+    /**
+     * Runs a query, retrying transient failures
+     *
+     * @param operation the controller method making the call
+     * @param get       starts one attempt, like {@code () -> query.get()}
+     * @return Task that completes with the results, or the last failure
+     */
+    public Task<QuerySnapshot> query(String operation, Supplier<Task<QuerySnapshot>> get) {
+        return retry(operation, FirestoreMetrics.Kind.QUERY, READ_DEADLINE_MS,
+                () -> FirestoreMetrics.query(operation, get.get()));
+    }
+
+    /**
+     * Runs an aggregation query, retrying transient failures
+     *
+     * @param operation the controller method making the call
+     * @param get       starts one attempt, like {@code () -> query.count().get(AggregateSource.SERVER)}
+     * @return Task that completes with the aggregation, or the last failure
+     */
+    public Task<AggregateQuerySnapshot> aggregate(String operation, Supplier<Task<AggregateQuerySnapshot>> get) {
+        return retry(operation, FirestoreMetrics.Kind.AGGREGATE, READ_DEADLINE_MS,
+                () -> FirestoreMetrics.aggregate(operation, get.get()));
+    }
+
+    /**
+     * Gives a write a deadline. The write is never retried, Firestore already keeps trying to send it.
+     *
+     * @param operation the controller method making the call
+     * @param documents the number of documents written
+     * @param write     the set, update, delete or batch commit
+     * @return Task that completes with the write, or fails with a {@link TimeoutException} if it isn't
+     * confirmed by the deadline, even though it will still be sent
+     */
+    public <T> Task<T> write(String operation, int documents, Task<T> write) {
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        deadline(operation, WRITE_DEADLINE_MS, FirestoreMetrics.write(operation, documents, write))
+                .addOnCompleteListener(Runnable::run, done -> {
+                    if (done.isSuccessful()) {
+                        result.trySetResult(done.getResult());
+                    } else {
+                        if (done.getException() instanceof TimeoutException) {
+                            FirestoreMetrics.recordGiveUp(operation, FirestoreMetrics.Kind.WRITE);
+                        }
+                        result.trySetException(done.getException());
+                    }
+                });
+        return result.getTask();
+    }
+
+    /**
+     * Runs a transaction, retrying transient failures like contention. Unlike plain writes, transactions
+     * fail instead of waiting when offline, and a failed attempt wrote nothing, so they can be tried again.
+     *
+     * @param operation   the controller method making the call
+     * @param documents   the number of documents written
+     * @param transaction starts one attempt, like {@code () -> db.runTransaction(...)}
+     * @return Task that completes with the transaction's result, or the last failure
+     */
+    public <T> Task<T> transaction(String operation, int documents, Supplier<Task<T>> transaction) {
+        return retry(operation, FirestoreMetrics.Kind.WRITE, WRITE_DEADLINE_MS,
+                () -> FirestoreMetrics.write(operation, documents, transaction.get()));
+    }
+
+    /**
+     * Calls a cloud function, retrying transient failures.
+     * The data gets an {@link #IDEMPOTENCY_KEY} that is the same for every attempt, so the function should
+     * skip keys it has already handled. Fails fast with a {@link CircuitBreaker.OpenException}
+     * while the function has been failing.
+     *
+     * @param operation the controller method making the call, also the name of the function's breaker
+     * @param callable  the function
+     * @param data      the function's data
+     * @return Task that completes with the function's result, or the last failure
+     */
+    public Task<HttpsCallableResult> call(String operation, HttpsCallableReference callable,
+                                          Map<String, Object> data) {
+        return call(operation, callable::call, data);
+    }
+
+    /**
+     * Calls a cloud function, see {@link #call(String, HttpsCallableReference, Map)}
+     *
+     * @param operation the controller method making the call, also the name of the function's breaker
+     * @param call      starts one attempt with the data
+     * @param data      the function's data
+     * @return Task that completes with the function's result, or the last failure
+     */
+    <T> Task<T> call(String operation, Function<Map<String, Object>, Task<T>> call, Map<String, Object> data) {
+        Map<String, Object> keyed = new HashMap<>(data);
+        keyed.put(IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+        CircuitBreaker breaker = breaker(operation);
+
+        return retry(operation, FirestoreMetrics.Kind.CALL, CALL_DEADLINE_MS, () -> {
+            if (!breaker.allow()) {
+                FirestoreMetrics.recordRejected(operation, FirestoreMetrics.Kind.CALL);
+                TaskCompletionSource<T> rejected = new TaskCompletionSource<>();
+                rejected.setException(new CircuitBreaker.OpenException(operation));
+                return rejected.getTask();
+            }
+
+            Task<T> attempt = FirestoreMetrics.call(operation, call.apply(keyed));
+            attempt.addOnCompleteListener(Runnable::run, done -> {
+                if (done.isSuccessful()) {
+                    breaker.onSuccess();
+                } else {
+                    breaker.onFailure(isTransient(done.getException()));
+                }
+            });
+            return attempt;
+        });
+    }
+
+    /**
+     * @param name the operation the breaker protects
+     * @return the operation's breaker, created the first time it's needed
+     */
+    public CircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, n -> new CircuitBreaker(n, clock));
+    }
+
+    /**
+     * Runs attempts until one succeeds, a failure isn't transient, or attempts or time run out
+     *
+     * @param operation  the controller method making the call
+     * @param kind       the kind of operation, for metrics
+     * @param deadlineMs how long every attempt together may take, in milliseconds
+     * @param attempt    starts one attempt
+     * @return Task that completes with the first success, or the last failure
+     */
+    <T> Task<T> retry(String operation, FirestoreMetrics.Kind kind, long deadlineMs, Supplier<Task<T>> attempt) {
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        attempt(operation, kind, clock.getAsLong() + deadlineMs, attempt, 1, result);
+        return result.getTask();
+    }
+
+    private <T> void attempt(String operation, FirestoreMetrics.Kind kind, long deadline,
+                             Supplier<Task<T>> attempt, int number, TaskCompletionSource<T> result) {
+        Task<T> task;
+        try {
+            task = attempt.get();
+        } catch (RuntimeException e) {
+            result.trySetException(e);
+            return;
+        }
+
+        deadline(operation, deadline - clock.getAsLong(), task).addOnCompleteListener(Runnable::run, done -> {
+            if (done.isSuccessful()) {
+                result.trySetResult(done.getResult());
+                return;
+            }
+
+            Exception e = done.getException();
+            if (!isTransient(e)) {
+                result.trySetException(e);
+                return;
+            }
+
+            long delay = backoff(number);
+            if (number >= MAX_ATTEMPTS || clock.getAsLong() + delay >= deadline) {
+                FirestoreMetrics.recordGiveUp(operation, kind);
+                result.trySetException(e);
+                return;
+            }
+
+            FirestoreMetrics.recordRetry(operation, kind);
+            scheduler.schedule(() -> attempt(operation, kind, deadline, attempt, number + 1, result), delay);
+        });
+    }
+
+    /**
+     * Picks how long to wait before the next attempt: a random time up to an exponentially growing cap
+     * ("full jitter"), so devices that failed together don't all retry at the same moment
+     *
+     * @param attempt the number of the attempt that just failed, starting at 1
+     * @return the delay in milliseconds
+     */
+    long backoff(int attempt) {
+        long cap = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+        return (long) (random.nextDouble() * cap);
+    }
+
+    /**
+     * Fails a task if it hasn't completed in time. The task itself keeps running.
+     *
+     * @param operation the controller method making the call, for the error message
+     * @param timeoutMs how long the task may take, in milliseconds
+     * @param task      the task
+     * @return Task that completes like the task, or fails with a {@link TimeoutException}
+     */
+    private <T> Task<T> deadline(String operation, long timeoutMs, Task<T> task) {
+        if (task.isComplete()) {
+            return task;
+        }
+
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        Runnable cancel = scheduler.schedule(() -> result.trySetException(
+                new TimeoutException(operation + " didn't complete in time")), Math.max(0, timeoutMs));
+        task.addOnCompleteListener(Runnable::run, done -> {
+            cancel.run();
+            if (done.isSuccessful()) {
+                result.trySetResult(done.getResult());
+            } else {
+                result.trySetException(done.getException());
+            }
+        });
+        return result.getTask();
+    }
+}
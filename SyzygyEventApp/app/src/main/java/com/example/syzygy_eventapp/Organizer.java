@@ -4,10 +4,13 @@ import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FieldValue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Organizer model class that extends the user. Will aggregate all events owned by the organizer.
@@ -57,6 +60,26 @@ public class Organizer extends User {
         }
     }
 
+    /** Add many new event IDs to the organizer's owned list with a single DB update, like after an import. */
+    public Task<Void> addOwnedEventIDs(List<String> eventIDs) {
+        Set<String> owned = new HashSet<>(ownedEventIDs);
+        List<String> added = new ArrayList<>();
+        for (String eventID : eventIDs) {
+            if (owned.add(eventID)) {
+                added.add(eventID);
+            }
+        }
+        if (added.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        ownedEventIDs.addAll(added);
+        // a union, so IDs added from another device at the same time aren't lost
+        return updateDB(new HashMap<>() {{
+            put("ownedEventIDs", FieldValue.arrayUnion(added.toArray()));
+        }});
+    }
+
     /** Remove an event ID from the owned list and update DB. */
     public Task<Void> removeOwnedEventID(String eventID) {
         ownedEventIDs.remove(eventID);
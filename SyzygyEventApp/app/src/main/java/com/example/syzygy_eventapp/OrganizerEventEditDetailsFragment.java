@@ -8,12 +8,9 @@ import android.app.TimePickerDialog;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.ImageDecoder;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Base64;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -29,8 +26,6 @@ import androidx.fragment.app.Fragment;
 
 import com.google.firebase.Timestamp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -41,8 +36,6 @@ import java.util.Locale;
  * Provides functionality for managing event info, including dates, times, posters, and for viewing waiting lists or invitation statuses in real-time
  */
 public class OrganizerEventEditDetailsFragment extends Fragment {
-    private static final int MAX_IMAGE_SIZE = 800;
-
     // nav stack
     private final NavigationStackFragment navStack;
 
@@ -51,6 +44,7 @@ public class OrganizerEventEditDetailsFragment extends Fragment {
     private Button startTimeButton, endTimeButton, startDateButton, endDateButton;
     private Button importPosterButton, deletePosterButton;
     private ImageView posterPreview;
+    private ProgressBar imageProgress;
     private Button viewMapButton;
     private androidx.appcompat.widget.SwitchCompat geolocationToggle;
 
@@ -119,6 +113,7 @@ public class OrganizerEventEditDetailsFragment extends Fragment {
         locationInput = view.findViewById(R.id.edit_location);
         descriptionInput = view.findViewById(R.id.edit_description);
         posterPreview = view.findViewById(R.id.edit_poster);
+        imageProgress = view.findViewById(R.id.edit_poster_progress);
         importPosterButton = view.findViewById(R.id.btnUpload);
         deletePosterButton = view.findViewById(R.id.btnDelete);
         entrantLimitInput = view.findViewById(R.id.max_entrants);
@@ -197,6 +192,8 @@ public class OrganizerEventEditDetailsFragment extends Fragment {
         // Poster delete button that will remove the poster
         deletePosterButton.setOnClickListener(v -> {
             event.setPosterUrl(null);
+            event.setPosterThumbnail(null);
+            event.setPosterPlaceholder(null);
             posterPreview.setImageResource(R.drawable.image_placeholder);
         });
 
@@ -316,70 +313,35 @@ public class OrganizerEventEditDetailsFragment extends Fragment {
     }
 
     /**
-     * Loads an image from the given URI, resizes it, and converts it to Base64 format.
-     * Updates the poster preview and enables the delete button
+     * Shrinks and encodes an image in the background, with a thumbnail for list rows, showing progress while it works.
+     * Updates the poster preview when done
      *
      * @param imageUri The URI of the selected image
      */
     private void loadAndConvertImage(Uri imageUri) {
-        try {
-            Bitmap bitmap;
-            // Use the appropriate emthod based on Android version
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-                ImageDecoder.Source source = ImageDecoder.createSource(
-                        requireContext().getContentResolver(), imageUri);
-                bitmap = ImageDecoder.decodeBitmap(source);
-            } else {
-                InputStream inputStream = requireContext().getContentResolver()
-                        .openInputStream(imageUri);
-                bitmap = BitmapFactory.decodeStream(inputStream);
-                if (inputStream != null) {
-                    inputStream.close();
-                }
-            }
-
-            if (bitmap == null) {
-                Toast.makeText(getContext(), "Failed to load image", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // Resize the bitmap to reduce file size
-            Bitmap resizedBitmap = resizeBitmap(bitmap, MAX_IMAGE_SIZE);
-
-            // Compress and convert to Base64
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            resizedBitmap.compress(Bitmap.CompressFormat.JPEG, 70, baos);
-            byte[] imageBytes = baos.toByteArray();
-            event.setPosterUrl(Base64.encodeToString(imageBytes, Base64.DEFAULT));
-
-            // Update the UI
-            posterPreview.setImageBitmap(resizedBitmap);
-        } catch (Exception error) {
-            Toast.makeText(getContext(), "Failed to load image: " + error.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-
-    /**
-     * Resizes a bitmap to fit within the specified max. dimensions while maintaining aspect ratio
-     *
-     * @param bitmap  The original bitmap to resize
-     * @param maxSize The maximum width or height in pixels
-     * @return The resized bitmpa, or the original if already smaller than maxSize
-     */
-    private Bitmap resizeBitmap(Bitmap bitmap, int maxSize) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-
-        // Return original if it's already small
-        if (width <= maxSize && height <= maxSize) {
-            return bitmap;
-        }
-
-        float ratio = Math.min((float) maxSize / width, (float) maxSize / height);
-        int newWidth = Math.round(width * ratio);
-        int newHeight = Math.round(height * ratio);
-
-        return Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
+        importPosterButton.setEnabled(false);
+        imageProgress.setProgress(0);
+        imageProgress.setVisibility(View.VISIBLE);
+
+        ImageIngest.ingest(requireContext(), imageUri, ImageIngest.POSTER, imageProgress::setProgress)
+                .addOnSuccessListener(result -> {
+                    event.setPosterUrl(result.getFullBase64());
+                    event.setPosterThumbnail(result.getThumbnailBase64());
+                    event.setPosterPlaceholder(result.placeholder);
+
+                    if (isAdded()) {
+                        posterPreview.setImageBitmap(result.bitmap);
+                    }
+                })
+                .addOnFailureListener(error -> {
+                    if (isAdded()) {
+                        Toast.makeText(getContext(), "Failed to load image: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .addOnCompleteListener(task -> {
+                    importPosterButton.setEnabled(true);
+                    imageProgress.setVisibility(View.GONE);
+                });
     }
 
     /**
@@ -12,8 +12,6 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.Filter;
-import com.google.firebase.firestore.ListenerRegistration;
 
 import java.text.DateFormat;
 import java.util.Date;
@@ -30,7 +28,6 @@ public class OrganizerEventSummaryFragment extends LinearLayout {
     private TextView titleText, timeText, locationText, dateText, acceptedCountText, interestedCountText;
     private MaterialCardView card;
     private Chip statusChip;
-    private ListenerRegistration inviteListener;
 
     /**
      * Default constructor for inflating via code.
@@ -115,8 +112,8 @@ public class OrganizerEventSummaryFragment extends LinearLayout {
             dateText.setText("No date");
         }
 
-        // Get and update counts from Firestore
-        getAndUpdateCounts(event.getEventID(), event.getMaxAttendees());
+        // Update counts from the event's counters
+        updateCounts(event);
 
         if (attendeeStatus != null) {
             setAttendeeChipColor(attendeeStatus);
@@ -131,77 +128,42 @@ public class OrganizerEventSummaryFragment extends LinearLayout {
     }
 
     /**
-     * Gets accepted and interested counts from Firestore and updates the UI.
+     * Shows the accepted and interested counts from the event's counters.
+     * Interested is everyone still waiting on the lottery or on an answer to their invite.
+     * Answers to invites change the counters on the event document itself, so every snapshot
+     * of the event already has its current counts and nothing else is read.
+     * Events that have never been counted are recounted once, the new counts arrive with the next snapshot.
      *
-     * @param eventID      The ID of the event to get counts for
-     * @param maxAttendees The maximum number of attendees for this event
+     * @param event The event to show the counts of
      */
-    private void getAndUpdateCounts(String eventID, Integer maxAttendees) {
-        if (eventID == null || eventID.isEmpty()) {
+    private void updateCounts(Event event) {
+        if (event.getEventID() == null || event.getEventID().isEmpty()) {
             acceptedCountText.setText("0");
             interestedCountText.setText("0");
             return;
         }
 
-        acceptedCountText.setText("—");
-        interestedCountText.setText("—");
-
-        if (inviteListener != null) {
-            inviteListener.remove();
-            inviteListener = null;
+        if (!event.hasInvitationCounters()) {
+            acceptedCountText.setText("—");
+            interestedCountText.setText("—");
+            EventController.getInstance().recountCountersIfMissing(event);
+            return;
         }
 
-        InvitationController invitationController = InvitationController.getInstance();
+        showCounts(event, Math.max(0, event.getAcceptedCount()), Math.max(0, event.getPendingCount()));
+    }
 
-        com.google.firebase.firestore.Filter baseFilter = com.google.firebase.firestore.Filter.and(
-                com.google.firebase.firestore.Filter.equalTo("event", eventID),
-                com.google.firebase.firestore.Filter.or(
-                        com.google.firebase.firestore.Filter.equalTo("cancelled", false),
-                        com.google.firebase.firestore.Filter.equalTo("cancelled", null)
-                )
-        );
+    private void showCounts(Event event, long acceptedCount, long pendingCount) {
+        Integer maxAttendees = event.getMaxAttendees();
+        if (maxAttendees != null) {
+            acceptedCountText.setText(acceptedCount + "/" + maxAttendees);
+        } else {
+            acceptedCountText.setText(String.valueOf(acceptedCount));
+        }
 
-        inviteListener = invitationController.observeInvites(baseFilter, invites -> {
-            int acceptedCount = 0;
-            int pendingCount = 0;
-
-            if (invites != null) {
-                for (Invitation inv : invites) {
-                    if (inv == null) {
-                        continue;
-                    }
-
-                    Boolean accepted = inv.getAccepted();
-                    com.google.firebase.Timestamp responseTime = inv.getResponseTime();
-
-                    if (Boolean.TRUE.equals(accepted)) {
-                        acceptedCount++;
-                    }
-                    else if (responseTime == null) {
-                        pendingCount++;
-                    }
-                }
-            }
-
-            if (maxAttendees != null) {
-                acceptedCountText.setText(acceptedCount + "/" + maxAttendees);
-            } else {
-                acceptedCountText.setText(String.valueOf(acceptedCount));
-            }
-
-            final int pendingCountFinal = pendingCount;
-
-            EventController.getInstance().getEvent(eventID)
-                    .addOnSuccessListener(event -> {
-                        int waitingSize = (event != null) ? event.getWaitingSize() : 0;
-                        int interestedTotal = waitingSize + pendingCountFinal;
-                        interestedCountText.setText(String.valueOf(interestedTotal));
-                    })
-                    .addOnFailureListener(error -> {
-                        int interestedTotal = pendingCountFinal;
-                        interestedCountText.setText(String.valueOf(interestedTotal));
-                    });
-        });
+        // the waiting list is already part of the snapshot, so its size is always exact
+        long interestedTotal = event.getWaitingSize() + pendingCount;
+        interestedCountText.setText(String.valueOf(interestedTotal));
     }
 
 
@@ -0,0 +1,104 @@
+package com.example.syzygy_eventapp;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RecyclerView Adapter for the rows of an {@link OrganizerEventSummaryListView}.
+ * <p>
+ * Rows are recycled, and new lists are compared the same way as in {@link EventSummaryListViewAdapter},
+ * so a snapshot only rebinds, and recounts, the events that actually changed.
+ * </p>
+ */
+public class OrganizerEventSummaryListAdapter
+        extends ListAdapter<Event, OrganizerEventSummaryListAdapter.ListItemViewHolder> {
+
+    /// Stable item IDs, by event ID.
+    private final Map<String, Long> itemIds = new HashMap<>();
+
+    private View.OnClickListener onRowClick = v -> {};
+
+    public OrganizerEventSummaryListAdapter() {
+        super(EventSummaryListViewAdapter.DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Replaces the events shown, along with the row click callback.
+     *
+     * @param events     the events to show
+     * @param onRowClick click listener for opening event details
+     */
+    public void setItems(List<Event> events, View.OnClickListener onRowClick) {
+        this.onRowClick = onRowClick;
+        // the caller may keep changing its list, so diff against a copy
+        submitList(new ArrayList<>(events));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String eventID = getItem(position).getEventID();
+        Long id = itemIds.get(eventID);
+        if (id == null) {
+            id = (long) itemIds.size();
+            itemIds.put(eventID, id);
+        }
+        return id;
+    }
+
+    /**
+     * Creates a new ViewHolder for an event row.
+     * @param parent The parent ViewGroup.
+     * @param viewType The view type of the new View.
+     * @return A new ListItemViewHolder instance.
+     */
+    @NonNull
+    @Override
+    public ListItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        OrganizerEventSummaryFragment row = new OrganizerEventSummaryFragment(parent.getContext());
+        row.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+        ListItemViewHolder holder = new ListItemViewHolder(row);
+        row.setOnOpenDetailsClickListener(v -> {
+            v.setTag(holder.event);
+            onRowClick.onClick(v);
+        });
+        return holder;
+    }
+
+    /**
+     * Binds an event to a row.
+     * @param holder The ListItemViewHolder to bind data to.
+     * @param position The position of the event in the list.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ListItemViewHolder holder, int position) {
+        Event event = getItem(position);
+        holder.event = event;
+        holder.row.setTag(event);
+        holder.row.bind(event, event.calculateAbsoluteStatus());
+    }
+
+    /**
+     * ViewHolder class for organizer event rows.
+     */
+    public static class ListItemViewHolder extends RecyclerView.ViewHolder {
+        final OrganizerEventSummaryFragment row;
+        Event event;
+
+        public ListItemViewHolder(@NonNull OrganizerEventSummaryFragment row) {
+            super(row);
+            this.row = row;
+        }
+    }
+}
@@ -7,18 +7,26 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Displays a titled, collapsible list of OrganizerEventSummaryFragment rows with a count.
  * Used primarily by OrganizerFragment.
+ * Rows are shown in a RecyclerView, so like {@link EventSummaryListView} the list needs a bounded height.
  */
 public class OrganizerEventSummaryListView extends LinearLayout {
-    private LinearLayout listContainer;
+    private RecyclerView listContainer;
+    private OrganizerEventSummaryListAdapter adapter;
     private ImageView arrow;
     private TextView titleText;
     private TextView countText;
     private boolean expanded = true;
+    // the layout_weight the list had when it was first expanded or collapsed, 0 if it has none
+    private float expandedWeight = -1;
 
     /**
      * Constructs the view programmatically.
@@ -57,6 +65,12 @@ public class OrganizerEventSummaryListView extends LinearLayout {
         titleText    = findViewById(R.id.title);
         countText    = findViewById(R.id.count);
 
+        adapter = new OrganizerEventSummaryListAdapter();
+        listContainer.setLayoutManager(new LinearLayoutManager(context));
+        listContainer.setAdapter(adapter);
+        // counts change in place, fading rows in and out would only flicker
+        listContainer.setItemAnimator(null);
+
         findViewById(R.id.header).setOnClickListener(v -> toggle());
 
         setExpanded(expanded);
@@ -79,6 +93,7 @@ public class OrganizerEventSummaryListView extends LinearLayout {
         listContainer.setVisibility(expanded ? VISIBLE : GONE);
         arrow.animate().rotation(expanded ? 90f : 0f).setDuration(120).start();
         arrow.setContentDescription(expanded ? "Collapse" : "Expand");
+        expandedWeight = EventSummaryListView.shareHeight(this, expanded, expandedWeight);
     }
 
     /**
@@ -103,28 +118,10 @@ public class OrganizerEventSummaryListView extends LinearLayout {
             OnClickListener onToggleBannerClick,
             OnClickListener onRemoveClick
     ) {
-        listContainer.removeAllViews();
-
         int size = (events == null) ? 0 : events.size();
         countText.setText(String.valueOf(size));
-        if (size == 0) return;
-
-        for (Event event : events) {
-            OrganizerEventSummaryFragment row = new OrganizerEventSummaryFragment(getContext());
-
-            Event.Status status = event.calculateAbsoluteStatus();
-            row.bind(event, status);
-
-
-            row.setTag(event);
-
-            row.setOnOpenDetailsClickListener(v -> {
-                v.setTag(event);
-                onRowClick.onClick(v);
-            });
 
-            listContainer.addView(row);
-        }
+        adapter.setItems(events == null ? Collections.emptyList() : events, onRowClick);
     }
 
     /**
@@ -1,7 +1,11 @@
 package com.example.syzygy_eventapp;
 
+import android.app.AlertDialog;
+import android.net.Uri;
 import android.os.Bundle;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.fragment.app.Fragment;
 
 import android.util.Log;
@@ -10,6 +14,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.ListenerRegistration;
@@ -27,6 +32,16 @@ public class OrganizerFragment extends Fragment {
     private OrganizerEventSummaryListView organizerSummaryListViewHistory;
     private String userID;
     private ListenerRegistration eventsListener;
+    private List<Event> organizerEvents = new ArrayList<>();
+    // shows errors for at most this many rows before asking to import
+    private static final int SHOWN_IMPORT_ERRORS = 10;
+
+    private final ActivityResultLauncher<String[]> importPickerLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) {
+                    checkImport(uri);
+                }
+            });
 
     // required empty constructor
     public OrganizerFragment() {
@@ -60,6 +75,8 @@ public class OrganizerFragment extends Fragment {
         organizerSummaryListViewHistory.setTitle("Past Events");
 
         Button createEventButton = view.findViewById(R.id.create_event_button);
+        Button exportQRCodesButton = view.findViewById(R.id.export_qr_codes_button);
+        Button importEventsButton = view.findViewById(R.id.import_events_button);
 
         // Load current user ID and event controller
         userID = AppInstallationId.get(requireContext());
@@ -75,22 +92,25 @@ public class OrganizerFragment extends Fragment {
                     });
         });
 
+        exportQRCodesButton.setOnClickListener(v -> exportAllQRCodes());
+        importEventsButton.setOnClickListener(v -> importPickerLauncher.launch(
+                new String[]{"text/csv", "text/comma-separated-values", "text/plain"}));
+
         startEventObserver();
 
         return view;
     }
 
     private void startEventObserver() {
-        eventsListener = EventController.getInstance().observeAllEvents(events -> {
+        // only this organizer's events, picked out in the background
+        // only while the screen is showing, it's hidden while an event is open
+        eventsListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> EventController.getInstance().observeAllEvents(
+                event -> userID.equals(event.getOrganizerID()), null, events -> {
             List<Event> upcoming = new ArrayList<>();
             List<Event> past = new ArrayList<>();
             Date now = new Date();
 
             for (Event event : events) {
-                if (!event.getOrganizerID().equals(userID)) {
-                    continue;
-                }
-
                 Date eventDate = null;
                 if (event.getRegistrationEnd() != null) {
                     eventDate = event.getRegistrationEnd().toDate();
@@ -107,9 +127,117 @@ public class OrganizerFragment extends Fragment {
                 }
             }
 
+            organizerEvents = events;
+
             organizerSummaryListViewUpcoming.setItems(upcoming, false, this::eventClickedCallback);
             organizerSummaryListViewHistory.setItems(past, false, this::eventClickedCallback);
-        });
+        }));
+    }
+
+    /**
+     * Renders and saves the QR codes of every event this organizer owns in one background job.
+     */
+    private void exportAllQRCodes() {
+        if (organizerEvents.isEmpty()) {
+            Toast.makeText(requireContext(), "No events to export", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Toast.makeText(requireContext(), "Exporting " + organizerEvents.size() + " QR codes...", Toast.LENGTH_SHORT).show();
+
+        QRCodeRenderer.exportEventQRCodes(requireContext(), new ArrayList<>(organizerEvents))
+                .addOnSuccessListener(saved -> {
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), saved + " QR codes saved to Pictures/SyzygyQR", Toast.LENGTH_LONG).show();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("OrganizerFragment", "Failed to export QR codes", e);
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), "Failed to export: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    /**
+     * Checks every row of a picked CSV file, then asks the organizer if the valid ones should be imported.
+     *
+     * @param uri the picked file
+     */
+    private void checkImport(Uri uri) {
+        Toast.makeText(requireContext(), "Checking file...", Toast.LENGTH_SHORT).show();
+        EventImporter importer = new EventImporter(requireContext());
+
+        importer.validate(uri, userID)
+                .addOnSuccessListener(report -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+
+                    StringBuilder message = new StringBuilder();
+                    message.append(report.valid).append(" of ").append(report.rows).append(" rows are valid events.");
+                    if (report.resumed > 0) {
+                        message.append("\n").append(report.resumed)
+                                .append(" were imported before and will be skipped.");
+                    }
+                    if (report.errorCount > 0) {
+                        message.append("\n\nRows that will be skipped:");
+                        for (int i = 0; i < Math.min(SHOWN_IMPORT_ERRORS, report.errors.size()); i++) {
+                            message.append("\n").append(report.errors.get(i));
+                        }
+                        if (report.errorCount > SHOWN_IMPORT_ERRORS) {
+                            message.append("\n...and ").append(report.errorCount - SHOWN_IMPORT_ERRORS).append(" more");
+                        }
+                    }
+
+                    AlertDialog.Builder dialog = new AlertDialog.Builder(requireContext())
+                            .setTitle("Import events")
+                            .setMessage(message.toString())
+                            .setNegativeButton("Cancel", (d, which) -> d.dismiss());
+                    if (report.valid > report.resumed) {
+                        dialog.setPositiveButton("Import", (d, which) -> runImport(importer, uri, report));
+                    }
+                    dialog.show();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("OrganizerFragment", "Failed to check import", e);
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), "Can't import: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    private void runImport(EventImporter importer, Uri uri, EventImporter.Report report) {
+        int total = report.valid - report.resumed;
+        UserController.getInstance().getUser(userID)
+                .onSuccessTask(user -> {
+                    if (!(user instanceof Organizer)) {
+                        throw new IllegalStateException("Only organizers can import events");
+                    }
+                    return importer.importEvents(uri, (Organizer) user, report, written -> {
+                        if (isAdded()) {
+                            Toast.makeText(requireContext(), "Imported " + written + " of " + total + " events",
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                })
+                .addOnSuccessListener(done -> {
+                    if (isAdded()) {
+                        String message = "Imported " + done.written + " events";
+                        if (done.alreadyImported > 0) {
+                            message += ", " + done.alreadyImported + " were already imported";
+                        }
+                        Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("OrganizerFragment", "Failed to import events", e);
+                    if (isAdded()) {
+                        String message = e instanceof IllegalStateException ? e.getMessage()
+                                : "Import stopped, pick the same file again to continue";
+                        Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+                    }
+                });
     }
 
     private void eventClickedCallback(View view) {
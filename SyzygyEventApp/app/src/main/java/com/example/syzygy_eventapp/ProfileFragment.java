@@ -6,7 +6,6 @@ import android.app.AlertDialog;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.ImageDecoder;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -18,6 +17,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 import android.content.Intent;
@@ -32,12 +32,11 @@ import androidx.fragment.app.Fragment;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.imageview.ShapeableImageView;
 import com.google.android.material.switchmaterial.SwitchMaterial;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Filter;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.util.HashMap;
 import java.util.function.Consumer;
 
 /**
@@ -50,10 +49,10 @@ import java.util.function.Consumer;
 public class ProfileFragment extends Fragment {
 
     // Profile section
-    private static final int MAX_IMAGE_SIZE = 200;
     private static final int PERMISSION_REQUEST_IMAGE = 100;
     private ActivityResultLauncher<Intent> imagePickerLauncher;
     private ShapeableImageView profileImageView;
+    private ProgressBar profileImageProgress;
     private LinearLayout profileNamePanel;
     private TextView profileNameText;
     private Chip profileRoleBadge;
@@ -74,6 +73,11 @@ public class ProfileFragment extends Fragment {
     private User currentUser;
     private String userID;
 
+    // Changes that haven't been saved yet, saved together after a short delay
+    private static final long SAVE_DELAY_MS = 500;
+    private User.Edit pendingEdit = null;
+    private final Runnable saveRunnable = this::savePendingEdit;
+
     // Delete Profile Button
     private View deleteProfileButton;
 
@@ -109,6 +113,7 @@ public class ProfileFragment extends Fragment {
 
         // Initialize views
         profileImageView = view.findViewById(R.id.profileImage);
+        profileImageProgress = view.findViewById(R.id.profileImageProgress);
         profileNamePanel = view.findViewById(R.id.profileNamePanel);
         profileNameText = view.findViewById(R.id.profileNameText);
         profileRoleBadge = view.findViewById(R.id.profileRoleBadge);
@@ -129,7 +134,7 @@ public class ProfileFragment extends Fragment {
                 profileNameText.getText().toString(),
                 "username",
                 InputType.TYPE_CLASS_TEXT,
-                newValue -> updateUserField("name", newValue)
+                newValue -> edit(e -> e.setName(newValue))
         ));
 
         imagePickerLauncher = registerForActivityResult(
@@ -151,7 +156,7 @@ public class ProfileFragment extends Fragment {
                 InputType.TYPE_TEXT_VARIATION_EMAIL_ADDRESS,
                 newValue -> {
                     if (Patterns.EMAIL_ADDRESS.matcher(newValue).matches()) {
-                        updateUserField("email", newValue);
+                        edit(e -> e.setEmail(newValue));
                     } else {
                         showError("Please enter a valid email address.");
                     }
@@ -165,7 +170,7 @@ public class ProfileFragment extends Fragment {
                 InputType.TYPE_CLASS_PHONE,
                 newValue -> {
                     if (Patterns.PHONE.matcher(newValue).matches()) {
-                        updateUserField("phone", newValue);
+                        edit(e -> e.setPhone(newValue));
                     } else {
                         showError("Please enter a valid phone number.");
                     }
@@ -190,8 +195,10 @@ public class ProfileFragment extends Fragment {
                 } else {
                     Role newRole = Role.ORGANIZER;
 
-                    userController.setUserRole(userID, newRole)
-                            .addOnSuccessListener(updatedUser ->
+                    // saved straight away, only if the role hasn't been changed by an admin meanwhile
+                    edit(e -> e.setRole(newRole));
+                    savePendingEdit()
+                            .addOnSuccessListener(nothing ->
                                     Toast.makeText(getContext(),
                                             "Role changed to " + newRole.name().toLowerCase(),
                                             Toast.LENGTH_SHORT).show())
@@ -220,11 +227,13 @@ public class ProfileFragment extends Fragment {
         });
 
         lotteryNotificationsSwitch.setOnClickListener(v -> {
-            updateUserField("systemNotifications", lotteryNotificationsSwitch.isChecked());
+            boolean checked = lotteryNotificationsSwitch.isChecked();
+            edit(e -> e.setSystemNotifications(checked));
         });
 
         organizerNotificationsSwitch.setOnClickListener(v -> {
-            updateUserField("organizerNotifications", organizerNotificationsSwitch.isChecked());
+            boolean checked = organizerNotificationsSwitch.isChecked();
+            edit(e -> e.setOrganizerNotifications(checked));
         });
     }
 
@@ -245,6 +254,7 @@ public class ProfileFragment extends Fragment {
     @Override
     public void onStop() {
         super.onStop();
+        savePendingEdit();
         if (userListener != null) {
             userListener.remove();
             userListener = null;
@@ -303,21 +313,48 @@ public class ProfileFragment extends Fragment {
     }
 
     /**
-     * Updates a single field in the user's Firestore document.
+     * Changes the user's profile. Changes made in quick succession are saved together,
+     * with one write, once no more changes have been made for {@link #SAVE_DELAY_MS}.
      *
-     * @param key   The name of the field to update (e.g., "name", "email").
-     * @param value The new value to set for the field.
+     * @param change makes the changes to the edit session
      */
-    private void updateUserField(String key, Object value) {
-        if (userID == null) {
-            showError("User ID not available.");
+    private void edit(Consumer<User.Edit> change) {
+        if (currentUser == null) {
+            showError("User data not loaded yet.");
+            return;
+        }
+
+        if (pendingEdit == null) {
+            pendingEdit = currentUser.edit();
+        }
+        change.accept(pendingEdit);
+
+        View view = getView();
+        if (view == null) {
+            savePendingEdit();
             return;
         }
+        view.removeCallbacks(saveRunnable);
+        view.postDelayed(saveRunnable, SAVE_DELAY_MS);
+    }
 
-        HashMap<String, Object> update = new HashMap<>();
-        update.put(key, value);
+    /**
+     * Saves any changes that haven't been saved yet
+     *
+     * @return a task that will complete when the changes have been saved
+     */
+    private Task<Void> savePendingEdit() {
+        View view = getView();
+        if (view != null) {
+            view.removeCallbacks(saveRunnable);
+        }
+        if (pendingEdit == null) {
+            return Tasks.forResult(null);
+        }
 
-        userController.updateFields(userID, update);
+        User.Edit edit = pendingEdit;
+        pendingEdit = null;
+        return edit.commit().addOnFailureListener(err -> showError("Failed to save profile: " + err.getMessage()));
     }
 
     /**
@@ -418,67 +455,35 @@ public class ProfileFragment extends Fragment {
     }
 
     /**
-     * Loads an image from the given URI, resizes it, and converts it to Base64 format.
-     * Updates the poster preview and enables the delete button
+     * Shrinks and encodes an image in the background, showing progress over the profile photo while it works.
+     * Saves it as the user's photo when done
      *
      * @param imageUri The URI of the selected image
      */
     private void loadAndConvertProfileImage(Uri imageUri) {
-        try {
-            Bitmap bitmap;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-                ImageDecoder.Source source = ImageDecoder.createSource(
-                        requireContext().getContentResolver(), imageUri);
-                bitmap = ImageDecoder.decodeBitmap(source);
-            } else {
-                InputStream inputStream = requireContext().getContentResolver()
-                        .openInputStream(imageUri);
-                bitmap = BitmapFactory.decodeStream(inputStream);
-                if (inputStream != null) inputStream.close();
-            }
-
-            if (bitmap == null) {
-                showError("Failed to load image");
-                return;
-            }
-
-            Bitmap resized = resizeBitmap(bitmap);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            resized.compress(Bitmap.CompressFormat.JPEG, 70, baos);
-            byte[] imageBytes = baos.toByteArray();
-
-            String encoded = Base64.encodeToString(imageBytes, Base64.DEFAULT);
-
-            currentUser.setPhotoURL(encoded);
-            updateUserField("photoURL", encoded);
-
-            profileImageView.setImageBitmap(resized);
-            Toast.makeText(getContext(), "Profile image updated", Toast.LENGTH_SHORT).show();
-
-        } catch (Exception e) {
-            Toast.makeText(getContext(), "Image error: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
-    }
-
-    /**
-     * Resizes a bitmap to fit within the specified max. dimensions while maintaining aspect ratio
-     *
-     * @param bitmap The original bitmap to resize
-     * @return The resized bitmpa, or the original if already smaller than maxSize
-     */
-    private Bitmap resizeBitmap(Bitmap bitmap) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-
-        if (width <= ProfileFragment.MAX_IMAGE_SIZE && height <= ProfileFragment.MAX_IMAGE_SIZE)
-            return bitmap;
-
-        float ratio = Math.min((float) ProfileFragment.MAX_IMAGE_SIZE / width, (float) ProfileFragment.MAX_IMAGE_SIZE / height);
-        int newW = Math.round(width * ratio);
-        int newH = Math.round(height * ratio);
-
-        return Bitmap.createScaledBitmap(bitmap, newW, newH, true);
+        profileImageView.setEnabled(false);
+        profileImageProgress.setProgress(0);
+        profileImageProgress.setVisibility(View.VISIBLE);
+
+        ImageIngest.ingest(requireContext(), imageUri, ImageIngest.AVATAR, profileImageProgress::setProgress)
+                .addOnSuccessListener(result -> {
+                    String encoded = result.getFullBase64();
+                    edit(e -> e.setPhotoURL(encoded).setPhotoPlaceholder(result.placeholder));
+
+                    if (isAdded()) {
+                        profileImageView.setImageBitmap(result.bitmap);
+                        Toast.makeText(getContext(), "Profile image updated", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (isAdded()) {
+                        Toast.makeText(getContext(), "Image error: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .addOnCompleteListener(task -> {
+                    profileImageView.setEnabled(true);
+                    profileImageProgress.setVisibility(View.GONE);
+                });
     }
 
     @Override
@@ -0,0 +1,238 @@
+package com.example.syzygy_eventapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.net.Uri;
+import android.os.Environment;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders, caches and exports event QR codes.
+ * <p>
+ * Codes contain the event's ID in deep link format ("syzygy://event/{eventID}").
+ * Rendered codes are kept as PNGs in the app's cache directory, keyed by their deep link,
+ * so opening the same event's QR screen again doesn't have to encode it again.
+ * All rendering and file work is done on a background thread and results are delivered as Tasks.
+ * </p>
+ */
+public class QRCodeRenderer {
+    private static final String TAG = "QRCodeRenderer";
+    public static final int QR_CODE_SIZE = 800;
+    private static final String DEEP_LINK_PREFIX = "syzygy://event/";
+    private static final String CACHE_DIR_NAME = "qr_codes";
+
+    // one background thread is plenty, QR work is short and shouldn't compete with the UI
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private QRCodeRenderer() {
+    }
+
+    /**
+     * Builds the deep link that an event's QR code contains.
+     *
+     * @param eventID the event's ID
+     * @return the deep link, in the format "syzygy://event/{eventID}"
+     */
+    public static String deepLinkFor(String eventID) {
+        return DEEP_LINK_PREFIX + eventID;
+    }
+
+    /**
+     * Gets a file name that is safe to use on disk for a deep link.
+     *
+     * @param deepLink the deep link the QR code contains
+     * @return a PNG file name made of only letters, numbers and underscores
+     */
+    public static String cacheFileName(String deepLink) {
+        return deepLink.replaceAll("[^a-zA-Z0-9]", "_") + ".png";
+    }
+
+    /**
+     * Gets the QR code for an event, from the disk cache if it's been rendered before.
+     *
+     * @param context any context, used to find the cache directory
+     * @param eventID the event's ID
+     * @return Task that completes with the QR code bitmap
+     */
+    public static Task<Bitmap> getEventQRCode(Context context, String eventID) {
+        if (eventID == null || eventID.isEmpty()) {
+            return Tasks.forException(new IllegalArgumentException("eventID is required"));
+        }
+
+        File cacheDir = context.getApplicationContext().getCacheDir();
+        return Tasks.call(executor, () -> loadOrRender(cacheDir, deepLinkFor(eventID)));
+    }
+
+    /**
+     * Renders and exports the QR codes of many events to the device's pictures in one background job.
+     * Events that fail to render or save are skipped.
+     *
+     * @param context any context, used for the cache directory and content resolver
+     * @param events  the events to export QR codes for
+     * @return Task that completes with the number of QR codes that were saved
+     */
+    public static Task<Integer> exportEventQRCodes(Context context, List<Event> events) {
+        Context appContext = context.getApplicationContext();
+        File cacheDir = appContext.getCacheDir();
+
+        return Tasks.call(executor, () -> {
+            int saved = 0;
+            for (Event event : events) {
+                if (event == null || event.getEventID() == null) {
+                    continue;
+                }
+
+                try {
+                    Bitmap bitmap = loadOrRender(cacheDir, deepLinkFor(event.getEventID()));
+                    saveToPictures(appContext, bitmap, exportFileName(event));
+                    saved++;
+                } catch (WriterException | IOException e) {
+                    // keep going, one bad event shouldn't stop the rest
+                    Log.e(TAG, "Failed to export the QR code of " + event.getEventID(), e);
+                }
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Exports a single QR code to the device's pictures, in a dedicated Syzygy subfolder using MediaStore.
+     *
+     * @param context any context, used for the content resolver
+     * @param bitmap  the QR code to save
+     * @param event   the event the QR code belongs to, used to name the file
+     * @return Task that completes when the file has been written
+     */
+    public static Task<Void> exportEventQRCode(Context context, Bitmap bitmap, Event event) {
+        Context appContext = context.getApplicationContext();
+        return Tasks.call(executor, () -> {
+            saveToPictures(appContext, bitmap, exportFileName(event));
+            return null;
+        });
+    }
+
+    /**
+     * Renders a QR code into a bitmap.
+     * <p>
+     * The whole image is built in one pixel buffer and written with a single setPixels call,
+     * which is far cheaper than setting each pixel of the bitmap one at a time.
+     * Rows that are the same as the row above (most of them, since each module is many pixels tall)
+     * are copied instead of being read from the BitMatrix again.
+     * </p>
+     *
+     * @param data the string to encode
+     * @param size the width and height of the bitmap, in pixels
+     * @return the rendered QR code
+     * @throws WriterException if the data can't be encoded
+     */
+    public static Bitmap render(String data, int size) throws WriterException {
+        BitMatrix bitMatrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, size, size);
+        int width = bitMatrix.getWidth();
+        int height = bitMatrix.getHeight();
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            if (y > 0 && sameRow(bitMatrix, y, y - 1)) {
+                System.arraycopy(pixels, offset - width, pixels, offset, width);
+                continue;
+            }
+
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = bitMatrix.get(x, y) ? Color.BLACK : Color.WHITE;
+            }
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    private static boolean sameRow(BitMatrix bitMatrix, int a, int b) {
+        for (int x = 0; x < bitMatrix.getWidth(); x++) {
+            if (bitMatrix.get(x, a) != bitMatrix.get(x, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a QR code from the disk cache, or renders it and writes it to the cache if it's missing.
+     * Must not be called on the main thread.
+     */
+    private static Bitmap loadOrRender(File cacheDir, String deepLink) throws WriterException, IOException {
+        File dir = new File(cacheDir, CACHE_DIR_NAME);
+        File file = new File(dir, cacheFileName(deepLink));
+
+        if (file.exists()) {
+            Bitmap cached = BitmapFactory.decodeFile(file.getPath());
+            if (cached != null) {
+                return cached;
+            }
+            // unreadable cache entry, render it again below
+        }
+
+        Bitmap bitmap = render(deepLink, QR_CODE_SIZE);
+
+        if (!dir.exists() && !dir.mkdirs()) {
+            return bitmap; // cache isn't available, but the code is still usable
+        }
+
+        // write to a temporary file first so a half written file is never read back
+        File temp = new File(dir, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+
+        return bitmap;
+    }
+
+    private static String exportFileName(Event event) {
+        String name = event.getName() != null ? event.getName() : event.getEventID();
+        return "QR_" + name.replaceAll("[^a-zA-Z0-9]", "_") + ".png";
+    }
+
+    private static void saveToPictures(Context context, Bitmap bitmap, String fileName) throws IOException {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Images.Media.DISPLAY_NAME, fileName);
+        values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
+        values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + "/SyzygyQR");
+
+        // Write the bitmap data of the QR Code to the URI for a new image entry
+        Uri uri = context.getContentResolver().insert(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
+        if (uri == null) {
+            throw new IOException("Could not create an image entry for " + fileName);
+        }
+
+        try (OutputStream outputStream = context.getContentResolver().openOutputStream(uri)) {
+            if (outputStream == null) {
+                throw new IOException("Could not open " + fileName);
+            }
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+        }
+    }
+}
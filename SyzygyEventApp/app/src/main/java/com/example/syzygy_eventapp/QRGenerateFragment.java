@@ -1,12 +1,7 @@
 package com.example.syzygy_eventapp;
 
-import android.content.ContentValues;
 import android.graphics.Bitmap;
-import android.graphics.Color;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -19,13 +14,6 @@ import android.widget.Toast;
 import javax.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-
-import java.io.OutputStream;
-
 /**
  * This fragment will generatr and display QR Codes for events.
  *
@@ -36,7 +24,6 @@ import java.io.OutputStream;
 public class QRGenerateFragment extends Fragment {
 
     private static final String TAG = "QRGenerateFragment";
-    private static final int QR_CODE_SIZE = 800;
 
     private ImageView qrCodeImageView;
     private TextView eventTitleText;
@@ -107,11 +94,11 @@ public class QRGenerateFragment extends Fragment {
     }
 
     /**
-     * Generates a QR code that contains the eventID for the given event in deep link format using the ZXing library
+     * Generates a QR code that contains the eventID for the given event in deep link format using {@link QRCodeRenderer}
      *
      * <p>
      *     The QR Code data (a string) will be created with the format: "syzygy://event/{eventID}.
-     *     The string will then be encoded into a Bit Matrix (2D array of black and white pixels), which is then converted into a Bitmap image.
+     *     Rendering happens off the main thread, and codes that were rendered before are read back from the disk cache.
      *     The Bitmap is what will be shown in the ImageView.
      * </p>
      */
@@ -122,29 +109,19 @@ public class QRGenerateFragment extends Fragment {
             return;
         }
 
-        // Create QR code data in a deep link format
-        String qrData = "syzygy://event/" + event.getEventID();
-
-        try {
-            // Generate the QR code with the ZXing library
-            QRCodeWriter writer = new QRCodeWriter();
-            BitMatrix bitMatrix = writer.encode(qrData, BarcodeFormat.QR_CODE, QR_CODE_SIZE, QR_CODE_SIZE);
-
-            // Convert Bit Matrix to Bitmap by looping through each pixel in the 800x800 grid (black = true, white = false)
-            qrCodeBitmap = Bitmap.createBitmap(QR_CODE_SIZE, QR_CODE_SIZE, Bitmap.Config.ARGB_8888);
-            for (int x = 0; x < QR_CODE_SIZE; x++) {
-                for (int y = 0; y < QR_CODE_SIZE; y++) {
-                    qrCodeBitmap.setPixel(x, y, bitMatrix.get(x, y) ? Color.BLACK : Color.WHITE);
-                }
-            }
-
-            // Display the QR code in the ImageView
-            qrCodeImageView.setImageBitmap(qrCodeBitmap);
-        }
-        catch (WriterException e) {
-            // QR generation failed
-            Toast.makeText(requireContext(), "Failed to generate QR code: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
+        QRCodeRenderer.getEventQRCode(requireContext(), event.getEventID())
+                .addOnSuccessListener(bitmap -> {
+                    qrCodeBitmap = bitmap;
+
+                    // Display the QR code in the ImageView
+                    qrCodeImageView.setImageBitmap(qrCodeBitmap);
+                })
+                .addOnFailureListener(e -> {
+                    // QR generation failed
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), "Failed to generate QR code: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
     /**
@@ -157,33 +134,18 @@ public class QRGenerateFragment extends Fragment {
             return;
         }
 
-        try {
-            // Create filename
-            String fileName = "QR_" + event.getName().replaceAll("[^a-zA-Z0-9]", "_") + ".png";
-
-            // Save to MediaStore
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Images.Media.DISPLAY_NAME, fileName);
-            values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
-            values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + "/SyzygyQR");
-
-            // Write the bitmap data of the QR Code to the URI for a new image entry
-            Uri uri = requireContext().getContentResolver().insert(
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
-
-            if (uri != null) {
-                OutputStream outputStream = requireContext().getContentResolver().openOutputStream(uri);
-                if (outputStream != null) {
-                    qrCodeBitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
-                    outputStream.close();
-                    Toast.makeText(requireContext(), "QR code saved to Pictures/SyzygyQR",
-                            Toast.LENGTH_LONG).show();
-                }
-            }
-        }
-        catch (Exception e) {
-            // Export failed
-            Toast.makeText(requireContext(), "Failed to export: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
+        QRCodeRenderer.exportEventQRCode(requireContext(), qrCodeBitmap, event)
+                .addOnSuccessListener(nothing -> {
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), "QR code saved to Pictures/SyzygyQR",
+                                Toast.LENGTH_LONG).show();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    // Export failed
+                    if (isAdded()) {
+                        Toast.makeText(requireContext(), "Failed to export: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 }
@@ -3,6 +3,8 @@ package com.example.syzygy_eventapp;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Size;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -18,6 +20,8 @@ import androidx.camera.core.ExperimentalGetImage;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
@@ -27,6 +31,7 @@ import com.google.android.material.navigation.NavigationBarView;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.firebase.Timestamp;
 import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
 import com.google.mlkit.vision.barcode.BarcodeScanning;
 import com.google.mlkit.vision.barcode.common.Barcode;
 import com.google.mlkit.vision.common.InputImage;
@@ -36,6 +41,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // https://developer.android.com/media/camera/camerax --> CameraX to capture QR image
 // https://developer.android.com/media/camera/camerax/mlkitanalyzer#java --> ML Kit Analyzer
@@ -45,16 +51,37 @@ import java.util.concurrent.Executors;
  * QRScanFragment: scans QR codes and opens EventView when valid codes are detected
  */
 public class QRScanFragment extends Fragment {
+    // QR codes are big and simple, they don't need full sensor resolution to decode
+    public static final Size DEFAULT_ANALYSIS_RESOLUTION = new Size(1280, 720);
+    // how long the same QR code is ignored after it has been handled
+    private static final long DUPLICATE_WINDOW_MS = 3000;
+
     private NavigationStackFragment navStack;
     private ExecutorService cameraExecutor;
     private PreviewView previewView;
-    private boolean foundQRcode = false;
+    private volatile boolean foundQRcode = false;
+    private final Size analysisResolution;
+    private String userID;
+
+    // true while a frame is in ML Kit or a decoded event is being looked up, new frames are dropped
+    private final AtomicBoolean detectionInFlight = new AtomicBoolean(false);
+    private String lastPayload = null;
+    private long lastPayloadAt = 0;
 
     // permissions launcher
     private ActivityResultLauncher<String> requestPermissionLauncher;
 
     public QRScanFragment(NavigationStackFragment navStack) {
+        this(navStack, DEFAULT_ANALYSIS_RESOLUTION);
+    }
+
+    /**
+     * @param navStack           Navigation stack to manage screens
+     * @param analysisResolution the resolution camera frames should be analyzed at, the closest supported size is used
+     */
+    public QRScanFragment(NavigationStackFragment navStack, Size analysisResolution) {
         this.navStack = navStack;
+        this.analysisResolution = analysisResolution;
     }
 
     @Override
@@ -62,6 +89,8 @@ public class QRScanFragment extends Fragment {
         super.onResume();
         // allow scanning again when returning from an EventView
         foundQRcode = false;
+        detectionInFlight.set(false);
+        lastPayload = null;
     }
 
     @Override
@@ -69,6 +98,7 @@ public class QRScanFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_qr_scan, container, false);
 
         previewView = view.findViewById(R.id.previewView);
+        userID = AppInstallationId.get(requireContext());
         cameraExecutor = Executors.newSingleThreadExecutor();
 
         // Setup permission launcher
@@ -142,13 +172,24 @@ public class QRScanFragment extends Fragment {
         CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
 
         // Make a barcode scanner from ML Kit
-        BarcodeScanner scanner = BarcodeScanning.getClient();
+        // --> Only look for QR codes, trying every other format wastes time on each frame
+        BarcodeScanner scanner = BarcodeScanning.getClient(
+                new BarcodeScannerOptions.Builder()
+                        .setBarcodeFormats(Barcode.FORMAT_QR_CODE)
+                        .build()
+        );
 
         // Make an image analysis use case
         // --> A continuous stream of camera frames that will be processed in real time
         // --> Keep only the latest frame
+        // --> Analyze at a reduced resolution, falling back to the closest size the camera supports
         ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setResolutionSelector(new ResolutionSelector.Builder()
+                        .setResolutionStrategy(new ResolutionStrategy(
+                                analysisResolution,
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                        .build())
                 .build();
 
         // attach analyzer function
@@ -163,6 +204,8 @@ public class QRScanFragment extends Fragment {
                 preview,
                 imageAnalysis
         );
+
+        ScanLatencyMetrics.markCameraBound();
     }
 
     /**
@@ -173,8 +216,14 @@ public class QRScanFragment extends Fragment {
         // Each image frame sent by CameraX comes as an ImageProxy that contains image (meta)data.
         android.media.Image mediaImage = imageProxy.getImage();
 
-        // If image exists, process it, else close and skip
+        // Skip this frame if the last one is still being handled, or a code has already been scanned
         // Not closing the ImageProxy will cause CameraX to stall
+        if (foundQRcode || !detectionInFlight.compareAndSet(false, true)) {
+            imageProxy.close();
+            return;
+        }
+
+        // If image exists, process it, else close and skip
         if (mediaImage != null) {
             // Get InputImage for ML Kit processing
             InputImage image = InputImage.fromMediaImage(
@@ -184,11 +233,16 @@ public class QRScanFragment extends Fragment {
             );
 
             // Send frame to ML Kit's barcode scanner, call handleDetectedBarcodes if a QR Code is detected
+            // handleDetectedBarcodes clears detectionInFlight once it's done with the frame's results
             scanner.process(image)
                     .addOnSuccessListener(barcodes -> handleDetectedBarcodes(barcodes))
-                    .addOnFailureListener(Throwable::printStackTrace)
+                    .addOnFailureListener(e -> {
+                        e.printStackTrace();
+                        detectionInFlight.set(false);
+                    })
                     .addOnCompleteListener(task -> imageProxy.close());
         } else {
+            detectionInFlight.set(false);
             imageProxy.close();
         }
     }
@@ -198,7 +252,8 @@ public class QRScanFragment extends Fragment {
      */
     private void handleDetectedBarcodes(List<Barcode> barcodes) {
         // Ignore any more callbacks if a code has already been scanned
-        if (foundQRcode) {
+        if (foundQRcode || !isAdded()) {
+            detectionInFlight.set(false);
             return;
         }
 
@@ -208,9 +263,21 @@ public class QRScanFragment extends Fragment {
                 String eventID = extractEventID(rawValue);
 
                 if (eventID != null) {
-                    // Get event from firestore
-                    EventController.getInstance().getEvent(eventID)
+                    // The camera sees the same code many times a second, only handle it again after a while
+                    if (isDuplicatePayload(rawValue)) {
+                        break;
+                    }
+
+                    ScanLatencyMetrics.markDecoded(eventID);
+
+                    // Get event from firestore, no more frames are analyzed until this is done
+                    // --> Prefetching also starts loading the invite and poster for the EventFragment
+                    EventPrefetcher.getInstance().prefetch(eventID, userID)
                             .addOnSuccessListener(event -> {
+                                if (!isAdded()) {
+                                    return;
+                                }
+
                                 // Check if event is within the registration period
                                 Timestamp registrationStart = event.getRegistrationStart();
                                 Timestamp registrationEnd = event.getRegistrationEnd();
@@ -235,14 +302,37 @@ public class QRScanFragment extends Fragment {
                                 }
                             })
                             .addOnFailureListener(error -> {
-                                Toast.makeText(requireContext(), "Event not found", Toast.LENGTH_SHORT).show();
-                            });
+                                if (isAdded()) {
+                                    Toast.makeText(requireContext(), "Event not found", Toast.LENGTH_SHORT).show();
+                                }
+                            })
+                            .addOnCompleteListener(task -> detectionInFlight.set(false));
 
                     // Stop after first valid QR is scanned
-                    break;
+                    return;
                 }
             }
         }
+
+        // nothing to look up, ready for the next frame
+        detectionInFlight.set(false);
+    }
+
+    /**
+     * Checks if a QR code's contents were already handled recently, and remembers them if not.
+     *
+     * @param payload the raw contents of the QR code
+     * @return true if the same payload was handled within the duplicate window
+     */
+    private boolean isDuplicatePayload(String payload) {
+        long now = SystemClock.elapsedRealtime();
+        if (payload.equals(lastPayload) && now - lastPayloadAt < DUPLICATE_WINDOW_MS) {
+            return true;
+        }
+
+        lastPayload = payload;
+        lastPayloadAt = now;
+        return false;
     }
 
     private String extractEventID(String rawValue) {
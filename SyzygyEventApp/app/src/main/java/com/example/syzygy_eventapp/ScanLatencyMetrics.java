@@ -0,0 +1,122 @@
+package com.example.syzygy_eventapp;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records how long it takes to get from opening the QR scanner to seeing an event.
+ * <p>
+ * Two latencies are tracked:
+ * <ul>
+ *     <li>bind to decode - from the camera being bound until the first event QR code is decoded</li>
+ *     <li>decode to shown - from a QR code being decoded until its {@link EventFragment} shows the event</li>
+ * </ul>
+ * Each sample is logged under the "ScanLatency" tag, and the most recent samples are kept for summaries.
+ * </p>
+ */
+public class ScanLatencyMetrics {
+    private static final String TAG = "ScanLatency";
+    private static final int MAX_SAMPLES = 100;
+
+    private static long cameraBoundAt = -1;
+    private static boolean decodedSinceBind = false;
+    private static String decodedEventID = null;
+    private static long decodedAt = -1;
+
+    private static final List<Long> bindToDecodeMs = new ArrayList<>();
+    private static final List<Long> decodeToShownMs = new ArrayList<>();
+
+    private ScanLatencyMetrics() {
+    }
+
+    /**
+     * Call when the camera has been bound and frames will start arriving
+     */
+    public static synchronized void markCameraBound() {
+        cameraBoundAt = SystemClock.elapsedRealtime();
+        decodedSinceBind = false;
+    }
+
+    /**
+     * Call when an event QR code has been decoded
+     *
+     * @param eventID the ID of the event in the QR code
+     */
+    public static synchronized void markDecoded(String eventID) {
+        long now = SystemClock.elapsedRealtime();
+
+        if (!decodedSinceBind && cameraBoundAt >= 0) {
+            decodedSinceBind = true;
+            long elapsed = now - cameraBoundAt;
+            addSample(bindToDecodeMs, elapsed);
+            Log.i(TAG, "bind to first decode: " + elapsed + "ms");
+        }
+
+        decodedEventID = eventID;
+        decodedAt = now;
+    }
+
+    /**
+     * Call when an event screen has shown its event.
+     * Only counts if the event is the one that was last scanned.
+     *
+     * @param eventID the ID of the event being shown
+     */
+    public static synchronized void markEventShown(String eventID) {
+        if (decodedEventID == null || !decodedEventID.equals(eventID)) {
+            return;
+        }
+
+        long elapsed = SystemClock.elapsedRealtime() - decodedAt;
+        addSample(decodeToShownMs, elapsed);
+        Log.i(TAG, "decode to event shown: " + elapsed + "ms");
+
+        decodedEventID = null;
+        decodedAt = -1;
+    }
+
+    /**
+     * Summarizes the recorded latencies
+     *
+     * @return a human readable summary of the median and worst of each latency
+     */
+    public static synchronized String summary() {
+        return "bind to decode " + describe(bindToDecodeMs)
+                + ", decode to shown " + describe(decodeToShownMs);
+    }
+
+    /**
+     * Forgets all recorded samples
+     */
+    public static synchronized void reset() {
+        bindToDecodeMs.clear();
+        decodeToShownMs.clear();
+        cameraBoundAt = -1;
+        decodedSinceBind = false;
+        decodedEventID = null;
+        decodedAt = -1;
+    }
+
+    private static void addSample(List<Long> samples, long sample) {
+        if (samples.size() >= MAX_SAMPLES) {
+            samples.remove(0);
+        }
+        samples.add(sample);
+    }
+
+    private static String describe(List<Long> samples) {
+        if (samples.isEmpty()) {
+            return "(no samples)";
+        }
+
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        long median = sorted.get(sorted.size() / 2);
+        long max = sorted.get(sorted.size() - 1);
+        return "median " + median + "ms, max " + max + "ms over " + sorted.size();
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.syzygy_eventapp;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+
+import androidx.core.view.OneShotPreDrawListener;
+import androidx.fragment.app.Fragment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Measures how long screens take to show real data after being opened with the {@link NavigationStackFragment}.
+ * <p>
+ * Three moments are marked for each screen that is opened:
+ * <ul>
+ *     <li>pushed - when the navigation stack is asked to show it</li>
+ *     <li>first frame - when its view is first drawn, usually still empty or with placeholders</li>
+ *     <li>first content - when the screen reports, with {@link #markContentShown(Fragment)},
+ *     that it has drawn its first data from Firestore</li>
+ * </ul>
+ * Both spans show up as async sections in system traces, named "{Screen} first frame" and "{Screen} first content".
+ * The most recent samples of each screen are kept for percentile summaries,
+ * and content that takes longer than a screen's budget is logged as a warning under the "ScreenTiming" tag.
+ * </p>
+ */
+public class ScreenTracer {
+    private static final String TAG = "ScreenTiming";
+    private static final int MAX_SAMPLES = 100;
+
+    /**
+     * The spans measured from a screen being pushed
+     */
+    public enum Phase {
+        FIRST_FRAME("first frame"),
+        FIRST_CONTENT("first content");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * A screen that has been pushed and hasn't shown content yet
+     */
+    private static class Pending {
+        final String screen;
+        final long pushedAt;
+        final int cookie;
+        boolean frameShown = false;
+        boolean contentShown = false;
+
+        Pending(String screen, long pushedAt, int cookie) {
+            this.screen = screen;
+            this.pushedAt = pushedAt;
+            this.cookie = cookie;
+        }
+    }
+
+    private static final Map<Fragment, Pending> pending = new WeakHashMap<>();
+    private static final Map<String, Map<Phase, List<Long>>> samples = new HashMap<>();
+    private static final Map<String, Long> budgetsMs = new HashMap<>();
+    private static int nextCookie = 0;
+
+    static {
+        // starting budgets for the main screens, warm loads should be well under these
+        budgetsMs.put("FindEventsFragment", 1000L);
+        budgetsMs.put("JoinedEventsFragment", 1000L);
+        budgetsMs.put("EventFragment", 800L);
+        budgetsMs.put("EventOrganizerDetailsView", 1500L);
+    }
+
+    private ScreenTracer() {
+    }
+
+    /**
+     * Call when a screen is about to be shown. Restarts its timing if it was already being timed.
+     * Any screen that was still loading has been covered, so it stops being timed.
+     *
+     * @param fragment the screen's fragment
+     */
+    public static synchronized void markPushed(Fragment fragment) {
+        for (Pending abandoned : pending.values()) {
+            endUnfinishedSections(abandoned);
+        }
+        pending.clear();
+
+        Pending started = new Pending(fragment.getClass().getSimpleName(), SystemClock.elapsedRealtime(), nextCookie++);
+        pending.put(fragment, started);
+
+        beginSection(started, Phase.FIRST_FRAME);
+        beginSection(started, Phase.FIRST_CONTENT);
+    }
+
+    /**
+     * Call when a pushed screen's view has been created, so its first frame can be timed.
+     *
+     * @param fragment the screen's fragment
+     * @param view     the screen's root view
+     */
+    public static void onViewCreated(Fragment fragment, View view) {
+        synchronized (ScreenTracer.class) {
+            if (!pending.containsKey(fragment)) {
+                return;
+            }
+        }
+
+        OneShotPreDrawListener.add(view, () -> markFrameShown(fragment));
+    }
+
+    /**
+     * Call when a screen has drawn its first data, like a list of events or an event's details.
+     * Only the first call after each push is counted.
+     *
+     * @param fragment the screen's fragment
+     */
+    public static void markContentShown(Fragment fragment) {
+        synchronized (ScreenTracer.class) {
+            if (!pending.containsKey(fragment)) {
+                return;
+            }
+        }
+
+        View view = fragment.getView();
+        if (view == null) {
+            record(fragment);
+            return;
+        }
+
+        // the data has been bound but not drawn yet, wait for the frame it's drawn in
+        OneShotPreDrawListener.add(view, () -> record(fragment));
+        view.invalidate();
+    }
+
+    /**
+     * Sets how long a screen should take to show its first content, slower screens are logged as warnings.
+     *
+     * @param screen   the screen's fragment class name
+     * @param budgetMs the budget, in milliseconds
+     */
+    public static synchronized void setBudget(String screen, long budgetMs) {
+        budgetsMs.put(screen, budgetMs);
+    }
+
+    /**
+     * Estimates a percentile of the recorded samples of a screen.
+     *
+     * @param screen     the screen's fragment class name
+     * @param phase      which span to look at
+     * @param percentile between 0 and 1, like 0.95
+     * @return the sample at that percentile in milliseconds, or -1 if there are no samples
+     */
+    public static synchronized long getPercentile(String screen, Phase phase, double percentile) {
+        Map<Phase, List<Long>> screenSamples = samples.get(screen);
+        if (screenSamples == null || !screenSamples.containsKey(phase)) {
+            return -1;
+        }
+        return percentile(screenSamples.get(phase), percentile);
+    }
+
+    /**
+     * Summarizes the recorded spans of every screen
+     *
+     * @return a human readable summary of the percentiles of each span, per screen
+     */
+    public static synchronized String summary() {
+        if (samples.isEmpty()) {
+            return "No screens timed yet.";
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Map<Phase, List<Long>>> screen : new TreeMap<>(samples).entrySet()) {
+            text.append(screen.getKey());
+            Long budget = budgetsMs.get(screen.getKey());
+            if (budget != null) {
+                text.append(" (budget ").append(budget).append("ms)");
+            }
+            text.append('\n');
+
+            for (Phase phase : Phase.values()) {
+                List<Long> phaseSamples = screen.getValue().get(phase);
+                if (phaseSamples == null || phaseSamples.isEmpty()) {
+                    continue;
+                }
+                text.append(String.format(Locale.US, "  %s: p50 %dms, p90 %dms, p95 %dms, max %dms over %d\n",
+                        phase.label,
+                        percentile(phaseSamples, 0.5), percentile(phaseSamples, 0.9),
+                        percentile(phaseSamples, 0.95), percentile(phaseSamples, 1), phaseSamples.size()));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Forgets all recorded samples and screens being timed
+     */
+    public static synchronized void reset() {
+        for (Pending started : pending.values()) {
+            endUnfinishedSections(started);
+        }
+        pending.clear();
+        samples.clear();
+    }
+
+    private static synchronized void markFrameShown(Fragment fragment) {
+        Pending started = pending.get(fragment);
+        if (started == null || started.frameShown) {
+            return;
+        }
+
+        started.frameShown = true;
+        endSection(started, Phase.FIRST_FRAME);
+        addSample(started.screen, Phase.FIRST_FRAME, SystemClock.elapsedRealtime() - started.pushedAt);
+    }
+
+    private static synchronized void record(Fragment fragment) {
+        Pending started = pending.remove(fragment);
+        if (started == null) {
+            return; // already counted since the last push
+        }
+
+        // content can be bound in the same frame as the first layout
+        if (!started.frameShown) {
+            started.frameShown = true;
+            endSection(started, Phase.FIRST_FRAME);
+            addSample(started.screen, Phase.FIRST_FRAME, SystemClock.elapsedRealtime() - started.pushedAt);
+        }
+
+        started.contentShown = true;
+        endSection(started, Phase.FIRST_CONTENT);
+
+        long elapsed = SystemClock.elapsedRealtime() - started.pushedAt;
+        addSample(started.screen, Phase.FIRST_CONTENT, elapsed);
+
+        Long budget = budgetsMs.get(started.screen);
+        if (budget != null && elapsed > budget) {
+            Log.w(TAG, started.screen + " first content took " + elapsed + "ms, over its " + budget + "ms budget");
+        } else {
+            Log.i(TAG, started.screen + " first content: " + elapsed + "ms");
+        }
+    }
+
+    static synchronized void addSample(String screen, Phase phase, long sample) {
+        List<Long> phaseSamples = samples
+                .computeIfAbsent(screen, s -> new HashMap<>())
+                .computeIfAbsent(phase, p -> new ArrayList<>());
+
+        if (phaseSamples.size() >= MAX_SAMPLES) {
+            phaseSamples.remove(0);
+        }
+        phaseSamples.add(sample);
+    }
+
+    private static long percentile(List<Long> phaseSamples, double percentile) {
+        if (phaseSamples.isEmpty()) {
+            return -1;
+        }
+
+        List<Long> sorted = new ArrayList<>(phaseSamples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static void endUnfinishedSections(Pending started) {
+        if (!started.frameShown) {
+            endSection(started, Phase.FIRST_FRAME);
+        }
+        if (!started.contentShown) {
+            endSection(started, Phase.FIRST_CONTENT);
+        }
+    }
+
+    private static void beginSection(Pending started, Phase phase) {
+        // async sections can span frames, but only exist from Android 10
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(started.screen + " " + phase.label, started.cookie);
+        }
+    }
+
+    private static void endSection(Pending started, Phase phase) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(started.screen + " " + phase.label, started.cookie);
+        }
+    }
+}
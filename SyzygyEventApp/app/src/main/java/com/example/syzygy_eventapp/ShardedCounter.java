@@ -0,0 +1,263 @@
+package com.example.syzygy_eventapp;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Counters of a document that are spread over several shard documents, so many devices can change them at once.
+ * <p>
+ * Firestore only sustains about one write per second to a single document, so counters that everyone changes
+ * at the same moment, like an event's waiting list size right as registration opens, can be kept in
+ * a "counterShards" subcollection of the document instead. Every change goes to a random shard,
+ * and the value of a counter is the sum of all its shards, read with one aggregation query.
+ * Shards are only created once they're written to.
+ * </p>
+ * Sums are cached for a few seconds in a {@link CountCache} shared by every counter,
+ * and forgotten after this device's own changes are committed (see {@link #invalidate()}).
+ */
+public class ShardedCounter {
+    /**
+     * How many shards each document's counters are spread over
+     */
+    public static final int DEFAULT_SHARDS = 10;
+
+    static final String SHARDS_COLLECTION = "counterShards";
+
+    // shared by every counter, keys: "shards:{parent path}:{field}"
+    private static final CountCache sums = new CountCache();
+    private static final Random sharedRandom = new Random();
+
+    private final CollectionReference shardsRef;
+    private final int shards;
+    private final Random random;
+    private final String cacheKey;
+
+    /**
+     * Creates a counter with a custom number of shards
+     *
+     * @param shardsRef the collection the shards are kept in
+     * @param shards    how many shards to spread changes over
+     * @param random    picks the shard each change goes to
+     */
+    ShardedCounter(CollectionReference shardsRef, int shards, Random random) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be at least 1");
+        }
+        this.shardsRef = shardsRef;
+        this.shards = shards;
+        this.random = random;
+        this.cacheKey = "shards:" + shardsRef.getPath() + ":";
+    }
+
+    /**
+     * Gets the sharded counters of a document
+     *
+     * @param parent the document the counters belong to, like an event
+     * @return the document's counters
+     */
+    public static ShardedCounter of(DocumentReference parent) {
+        return new ShardedCounter(parent.collection(SHARDS_COLLECTION), DEFAULT_SHARDS, sharedRandom);
+    }
+
+    /**
+     * @return how many shards changes are spread over
+     */
+    public int getShardCount() {
+        return shards;
+    }
+
+    /**
+     * @param index which shard, from 0 to {@link #getShardCount()} - 1
+     * @return the shard's document
+     */
+    DocumentReference shard(int index) {
+        return shardsRef.document(String.valueOf(index));
+    }
+
+    /**
+     * @return a random shard, for the next change
+     */
+    DocumentReference randomShard() {
+        return shard(random.nextInt(shards));
+    }
+
+    /**
+     * Adds a change to one counter to a batch
+     *
+     * @param batch the batch to add the change to
+     * @param field the counter's field name
+     * @param delta how much to add, negative to subtract
+     */
+    public void increment(WriteBatch batch, String field, long delta) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(field, delta);
+        increment(batch, deltas);
+    }
+
+    /**
+     * Adds changes to several counters to a batch. They all go to the same shard, so they're a single write.
+     *
+     * @param batch  the batch to add the changes to
+     * @param deltas how much to add to each counter, by field name
+     */
+    public void increment(WriteBatch batch, Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        batch.set(randomShard(), incrementsOf(deltas), SetOptions.merge());
+    }
+
+    /**
+     * Adds changes to several counters to a transaction. The shard isn't read, so transactions changing
+     * the same counters don't contend with each other.
+     *
+     * @param transaction the transaction to add the changes to
+     * @param deltas      how much to add to each counter, by field name
+     */
+    public void increment(Transaction transaction, Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        transaction.set(randomShard(), incrementsOf(deltas), SetOptions.merge());
+    }
+
+    /**
+     * Changes a counter on its own, outside of a batch
+     *
+     * @param operation the controller method making the change, for {@link FirestoreMetrics}
+     * @param field     the counter's field name
+     * @param delta     how much to add, negative to subtract
+     * @return Task that completes when the change is written
+     */
+    public Task<Void> increment(String operation, String field, long delta) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(field, delta);
+        return OperationPolicy.getDefault().write(operation, 1,
+                        randomShard().set(incrementsOf(deltas), SetOptions.merge()))
+                .addOnSuccessListener(nothing -> invalidate());
+    }
+
+    /**
+     * Adds deleting every shard to a batch, for when the document they belong to is deleted
+     *
+     * @param batch the batch to add the deletes to
+     */
+    public void delete(WriteBatch batch) {
+        for (int i = 0; i < shards; i++) {
+            batch.delete(shard(i));
+        }
+    }
+
+    /**
+     * Sums counters over every shard, with one aggregation query for all of them.
+     * Counters that have never been changed are 0.
+     *
+     * @param operation the controller method reading, for {@link FirestoreMetrics}
+     * @param fields    the counters' field names
+     * @return Task that completes with each counter's sum, by field name
+     */
+    public Task<Map<String, Long>> sum(String operation, List<String> fields) {
+        // only loaded if one of the fields isn't cached
+        List<Task<AggregateQuerySnapshot>> query = new ArrayList<>(1);
+        List<AggregateField.SumAggregateField> aggregates = new ArrayList<>();
+        for (String field : fields) {
+            aggregates.add(AggregateField.sum(field));
+        }
+
+        List<Task<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            AggregateField.SumAggregateField aggregate = aggregates.get(i);
+            tasks.add(sums.get(cacheKey + fields.get(i), () -> {
+                if (query.isEmpty()) {
+                    AggregateField first = aggregates.get(0);
+                    AggregateField[] rest = aggregates.subList(1, aggregates.size()).toArray(new AggregateField[0]);
+                    query.add(OperationPolicy.getDefault().aggregate(operation,
+                            () -> shardsRef.aggregate(first, rest).get(AggregateSource.SERVER)));
+                }
+                return query.get(0).continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.forException(Objects.requireNonNull(task.getException()));
+                    }
+                    Long value = task.getResult().getLong(aggregate);
+                    return Tasks.forResult(value == null ? 0L : value);
+                });
+            }));
+        }
+
+        return Tasks.whenAllSuccess(tasks).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw Objects.requireNonNull(task.getException());
+            }
+            Map<String, Long> result = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                result.put(fields.get(i), tasks.get(i).getResult());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Reads every shard in a transaction and sums counters over them, so the transaction is retried
+     * if a change to any of them commits before it does. Counters that have never been changed are 0.
+     *
+     * @param transaction the transaction to read the shards in
+     * @param fields      the counters' field names
+     * @return each counter's sum, by field name
+     * @throws FirebaseFirestoreException if a shard can't be read
+     */
+    public Map<String, Long> sum(Transaction transaction, List<String> fields) throws FirebaseFirestoreException {
+        Map<String, Long> result = new HashMap<>();
+        for (String field : fields) {
+            result.put(field, 0L);
+        }
+        for (int i = 0; i < shards; i++) {
+            DocumentSnapshot snap = transaction.get(shard(i));
+            for (String field : fields) {
+                Long value = snap.getLong(field);
+                if (value != null) {
+                    result.merge(field, value, Long::sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the cached sums, call once a change to the counters has been committed
+     */
+    public void invalidate() {
+        sums.invalidate(cacheKey);
+    }
+
+    /**
+     * Turns changes to counters into the fields of a shard write
+     *
+     * @param deltas how much to add to each counter, by field name
+     * @return the FieldValue increments to merge into a shard
+     */
+    static Map<String, Object> incrementsOf(Map<String, Long> deltas) {
+        Map<String, Object> data = new HashMap<>();
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            data.put(delta.getKey(), FieldValue.increment(delta.getValue()));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.syzygy_eventapp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Moves the decoding of Firestore snapshots off the main thread.
+ * <p>
+ * Listeners added through a decoder are called on its decode executor, where snapshots are turned into
+ * model objects and filtered or sorted. Only the finished result is posted to the main executor,
+ * so the UI never waits on {@link DocumentMapper} calls. Lists are delivered unmodifiable, since they are built
+ * on one thread and read on another.
+ * </p>
+ * The default decoder uses a single background thread, so results arrive in the same order as their snapshots.
+ * Controllers also use the decode executor for their continueWith chains that decode documents.
+ */
+public class SnapshotDecoder {
+    private static SnapshotDecoder defaultDecoder = null;
+
+    private final Executor decodeExecutor;
+    private final Executor mainExecutor;
+
+    /**
+     * Creates a decoder with custom executors
+     *
+     * @param decodeExecutor where snapshots are decoded
+     * @param mainExecutor   where results are delivered, usually the main thread
+     */
+    public SnapshotDecoder(Executor decodeExecutor, Executor mainExecutor) {
+        this.decodeExecutor = decodeExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    /**
+     * Gets the decoder shared by the controllers, which decodes on one background thread
+     * and delivers results on the main thread.
+     *
+     * @return the shared decoder
+     */
+    public static synchronized SnapshotDecoder getDefault() {
+        if (defaultDecoder == null) {
+            Executor background = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SnapshotDecoder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            defaultDecoder = new SnapshotDecoder(background, mainHandler::post);
+        }
+        return defaultDecoder;
+    }
+
+    /**
+     * @return the executor snapshots and query results are decoded on
+     */
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    /**
+     * @return the executor results are delivered on
+     */
+    public Executor getMainExecutor() {
+        return mainExecutor;
+    }
+
+    /**
+     * Observes a document, decoding each snapshot in the background.
+     *
+     * @param doc       the document to observe
+     * @param operation the controller method observing, for {@link FirestoreMetrics}
+     * @param decode    turns a snapshot into the result, runs in the background
+     * @param onResult  receives each result on the main executor
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public <T> ListenerRegistration observe(DocumentReference doc, String operation,
+                                            Function<DocumentSnapshot, T> decode, Consumer<T> onResult) {
+        AtomicBoolean removed = new AtomicBoolean(false);
+        ListenerRegistration registration = doc.addSnapshotListener(decodeExecutor,
+                FirestoreMetrics.listen(operation, decodeThenPost(removed, decode, onResult)));
+        return () -> {
+            removed.set(true);
+            registration.remove();
+        };
+    }
+
+    /**
+     * Observes a query, decoding each snapshot in the background.
+     *
+     * @param query     the query to observe
+     * @param operation the controller method observing, for {@link FirestoreMetrics}
+     * @param decode    turns a snapshot into the result, runs in the background
+     * @param onResult  receives each result on the main executor
+     * @return ListenerRegistration that must be removed when no longer needed
+     */
+    public <T> ListenerRegistration observe(Query query, String operation,
+                                            Function<QuerySnapshot, T> decode, Consumer<T> onResult) {
+        AtomicBoolean removed = new AtomicBoolean(false);
+        ListenerRegistration registration = query.addSnapshotListener(decodeExecutor,
+                FirestoreMetrics.listen(operation, decodeThenPost(removed, decode, onResult)));
+        return () -> {
+            removed.set(true);
+            registration.remove();
+        };
+    }
+
+    /**
+     * Makes a snapshot listener that decodes snapshots where it's called, then posts the result to the main executor.
+     * Results are dropped once the listener has been removed, like Firestore does for its own callbacks.
+     *
+     * @param removed  set once the listener is removed
+     * @param decode   turns a snapshot into the result
+     * @param onResult receives each result on the main executor
+     * @return a listener to add on the decode executor
+     */
+    <S, T> EventListener<S> decodeThenPost(AtomicBoolean removed, Function<S, T> decode, Consumer<T> onResult) {
+        return (snap, error) -> {
+            if (error != null) {
+                System.err.println(error);
+                return;
+            }
+
+            T result;
+            try {
+                result = decode.apply(snap);
+            } catch (RuntimeException decodeError) {
+                // a malformed document shouldn't take down the listener
+                System.err.println(decodeError);
+                return;
+            }
+
+            mainExecutor.execute(() -> {
+                if (!removed.get()) {
+                    onResult.accept(result);
+                }
+            });
+        };
+    }
+
+    /**
+     * Wraps a list built in the background so it can be safely shared with the main thread
+     *
+     * @param list the decoded list
+     * @return an unmodifiable view of the list
+     */
+    public static <T> List<T> immutable(List<T> list) {
+        return Collections.unmodifiableList(list);
+    }
+}
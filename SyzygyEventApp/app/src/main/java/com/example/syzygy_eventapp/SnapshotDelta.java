@@ -0,0 +1,83 @@
+package com.example.syzygy_eventapp;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The documents that changed between two snapshots of a query, decoded to model objects.
+ * <p>
+ * The first snapshot of a listener is complete: it holds every document in the query,
+ * and anything a copy of the query has that isn't in it should be dropped.
+ * Later snapshots only hold the documents that were added, modified or removed.
+ * </p>
+ */
+public class SnapshotDelta<T> {
+    /// True if changed holds every document in the query.
+    public final boolean complete;
+    /// Documents that were added or modified.
+    public final List<T> changed;
+    /// IDs of documents that were removed, or left the query.
+    public final List<String> removed;
+
+    public SnapshotDelta(boolean complete, List<T> changed, List<String> removed) {
+        this.complete = complete;
+        this.changed = Collections.unmodifiableList(changed);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Makes a decode function for a snapshot listener that turns each snapshot into a delta.
+     * The first snapshot it's given is decoded as a complete delta, so each listener needs its own function.
+     *
+     * @param decode turns a document's ID and data into a model object, like {@link DocumentMapper#toEvent}
+     * @return the decode function
+     */
+    public static <T> Function<QuerySnapshot, SnapshotDelta<T>> decoding(
+            BiFunction<String, Map<String, Object>, T> decode) {
+        boolean[] first = {true};
+        return snap -> {
+            SnapshotDelta<T> delta = of(snap, first[0], decode);
+            first[0] = false;
+            return delta;
+        };
+    }
+
+    /**
+     * Decodes the changes in a snapshot
+     *
+     * @param snap     the query's snapshot
+     * @param complete if every document should be decoded, not just the changed ones
+     * @param decode   turns a document's ID and data into a model object
+     * @return the delta
+     */
+    static <T> SnapshotDelta<T> of(QuerySnapshot snap, boolean complete,
+                                   BiFunction<String, Map<String, Object>, T> decode) {
+        List<T> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        if (complete) {
+            for (DocumentSnapshot doc : snap.getDocuments()) {
+                changed.add(decode.apply(doc.getId(), doc.getData()));
+            }
+        } else {
+            for (DocumentChange change : snap.getDocumentChanges()) {
+                DocumentSnapshot doc = change.getDocument();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    removed.add(doc.getId());
+                } else {
+                    changed.add(decode.apply(doc.getId(), doc.getData()));
+                }
+            }
+        }
+
+        return new SnapshotDelta<>(complete, changed, removed);
+    }
+}
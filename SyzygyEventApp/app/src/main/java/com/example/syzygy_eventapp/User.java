@@ -39,6 +39,10 @@ public class User {
      * Users profile picture URL.
      */
     private String photoURL;
+    /**
+     * Tiny blurred copy of the profile picture, shown while it loads. See {@link ImagePlaceholder}.
+     */
+    private String photoPlaceholder;
     /**
      * True if the profile picture is disabled or hidden.
      */
@@ -88,6 +92,7 @@ public class User {
             this.email = user.email;
             this.phone = user.phone;
             this.photoURL = user.photoURL;
+            this.photoPlaceholder = user.photoPlaceholder;
             this.photoHidden = user.photoHidden;
             this.demoted = user.demoted;
 
@@ -155,6 +160,22 @@ public class User {
         }});
     }
 
+    public String getPhotoPlaceholder() {
+        return photoPlaceholder;
+    }
+
+    /**
+     * Sets the user's profile picture placeholder in the model and the database
+     * @return a task that will complete when the DB has been updated
+     */
+    public Task<Void> setPhotoPlaceholder(String photoPlaceholder) {
+        this.photoPlaceholder = photoPlaceholder;
+
+        return updateDB(new HashMap<>() {{
+            put("photoPlaceholder", photoPlaceholder);
+        }});
+    }
+
     public boolean isPhotoHidden() {
         return photoHidden;
     }
@@ -194,6 +215,140 @@ public class User {
         return !role.hasHigherAuthority(this.role);
     }
 
+    /**
+     * Starts an edit session, which collects changes to the user and saves them all at once.
+     * Each setter of the user saves its field on its own, so changing several fields should use a session instead.
+     *
+     * @return a new edit session for this user
+     */
+    public Edit edit() {
+        return new Edit();
+    }
+
+    /**
+     * Collects changes to a {@link User} and saves them with a single update, without reading the user first.
+     * <p>
+     * Changes are only applied to the user, and written to the database, when {@link #commit()} is called.
+     * If the role is changed, the update only goes through if the user still has the role they had
+     * when the session started, so an admin's role change is never overwritten.
+     * </p>
+     */
+    public class Edit {
+        private final HashMap<String, Object> fields = new HashMap<>();
+        private Role startingRole = role;
+        private Role newRole = null;
+
+        private Edit() {
+        }
+
+        public Edit setName(@NonNull String name) {
+            fields.put("name", name);
+            return this;
+        }
+
+        public Edit setEmail(String email) {
+            fields.put("email", email);
+            return this;
+        }
+
+        public Edit setPhone(String phone) {
+            fields.put("phone", phone);
+            return this;
+        }
+
+        public Edit setPhotoURL(String photoURL) {
+            fields.put("photoURL", photoURL);
+            return this;
+        }
+
+        public Edit setPhotoPlaceholder(String photoPlaceholder) {
+            fields.put("photoPlaceholder", photoPlaceholder);
+            return this;
+        }
+
+        public Edit setPhotoHidden(boolean photoHidden) {
+            fields.put("photoHidden", photoHidden);
+            return this;
+        }
+
+        public Edit setSystemNotifications(boolean systemNotifications) {
+            fields.put("systemNotifications", systemNotifications);
+            return this;
+        }
+
+        public Edit setOrganizerNotifications(boolean organizerNotifications) {
+            fields.put("organizerNotifications", organizerNotifications);
+            return this;
+        }
+
+        /**
+         * Changes the user's role. Lowering it also marks the user as demoted, like {@link User#demote()}.
+         * The user is only read back as the new kind of user, like an {@link Organizer}, from the next snapshot.
+         *
+         * @param role the new role
+         * @return this session
+         */
+        public Edit setRole(@NonNull Role role) {
+            newRole = role;
+            fields.put("role", role.name());
+            if (startingRole != null && startingRole.hasHigherAuthority(role)) {
+                fields.put("demoted", true);
+            }
+            return this;
+        }
+
+        /**
+         * @return true if anything has been changed in this session
+         */
+        public boolean hasChanges() {
+            return !fields.isEmpty();
+        }
+
+        /**
+         * Applies the changes to the user, and saves them to the database with one update.
+         * The session is empty again afterwards, so it can be reused.
+         *
+         * @return a task that will complete when the DB has been updated
+         */
+        public Task<Void> commit() {
+            if (fields.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+
+            HashMap<String, Object> changes = new HashMap<>(fields);
+            Role expectedRole = newRole != null ? startingRole : null;
+            apply(changes);
+
+            if (newRole != null) {
+                startingRole = newRole;
+                newRole = null;
+            }
+            fields.clear();
+
+            if (userID == null) {
+                return Tasks.forResult(null);
+            }
+            return UserController.getInstance().updateFields(userID, changes, expectedRole);
+        }
+
+        private void apply(HashMap<String, Object> changes) {
+            if (changes.containsKey("name")) name = (String) changes.get("name");
+            if (changes.containsKey("email")) email = (String) changes.get("email");
+            if (changes.containsKey("phone")) phone = (String) changes.get("phone");
+            if (changes.containsKey("photoURL")) photoURL = (String) changes.get("photoURL");
+            if (changes.containsKey("photoPlaceholder")) photoPlaceholder = (String) changes.get("photoPlaceholder");
+            if (changes.containsKey("photoHidden")) photoHidden = (Boolean) changes.get("photoHidden");
+            if (changes.containsKey("demoted")) demoted = (Boolean) changes.get("demoted");
+            if (changes.containsKey("systemNotifications")) {
+                systemNotifications = (Boolean) changes.get("systemNotifications");
+            }
+            if (changes.containsKey("organizerNotifications")) {
+                organizerNotifications = (Boolean) changes.get("organizerNotifications");
+            }
+            if (newRole != null) role = newRole;
+        }
+    }
+
     /**
      * Promotes the user in the model and the database
      * @return a task that will complete when the DB has been updated
@@ -13,8 +13,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -33,6 +35,10 @@ public class UserController implements UserControllerInterface {
     private static UserControllerInterface singletonInstance = null;
 
     private final CollectionReference usersRef;
+    // decodes snapshots off the main thread
+    private SnapshotDecoder decoder = SnapshotDecoder.getDefault();
+    // retries, backoff and deadlines for every call
+    private final OperationPolicy policy = OperationPolicy.getDefault();
 
     private UserController() {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
@@ -51,6 +57,17 @@ public class UserController implements UserControllerInterface {
         return singletonInstance;
     }
 
+    /**
+     * Sets where snapshots and query results are decoded, and where listener callbacks are called.
+     * By default decoding happens on a shared background thread, and callbacks on the main thread.
+     *
+     * @param decodeExecutor where snapshots are decoded, filtered and sorted
+     * @param mainExecutor   where listener callbacks are called
+     */
+    public void setExecutors(Executor decodeExecutor, Executor mainExecutor) {
+        decoder = new SnapshotDecoder(decodeExecutor, mainExecutor);
+    }
+
     /**
      * Override singleton with an external instance, likely for testing
      *
@@ -98,7 +115,7 @@ public class UserController implements UserControllerInterface {
     private <T extends User> Task<T> createUserFromClass(Supplier<T> constructor, String userID) {
         DocumentReference doc = usersRef.document(userID);
 
-        return doc.get().continueWithTask(task -> {
+        return policy.read("UserController.createUser", () -> doc.get()).continueWithTask(task -> {
             if (task.isSuccessful()) {
                 DocumentSnapshot snapshot = task.getResult();
                 if (snapshot.exists()) {
@@ -109,7 +126,7 @@ public class UserController implements UserControllerInterface {
                     T user = constructor.get();
                     user.setUserID(userID);
 
-                    return doc.set(user).continueWith(createTask -> {
+                    return policy.write("UserController.createUser", 1, doc.set(DocumentMapper.toMap(user))).continueWith(createTask -> {
                         if (createTask.isSuccessful()) {
                             return user;
                         } else {
@@ -134,7 +151,8 @@ public class UserController implements UserControllerInterface {
     public Task<User> getUser(String userID) {
         DocumentReference doc = usersRef.document(userID);
 
-        return doc.get().continueWithTask(task -> {
+        Task<DocumentSnapshot> read = policy.read("UserController.getUser", () -> doc.get());
+        return read.continueWithTask(decoder.getDecodeExecutor(), task -> {
             if (task.isSuccessful()) {
                 // snap can't be null because none of it's implementations can return null
                 DocumentSnapshot snap = task.getResult();
@@ -189,20 +207,14 @@ public class UserController implements UserControllerInterface {
     public ListenerRegistration observeUser(String userID, Consumer<User> onUpdate, Runnable onDelete) {
         DocumentReference doc = usersRef.document(userID);
 
-        return doc.addSnapshotListener((snap, error) -> {
-            if (snap != null) {
-                if (snap.exists()) {
-                    User user = buildUser(snap);
-                    onUpdate.accept(user);
-                } else {
-                    onDelete.run();
-                }
-            }
-
-            if (error != null) {
-                System.err.println("Error on user snapshot listener: " + error);
-            }
-        });
+        return decoder.observe(doc, "UserController.observeUser",
+                snap -> snap.exists() ? buildUser(snap) : null, user -> {
+                    if (user != null) {
+                        onUpdate.accept(user);
+                    } else {
+                        onDelete.run();
+                    }
+                });
     }
 
     /**
@@ -212,12 +224,7 @@ public class UserController implements UserControllerInterface {
      * @return ListenerRegistration that must be removed when no longer needed
      */
     public ListenerRegistration observeAllUsers(Consumer<List<User>> onChange) {
-        return usersRef.addSnapshotListener((snap, error) -> {
-            if (error != null) {
-                System.err.println(error);
-                return;
-            }
-
+        return decoder.observe(usersRef, "UserController.observeAllUsers", snap -> {
             List<User> users = new ArrayList<>();
 
             if (snap != null) {
@@ -236,18 +243,38 @@ public class UserController implements UserControllerInterface {
                 }
             }
 
-            onChange.accept(users);
-        });
+            return SnapshotDecoder.immutable(users);
+        }, onChange);
     }
 
     /**
      * Partially update a user's fields. <u>This should never be used outside of {@link User}.</u>
+     * The fields are written with a single update, which fails if the user doesn't exist, so nothing is read first.
      *
      * @param userID Document ID
      * @param fields A map of field names and new values
-     * @return Task that completes when the merge is written
+     * @return Task that completes when the update is written
      */
     public Task<Void> updateFields(String userID, HashMap<String, Object> fields) {
+        return updateFields(userID, fields, null);
+    }
+
+    /**
+     * Partially update a user's fields, only if their role hasn't changed.
+     * <u>This should never be used outside of {@link User}.</u>
+     * <p>
+     * Without an expected role the fields are written with a single update, with no read first.
+     * With one, the role is checked and the fields are written in one transaction,
+     * so an edit made by a user with an old role can't overwrite a role change made by an admin.
+     * </p>
+     *
+     * @param userID       Document ID
+     * @param fields       A map of field names and new values
+     * @param expectedRole the role the user must still have, or null to write regardless
+     * @return Task that completes when the update is written, or fails with
+     * {@link FirebaseFirestoreException.Code#FAILED_PRECONDITION} if the role has changed
+     */
+    public Task<Void> updateFields(String userID, Map<String, Object> fields, @Nullable Role expectedRole) {
         if (fields.isEmpty()) {
             // nothing to update
             return Tasks.forResult(null);
@@ -255,24 +282,30 @@ public class UserController implements UserControllerInterface {
 
         DocumentReference doc = usersRef.document(userID);
 
-        return doc.get().continueWithTask(task -> {
-            // snap can't be null because none of it's implementations can return null
-            DocumentSnapshot snap = task.getResult();
+        if (expectedRole == null) {
+            return policy.write("UserController.updateFields", 1, doc.update(fields));
+        }
 
+        return policy.transaction("UserController.updateFields", 1, () -> usersRef.getFirestore().runTransaction(t -> {
+            DocumentSnapshot snap = t.get(doc);
             if (!snap.exists()) {
-                return Tasks.forException(
-                        new IllegalArgumentException("User: " + userID + " not found.")
-                );
+                throw new FirebaseFirestoreException("User: " + userID + " not found.",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            if (!expectedRole.name().equals(snap.getString("role"))) {
+                throw new FirebaseFirestoreException("User: " + userID + " is no longer " + expectedRole + ".",
+                        FirebaseFirestoreException.Code.FAILED_PRECONDITION);
             }
 
-            return doc.set(fields, SetOptions.merge());
-        });
+            t.update(doc, fields);
+            return null;
+        }));
     }
 
     public Task<User> setUserRole(String userID, Role role) {
         DocumentReference doc = usersRef.document(userID);
 
-        return doc.get().continueWithTask(task -> {
+        return policy.read("UserController.setUserRole", () -> doc.get()).continueWithTask(task -> {
             DocumentSnapshot snap = task.getResult();
             if (!snap.exists()) {
                 return Tasks.forException(
@@ -291,7 +324,10 @@ public class UserController implements UserControllerInterface {
 
             // Write updated user
             User finalUser = user;
-            return doc.set(user).onSuccessTask((nothing) -> {
+            Map<String, Object> data = DocumentMapper.toMap(user);
+            // promoting and demoting rebuild the user without its photo placeholder
+            data.put("photoPlaceholder", snap.getString("photoPlaceholder"));
+            return policy.write("UserController.setUserRole", 1, doc.set(data)).onSuccessTask((nothing) -> {
                 return Tasks.forResult(finalUser);
             });
         });
@@ -304,20 +340,11 @@ public class UserController implements UserControllerInterface {
      * @return Task that completes when the document is deleted
      */
     public Task<Void> deleteUser(String userID) {
-        return usersRef.document(userID).delete();
+        return policy.write("UserController.deleteUser", 1, usersRef.document(userID).delete());
     }
 
     private User buildUser(DocumentSnapshot snap) {
-        Role role = snap.get("role", Role.class);
-
-        if (role == Role.ENTRANT) {
-            return snap.toObject(User.class);
-        } else if (role == Role.ORGANIZER) {
-            return snap.toObject(Organizer.class);
-        } else {
-            assert role == Role.ADMIN;
-            return snap.toObject(Admin.class);
-        }
+        return DocumentMapper.toUser(snap.getId(), snap.getData());
     }
 
     /**
@@ -333,15 +360,17 @@ public class UserController implements UserControllerInterface {
 
         // Remove user from all event waiting lists
         cleanupTasks.add(
-                db.collection("events")
+                policy.query("UserController.deleteUserWithCleanup", () -> db.collection("events")
                         .whereArrayContains("waitingList", userID)
-                        .get()
+                        .get())
                         .continueWithTask(task -> {
                             if (task.isSuccessful()) {
                                 List<Task<?>> removeTasks = new ArrayList<>();
                                 for (DocumentSnapshot doc : task.getResult()) {
                                     removeTasks.add(
-                                            doc.getReference().update("waitingList", FieldValue.arrayRemove(userID))
+                                            policy.write("UserController.deleteUserWithCleanup", 1, doc.getReference().update(
+                                                    "waitingList", FieldValue.arrayRemove(userID),
+                                                    EventController.WAITING_COUNT, FieldValue.increment(-1)))
                                     );
                                 }
                                 return Tasks.whenAll(removeTasks);
@@ -352,14 +381,23 @@ public class UserController implements UserControllerInterface {
 
         // Delete all invitations for this user
         cleanupTasks.add(
-                db.collection("invitations")
+                policy.query("UserController.deleteUserWithCleanup", () -> db.collection("invitations")
                         .whereEqualTo("recipientID", userID)
-                        .get()
+                        .get())
                         .continueWithTask(task -> {
                             if (task.isSuccessful()) {
                                 List<Task<?>> deleteTasks = new ArrayList<>();
                                 for (DocumentSnapshot doc : task.getResult()) {
-                                    deleteTasks.add(doc.getReference().delete());
+                                    deleteTasks.add(policy.write("UserController.deleteUserWithCleanup", 1, doc.getReference().delete()));
+
+                                    // take the invitation out of its event's counters
+                                    String counter = InvitationController.counterFieldFor(doc);
+                                    String eventID = doc.getString("event");
+                                    if (counter != null && eventID != null) {
+                                        deleteTasks.add(policy.write("UserController.deleteUserWithCleanup", 1,
+                                                db.collection("events").document(eventID)
+                                                        .update(counter, FieldValue.increment(-1))));
+                                    }
                                 }
                                 return Tasks.whenAll(deleteTasks);
                             }
@@ -369,9 +407,9 @@ public class UserController implements UserControllerInterface {
 
         // Delete all events organized by this user
         cleanupTasks.add(
-                db.collection("events")
+                policy.query("UserController.deleteUserWithCleanup", () -> db.collection("events")
                         .whereEqualTo("organizerID", userID)
-                        .get()
+                        .get())
                         .continueWithTask(task -> {
                             if (task.isSuccessful()) {
                                 List<Task<?>> deleteEventTasks = new ArrayList<>();
@@ -389,15 +427,16 @@ public class UserController implements UserControllerInterface {
 
         // Remove user from notification recipient lists
         cleanupTasks.add(
-                db.collection("notifications")
+                policy.query("UserController.deleteUserWithCleanup", () -> db.collection("notifications")
                         .whereArrayContains("recipientIDs", userID)
-                        .get()
+                        .get())
                         .continueWithTask(task -> {
                             if (task.isSuccessful()) {
                                 List<Task<?>> notifTasks = new ArrayList<>();
                                 for (DocumentSnapshot doc : task.getResult()) {
                                     notifTasks.add(
-                                            doc.getReference().update("recipientIDs", FieldValue.arrayRemove(userID))
+                                            policy.write("UserController.deleteUserWithCleanup", 1,
+                                                    doc.getReference().update("recipientIDs", FieldValue.arrayRemove(userID)))
                                     );
                                 }
                                 return Tasks.whenAll(notifTasks);
@@ -409,7 +448,7 @@ public class UserController implements UserControllerInterface {
         // AFTER ALL CLEANUP, delete the user profile
         return Tasks.whenAll(cleanupTasks)
                 .continueWithTask(task -> {
-                    return usersRef.document(userID).delete();
+                    return policy.write("UserController.deleteUserWithCleanup", 1, usersRef.document(userID).delete());
                 });
     }
 }
@@ -5,6 +5,7 @@ import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public interface UserControllerInterface {
@@ -16,6 +17,7 @@ public interface UserControllerInterface {
     public ListenerRegistration observeUser(String userID, Consumer<User> onUpdate, Runnable onDelete);
     public ListenerRegistration observeAllUsers(Consumer<List<User>> onChange);
     public Task<Void> updateFields(String userID, HashMap<String, Object> fields);
+    public Task<Void> updateFields(String userID, Map<String, Object> fields, Role expectedRole);
     public Task<User> setUserRole(String userID, Role role);
     public Task<Void> deleteUser(String userID);
     public Task<Void> deleteUserWithCleanup(String userID);
@@ -1,8 +1,5 @@
 package com.example.syzygy_eventapp;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -70,16 +67,10 @@ public class UserListViewAdapter extends RecyclerView.Adapter<UserListViewAdapte
         holder.phoneText.setText(user.getPhone());
         holder.roleChip.setText(user.getRole().toString());
 
-        // Make sure to always default a UserView's image, otherwise it wont
-        // be recycled properly.
-        holder.profileImage.setImageResource(R.drawable.ic_person_placeholder);
-
-        // Set the user's profile image
-        if (user.getPhotoURL() != null) {
-            byte[] decoded = Base64.decode(user.getPhotoURL(), Base64.DEFAULT);
-            Bitmap bm = BitmapFactory.decodeByteArray(decoded, 0, decoded.length);
-            holder.profileImage.setImageBitmap(bm);
-        }
+        // Set the user's profile image, or the default so a recycled view never shows another user's.
+        // The placeholder shows right away, and the photo fades in once it's decoded.
+        ImagePlaceholder.load(holder.profileImage, user.getPhotoPlaceholder(), user.getPhotoURL(),
+                R.drawable.ic_person_placeholder);
 
         holder.itemView.setOnClickListener(v -> {
             if (listener != null) listener.onUserClick(user);
@@ -72,11 +72,11 @@ public class WaitlistMapFragment extends Fragment {
      * Listen to Firestore updates for entrant locations and update the map whenever new data arrives.
      */
     private void loadEntrantLocations() {
-        locationListener = eventController.observeEntrantLocations(
+        locationListener = LifecycleListener.bind(getViewLifecycleOwner(), () -> eventController.observeEntrantLocations(
                 event.getEventID(),
                 // Success callback
                 this::displayLocationsOnMap
-        );
+        ));
     }
 
     /**
@@ -0,0 +1,88 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CircuitBreaker} state changes, with a fake clock.
+ */
+public class CircuitBreakerTest {
+
+    private long now;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        breaker = new CircuitBreaker("test", 3, 1000, () -> now);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.allow());
+            breaker.onFailure(true);
+        }
+    }
+
+    @Test
+    public void testOpensAfterFailuresInARow() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allow());
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        fail(2);
+        assertTrue(breaker.allow());
+        breaker.onSuccess();
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testNonTransientFailuresDontCount() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.allow());
+            breaker.onFailure(false);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenAllowsOneTrial() {
+        fail(3);
+        now += 1000;
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allow());
+        assertFalse(breaker.allow());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allow());
+    }
+
+    @Test
+    public void testFailedTrialOpensAgain() {
+        fail(3);
+        now += 1000;
+
+        assertTrue(breaker.allow());
+        breaker.onFailure(true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        now += 999;
+        assertFalse(breaker.allow());
+        now += 1;
+        assertTrue(breaker.allow());
+    }
+}
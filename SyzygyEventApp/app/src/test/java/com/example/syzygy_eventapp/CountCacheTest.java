@@ -0,0 +1,79 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link CountCache}
+ */
+public class CountCacheTest {
+
+    private AtomicLong now;
+    private AtomicInteger loads;
+    private CountCache cache;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong(0);
+        loads = new AtomicInteger(0);
+        cache = new CountCache(1000, now::get);
+    }
+
+    private Task<Long> load(long value) {
+        return cache.get("events", () -> {
+            loads.incrementAndGet();
+            return Tasks.forResult(value);
+        });
+    }
+
+    @Test
+    public void testReusesCountWithinLifetime() {
+        Task<Long> first = load(5);
+        now.set(1000);
+        Task<Long> second = load(6);
+
+        assertSame(first, second);
+        assertEquals(Long.valueOf(5), second.getResult());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testReloadsExpiredCount() {
+        load(5);
+        now.set(1001);
+
+        assertEquals(Long.valueOf(6), load(6).getResult());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testReloadsFailedCount() {
+        cache.get("events", () -> {
+            loads.incrementAndGet();
+            return Tasks.forException(new IllegalStateException("offline"));
+        });
+
+        assertEquals(Long.valueOf(3), load(3).getResult());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidateByPrefix() {
+        load(5);
+        Task<Long> other = cache.get("waitingList:abc", () -> Tasks.forResult(1L));
+
+        cache.invalidate("events");
+
+        assertEquals(Long.valueOf(6), load(6).getResult());
+        assertSame(other, cache.get("waitingList:abc", () -> Tasks.forResult(2L)));
+    }
+}
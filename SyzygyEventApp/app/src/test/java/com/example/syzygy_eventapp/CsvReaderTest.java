@@ -0,0 +1,61 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link CsvReader}.
+ */
+public class CsvReaderTest {
+
+    private static CsvReader reader(String text) {
+        return new CsvReader(new StringReader(text));
+    }
+
+    @Test
+    public void testPlainRecords() throws IOException {
+        CsvReader csv = reader("a,b,c\r\n1,,3\n");
+
+        assertEquals(Arrays.asList("a", "b", "c"), csv.readRecord());
+        assertEquals(Arrays.asList("1", "", "3"), csv.readRecord());
+        assertEquals(2, csv.getLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void testLastRecordWithoutNewline() throws IOException {
+        CsvReader csv = reader("a,b\n1,2");
+
+        csv.readRecord();
+        assertEquals(Arrays.asList("1", "2"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void testQuotedFields() throws IOException {
+        CsvReader csv = reader("\"Hello, world\",\"She said \"\"hi\"\"\",\"two\nlines\"\nnext,row,here\n");
+
+        assertEquals(Arrays.asList("Hello, world", "She said \"hi\"", "two\nlines"), csv.readRecord());
+        assertEquals(Arrays.asList("next", "row", "here"), csv.readRecord());
+        // the quoted line break moved the next record down a line
+        assertEquals(3, csv.getLineNumber());
+    }
+
+    @Test
+    public void testSkipsByteOrderMark() throws IOException {
+        CsvReader csv = reader("\uFEFFname\n");
+
+        assertEquals(Arrays.asList("name"), csv.readRecord());
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnclosedQuote() throws IOException {
+        reader("\"never closed\n").readRecord();
+    }
+}
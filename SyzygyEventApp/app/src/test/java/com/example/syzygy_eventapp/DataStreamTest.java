@@ -0,0 +1,211 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Unit tests for the {@link DataStream} operators.
+ * Time is controlled by a manual scheduler, so the tests never wait.
+ */
+public class DataStreamTest {
+
+    /**
+     * A source that values can be pushed into, which tracks how many subscribers it has
+     */
+    private static class Subject<T> {
+        final List<Consumer<T>> subscribers = new ArrayList<>();
+        final DataStream<T> stream = DataStream.from(onNext -> {
+            subscribers.add(onNext);
+            return () -> subscribers.remove(onNext);
+        });
+
+        void push(T value) {
+            for (Consumer<T> subscriber : new ArrayList<>(subscribers)) {
+                subscriber.accept(value);
+            }
+        }
+    }
+
+    /**
+     * A scheduler where time only passes when the test says so
+     */
+    private static class ManualScheduler implements DataStream.Scheduler {
+        private static class Scheduled {
+            final Runnable task;
+            final long at;
+
+            Scheduled(Runnable task, long at) {
+                this.task = task;
+                this.at = at;
+            }
+        }
+
+        final List<Scheduled> tasks = new ArrayList<>();
+        long now = 0;
+
+        @Override
+        public Runnable schedule(Runnable task, long delayMs) {
+            Scheduled scheduled = new Scheduled(task, now + delayMs);
+            tasks.add(scheduled);
+            return () -> tasks.remove(scheduled);
+        }
+
+        void advance(long ms) {
+            now += ms;
+            Iterator<Scheduled> it = new ArrayList<>(tasks).iterator();
+            while (it.hasNext()) {
+                Scheduled scheduled = it.next();
+                if (scheduled.at <= now && tasks.remove(scheduled)) {
+                    scheduled.task.run();
+                }
+            }
+        }
+    }
+
+    private Subject<Integer> subject;
+    private ManualScheduler scheduler;
+    private List<Integer> results;
+
+    @Before
+    public void setUp() {
+        subject = new Subject<>();
+        scheduler = new ManualScheduler();
+        results = new ArrayList<>();
+    }
+
+    @Test
+    public void testMapAndFilter() {
+        subject.stream.filter(n -> n % 2 == 0).map(n -> n * 10).subscribe(results::add);
+
+        subject.push(1);
+        subject.push(2);
+        subject.push(4);
+
+        assertEquals(Arrays.asList(20, 40), results);
+    }
+
+    @Test
+    public void testDistinctUntilChanged() {
+        subject.stream.distinctUntilChanged().subscribe(results::add);
+
+        subject.push(1);
+        subject.push(1);
+        subject.push(2);
+        subject.push(1);
+
+        assertEquals(Arrays.asList(1, 2, 1), results);
+    }
+
+    @Test
+    public void testCombineLatestWaitsForBoth() {
+        Subject<String> other = new Subject<>();
+        List<String> combined = new ArrayList<>();
+        DataStream.combineLatest(subject.stream, other.stream, (n, s) -> s + n).subscribe(combined::add);
+
+        subject.push(1);
+        subject.push(2);
+        other.push("a");
+        subject.push(3);
+        other.push("b");
+
+        assertEquals(Arrays.asList("a2", "a3", "b3"), combined);
+    }
+
+    @Test
+    public void testDebounceOnlyDeliversAfterQuiet() {
+        subject.stream.debounce(100, scheduler).subscribe(results::add);
+
+        subject.push(1);
+        scheduler.advance(50);
+        subject.push(2);
+        scheduler.advance(50);
+        assertTrue(results.isEmpty());
+
+        scheduler.advance(50);
+        assertEquals(Arrays.asList(2), results);
+    }
+
+    @Test
+    public void testSampleDeliversLatestOncePerPeriod() {
+        subject.stream.sample(100, scheduler).subscribe(results::add);
+
+        subject.push(1);
+        subject.push(2);
+        subject.push(3);
+        scheduler.advance(100);
+        assertEquals(Arrays.asList(3), results);
+
+        // nothing arrived, so nothing is delivered
+        scheduler.advance(100);
+        assertEquals(Arrays.asList(3), results);
+
+        subject.push(4);
+        scheduler.advance(100);
+        assertEquals(Arrays.asList(3, 4), results);
+    }
+
+    @Test
+    public void testObserveOnUsesExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        subject.stream.observeOn(queued::add).subscribe(results::add);
+
+        subject.push(1);
+        assertTrue(results.isEmpty());
+
+        queued.get(0).run();
+        assertEquals(Arrays.asList(1), results);
+    }
+
+    @Test
+    public void testRemoveTearsDownEverything() {
+        Subject<String> other = new Subject<>();
+        List<Runnable> queued = new ArrayList<>();
+        ListenerRegistration registration = DataStream
+                .combineLatest(subject.stream, other.stream, (n, s) -> n)
+                .distinctUntilChanged()
+                .debounce(100, scheduler)
+                .observeOn(queued::add)
+                .subscribe(results::add);
+
+        assertEquals(1, subject.subscribers.size());
+        assertEquals(1, other.subscribers.size());
+
+        subject.push(1);
+        other.push("a");
+        assertEquals(1, scheduler.tasks.size());
+
+        registration.remove();
+        assertTrue(subject.subscribers.isEmpty());
+        assertTrue(other.subscribers.isEmpty());
+        assertTrue(scheduler.tasks.isEmpty());
+
+        scheduler.advance(100);
+        for (Runnable task : queued) {
+            task.run();
+        }
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testRemoveDropsQueuedValues() {
+        List<Runnable> queued = new ArrayList<>();
+        ListenerRegistration registration = subject.stream.observeOn(queued::add).subscribe(results::add);
+
+        subject.push(1);
+        registration.remove();
+        queued.get(0).run();
+
+        assertTrue(results.isEmpty());
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link DocumentMapper}.
+ * Each mapper is checked against Firestore's reflective mapper, which toObject() and set() use,
+ * so a field added to a model but not to its mapper fails here.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class DocumentMapperTest {
+
+    private static final Timestamp PAST = new Timestamp(new Date(1_700_000_000_000L));
+    private static final Timestamp FUTURE = new Timestamp(new Date(4_000_000_000_000L));
+
+    /**
+     * Converts data the way Firestore reads it from the server, where every whole number is a long
+     */
+    private static Map<String, Object> asStored(Map<String, Object> data) {
+        Map<String, Object> stored = new HashMap<>();
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            Object value = field.getValue();
+            stored.put(field.getKey(), value instanceof Integer ? Long.valueOf((Integer) value) : value);
+        }
+        return stored;
+    }
+
+    private static Event fullEvent() {
+        Event event = new Event();
+        event.setEventID("event1");
+        event.setName("Swimming Lessons");
+        event.setDescription("Beginner lessons");
+        event.setOrganizerID("organizer1");
+        event.setEventTime(FUTURE);
+        event.setLocationName("Kinsmen Pool");
+        event.setLocationCoordinates(new GeoPoint(53.5, -113.5));
+        event.setGeolocationRequired(true);
+        event.setPosterUrl("https://example.com/poster.jpg");
+        event.setPosterThumbnail("thumbnail");
+        event.setPosterPlaceholder("placeholder");
+        event.setWaitingList(new ArrayList<>(Arrays.asList("user1", "user2")));
+        event.setInvites(new ArrayList<>(Arrays.asList("invite1")));
+        event.setMaxWaitingList(50);
+        event.setRegistrationStart(PAST);
+        event.setRegistrationEnd(FUTURE);
+        event.setMaxAttendees(20);
+        event.setLotteryComplete(false);
+        event.setAcceptedCount(1);
+        event.setPendingCount(2);
+        event.setDeclinedCount(3);
+        event.setWaitingCount(2);
+        event.setCreatedAt(PAST);
+        event.setUpdatedAt(PAST);
+        return event;
+    }
+
+    @Test
+    public void testEventToMapMatchesReflection() {
+        Event event = fullEvent();
+        assertEquals(CustomClassMapper.convertToPlainJavaTypes(event), DocumentMapper.toMap(event));
+    }
+
+    @Test
+    public void testEventFromMapMatchesReflection() {
+        Map<String, Object> stored = asStored(DocumentMapper.toMap(fullEvent()));
+
+        Event reflected = CustomClassMapper.convertToCustomClass(stored, Event.class, null);
+        Event mapped = DocumentMapper.toEvent("event1", stored);
+
+        assertEquals(DocumentMapper.toMap(reflected), DocumentMapper.toMap(mapped));
+        assertEquals(Integer.valueOf(50), mapped.getMaxWaitingList());
+        assertEquals(Arrays.asList("user1", "user2"), mapped.getWaitingList());
+    }
+
+    @Test
+    public void testReadEventHasNoChanges() {
+        Event event = DocumentMapper.toEvent("event1", asStored(DocumentMapper.toMap(fullEvent())));
+
+        assertTrue(event.changedFields().isEmpty());
+    }
+
+    @Test
+    public void testEventMissingFieldsKeepDefaults() {
+        Event event = DocumentMapper.toEvent("event1", new HashMap<>());
+
+        assertEquals("event1", event.getEventID());
+        assertTrue(event.getWaitingList().isEmpty());
+        assertTrue(event.getInvites().isEmpty());
+        assertNull(event.getAcceptedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongTypeThrows() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", 5L);
+        DocumentMapper.toEvent("event1", data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongListItemThrows() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("waitingList", Arrays.asList("user1", 2L));
+        DocumentMapper.toEvent("event1", data);
+    }
+
+    @Test
+    public void testUsersMatchReflection() {
+        User entrant = new User("user1", "Alice", "alice@example.com", "780-555-0101", "photo", true, false, Role.ENTRANT);
+        Organizer organizer = new Organizer("user2", "Bob", null, null, null, false, true,
+                new ArrayList<>(Arrays.asList("event1")), Role.ORGANIZER);
+        Admin admin = new Admin("user3", "Carol", "carol@example.com", null, null, false, false,
+                new ArrayList<>(), Role.ADMIN);
+
+        List<User> users = Arrays.asList(entrant, organizer, admin);
+        List<Class<? extends User>> classes = Arrays.asList(User.class, Organizer.class, Admin.class);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            Map<String, Object> data = DocumentMapper.toMap(user);
+            assertEquals(CustomClassMapper.convertToPlainJavaTypes(user), data);
+
+            User reflected = CustomClassMapper.convertToCustomClass(data, classes.get(i), null);
+            User mapped = DocumentMapper.toUser(user.getUserID(), data);
+            assertEquals(classes.get(i), mapped.getClass());
+            assertEquals(DocumentMapper.toMap(reflected), DocumentMapper.toMap(mapped));
+        }
+    }
+
+    @Test
+    public void testUserMissingFieldsKeepDefaults() {
+        User user = DocumentMapper.toUser("user1", new HashMap<>());
+
+        assertEquals("user1", user.getUserID());
+        assertEquals(Role.ENTRANT, user.getRole());
+        assertTrue(user.getName().startsWith("Untitled_"));
+        assertTrue(user.isSystemNotifications());
+        assertTrue(user.isOrganizerNotifications());
+    }
+
+    @Test
+    public void testInvitationMatchesReflection() {
+        Invitation invite = new Invitation("invite1", "event1", "organizer1", "user1",
+                true, PAST, FUTURE, false, null);
+        Map<String, Object> data = DocumentMapper.toMap(invite);
+        assertEquals(CustomClassMapper.convertToPlainJavaTypes(invite), data);
+
+        Invitation reflected = CustomClassMapper.convertToCustomClass(data, Invitation.class, null);
+        Invitation mapped = DocumentMapper.toInvitation("invite1", data);
+        assertEquals(DocumentMapper.toMap(reflected), DocumentMapper.toMap(mapped));
+    }
+
+    @Test
+    public void testNotificationsMatchReflection() {
+        Notification notif = new Notification("Lottery drawn", "You were selected", "event1", "organizer1");
+        notif.setSent(true);
+        Map<String, Object> data = DocumentMapper.toMap(notif);
+        assertEquals(CustomClassMapper.convertToPlainJavaTypes(notif), data);
+
+        Notification reflected = CustomClassMapper.convertToCustomClass(asStored(data), Notification.class, null);
+        Notification mapped = DocumentMapper.toNotification(asStored(data));
+        assertEquals(DocumentMapper.toMap(reflected), DocumentMapper.toMap(mapped));
+        assertEquals(notif.getId(), mapped.getId());
+
+        UserNotification userNotif = new UserNotification("user1", notif.getId());
+        Map<String, Object> userData = DocumentMapper.toMap(userNotif);
+        assertEquals(CustomClassMapper.convertToPlainJavaTypes(userNotif), userData);
+        assertEquals(userData, DocumentMapper.toMap(DocumentMapper.toUserNotification(asStored(userData))));
+    }
+
+    @Test
+    public void testWaitlistEntryMatchesReflection() {
+        WaitlistEntry entry = new WaitlistEntry("user1", "Alice", PAST, "waiting");
+        entry.setCancellationDate(FUTURE);
+        Map<String, Object> data = DocumentMapper.toMap(entry);
+        assertEquals(CustomClassMapper.convertToPlainJavaTypes(entry), data);
+
+        WaitlistEntry reflected = CustomClassMapper.convertToCustomClass(data, WaitlistEntry.class, null);
+        assertEquals(DocumentMapper.toMap(reflected), DocumentMapper.toMap(DocumentMapper.toWaitlistEntry(data)));
+    }
+}
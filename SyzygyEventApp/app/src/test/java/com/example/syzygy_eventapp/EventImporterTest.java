@@ -0,0 +1,145 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Unit tests for reading and checking {@link EventImporter} files, with a fake batch writer.
+ */
+public class EventImporterTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final String HEADER = "name,location,maxAttendees,registrationStart,registrationEnd,geolocationRequired\n";
+
+    private static String rows(int count) {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < count; i++) {
+            csv.append("Session ").append(i).append(",Hall A,20,2026-01-01 09:00,2026-01-10 17:00,no\n");
+        }
+        return csv.toString();
+    }
+
+    private static EventImporter.Report read(String csv, String importKey, int skipThrough,
+                                             EventImporter.BatchWriter writer) throws Exception {
+        return EventImporter.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                "organizer", UTC, importKey, skipThrough, writer);
+    }
+
+    @Test
+    public void testValidatesRows() throws Exception {
+        String csv = HEADER
+                + "Yoga,Studio,10,2026-01-01 09:00,2026-01-10 17:00,yes\n"
+                + ",Studio,10,2026-01-01 09:00,2026-01-10 17:00,\n"
+                + "Swim,Pool,zero,2026-01-01 09:00,2026-01-10 17:00,\n"
+                + "\n"
+                + "Run,Track,10,2026-01-10 09:00,2026-01-01 17:00,\n";
+
+        EventImporter.Report report = read(csv, null, 0, null);
+
+        assertEquals(4, report.rows);
+        assertEquals(1, report.valid);
+        assertEquals(3, report.errorCount);
+        assertEquals(3, report.errors.get(0).line);
+        assertEquals(6, report.errors.get(2).line);
+        assertEquals(16, report.importKey.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingColumn() throws Exception {
+        read("name,location\nYoga,Studio\n", null, 0, null);
+    }
+
+    @Test
+    public void testParsesRow() {
+        Map<String, Integer> columns = EventImporter.readHeader(Arrays.asList(
+                "Name", "Location", "MaxAttendees", "RegistrationStart", "RegistrationEnd", "maxWaitingList", "eventTime"));
+        Event event = EventImporter.parseRow(columns, Arrays.asList(
+                "Yoga", " Studio ", "10", "2026-01-01T09:00:00Z", "2026-01-10 17:00", "", "2026-01-11"),
+                "organizer", UTC);
+
+        assertEquals("Yoga", event.getName());
+        assertEquals("Studio", event.getLocationName());
+        assertEquals("organizer", event.getOrganizerID());
+        assertEquals(10, (int) event.getMaxAttendees());
+        assertNull(event.getMaxWaitingList());
+        assertEquals(1767258000L, event.getRegistrationStart().getSeconds());
+        assertFalse(event.isGeolocationRequired());
+    }
+
+    @Test
+    public void testWritesInBatches() throws Exception {
+        String csv = rows(EventController.MAX_BATCH_EVENTS + 10);
+        String key = read(csv, null, 0, null).importKey;
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Integer> lastLines = new ArrayList<>();
+
+        EventImporter.Report report = read(csv, key, 0, (events, lastLine) -> {
+            batchSizes.add(events.size());
+            lastLines.add(lastLine);
+            assertEquals(EventImporter.eventID(key, lastLine), events.get(events.size() - 1).getEventID());
+            return 0;
+        });
+
+        assertEquals(Arrays.asList(EventController.MAX_BATCH_EVENTS, 10), batchSizes);
+        assertEquals(EventController.MAX_BATCH_EVENTS + 1, (int) lastLines.get(0));
+        assertEquals(EventController.MAX_BATCH_EVENTS + 10, report.written);
+        assertEquals(report.valid, report.eventIDs.size());
+    }
+
+    @Test
+    public void testResumesAfterCheckpoint() throws Exception {
+        String csv = rows(30);
+        String key = read(csv, null, 0, null).importKey;
+        List<String> written = new ArrayList<>();
+
+        // rows on lines 2 to 21 were written before the import was interrupted
+        EventImporter.Report report = read(csv, key, 21, (events, lastLine) -> {
+            for (Event event : events) {
+                written.add(event.getEventID());
+            }
+            return 0;
+        });
+
+        assertEquals(10, report.written);
+        assertEquals(20, report.resumed);
+        assertEquals(EventImporter.eventID(key, 22), written.get(0));
+        // every event is still added to the organizer
+        assertEquals(30, report.eventIDs.size());
+    }
+
+    @Test
+    public void testSkipsEventsThatAlreadyExist() throws Exception {
+        String csv = rows(10);
+        String key = read(csv, null, 0, null).importKey;
+
+        // the file was imported before, and its first 4 events still exist
+        EventImporter.Report report = read(csv, key, 0, (events, lastLine) -> 4);
+
+        assertEquals(6, report.written);
+        assertEquals(4, report.alreadyImported);
+        assertEquals(10, report.eventIDs.size());
+    }
+
+    @Test
+    public void testKeyDependsOnFileAndOrganizer() throws Exception {
+        String key = read(rows(3), null, 0, null).importKey;
+
+        assertEquals(key, read(rows(3), null, 0, null).importKey);
+        assertNotEquals(key, read(rows(4), null, 0, null).importKey);
+        assertNotEquals(key, EventImporter.read(new ByteArrayInputStream(rows(3).getBytes(StandardCharsets.UTF_8)),
+                "someone else", UTC, null, 0, null).importKey);
+        assertTrue(key.matches("[0-9a-f]+"));
+    }
+}
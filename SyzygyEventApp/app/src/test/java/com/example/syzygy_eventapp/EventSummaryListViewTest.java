@@ -1,6 +1,7 @@
 package com.example.syzygy_eventapp;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -9,6 +10,7 @@ import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.view.ContextThemeWrapper;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.platform.app.InstrumentationRegistry;
 
@@ -58,6 +60,16 @@ public class EventSummaryListViewTest {
         listView.setTitle("Events");
     }
 
+    /**
+     * Measures and lays out the list so the RecyclerView creates its rows.
+     */
+    private void layoutList() {
+        listView.measure(
+                View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        listView.layout(0, 0, 1080, 1920);
+    }
+
     /**
      * Returns a Date offset by the given number of days from the current time.
      *
@@ -112,9 +124,10 @@ public class EventSummaryListViewTest {
         List<Event> events = sampleEvents3();
 
         listView.setItems(events, /*isAdmin=*/false, v -> {});
+        layoutList();
 
         TextView count = listView.findViewById(R.id.count);
-        LinearLayout container = listView.findViewById(R.id.list_container);
+        RecyclerView container = listView.findViewById(R.id.list_container);
 
         assertEquals("3", count.getText().toString());
         assertEquals(3, container.getChildCount());
@@ -159,8 +172,9 @@ public class EventSummaryListViewTest {
                 v -> {},
                 v -> {}
         );
+        layoutList();
 
-        LinearLayout container = listView.findViewById(R.id.list_container);
+        RecyclerView container = listView.findViewById(R.id.list_container);
         EventSummaryView row0 = (EventSummaryView) container.getChildAt(0);
         EventSummaryView row1 = (EventSummaryView) container.getChildAt(1);
     }
@@ -173,8 +187,9 @@ public class EventSummaryListViewTest {
         List<Event> events = sampleEvents3();
 
         listView.setItems(events, true, v -> {});
+        layoutList();
 
-        LinearLayout container = listView.findViewById(R.id.list_container);
+        RecyclerView container = listView.findViewById(R.id.list_container);
         for (int i = 0; i < container.getChildCount(); i++) {
             EventSummaryView row = (EventSummaryView) container.getChildAt(i);
             View adminBar = row.findViewById(R.id.layout_admin_buttons);
@@ -204,10 +219,11 @@ public class EventSummaryListViewTest {
                 v -> {},
                 v -> {}
         );
+        layoutList();
 
         listView.findViewById(R.id.header).performClick();
 
-        LinearLayout container = listView.findViewById(R.id.list_container);
+        RecyclerView container = listView.findViewById(R.id.list_container);
         EventSummaryView first = (EventSummaryView) container.getChildAt(0);
         View card = first.findViewById(R.id.event_banner_card);
         card.performClick();
@@ -216,4 +232,97 @@ public class EventSummaryListViewTest {
         assertEquals("event1", clicked.get(0).getEventID());
         assertTrue(clicked.get(0).getLocationName().contains("Edmonton"));
     }
+
+    /**
+     * Verifies that rows are matched by event ID, and only count as changed when shown or status fields change.
+     */
+    @Test
+    public void testDiffMatchesEventsById() {
+        Event before = makeEvent("event1", "Event 1", daysFromNow(10), false);
+        Event same = makeEvent("event1", "Event 1", daysFromNow(10), false);
+        same.setRegistrationEnd(before.getRegistrationEnd());
+        Event renamed = makeEvent("event1", "Renamed", daysFromNow(10), false);
+        Event other = makeEvent("event2", "Event 1", daysFromNow(10), false);
+
+        assertTrue(EventSummaryListViewAdapter.DIFF_CALLBACK.areItemsTheSame(before, renamed));
+        assertFalse(EventSummaryListViewAdapter.DIFF_CALLBACK.areItemsTheSame(before, other));
+        assertTrue(EventSummaryListViewAdapter.DIFF_CALLBACK.areContentsTheSame(before, same));
+        assertFalse(EventSummaryListViewAdapter.DIFF_CALLBACK.areContentsTheSame(before, renamed));
+    }
+
+    /**
+     * Verifies that a loaded status is only kept while the event, its deadlines, the user's invite and its age
+     * all allow it.
+     */
+    @Test
+    public void testLoadedStatusExpires() {
+        Event event = makeEvent("event1", "Event 1", daysFromNow(10), false);
+        Event renamed = makeEvent("event1", "Renamed", daysFromNow(10), false);
+        renamed.setRegistrationEnd(event.getRegistrationEnd());
+        Event closed = makeEvent("event1", "Event 1", daysFromNow(-1), false);
+        long now = System.currentTimeMillis();
+        EventSummaryListViewAdapter.LoadedStatus loaded = new EventSummaryListViewAdapter.LoadedStatus(
+                Event.Status.Pending, event.calculateAbsoluteStatus(), InvitationState.PENDING, now);
+
+        assertTrue(loaded.stillHolds(event, event, InvitationState.PENDING, now));
+        assertFalse(loaded.stillHolds(event, renamed, InvitationState.PENDING, now));
+        assertFalse(loaded.stillHolds(closed, closed, InvitationState.PENDING, now));
+        assertFalse(loaded.stillHolds(event, event, InvitationState.ACCEPTED, now));
+        assertFalse(loaded.stillHolds(event, event, InvitationState.PENDING,
+                now + EventSummaryListViewAdapter.MAX_STATUS_AGE_MILLIS));
+    }
+
+    /**
+     * Verifies that each event keeps the same stable ID.
+     */
+    @Test
+    public void testStableIds() {
+        listView.setItems(sampleEvents3(), false, v -> {});
+        layoutList();
+
+        RecyclerView container = listView.findViewById(R.id.list_container);
+        RecyclerView.Adapter<?> adapter = container.getAdapter();
+        assertNotNull(adapter);
+        assertTrue(adapter.hasStableIds());
+        assertEquals(adapter.getItemId(2), adapter.getItemId(2));
+        assertTrue(adapter.getItemId(0) != adapter.getItemId(1));
+    }
+
+    /**
+     * Verifies that a list with a bounded height only creates the rows that fit on screen.
+     */
+    @Test
+    public void testBoundedListOnlyBindsVisibleRows() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            events.add(makeEvent("event" + i, "Event " + i, daysFromNow(i + 1), false));
+        }
+
+        listView.setItems(events, false, v -> {});
+        layoutList();
+
+        RecyclerView container = listView.findViewById(R.id.list_container);
+        assertTrue(container.getChildCount() > 0);
+        assertTrue(container.getChildCount() < events.size());
+    }
+
+    /**
+     * Verifies that a collapsed list gives up its layout weight, and takes it back when expanded.
+     */
+    @Test
+    public void testCollapsedListGivesUpItsWeight() {
+        LinearLayout parent = new LinearLayout(listView.getContext());
+        parent.setOrientation(LinearLayout.VERTICAL);
+        parent.addView(listView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 0, 1f));
+
+        listView.setExpanded(false);
+        LinearLayout.LayoutParams params = (LinearLayout.LayoutParams) listView.getLayoutParams();
+        assertEquals(0f, params.weight, 0f);
+        assertEquals(LinearLayout.LayoutParams.WRAP_CONTENT, params.height);
+
+        listView.setExpanded(true);
+        params = (LinearLayout.LayoutParams) listView.getLayoutParams();
+        assertEquals(1f, params.weight, 0f);
+        assertEquals(0, params.height);
+    }
 }
@@ -8,7 +8,9 @@ import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.GeoPoint;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 
 
 /**
@@ -138,6 +140,31 @@ public class EventTest {
         assertEquals(posterUrl, event.getPosterUrl());
     }
 
+    @Test
+    public void testChangesAreTracked() {
+        event.setName("Old Name");
+        event.setPosterUrl("poster");
+        event.clearChanges();
+
+        event.setName("New Name");
+        event.setPosterUrl("poster");
+        event.setMaxAttendees(10);
+
+        assertEquals(new HashSet<>(Arrays.asList("name", "maxAttendees")), event.changedFields());
+    }
+
+    @Test
+    public void testClearSomeChanges() {
+        event.setName("Name");
+        event.setDescription("Description");
+
+        event.clearChanges(Collections.singletonList("name"));
+        assertEquals(Collections.singleton("description"), event.changedFields());
+
+        event.restoreChanges(Collections.singletonList("name"));
+        assertEquals(new HashSet<>(Arrays.asList("name", "description")), event.changedFields());
+    }
+
     @Test
     public void testFullConstructor() {
         String eventID = "event123";
@@ -177,5 +204,19 @@ public class EventTest {
         assertEquals(maxAttendees, fullEvent.getMaxAttendees());
         assertEquals(lotteryComplete, fullEvent.isLotteryComplete());
     }
-}
 
+    @Test
+    public void testInvitationCounters() {
+        assertFalse(event.hasInvitationCounters());
+
+        event.setAcceptedCount(3);
+        event.setPendingCount(2);
+        assertFalse(event.hasInvitationCounters());
+
+        event.setDeclinedCount(1);
+        assertTrue(event.hasInvitationCounters());
+        assertEquals(Integer.valueOf(3), event.getAcceptedCount());
+        assertEquals(Integer.valueOf(2), event.getPendingCount());
+        assertEquals(Integer.valueOf(1), event.getDeclinedCount());
+    }
+}
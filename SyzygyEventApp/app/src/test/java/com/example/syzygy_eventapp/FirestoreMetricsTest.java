@@ -0,0 +1,164 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link FirestoreMetrics}. Runs with Robolectric for org.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class FirestoreMetricsTest {
+
+    @Before
+    public void setUp() {
+        FirestoreMetrics.reset();
+        FirestoreMetrics.setCurrentScreen("TestScreen");
+    }
+
+    private FirestoreMetrics.OperationStats only() {
+        List<FirestoreMetrics.OperationStats> all = FirestoreMetrics.getAll();
+        assertEquals(1, all.size());
+        return all.get(0);
+    }
+
+    @Test
+    public void testRecordsPerCallSite() {
+        FirestoreMetrics.record("TestScreen", "EventController.getEvent", FirestoreMetrics.Kind.READ,
+                true, 1, 200, false, 40);
+        FirestoreMetrics.record("TestScreen", "EventController.getEvent", FirestoreMetrics.Kind.READ,
+                false, 0, 0, null, 60);
+        FirestoreMetrics.record("TestScreen", "EventController.getEvent", FirestoreMetrics.Kind.READ,
+                true, 1, 300, true, 2);
+
+        FirestoreMetrics.OperationStats stats = only();
+        assertEquals(3, stats.getCalls());
+        assertEquals(1, stats.getFailures());
+        assertEquals(2, stats.getDocuments());
+        assertEquals(500, stats.getBytes());
+        assertEquals(1, stats.getFromCache());
+        assertEquals(1, stats.getFromServer());
+        assertEquals(60, stats.getMaxLatencyMs());
+        assertEquals(34, stats.getMeanLatencyMs());
+    }
+
+    @Test
+    public void testSeparatesScreens() {
+        FirestoreMetrics.record("A", "EventController.observeAllEvents", FirestoreMetrics.Kind.LISTEN,
+                true, 5, 0, false, -1);
+        FirestoreMetrics.record("B", "EventController.observeAllEvents", FirestoreMetrics.Kind.LISTEN,
+                true, 10, 0, false, -1);
+
+        List<FirestoreMetrics.OperationStats> all = FirestoreMetrics.getAll();
+        assertEquals(2, all.size());
+        // busiest first
+        assertEquals("B", all.get(0).screen);
+        assertEquals(0, all.get(0).getMaxLatencyMs());
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        for (int i = 0; i < 90; i++) {
+            FirestoreMetrics.record("TestScreen", "op", FirestoreMetrics.Kind.QUERY, true, 1, 0, false, 20);
+        }
+        for (int i = 0; i < 10; i++) {
+            FirestoreMetrics.record("TestScreen", "op", FirestoreMetrics.Kind.QUERY, true, 1, 0, false, 700);
+        }
+
+        FirestoreMetrics.OperationStats stats = only();
+        assertEquals(25, stats.getLatencyPercentileMs(0.5));
+        assertEquals(700, stats.getLatencyPercentileMs(0.95));
+        assertEquals(700, stats.getMaxLatencyMs());
+    }
+
+    @Test
+    public void testEstimateBytes() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "abc");                            // 5 + 4
+        data.put("count", 3L);                              // 6 + 8
+        data.put("time", Timestamp.now());                  // 5 + 8
+        data.put("where", new GeoPoint(1, 2));              // 6 + 16
+        data.put("list", Arrays.asList("a", null, true));   // 5 + 2 + 1 + 1
+
+        assertEquals(67, FirestoreMetrics.estimateBytes((Object) data));
+    }
+
+    @Test
+    public void testSizesOneInEverySampleRateDocuments() {
+        int sampled = 0;
+        for (int i = 0; i < FirestoreMetrics.SIZE_SAMPLE_RATE * 10; i++) {
+            if (FirestoreMetrics.sampleSize(FirestoreMetrics.SIZE_SAMPLE_RATE)) {
+                sampled++;
+            }
+        }
+        assertEquals(10, sampled);
+    }
+
+    @Test
+    public void testJsonExport() throws Exception {
+        FirestoreMetrics.record("TestScreen", "InvitationController.getInvites", FirestoreMetrics.Kind.QUERY,
+                true, 4, 1000, false, 120);
+
+        JSONObject json = new JSONObject(FirestoreMetrics.toJson("1.0"));
+        assertEquals("1.0", json.getString("appVersion"));
+
+        JSONArray operations = json.getJSONArray("operations");
+        assertEquals(1, operations.length());
+
+        JSONObject operation = operations.getJSONObject(0);
+        assertEquals("TestScreen", operation.getString("screen"));
+        assertEquals("InvitationController.getInvites", operation.getString("operation"));
+        assertEquals("QUERY", operation.getString("kind"));
+        assertEquals(4, operation.getLong("documents"));
+        assertEquals(1, operation.getJSONObject("latencyMs").getJSONObject("histogram").getLong("<=250"));
+    }
+
+    @Test
+    public void testCountsBackgroundSnapshots() {
+        FirestoreMetrics.record("TestScreen", "EventController.observeAllEvents", FirestoreMetrics.Kind.LISTEN,
+                true, 3, 300, false, -1);
+
+        FirestoreMetrics.setInBackground(true);
+        FirestoreMetrics.record("TestScreen", "EventController.observeAllEvents", FirestoreMetrics.Kind.LISTEN,
+                true, 2, 200, false, -1);
+        // only listeners count, gets are made on purpose
+        FirestoreMetrics.record("TestScreen", "EventController.getEvent", FirestoreMetrics.Kind.READ,
+                true, 1, 100, false, 10);
+        FirestoreMetrics.setInBackground(false);
+
+        assertEquals(1, FirestoreMetrics.getBackgroundSnapshots());
+        assertEquals(2, FirestoreMetrics.getBackgroundDocuments());
+        assertEquals(200, FirestoreMetrics.getBackgroundBytes());
+
+        FirestoreMetrics.reset();
+        assertEquals(0, FirestoreMetrics.getBackgroundSnapshots());
+    }
+
+    @Test
+    public void testSummaryAndReset() {
+        FirestoreMetrics.record("TestScreen", "UserController.getUser", FirestoreMetrics.Kind.READ,
+                true, 1, 100, false, 10);
+        assertTrue(FirestoreMetrics.summary().contains("UserController.getUser"));
+
+        FirestoreMetrics.reset();
+        assertTrue(FirestoreMetrics.getAll().isEmpty());
+    }
+}
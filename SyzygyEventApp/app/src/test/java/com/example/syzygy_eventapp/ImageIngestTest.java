@@ -0,0 +1,65 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ImageIngest}'s sample size and quality search.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class ImageIngestTest {
+
+    // encodes to 100 bytes per quality point, so the size gives the quality back
+    private final List<Integer> qualities = new ArrayList<>();
+    private final ImageIngest.Encoder encoder = quality -> {
+        qualities.add(quality);
+        return new byte[quality * 100];
+    };
+
+    @Test
+    public void testSampleSizeKeepsAtLeastMaxSize() {
+        assertEquals(4, ImageIngest.sampleSizeFor(4000, 3000, 800));
+        assertEquals(4, ImageIngest.sampleSizeFor(3000, 4000, 800));
+        assertEquals(2, ImageIngest.sampleSizeFor(1600, 900, 800));
+    }
+
+    @Test
+    public void testSampleSizeOfSmallImage() {
+        assertEquals(1, ImageIngest.sampleSizeFor(800, 600, 800));
+        assertEquals(1, ImageIngest.sampleSizeFor(100, 100, 800));
+    }
+
+    @Test
+    public void testQualityFitsBudget() {
+        byte[] bytes = ImageIngest.searchQuality(encoder, 6_050);
+
+        assertEquals(60, bytes.length / 100);
+        assertTrue("Too many encodings: " + qualities, qualities.size() <= 7);
+    }
+
+    @Test
+    public void testMaxQualityWhenItFits() {
+        byte[] bytes = ImageIngest.searchQuality(encoder, 1_000_000);
+
+        assertEquals(ImageIngest.MAX_QUALITY, bytes.length / 100);
+        assertEquals(1, qualities.size());
+    }
+
+    @Test
+    public void testMinQualityWhenNothingFits() {
+        byte[] bytes = ImageIngest.searchQuality(encoder, 100);
+
+        assertEquals(ImageIngest.MIN_QUALITY, bytes.length / 100);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Build;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Unit tests for {@link ImagePlaceholder}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class ImagePlaceholderTest {
+
+    private ImageView view;
+
+    @Before
+    public void setUp() {
+        view = new ImageView(RuntimeEnvironment.getApplication());
+    }
+
+    @Test
+    public void testNoPlaceholderLeavesViewUnchanged() {
+        assertFalse(ImagePlaceholder.show(view, null));
+        assertFalse(ImagePlaceholder.show(view, "not base64!"));
+        assertNull(view.getDrawable());
+    }
+
+    @Test
+    public void testNoImageShowsFallback() {
+        ImagePlaceholder.load(view, null, null, R.drawable.image_placeholder);
+
+        assertNotNull(view.getDrawable());
+    }
+
+    @Test
+    public void testFullImageWithoutPlaceholderIsShownDirectly() {
+        Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        ImagePlaceholder.fadeIn(view, bitmap);
+
+        assertTrue(view.getDrawable() instanceof BitmapDrawable);
+    }
+
+    @Test
+    public void testEncodedPlaceholderIsSmall() {
+        Bitmap bitmap = Bitmap.createBitmap(800, 400, Bitmap.Config.ARGB_8888);
+        String placeholder = ImagePlaceholder.encode(bitmap);
+
+        assertNotNull(placeholder);
+        assertTrue(placeholder.length() < 2_000);
+    }
+}
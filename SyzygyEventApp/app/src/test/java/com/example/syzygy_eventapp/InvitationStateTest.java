@@ -0,0 +1,66 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link InvitationState} transitions.
+ */
+public class InvitationStateTest {
+
+    @Test
+    public void testPendingCanBecomeAnything() {
+        assertTrue(InvitationState.PENDING.canBecome(InvitationState.ACCEPTED));
+        assertTrue(InvitationState.PENDING.canBecome(InvitationState.DECLINED));
+        assertTrue(InvitationState.PENDING.canBecome(InvitationState.CANCELLED));
+    }
+
+    @Test
+    public void testAcceptedCanOnlyBeDeclined() {
+        assertTrue(InvitationState.ACCEPTED.canBecome(InvitationState.DECLINED));
+        assertTrue(InvitationState.ACCEPTED.canBecome(InvitationState.ACCEPTED));
+        assertFalse(InvitationState.ACCEPTED.canBecome(InvitationState.CANCELLED));
+    }
+
+    @Test
+    public void testDeclinedAndCancelledAreFinal() {
+        assertFalse(InvitationState.DECLINED.canBecome(InvitationState.ACCEPTED));
+        assertFalse(InvitationState.DECLINED.canBecome(InvitationState.CANCELLED));
+        assertFalse(InvitationState.CANCELLED.canBecome(InvitationState.ACCEPTED));
+        assertFalse(InvitationState.CANCELLED.canBecome(InvitationState.DECLINED));
+        assertFalse(InvitationState.CANCELLED.canBecome(InvitationState.CANCELLED));
+    }
+
+    @Test
+    public void testNothingGoesBackToPending() {
+        for (InvitationState state : InvitationState.values()) {
+            assertFalse(state.canBecome(InvitationState.PENDING));
+        }
+    }
+
+    @Test
+    public void testCounterFields() {
+        assertEquals(InvitationController.PENDING_COUNT, InvitationState.PENDING.counterField());
+        assertEquals(InvitationController.ACCEPTED_COUNT, InvitationState.ACCEPTED.counterField());
+        assertEquals(InvitationController.DECLINED_COUNT, InvitationState.DECLINED.counterField());
+        assertNull(InvitationState.CANCELLED.counterField());
+    }
+
+    @Test
+    public void testStateOfOlderInvites() {
+        assertEquals(InvitationState.PENDING, InvitationState.of(null, false, false));
+        assertEquals(InvitationState.ACCEPTED, InvitationState.of(true, false, true));
+        assertEquals(InvitationState.DECLINED, InvitationState.of(false, false, true));
+        assertEquals(InvitationState.CANCELLED, InvitationState.of(null, true, false));
+
+        Invitation invite = new Invitation("invite1", "event1", "organizer1", "user1",
+                true, new Timestamp(100L, 0), new Timestamp(200L, 0), false, null);
+        assertEquals(InvitationState.ACCEPTED, invite.getState());
+    }
+}
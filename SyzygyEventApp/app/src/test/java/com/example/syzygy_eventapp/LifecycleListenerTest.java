@@ -0,0 +1,134 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Build;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link LifecycleListener}. Runs with Robolectric for the main looper.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class LifecycleListenerTest {
+
+    private static class Owner implements LifecycleOwner {
+        final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+
+    private Owner owner;
+    private int added;
+    private int removed;
+
+    @Before
+    public void setUp() {
+        owner = new Owner();
+        added = 0;
+        removed = 0;
+        FirestoreMetrics.reset();
+    }
+
+    private LifecycleListener bind() {
+        return LifecycleListener.bind(owner, () -> {
+            added++;
+            return () -> removed++;
+        });
+    }
+
+    private void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    @Test
+    public void testOnlyListensOnceResumed() {
+        owner.registry.setCurrentState(Lifecycle.State.STARTED);
+        LifecycleListener listener = bind();
+        assertFalse(listener.isListening());
+
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        assertTrue(listener.isListening());
+        assertEquals(1, added);
+    }
+
+    @Test
+    public void testKeptDuringGracePeriod() {
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        LifecycleListener listener = bind();
+
+        owner.registry.setCurrentState(Lifecycle.State.STARTED);
+        idleFor(LifecycleListener.GRACE_PERIOD_MS / 2);
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        idleFor(LifecycleListener.GRACE_PERIOD_MS);
+
+        assertTrue(listener.isListening());
+        assertEquals(1, added);
+        assertEquals(0, removed);
+    }
+
+    @Test
+    public void testSuspendedAfterGracePeriodThenResumed() {
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        LifecycleListener listener = bind();
+
+        owner.registry.setCurrentState(Lifecycle.State.CREATED);
+        idleFor(LifecycleListener.GRACE_PERIOD_MS);
+        assertFalse(listener.isListening());
+        assertEquals(1, removed);
+
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        assertTrue(listener.isListening());
+        assertEquals(2, added);
+        assertEquals(1, FirestoreMetrics.getSuspensions());
+        assertEquals(1, FirestoreMetrics.getResumes());
+    }
+
+    @Test
+    public void testRemovedWhenDestroyed() {
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        LifecycleListener listener = bind();
+
+        owner.registry.setCurrentState(Lifecycle.State.DESTROYED);
+        assertFalse(listener.isListening());
+        assertEquals(1, removed);
+
+        idleFor(LifecycleListener.GRACE_PERIOD_MS);
+        assertEquals(1, removed);
+        assertEquals(0, FirestoreMetrics.getSuspensions());
+    }
+
+    @Test
+    public void testRemoveStopsResuming() {
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+        LifecycleListener listener = bind();
+
+        listener.remove();
+        owner.registry.setCurrentState(Lifecycle.State.STARTED);
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+
+        assertFalse(listener.isListening());
+        assertEquals(1, added);
+        assertEquals(1, removed);
+    }
+}
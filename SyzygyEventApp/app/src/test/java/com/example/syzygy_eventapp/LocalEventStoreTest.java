@@ -0,0 +1,193 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link LocalEventStore} and the queries observed through the {@link LocalMirror}.
+ * These tests run with Robolectric on an in-memory database.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class LocalEventStoreTest {
+
+    private static final long NOW = 1_750_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private LocalEventStore store;
+
+    @Before
+    public void setUp() {
+        store = new LocalEventStore(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    private static Timestamp at(long ms) {
+        return new Timestamp(new Date(ms));
+    }
+
+    private static Event event(String id, String organizerID, Long registrationEnd, String... waitingList) {
+        Event event = new Event();
+        event.setEventID(id);
+        event.setName("Event " + id);
+        event.setOrganizerID(organizerID);
+        event.setRegistrationStart(at(NOW - DAY));
+        event.setRegistrationEnd(registrationEnd != null ? at(registrationEnd) : null);
+        event.setWaitingList(new ArrayList<>(Arrays.asList(waitingList)));
+        return event;
+    }
+
+    private static Invitation invite(String id, String eventID, String recipientID, Boolean cancelled) {
+        return new Invitation(id, eventID, "organizer", recipientID, null, at(NOW), null, cancelled, null);
+    }
+
+    private static <T> SnapshotDelta<T> complete(List<T> items) {
+        return new SnapshotDelta<>(true, items, Collections.emptyList());
+    }
+
+    private static List<String> ids(List<Event> events) {
+        return events.stream().map(Event::getEventID).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEventReadsBackExactly() {
+        Event original = event("a", "organizer", NOW + DAY, "user1", "user2");
+        original.setDescription("Lessons");
+        original.setLocationCoordinates(new GeoPoint(53.5, -113.5));
+        original.setInvites(new ArrayList<>(Arrays.asList("invite1")));
+        original.setMaxWaitingList(10);
+        original.setAcceptedCount(1);
+        original.setCreatedAt(new Timestamp(1_700_000_000L, 123_456_789));
+        store.applyEvents(complete(Collections.singletonList(original)));
+
+        Event copy = store.getAllEvents().get(0);
+        assertEquals(DocumentMapper.toMap(original), DocumentMapper.toMap(copy));
+    }
+
+    @Test
+    public void testListsOnlyReadFullPosterWithoutThumbnail() {
+        Event withThumbnail = event("a", "organizer", NOW + DAY);
+        withThumbnail.setPosterUrl("full-a");
+        withThumbnail.setPosterThumbnail("thumb-a");
+        Event withoutThumbnail = event("b", "organizer", NOW + 2 * DAY);
+        withoutThumbnail.setPosterUrl("full-b");
+        store.applyEvents(complete(Arrays.asList(withThumbnail, withoutThumbnail)));
+
+        List<Event> events = store.getAllEvents();
+        assertNull(events.get(0).getPosterUrl());
+        assertEquals("thumb-a", events.get(0).posterPreview());
+        assertEquals("full-b", events.get(1).getPosterUrl());
+        assertEquals("full-b", events.get(1).posterPreview());
+    }
+
+    @Test
+    public void testDeltasUpdateAndRemove() {
+        store.applyEvents(complete(Arrays.asList(event("a", "o", NOW + DAY), event("b", "o", NOW + 2 * DAY))));
+
+        Event changed = event("a", "o", NOW + 3 * DAY, "user1");
+        store.applyEvents(new SnapshotDelta<>(false, Collections.singletonList(changed),
+                Collections.singletonList("b")));
+
+        List<Event> events = store.getAllEvents();
+        assertEquals(Collections.singletonList("a"), ids(events));
+        assertEquals(Collections.singletonList("user1"), events.get(0).getWaitingList());
+    }
+
+    @Test
+    public void testCompleteSnapshotDropsMissingEvents() {
+        store.applyEvents(complete(Arrays.asList(event("a", "o", NOW + DAY), event("b", "o", NOW + DAY))));
+        store.applyEvents(complete(Collections.singletonList(event("b", "o", NOW + DAY))));
+
+        assertEquals(Collections.singletonList("b"), ids(store.getAllEvents()));
+    }
+
+    @Test
+    public void testOpenEventsSortedByDeadline() {
+        store.applyEvents(complete(Arrays.asList(
+                event("later", "other", NOW + 2 * DAY),
+                event("closed", "other", NOW - DAY),
+                event("mine", "me", NOW + DAY),
+                event("sooner", "other", NOW + DAY),
+                event("noDeadline", "other", null))));
+
+        assertEquals(Arrays.asList("sooner", "later"), ids(store.getOpenEvents("me", NOW)));
+    }
+
+    @Test
+    public void testJoinedEventsFromWaitingListAndInvites() {
+        store.applyEvents(complete(Arrays.asList(
+                event("waiting", "o", NOW + 2 * DAY, "other", "me"),
+                event("invited", "o", NOW + DAY),
+                event("cancelled", "o", NOW + DAY),
+                event("unrelated", "o", NOW + DAY, "other"))));
+        store.applyInvitations(complete(Arrays.asList(
+                invite("i1", "invited", "me", false),
+                invite("i2", "cancelled", "me", true))), "me");
+
+        assertEquals(Arrays.asList("invited", "waiting"), ids(store.getJoinedEvents("me")));
+
+        // the invitation is cancelled later
+        store.applyInvitations(new SnapshotDelta<>(false,
+                Collections.singletonList(invite("i1", "invited", "me", true)), Collections.emptyList()), "me");
+        assertEquals(Collections.singletonList("waiting"), ids(store.getJoinedEvents("me")));
+    }
+
+    @Test
+    public void testInviteStatesFollowAnswers() {
+        store.applyInvitations(complete(Arrays.asList(
+                invite("i1", "invited", "me", false),
+                invite("i2", "cancelled", "me", true))), "me");
+        assertEquals(Collections.singletonMap("invited", InvitationState.PENDING), store.getInviteStates("me"));
+
+        // the invitation is accepted later
+        store.applyInvitations(new SnapshotDelta<>(false, Collections.singletonList(
+                new Invitation("i1", "invited", "organizer", "me", true, at(NOW), at(NOW + DAY), false, null)),
+                Collections.emptyList()), "me");
+        assertEquals(Collections.singletonMap("invited", InvitationState.ACCEPTED), store.getInviteStates("me"));
+    }
+
+    @Test
+    public void testMirrorObserversRerunAfterChanges() {
+        LocalMirror mirror = new LocalMirror(store, Runnable::run, Runnable::run);
+        List<List<String>> results = new ArrayList<>();
+
+        ListenerRegistration registration = mirror.observe(
+                local -> ids(local.getJoinedEvents("me")), results::add);
+        assertEquals(Collections.singletonList(Collections.emptyList()), results);
+
+        mirror.update(local -> local.applyEvents(complete(
+                Collections.singletonList(event("a", "o", NOW + DAY, "me")))));
+        assertEquals(Collections.singletonList("a"), results.get(1));
+
+        registration.remove();
+        mirror.update(local -> local.applyEvents(complete(Collections.emptyList())));
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isEmpty());
+    }
+}
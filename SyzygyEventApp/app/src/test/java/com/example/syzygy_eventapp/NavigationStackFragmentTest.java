@@ -0,0 +1,186 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.lifecycle.Lifecycle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for how {@link NavigationStackFragment} keeps hidden screens alive.
+ * These tests run with Robolectric in a bare activity.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class NavigationStackFragmentTest {
+
+    /**
+     * A screen that counts how many times its view was created
+     */
+    public static class CountingScreen extends Fragment {
+        int viewsCreated = 0;
+
+        @Nullable
+        @Override
+        public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                                 @Nullable Bundle savedInstanceState) {
+            viewsCreated++;
+            return new FrameLayout(inflater.getContext());
+        }
+    }
+
+    private NavigationStackFragment navStack;
+
+    @Before
+    public void setUp() {
+        ActivityController<FragmentActivity> controller = Robolectric.buildActivity(FragmentActivity.class);
+        controller.get().setTheme(R.style.Theme_SyzygyEventApp);
+        controller.setup();
+
+        navStack = new NavigationStackFragment();
+        controller.get().getSupportFragmentManager().beginTransaction()
+                .add(android.R.id.content, navStack)
+                .commitNow();
+    }
+
+    private void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @Test
+    public void testBackShowsRetainedScreen() {
+        CountingScreen first = new CountingScreen();
+        CountingScreen second = new CountingScreen();
+
+        navStack.pushScreen(first);
+        idle();
+        View firstView = first.getView();
+
+        navStack.pushScreen(second);
+        idle();
+        assertTrue(first.isHidden());
+        assertEquals(Lifecycle.State.STARTED, first.getLifecycle().getCurrentState());
+        assertEquals(1, navStack.getRetainedScreenCount());
+
+        navStack.popScreen();
+        idle();
+        assertFalse(first.isHidden());
+        assertFalse(second.isAdded());
+        assertSame(firstView, first.getView());
+        assertEquals(1, first.viewsCreated);
+        assertEquals(Lifecycle.State.RESUMED, first.getLifecycle().getCurrentState());
+    }
+
+    @Test
+    public void testTabSwitchKeepsOldTab() {
+        CountingScreen profile = new CountingScreen();
+        CountingScreen find = new CountingScreen();
+
+        navStack.pushScreen(profile);
+        navStack.replaceScreen(find, true);
+        navStack.replaceScreen(profile, true);
+        idle();
+
+        assertEquals(1, profile.viewsCreated);
+        assertTrue(find.isAdded());
+        assertTrue(find.isHidden());
+    }
+
+    @Test
+    public void testReplaceRemovesOldScreen() {
+        CountingScreen scanner = new CountingScreen();
+        navStack.pushScreen(new CountingScreen());
+        navStack.pushScreen(scanner);
+        navStack.replaceScreen(new CountingScreen());
+        idle();
+
+        assertFalse(scanner.isAdded());
+        assertEquals(1, navStack.getRetainedScreenCount());
+    }
+
+    @Test
+    public void testOldestScreensAreDropped() {
+        List<CountingScreen> screens = new ArrayList<>();
+        for (int i = 0; i < NavigationStackFragment.MAX_RETAINED_SCREENS + 2; i++) {
+            CountingScreen screen = new CountingScreen();
+            screens.add(screen);
+            navStack.pushScreen(screen);
+            idle();
+        }
+
+        assertEquals(NavigationStackFragment.MAX_RETAINED_SCREENS, navStack.getRetainedScreenCount());
+        assertFalse(screens.get(0).isAdded());
+        assertTrue(screens.get(1).isAdded());
+
+        // going all the way back recreates the dropped screen
+        for (int i = 0; i < screens.size() - 1; i++) {
+            navStack.popScreen();
+            idle();
+        }
+        assertTrue(screens.get(0).isAdded());
+        assertEquals(2, screens.get(0).viewsCreated);
+        assertEquals(1, screens.get(1).viewsCreated);
+    }
+
+    @Test
+    public void testTrimUnderMemoryPressure() {
+        navStack.pushScreen(new CountingScreen());
+        navStack.pushScreen(new CountingScreen());
+        CountingScreen top = new CountingScreen();
+        navStack.pushScreen(top);
+        idle();
+        assertEquals(2, navStack.getRetainedScreenCount());
+
+        navStack.trimRetainedScreens(0);
+        idle();
+        assertEquals(0, navStack.getRetainedScreenCount());
+        assertTrue(top.isAdded());
+    }
+
+    @Test
+    public void testRemoveHiddenScreen() {
+        CountingScreen bottom = new CountingScreen();
+        CountingScreen deleted = new CountingScreen();
+        CountingScreen top = new CountingScreen();
+        navStack.pushScreen(bottom);
+        navStack.pushScreen(deleted);
+        navStack.pushScreen(top);
+        idle();
+
+        navStack.removeScreen(deleted);
+        idle();
+        assertFalse(deleted.isAdded());
+        assertTrue(top.isAdded());
+
+        navStack.popScreen();
+        idle();
+        assertFalse(top.isAdded());
+        assertFalse(bottom.isHidden());
+        assertEquals(1, bottom.viewsCreated);
+    }
+}
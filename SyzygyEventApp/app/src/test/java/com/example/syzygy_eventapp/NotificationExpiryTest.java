@@ -0,0 +1,34 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for when notifications expire, see {@link NotificationController#expireAt(Timestamp)}.
+ */
+public class NotificationExpiryTest {
+
+    @Test
+    public void testExpiresAfterRetention() {
+        Timestamp created = new Timestamp(1_700_000_000L, 0);
+        Timestamp expiry = NotificationController.expireAt(created);
+
+        long retention = TimeUnit.DAYS.toSeconds(NotificationController.RETENTION_DAYS);
+        assertEquals(created.getSeconds() + retention, expiry.getSeconds());
+    }
+
+    @Test
+    public void testMissingCreationDateExpiresFromNow() {
+        long before = System.currentTimeMillis();
+        Timestamp expiry = NotificationController.expireAt(null);
+
+        long retention = TimeUnit.DAYS.toMillis(NotificationController.RETENTION_DAYS);
+        assertTrue(expiry.toDate().getTime() >= before + retention);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Unit tests for {@link OperationPolicy}. Time is controlled by a manual scheduler, so the tests never wait.
+ * Runs with Robolectric for the Firebase exception classes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class OperationPolicyTest {
+
+    /**
+     * A scheduler where time only passes when the test says so
+     */
+    private static class ManualScheduler implements DataStream.Scheduler {
+        private static class Scheduled {
+            final Runnable task;
+            final long at;
+
+            Scheduled(Runnable task, long at) {
+                this.task = task;
+                this.at = at;
+            }
+        }
+
+        final List<Scheduled> tasks = new ArrayList<>();
+        long now = 0;
+
+        @Override
+        public Runnable schedule(Runnable task, long delayMs) {
+            Scheduled scheduled = new Scheduled(task, now + delayMs);
+            tasks.add(scheduled);
+            return () -> tasks.remove(scheduled);
+        }
+
+        /**
+         * Runs scheduled tasks in order until none are due in the next {@code ms}
+         */
+        void advance(long ms) {
+            long until = now + ms;
+            while (true) {
+                Scheduled next = null;
+                for (Scheduled scheduled : tasks) {
+                    if (scheduled.at <= until && (next == null || scheduled.at < next.at)) {
+                        next = scheduled;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = Math.max(now, next.at);
+                next.task.run();
+            }
+            now = until;
+        }
+    }
+
+    private ManualScheduler scheduler;
+    private OperationPolicy policy;
+    private int attempts;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        policy = new OperationPolicy(scheduler, () -> scheduler.now, new Random(42));
+        attempts = 0;
+        FirestoreMetrics.reset();
+    }
+
+    private static FirebaseFirestoreException error(FirebaseFirestoreException.Code code) {
+        return new FirebaseFirestoreException(code.name(), code);
+    }
+
+    /**
+     * An attempt that fails {@code failures} times with {@code code}, then succeeds
+     */
+    private Task<String> failThenSucceed(int failures, FirebaseFirestoreException.Code code) {
+        attempts++;
+        if (attempts <= failures) {
+            return Tasks.forException(error(code));
+        }
+        return Tasks.forResult("done");
+    }
+
+    private FirestoreMetrics.OperationStats stats(String operation) {
+        for (FirestoreMetrics.OperationStats entry : FirestoreMetrics.getAll()) {
+            if (entry.operation.equals(operation)) {
+                return entry;
+            }
+        }
+        throw new AssertionError("nothing recorded for " + operation);
+    }
+
+    @Test
+    public void testTransientErrors() {
+        assertTrue(OperationPolicy.isTransient(error(FirebaseFirestoreException.Code.UNAVAILABLE)));
+        assertTrue(OperationPolicy.isTransient(error(FirebaseFirestoreException.Code.ABORTED)));
+        assertTrue(OperationPolicy.isTransient(new TimeoutException()));
+        assertTrue(OperationPolicy.isTransient(new RuntimeException(error(FirebaseFirestoreException.Code.UNAVAILABLE))));
+
+        assertFalse(OperationPolicy.isTransient(error(FirebaseFirestoreException.Code.PERMISSION_DENIED)));
+        assertFalse(OperationPolicy.isTransient(error(FirebaseFirestoreException.Code.NOT_FOUND)));
+        assertFalse(OperationPolicy.isTransient(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void testBackoffGrowsWithJitter() {
+        Set<Long> delays = new HashSet<>();
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long cap = Math.min(OperationPolicy.MAX_DELAY_MS, OperationPolicy.BASE_DELAY_MS << (attempt - 1));
+            for (int i = 0; i < 20; i++) {
+                long delay = policy.backoff(attempt);
+                assertTrue(delay >= 0 && delay < cap);
+                delays.add(delay);
+            }
+        }
+        // jittered, so delays aren't all the same
+        assertTrue(delays.size() > 10);
+    }
+
+    @Test
+    public void testRetriesTransientFailures() {
+        Task<String> result = policy.retry("test", FirestoreMetrics.Kind.READ, 10_000,
+                () -> failThenSucceed(2, FirebaseFirestoreException.Code.UNAVAILABLE));
+
+        assertFalse(result.isComplete());
+        scheduler.advance(10_000);
+
+        assertTrue(result.isSuccessful());
+        assertEquals("done", result.getResult());
+        assertEquals(3, attempts);
+        assertEquals(2, stats("test").getRetries());
+        assertEquals(0, stats("test").getGiveUps());
+    }
+
+    @Test
+    public void testDoesntRetryOtherFailures() {
+        Task<String> result = policy.retry("test", FirestoreMetrics.Kind.READ, 10_000,
+                () -> failThenSucceed(1, FirebaseFirestoreException.Code.PERMISSION_DENIED));
+
+        assertTrue(result.isComplete());
+        assertFalse(result.isSuccessful());
+        assertEquals(1, attempts);
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        Task<String> result = policy.retry("test", FirestoreMetrics.Kind.READ, 60_000,
+                () -> failThenSucceed(100, FirebaseFirestoreException.Code.UNAVAILABLE));
+        scheduler.advance(60_000);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(OperationPolicy.MAX_ATTEMPTS, attempts);
+        assertEquals(OperationPolicy.MAX_ATTEMPTS - 1, stats("test").getRetries());
+        assertEquals(1, stats("test").getGiveUps());
+    }
+
+    @Test
+    public void testAttemptTimesOutAtDeadline() {
+        TaskCompletionSource<String> hanging = new TaskCompletionSource<>();
+        Task<String> result = policy.retry("test", FirestoreMetrics.Kind.READ, 1000, () -> {
+            attempts++;
+            return hanging.getTask();
+        });
+
+        scheduler.advance(999);
+        assertFalse(result.isComplete());
+
+        scheduler.advance(1);
+        assertTrue(result.isComplete());
+        assertTrue(result.getException() instanceof TimeoutException);
+        assertEquals(1, attempts);
+        assertEquals(1, stats("test").getGiveUps());
+    }
+
+    @Test
+    public void testWriteIsNeverRetried() {
+        TaskCompletionSource<Void> queued = new TaskCompletionSource<>();
+        Task<Void> result = policy.write("test", 1, queued.getTask());
+
+        scheduler.advance(OperationPolicy.WRITE_DEADLINE_MS);
+        assertTrue(result.getException() instanceof TimeoutException);
+        assertEquals(1, stats("test").getGiveUps());
+        assertEquals(0, stats("test").getRetries());
+    }
+
+    @Test
+    public void testCallKeepsIdempotencyKey() {
+        List<Object> keys = new ArrayList<>();
+        Task<String> result = policy.call("test", data -> {
+            keys.add(data.get(OperationPolicy.IDEMPOTENCY_KEY));
+            return failThenSucceed(2, FirebaseFirestoreException.Code.UNAVAILABLE);
+        }, Collections.singletonMap("lotteryID", "event"));
+        scheduler.advance(OperationPolicy.CALL_DEADLINE_MS);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(3, keys.size());
+        assertNotNull(keys.get(0));
+        assertEquals(1, new HashSet<>(keys).size());
+    }
+
+    @Test
+    public void testOpenBreakerFailsFast() {
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            policy.call("test", data -> failThenSucceed(100, FirebaseFirestoreException.Code.UNAVAILABLE),
+                    Collections.<String, Object>emptyMap());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, policy.breaker("test").getState());
+
+        int before = attempts;
+        Task<String> result = policy.call("test", data -> failThenSucceed(0, null),
+                Collections.<String, Object>emptyMap());
+
+        assertTrue(result.getException() instanceof CircuitBreaker.OpenException);
+        assertEquals(before, attempts);
+        assertEquals(1, stats("test").getRejected());
+    }
+}
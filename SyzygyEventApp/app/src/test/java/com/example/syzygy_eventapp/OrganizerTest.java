@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -171,4 +172,17 @@ public class OrganizerTest {
         assertTrue(organizer.hasOwnedEventID("event1"));
         assertFalse(organizer.hasOwnedEventID("event5"));
     }
+
+    /**
+     * Tests that adding many event IDs at once skips ones that are already owned.
+     */
+    @Test
+    public void testAddOwnedEventIDs() {
+        Organizer organizer = new Organizer();
+        organizer.addOwnedEventID("event1");
+
+        organizer.addOwnedEventIDs(Arrays.asList("event1", "event2", "event3", "event2"));
+
+        assertEquals(Arrays.asList("event1", "event2", "event3"), organizer.getOwnedEventIDs());
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the pure helpers of {@link QRCodeRenderer}
+ */
+public class QRCodeRendererTest {
+
+    @Test
+    public void testDeepLinkFormat() {
+        assertEquals("syzygy://event/abcdefghij0123456789",
+                QRCodeRenderer.deepLinkFor("abcdefghij0123456789"));
+    }
+
+    @Test
+    public void testCacheFileNameIsSafe() {
+        String fileName = QRCodeRenderer.cacheFileName(QRCodeRenderer.deepLinkFor("abc123"));
+        assertTrue(fileName.endsWith(".png"));
+        assertTrue(fileName.substring(0, fileName.length() - 4).matches("[a-zA-Z0-9_]+"));
+    }
+
+    @Test
+    public void testCacheFileNameIsPerEvent() {
+        assertNotEquals(
+                QRCodeRenderer.cacheFileName(QRCodeRenderer.deepLinkFor("eventA")),
+                QRCodeRenderer.cacheFileName(QRCodeRenderer.deepLinkFor("eventB")));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the summaries of {@link ScreenTracer}
+ */
+public class ScreenTracerTest {
+
+    @Before
+    public void setUp() {
+        ScreenTracer.reset();
+    }
+
+    @Test
+    public void testPercentiles() {
+        for (long sample = 1; sample <= 100; sample++) {
+            ScreenTracer.addSample("FindEventsFragment", ScreenTracer.Phase.FIRST_CONTENT, sample);
+        }
+
+        assertEquals(50, ScreenTracer.getPercentile("FindEventsFragment", ScreenTracer.Phase.FIRST_CONTENT, 0.5));
+        assertEquals(95, ScreenTracer.getPercentile("FindEventsFragment", ScreenTracer.Phase.FIRST_CONTENT, 0.95));
+        assertEquals(100, ScreenTracer.getPercentile("FindEventsFragment", ScreenTracer.Phase.FIRST_CONTENT, 1));
+    }
+
+    @Test
+    public void testNoSamples() {
+        assertEquals(-1, ScreenTracer.getPercentile("EventFragment", ScreenTracer.Phase.FIRST_FRAME, 0.5));
+        assertEquals("No screens timed yet.", ScreenTracer.summary());
+    }
+
+    @Test
+    public void testKeepsRecentSamples() {
+        for (int i = 0; i < 150; i++) {
+            ScreenTracer.addSample("EventFragment", ScreenTracer.Phase.FIRST_FRAME, i < 50 ? 10_000 : 10);
+        }
+
+        // the slow samples were the oldest, and have been dropped
+        assertEquals(10, ScreenTracer.getPercentile("EventFragment", ScreenTracer.Phase.FIRST_FRAME, 1));
+    }
+
+    @Test
+    public void testSummaryPerScreen() {
+        ScreenTracer.addSample("EventFragment", ScreenTracer.Phase.FIRST_FRAME, 40);
+        ScreenTracer.addSample("EventFragment", ScreenTracer.Phase.FIRST_CONTENT, 300);
+        ScreenTracer.addSample("FindEventsFragment", ScreenTracer.Phase.FIRST_CONTENT, 600);
+
+        String summary = ScreenTracer.summary();
+        assertTrue(summary.contains("EventFragment (budget 800ms)"));
+        assertTrue(summary.contains("first frame: p50 40ms"));
+        assertTrue(summary.contains("first content: p50 600ms"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.syzygy_eventapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link SnapshotDecoder}. Runs with Robolectric for the main looper.
+ * Snapshots are stood in for by strings, decoded on a real background thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.UPSIDE_DOWN_CAKE, manifest = Config.NONE)
+public class SnapshotDecoderTest {
+
+    private ExecutorService background;
+    private SnapshotDecoder decoder;
+
+    private final List<Boolean> decodedOnMain = new CopyOnWriteArrayList<>();
+    private final List<Boolean> deliveredOnMain = new CopyOnWriteArrayList<>();
+    private final List<List<String>> results = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        background = Executors.newSingleThreadExecutor();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        decoder = new SnapshotDecoder(background, mainHandler::post);
+    }
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+    }
+
+    private static boolean onMainLooper() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private EventListener<String> listener(AtomicBoolean removed) {
+        return decoder.decodeThenPost(removed, snap -> {
+            decodedOnMain.add(onMainLooper());
+            if (snap.isEmpty()) {
+                throw new IllegalStateException("malformed");
+            }
+            return SnapshotDecoder.immutable(Arrays.asList(snap.split(",")));
+        }, result -> {
+            deliveredOnMain.add(onMainLooper());
+            results.add(result);
+        });
+    }
+
+    /**
+     * Calls the listener on the background thread, like Firestore does, then runs the main looper
+     */
+    private void snapshot(EventListener<String> listener, String snap, FirebaseFirestoreException error)
+            throws Exception {
+        background.submit(() -> listener.onEvent(snap, error)).get(5, TimeUnit.SECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @Test
+    public void testDecodesOffMainLooper() throws Exception {
+        snapshot(listener(new AtomicBoolean(false)), "a,b", null);
+
+        assertEquals(Collections.singletonList(false), decodedOnMain);
+        assertEquals(Collections.singletonList(true), deliveredOnMain);
+        assertEquals(Arrays.asList("a", "b"), results.get(0));
+    }
+
+    @Test
+    public void testDeliversInOrder() throws Exception {
+        EventListener<String> listener = listener(new AtomicBoolean(false));
+        background.submit(() -> listener.onEvent("1", null));
+        background.submit(() -> listener.onEvent("2", null));
+        snapshot(listener, "3", null);
+
+        assertEquals(3, results.size());
+        assertEquals("1", results.get(0).get(0));
+        assertEquals("3", results.get(2).get(0));
+        assertTrue(decodedOnMain.stream().noneMatch(onMain -> onMain));
+    }
+
+    @Test
+    public void testDropsResultsAfterRemove() throws Exception {
+        AtomicBoolean removed = new AtomicBoolean(false);
+        EventListener<String> listener = listener(removed);
+
+        background.submit(() -> listener.onEvent("a", null)).get(5, TimeUnit.SECONDS);
+        removed.set(true);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, decodedOnMain.size());
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testSkipsErrorsAndMalformedSnapshots() throws Exception {
+        EventListener<String> listener = listener(new AtomicBoolean(false));
+        snapshot(listener, null, new FirebaseFirestoreException("offline",
+                FirebaseFirestoreException.Code.UNAVAILABLE));
+        snapshot(listener, "", null);
+
+        // only the malformed snapshot reached the decoder, and nothing was delivered
+        assertEquals(1, decodedOnMain.size());
+        assertTrue(results.isEmpty());
+
+        // the listener keeps working afterwards
+        snapshot(listener, "c", null);
+        assertEquals(Collections.singletonList("c"), results.get(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultsAreImmutable() throws Exception {
+        snapshot(listener(new AtomicBoolean(false)), "a", null);
+        results.get(0).add("b");
+    }
+}
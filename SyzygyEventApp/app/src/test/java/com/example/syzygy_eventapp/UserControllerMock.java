@@ -7,6 +7,7 @@ import com.google.firebase.firestore.ListenerRegistration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public class UserControllerMock implements UserControllerInterface {
@@ -44,6 +45,10 @@ public class UserControllerMock implements UserControllerInterface {
         return Tasks.forResult(null);
     }
 
+    public Task<Void> updateFields(String userID, Map<String, Object> fields, Role expectedRole) {
+        return Tasks.forResult(null);
+    }
+
     public Task<User> setUserRole(String userID, Role role) {
         return Tasks.forResult(new User());
     }
@@ -155,4 +155,79 @@ public class UserTest {
 
         assertTrue(user.isPhotoHidden());
     }
+
+    /**
+     * A controller that records the updates it's asked to write
+     */
+    private static class RecordingController extends UserControllerMock {
+        final java.util.List<java.util.Map<String, Object>> updates = new ArrayList<>();
+        final java.util.List<Role> expectedRoles = new ArrayList<>();
+
+        @Override
+        public Task<Void> updateFields(String userID, HashMap<String, Object> fields) {
+            return updateFields(userID, fields, null);
+        }
+
+        @Override
+        public Task<Void> updateFields(String userID, java.util.Map<String, Object> fields, Role expectedRole) {
+            updates.add(new HashMap<>(fields));
+            expectedRoles.add(expectedRole);
+            return Tasks.forResult(null);
+        }
+    }
+
+    /**
+     * Tests that an edit session saves all its changes with one update, and only when committed.
+     */
+    @Test
+    public void testEditSessionCommitsOnce() {
+        RecordingController controller = new RecordingController();
+        UserController.overrideInstance(controller);
+        User user = new User("U001", "Old Name", null, null, null, false, false, Role.ENTRANT);
+
+        User.Edit edit = user.edit()
+                .setName("New Name")
+                .setEmail("new@example.com")
+                .setSystemNotifications(false);
+        assertTrue(edit.hasChanges());
+        assertEquals("Old Name", user.getName());
+        assertTrue(controller.updates.isEmpty());
+
+        edit.commit();
+
+        assertEquals(1, controller.updates.size());
+        assertEquals(3, controller.updates.get(0).size());
+        assertNull(controller.expectedRoles.get(0));
+        assertEquals("New Name", user.getName());
+        assertEquals("new@example.com", user.getEmail());
+        assertFalse(user.isSystemNotifications());
+        assertFalse(edit.hasChanges());
+
+        // nothing left to save
+        edit.commit();
+        assertEquals(1, controller.updates.size());
+    }
+
+    /**
+     * Tests that role changes are only saved if the user still has their old role.
+     */
+    @Test
+    public void testEditSessionRoleChangeHasPrecondition() {
+        RecordingController controller = new RecordingController();
+        UserController.overrideInstance(controller);
+        User user = new User("U001", "Name", null, null, null, false, false, Role.ORGANIZER);
+
+        User.Edit edit = user.edit().setRole(Role.ENTRANT);
+        edit.commit();
+
+        assertEquals(Role.ORGANIZER, controller.expectedRoles.get(0));
+        assertEquals("ENTRANT", controller.updates.get(0).get("role"));
+        assertEquals(true, controller.updates.get(0).get("demoted"));
+        assertEquals(Role.ENTRANT, user.getRole());
+        assertTrue(user.isDemoted());
+
+        // later edits in the same session don't need the role checked again
+        edit.setPhone("780-555-0101").commit();
+        assertNull(controller.expectedRoles.get(1));
+    }
 }
@@ -0,0 +1,375 @@
+import {
+    BulkWriter, CollectionReference, DocumentData, DocumentReference, FieldPath, Firestore,
+    getFirestore, Query, QueryDocumentSnapshot, Timestamp,
+} from "firebase-admin/firestore";
+import { logger } from "firebase-functions/v2";
+import { onSchedule } from "firebase-functions/v2/scheduler";
+import { stateOf } from "./invitationStates";
+
+const debug = false;
+
+/** How many days after it takes place an event is archived */
+export const eventRetentionDays = 180;
+
+/** How many days notifications and their fan-out are kept, through their TTL field */
+export const notificationRetentionDays = 90;
+
+/** The field Firestore's TTL policy deletes notifications and their fan-out by */
+export const expireAtField = "expireAt";
+
+/** How many finished events are read at a time */
+const eventPageSize = 25;
+
+/** How many invitations or subcollection documents of one event are read at a time */
+const childPageSize = 500;
+
+/** How long one run keeps archiving, so it stops well before its timeout */
+const runMillis = 1000 * 60 * 8; // 8 minutes
+
+const millisPerDay = 1000 * 60 * 60 * 24;
+
+/** When {archiveFinishedEvents} runs */
+const archiveSchedule = "0 4 * * *"; // every day at 4am
+
+/** What a run of the archival job did */
+export interface ArchiveResult {
+    events: number;
+    invitations: number;
+    locations: number;
+    notifications: number;
+    /** events that couldn't be archived, they're tried again by the next run */
+    failed: number;
+    /** false if the run stopped early, with finished events left for the next one */
+    done: boolean;
+}
+
+/**
+ * Works out when a notification, or its fan-out, expires
+ *
+ * @param {Timestamp} from when the notification was created
+ * @return {Timestamp} when Firestore's TTL policy can delete it
+ */
+export function expireAt(from: Timestamp): Timestamp {
+    return Timestamp.fromMillis(from.toMillis() + notificationRetentionDays * millisPerDay);
+}
+
+/**
+ * Archives events that took place more than {eventRetentionDays} ago.
+ *
+ * @type CloudFunction
+ */
+export const archiveFinishedEvents =
+    onSchedule({ schedule: archiveSchedule, timeoutSeconds: 540 }, async () => {
+        const result = await ArchiveManager.getInstance().archiveFinishedEvents(Timestamp.now());
+        logger.info("archiveFinishedEvents", result);
+    });
+
+/**
+ * A singleton that moves finished events and everything that belongs to them out of the
+ * collections the app reads, so those stay the same size however many terms go by.
+ *
+ * Each archived event leaves behind:
+ * - its document in "archivedEvents", with its "entrantLocations" under it
+ * - its invitations in "archivedInvitations"
+ * - a compact summary in "eventSummaries", with the fields history views show and
+ *   the IDs of its entrants, to find a user's past events by
+ * and its notifications get an "expireAt", so the TTL policy deletes them and their fan-out.
+ *
+ * Everything is copied before anything is deleted, and the event document is deleted last,
+ * so a run that stops partway leaves the event to be archived again by the next run.
+ */
+export class ArchiveManager {
+    static singletonInstance: ArchiveManager;
+
+    /**
+     * Gets the {ArchiveManager} singleton, creating it if needed.
+     *
+     * @static
+     * @return {ArchiveManager} the {ArchiveManager} singleton
+     */
+    static getInstance(): ArchiveManager {
+        if (this.singletonInstance === undefined) {
+            this.singletonInstance = new ArchiveManager(getFirestore());
+        }
+
+        return this.singletonInstance;
+    }
+
+    db: Firestore;
+    eventsRef: CollectionReference;
+    invitationsRef: CollectionReference;
+    notifsRef: CollectionReference;
+    userNotifsRef: CollectionReference;
+    archivedEventsRef: CollectionReference;
+    archivedInvitationsRef: CollectionReference;
+    summariesRef: CollectionReference;
+
+    /**
+     * Creates an instance of ArchiveManager.
+     *
+     * @constructor
+     * @param {Firestore} db the database to archive in
+     */
+    constructor(db: Firestore) {
+        this.db = db;
+        this.eventsRef = db.collection("events");
+        this.invitationsRef = db.collection("invitations");
+        this.notifsRef = db.collection("notifications");
+        this.userNotifsRef = db.collection("userNotifications");
+        this.archivedEventsRef = db.collection("archivedEvents");
+        this.archivedInvitationsRef = db.collection("archivedInvitations");
+        this.summariesRef = db.collection("eventSummaries");
+    }
+
+    /**
+     * Archives every event that took place more than {eventRetentionDays} before now,
+     * oldest first, a page of events at a time.
+     *
+     * @param {Timestamp} now the current time
+     * @param {number} deadline when to stop, in epoch milliseconds
+     * @return {Promise<ArchiveResult>} what was archived
+     */
+    async archiveFinishedEvents(
+        now: Timestamp, deadline: number = Date.now() + runMillis): Promise<ArchiveResult> {
+        const cutoff = Timestamp.fromMillis(now.toMillis() - eventRetentionDays * millisPerDay);
+        const result: ArchiveResult = {
+            events: 0, invitations: 0, locations: 0, notifications: 0, failed: 0, done: false,
+        };
+        const finished = this.eventsRef.where("eventTime", "<", cutoff).orderBy("eventTime");
+        let last: QueryDocumentSnapshot | null = null;
+
+        while (Date.now() < deadline) {
+            // continue after the last event instead of from the start, so failed events are skipped
+            let page = finished.limit(eventPageSize);
+            if (last != null) page = page.startAfter(last);
+            const snap = await page.get();
+            if (snap.empty) {
+                result.done = true;
+                break;
+            }
+
+            for (const eventSnap of snap.docs) {
+                if (Date.now() >= deadline) break;
+                try {
+                    await this.archiveEvent(eventSnap, result);
+                } catch (err) {
+                    logger.error(`Failed to archive event ${eventSnap.id}`, err);
+                    result.failed++;
+                }
+                last = eventSnap;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Archives one event, its invitations and its entrant locations.
+     *
+     * @param {QueryDocumentSnapshot} eventSnap the event
+     * @param {ArchiveResult} result counts what was archived
+     */
+    async archiveEvent(eventSnap: QueryDocumentSnapshot, result: ArchiveResult) {
+        const eventId = eventSnap.id;
+        const archivedRef = this.archivedEventsRef.doc(eventId);
+        const archivedAt = Timestamp.now();
+        if (debug) logger.debug("archiveEvent", eventId);
+
+        const writer = this.db.bulkWriter();
+        const writes: Promise<unknown>[] = [];
+        try {
+            await this.moveEvent(eventSnap, archivedRef, archivedAt, writer, writes, result);
+        } finally {
+            // after a failure, the writes still queued are let go of quietly
+            await Promise.all(writes.splice(0).map((write) => write.catch(() => undefined)));
+            await writer.close().catch(() => undefined);
+        }
+        result.events++;
+    }
+
+    /**
+     * Copies an event and everything that belongs to it, then deletes the originals
+     *
+     * @param {QueryDocumentSnapshot} eventSnap the event
+     * @param {DocumentReference} archivedRef where the event is archived to
+     * @param {Timestamp} archivedAt when the event is archived
+     * @param {BulkWriter} writer writes the copies and deletes
+     * @param {Promise[]} writes collects the writes
+     * @param {ArchiveResult} result counts what was archived
+     */
+    private async moveEvent(
+        eventSnap: QueryDocumentSnapshot, archivedRef: DocumentReference, archivedAt: Timestamp,
+        writer: BulkWriter, writes: Promise<unknown>[], result: ArchiveResult) {
+        const eventId = eventSnap.id;
+
+        // copy
+        const invitations = this.invitationsRef.where("event", "==", eventId);
+        result.invitations += await this.copyAll(writer, writes, invitations,
+            (doc) => this.archivedInvitationsRef.doc(doc.id));
+        const locations = eventSnap.ref.collection("entrantLocations");
+        result.locations += await this.copyAll(writer, writes, locations,
+            (doc) => archivedRef.collection("entrantLocations").doc(doc.id));
+        await this.settle(writer, writes);
+
+        // the summary is made from the archived copies, so it's complete even if an earlier
+        // run already deleted some of the originals
+        const summary = await this.summarize(eventSnap, archivedAt);
+        writes.push(writer.set(this.summariesRef.doc(eventId), summary));
+        writes.push(writer.set(archivedRef, { ...eventSnap.data(), archivedAt: archivedAt }));
+        result.notifications += await this.expireNotifications(writer, writes, eventId, archivedAt);
+        // nothing is deleted unless every copy was written
+        await this.settle(writer, writes);
+
+        // delete, along with counter shards left from when counters were kept in them
+        await this.deleteAll(writer, writes, invitations);
+        await this.deleteAll(writer, writes, locations);
+        await this.deleteAll(writer, writes, eventSnap.ref.collection("counterShards"));
+        writes.push(writer.delete(eventSnap.ref));
+        await this.settle(writer, writes);
+    }
+
+    /**
+     * Waits for every write so far, failing if any of them failed
+     *
+     * @param {BulkWriter} writer the writer
+     * @param {Promise[]} writes the writes so far, emptied once they're written
+     */
+    private async settle(writer: BulkWriter, writes: Promise<unknown>[]) {
+        await writer.flush();
+        await Promise.all(writes.splice(0));
+    }
+
+    /**
+     * Copies every document a query matches, a page at a time
+     *
+     * @param {BulkWriter} writer writes the copies
+     * @param {Promise[]} writes collects the writes
+     * @param {Query} query the documents to copy
+     * @param {function} target where each document is copied to
+     * @return {Promise<number>} how many documents were copied
+     */
+    private async copyAll(
+        writer: BulkWriter, writes: Promise<unknown>[], query: Query,
+        target: (doc: QueryDocumentSnapshot) => DocumentReference): Promise<number> {
+        let copied = 0;
+        let last: QueryDocumentSnapshot | null = null;
+
+        for (;;) {
+            let page = query.orderBy(FieldPath.documentId()).limit(childPageSize);
+            if (last != null) page = page.startAfter(last);
+            const snap = await page.get();
+
+            for (const doc of snap.docs) {
+                writes.push(writer.set(target(doc), doc.data()));
+            }
+            copied += snap.size;
+
+            if (snap.size < childPageSize) return copied;
+            last = snap.docs[snap.size - 1];
+        }
+    }
+
+    /**
+     * Deletes every document a query matches, a page at a time
+     *
+     * @param {BulkWriter} writer deletes the documents
+     * @param {Promise[]} writes collects the deletes
+     * @param {Query} query the documents to delete
+     */
+    private async deleteAll(writer: BulkWriter, writes: Promise<unknown>[], query: Query) {
+        for (;;) {
+            // deleted documents no longer match, so the first page is always the next one
+            const snap = await query.limit(childPageSize).select().get();
+            if (snap.empty) return;
+
+            for (const doc of snap.docs) {
+                writes.push(writer.delete(doc.ref));
+            }
+            await this.settle(writer, writes);
+        }
+    }
+
+    /**
+     * Makes the summary of an event history views show once it's archived.
+     * It has the same field names as an event, so the app reads it like one.
+     *
+     * @param {QueryDocumentSnapshot} eventSnap the event
+     * @param {Timestamp} archivedAt when the event was archived
+     * @return {Promise<DocumentData>} the summary
+     */
+    private async summarize(
+        eventSnap: QueryDocumentSnapshot, archivedAt: Timestamp): Promise<DocumentData> {
+        const event = eventSnap.data();
+        const counts = { PENDING: 0, ACCEPTED: 0, DECLINED: 0, CANCELLED: 0 };
+        const attendeeIDs: string[] = [];
+        const entrantIDs = new Set<string>(event.waitingList ?? []);
+
+        const invitations = await this.archivedInvitationsRef
+            .where("event", "==", eventSnap.id)
+            .select("recipientID", "accepted", "cancelled", "responseTime")
+            .get();
+        for (const doc of invitations.docs) {
+            const state = stateOf(doc.data());
+            counts[state]++;
+
+            const recipientID = doc.get("recipientID");
+            if (recipientID == null || state === "CANCELLED") continue;
+            entrantIDs.add(recipientID);
+            if (state === "ACCEPTED") attendeeIDs.push(recipientID);
+        }
+
+        return {
+            eventID: eventSnap.id,
+            name: event.name ?? null,
+            organizerID: event.organizerID ?? null,
+            locationName: event.locationName ?? null,
+            eventTime: event.eventTime ?? null,
+            registrationStart: event.registrationStart ?? null,
+            registrationEnd: event.registrationEnd ?? null,
+            maxAttendees: event.maxAttendees ?? null,
+            lotteryComplete: event.lotteryComplete ?? false,
+            posterPlaceholder: event.posterPlaceholder ?? null,
+            acceptedCount: counts.ACCEPTED,
+            pendingCount: counts.PENDING,
+            declinedCount: counts.DECLINED,
+            cancelledCount: counts.CANCELLED,
+            waitingCount: event.waitingList?.length ?? 0,
+            attendeeIDs: attendeeIDs,
+            entrantIDs: [...entrantIDs],
+            archivedAt: archivedAt,
+        };
+    }
+
+    /**
+     * Gives an event's notifications and their fan-out an expiry, if they don't have one
+     *
+     * @param {BulkWriter} writer writes the expiries
+     * @param {Promise[]} writes collects the writes
+     * @param {string} eventId the event
+     * @param {Timestamp} archivedAt when the event was archived, for notifications without
+     * a creation date
+     * @return {Promise<number>} how many notifications were given an expiry
+     */
+    private async expireNotifications(
+        writer: BulkWriter, writes: Promise<unknown>[], eventId: string,
+        archivedAt: Timestamp): Promise<number> {
+        const notifs = await this.notifsRef.where("eventId", "==", eventId).get();
+
+        let expired = 0;
+        for (const notif of notifs.docs) {
+            if (notif.get(expireAtField) != null) continue;
+            const expiry = expireAt(notif.get("creationDate") ?? archivedAt);
+
+            writes.push(writer.update(notif.ref, { [expireAtField]: expiry }));
+            const fanOut = await this.userNotifsRef
+                .where("notificationId", "==", notif.get("id"))
+                .select()
+                .get();
+            for (const userNotif of fanOut.docs) {
+                writes.push(writer.update(userNotif.ref, { [expireAtField]: expiry }));
+            }
+            expired++;
+        }
+        return expired;
+    }
+}
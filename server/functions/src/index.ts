@@ -5,5 +5,7 @@ setGlobalOptions({ maxInstances: 3 });
 
 initializeApp();
 
+export * from "./archiveManager";
+export * from "./invitationStates";
 export * from "./lotteryManager";
 export * from "./notificationManager";
@@ -0,0 +1,118 @@
+import {
+    DocumentData, FieldPath, Firestore, getFirestore, Query,
+} from "firebase-admin/firestore";
+import { logger } from "firebase-functions/v2";
+import { onDocumentWritten } from "firebase-functions/v2/firestore";
+import { onCall } from "firebase-functions/v2/https";
+
+const debug = false;
+
+/** The states an invitation can be in, see InvitationState in the app */
+type InvitationState = "PENDING" | "ACCEPTED" | "DECLINED" | "CANCELLED";
+
+/** How many invitations {backfillInvitationStates} reads at a time */
+const backfillPageSize = 500;
+
+/** How long {backfillInvitationStates} keeps going before returning where to continue from */
+const backfillMillis = 1000 * 60 * 8; // 8 minutes, under the function's timeout
+
+/**
+ * Works out an invitation's state from its older fields.
+ * Mirrors InvitationState.of in the app.
+ *
+ * @param {DocumentData} data the invitation document
+ * @return {InvitationState} the invitation's state
+ */
+export function stateOf(data: DocumentData): InvitationState {
+    if (data.cancelled === true) return "CANCELLED";
+    if (data.responseTime == null) return "PENDING";
+    return data.accepted === true ? "ACCEPTED" : "DECLINED";
+}
+
+/**
+ * Keeps every invitation's "state" in agreement with its older fields.
+ * The app writes both together, but older versions of it only write the older fields.
+ *
+ * @type CloudFunction
+ */
+export const syncInvitationState =
+    onDocumentWritten("/invitations/{invitationId}", async (event) => {
+        const after = event.data?.after;
+        if (after === undefined || !after.exists) return;
+        if (after.get("state") === stateOf(after.data() as DocumentData)) return;
+
+        if (debug) logger.debug("syncInvitationState", event.params.invitationId);
+
+        // read again in a transaction, so a newer write isn't undone by this one
+        const db = getFirestore();
+        await db.runTransaction(async (t) => {
+            const snap = await t.get(after.ref);
+            if (!snap.exists) return;
+
+            const state = stateOf(snap.data() as DocumentData);
+            if (snap.get("state") !== state) {
+                t.update(snap.ref, { state: state });
+            }
+        });
+    });
+
+/**
+ * Writes the "state" of invitations written before invitations had one.
+ * Goes through every invitation by ID, for up to {backfillMillis},
+ * then returns the ID to continue after.
+ * Call it again with that ID as "startAfter" until it returns no "next".
+ *
+ * @type CloudFunction
+ */
+export const backfillInvitationStates =
+    onCall({ timeoutSeconds: 540 }, async (req) => {
+        const result = await backfillStates(getFirestore(), req.data?.startAfter ?? null);
+        logger.info(`Backfilled ${result.updated} of ${result.scanned} invitations`);
+        return result;
+    });
+
+/**
+ * Writes the state of every invitation after an ID that doesn't have the right one.
+ *
+ * @param {Firestore} db the database
+ * @param {string | null} startAfter the ID to continue after,
+ * null to start from the first invitation
+ * @return {Promise<object>} how many invitations were read and written,
+ * and the ID to continue after, null once every invitation was read
+ */
+async function backfillStates(db: Firestore, startAfter: string | null) {
+    const deadline = Date.now() + backfillMillis;
+    const invitationsRef = db.collection("invitations");
+    const writer = db.bulkWriter();
+    // a failed precondition means the invitation was written meanwhile,
+    // and syncInvitationState has it
+    writer.onWriteError(() => false);
+
+    let scanned = 0;
+    let updated = 0;
+    let next: string | null = startAfter;
+    const writes: Promise<unknown>[] = [];
+
+    do {
+        let page: Query = invitationsRef.orderBy(FieldPath.documentId()).limit(backfillPageSize);
+        if (next != null) page = page.startAfter(next);
+        const snap = await page.get();
+
+        for (const doc of snap.docs) {
+            const state = stateOf(doc.data());
+            if (doc.get("state") === state) continue;
+
+            const fields: DocumentData = { state: state };
+            if (doc.get("version") == null) fields.version = 0;
+            writes.push(writer.update(doc.ref, fields, { lastUpdateTime: doc.updateTime })
+                .then(() => updated++, () => undefined));
+        }
+
+        scanned += snap.size;
+        next = snap.size < backfillPageSize ? null : snap.docs[snap.size - 1].id;
+    } while (next != null && Date.now() < deadline);
+
+    await writer.close();
+    await Promise.all(writes);
+    return { scanned: scanned, updated: updated, next: next };
+}
@@ -1,6 +1,7 @@
 import { CloudTasksClient } from "@google-cloud/tasks";
 import {
-    CollectionReference, DocumentData, Firestore, getFirestore, Timestamp,
+    CollectionReference, DocumentData, DocumentReference, FieldValue, Firestore, getFirestore,
+    Timestamp,
 } from "firebase-admin/firestore";
 import { Change, DocumentSnapshot, onDocumentWritten } from "firebase-functions/v2/firestore";
 import { logger } from "firebase-functions/v2";
@@ -16,6 +17,24 @@ const taskQueue = "firestore-lottery";
 
 const debug = false;
 
+/**
+ * Collection of the idempotency keys of calls, with how each call turned out.
+ * Keys are deleted by a TTL policy on their expireAt field, see firestore.indexes.json.
+ */
+const idempotencyKeysCollection = "idempotencyKeys";
+
+/** How long a key is kept after it was last claimed, so late retries still find it */
+const idempotencyKeyTtlMillis = 1000 * 60 * 60 * 24 * 7; // 7 days in milliseconds
+
+/** How long a call may hold a key before a retry assumes it died and takes the key over */
+const idempotencyLeaseMillis = 1000 * 60 * 5; // 5 minutes in milliseconds
+
+/** How long a retry waits for the call holding its key to finish */
+const idempotencyWaitMillis = 1000 * 20; // 20 seconds in milliseconds
+
+/** How often a waiting retry checks its key again */
+const idempotencyPollMillis = 500;
+
 
 /**
  * Google Cloud tasks can't be scheduled more than 30 days out.
@@ -40,6 +59,84 @@ interface LotteryTaskPayload {
     eventId: string;
 }
 
+/** A call's hold on its idempotency key, see {claimIdempotencyKey} */
+interface IdempotencyClaim {
+    ref: DocumentReference;
+    claimedAt: Timestamp;
+}
+
+/**
+ * Claims an idempotency key for a call. A key is "running" while a call holds it, then "done"
+ * or "failed". A retry of a call that's still running waits for its outcome, a retry of a call
+ * that failed runs it again, and one that was left running past its lease takes it over.
+ *
+ * @param {DocumentReference} ref the key's document
+ * @param {string} operation the name of the call
+ * @param {string} target what the call acts on, like an event ID
+ * @return {Promise<IdempotencyClaim | null>} the claim, or null if the call is already done
+ */
+async function claimIdempotencyKey(ref: DocumentReference, operation: string, target: string):
+    Promise<IdempotencyClaim | null> {
+    const deadline = Date.now() + idempotencyWaitMillis;
+
+    for (;;) {
+        const claim = await ref.firestore.runTransaction(async (t) => {
+            const snap = await t.get(ref);
+            const now = Timestamp.now();
+            const state = snap.get("state") as string | undefined;
+            const claimedAt = snap.get("claimedAt") as Timestamp | undefined;
+
+            // keys from before outcomes were stored were only kept once the call was handled
+            if (state === "done" || (snap.exists && state === undefined)) return "done";
+            if (state === "running" && claimedAt != null &&
+                now.toMillis() - claimedAt.toMillis() < idempotencyLeaseMillis) {
+                return "running";
+            }
+
+            t.set(ref, {
+                operation: operation,
+                target: target,
+                state: "running",
+                attempts: (snap.get("attempts") ?? 0) + 1,
+                createdAt: snap.get("createdAt") ?? now,
+                claimedAt: now,
+                expireAt: Timestamp.fromMillis(now.toMillis() + idempotencyKeyTtlMillis),
+            });
+            return now;
+        });
+
+        if (claim === "done") return null;
+        if (claim !== "running") return { ref: ref, claimedAt: claim };
+
+        if (Date.now() >= deadline) {
+            throw new HttpsError("aborted", `${operation} ${ref.id} is still running`);
+        }
+        await new Promise((resolve) => setTimeout(resolve, idempotencyPollMillis));
+    }
+}
+
+/**
+ * Records that a call failed, unless another call took its key over or it already finished,
+ * so a retry runs it again
+ *
+ * @param {IdempotencyClaim} claim the call's claim on its key
+ * @param {unknown} err why the call failed
+ */
+async function failIdempotencyKey(claim: IdempotencyClaim, err: unknown) {
+    await claim.ref.firestore.runTransaction(async (t) => {
+        const snap = await t.get(claim.ref);
+        if (snap.get("state") !== "running" ||
+            !claim.claimedAt.isEqual(snap.get("claimedAt") as Timestamp)) {
+            return;
+        }
+        t.update(claim.ref, {
+            state: "failed",
+            error: String(err),
+            finishedAt: Timestamp.now(),
+        });
+    });
+}
+
 /**
  * Updates the {LotteryManager} when an event is created, updated, or deleted.
  *
@@ -91,9 +188,32 @@ export const lotteryDrawCallback =
 export const drawLotteryEarly =
     onCall(async (req) => {
         if (debug) logger.debug("drawLotteryEarly");
+
+        // the app retries calls with the same key, a draw must only happen once
+        let claim: IdempotencyClaim | null = null;
+        if (req.data.idempotencyKey != null) {
+            const keyRef = getFirestore().collection(idempotencyKeysCollection)
+                .doc(String(req.data.idempotencyKey));
+            try {
+                claim = await claimIdempotencyKey(
+                    keyRef, "drawLotteryEarly", String(req.data.lotteryID));
+            } catch (err) {
+                if (err instanceof HttpsError) throw err;
+                throw new HttpsError("unavailable", String(err));
+            }
+            if (claim == null) {
+                logger.info(`Skipping drawLotteryEarly retry ${keyRef.id}, it was already drawn`);
+                return;
+            }
+        }
+
         try {
-            await LotteryManager.getInstance().drawLottery(req.data.lotteryID, true);
+            await LotteryManager.getInstance().drawLottery(req.data.lotteryID, true, claim);
         } catch (err) {
+            // a draw that committed is already done, anything else can be drawn again by a retry
+            if (claim != null) {
+                await failIdempotencyKey(claim, err).catch((e) => logger.error(e));
+            }
             throw new HttpsError("internal", String(err));
         }
     });
@@ -278,70 +398,94 @@ class LotteryManager {
 
     /**
      * Draws random users from the waitlist, and create invites for them.
-     * Updates everything in the database accordingly.
+     * Updates everything in the database accordingly, in one transaction: the invites,
+     * the event, and the event's pending and waiting list counters in one of its counter shards.
      *
      * @async
      * @param {LotteryTaskPayload} eventId A payload from when the Google Cloud Task was first made
      * @param {LotteryTaskPayload} early If lottery is early it needs the Google Cloud Task deleted
+     * @param {IdempotencyClaim | null} claim the call's idempotency key, marked done with the draw
      * @return {*}
      */
-    async drawLottery(eventId: string, early: boolean) {
+    async drawLottery(eventId: string, early: boolean, claim: IdempotencyClaim | null = null) {
         const eventRef = this.eventsRef.doc(eventId);
-        const eventSnap = await eventRef.get();
 
-        // get event info
-        const maxAttendees = eventSnap.get("maxAttendees") ?? Infinity as number;
-        const waitingList = eventSnap.get("waitingList") as string[];
-        const organizerId = eventSnap.get("organizerID") as string;
-        const invites = eventSnap.get("invites") ?? [] as string[];
+        // read and written together, so a join or a second draw in between isn't lost
+        const draw = await this.db.runTransaction(async (t) => {
+            const eventSnap = await t.get(eventRef);
+
+            // a call that held its key too long may have been taken over by a retry
+            if (claim != null) {
+                const keySnap = await t.get(claim.ref);
+                if (keySnap.get("state") !== "running" ||
+                    !claim.claimedAt.isEqual(keySnap.get("claimedAt") as Timestamp)) {
+                    throw new Error(`Idempotency key ${claim.ref.id} was taken over`);
+                }
+                t.update(claim.ref, { state: "done", finishedAt: Timestamp.now() });
+            }
 
-        if (waitingList == null) {
-            logger.warn(`Ignoring ${eventRef.id} since "waitingList" is null`);
-            return;
-        } else if (organizerId == null) {
-            logger.warn(`Ignoring ${eventRef.id} since "organizerId" is null`);
-            return;
-        }
+            // get event info
+            const maxAttendees = eventSnap.get("maxAttendees") ?? Infinity as number;
+            const waitingList = eventSnap.get("waitingList") as string[];
+            const organizerId = eventSnap.get("organizerID") as string;
+            const invites = eventSnap.get("invites") ?? [] as string[];
+
+            if (waitingList == null) {
+                logger.warn(`Ignoring ${eventRef.id} since "waitingList" is null`);
+                return null;
+            } else if (organizerId == null) {
+                logger.warn(`Ignoring ${eventRef.id} since "organizerId" is null`);
+                return null;
+            }
 
-        const invitesIds = [];
-        const winnerIds = [];
-        const inviteCount = Math.min(maxAttendees - invites.length, waitingList.length);
+            const invitesIds: string[] = [];
+            const winnerIds: string[] = [];
+            const inviteCount = Math.min(maxAttendees - invites.length, waitingList.length);
+
+            for (let i = 0; i < inviteCount; i++) {
+                const inviteRef = this.invitationsRef.doc();
+                invitesIds.push(inviteRef.id);
+
+                // pick random index and remove from waitingList
+                const index = Math.floor(Math.random() * waitingList.length);
+                const [recipientId] = waitingList.splice(index, 1);
+
+                winnerIds.push(recipientId);
+
+                // create invite
+                t.create(inviteRef, {
+                    accepted: false,
+                    cancelTime: null,
+                    cancelled: false,
+                    event: eventSnap.id,
+                    invitation: inviteRef.id,
+                    organizerID: organizerId,
+                    recipientID: recipientId,
+                    responseTime: null,
+                    sendTime: Timestamp.now(),
+                    state: "PENDING",
+                    version: 0,
+                });
+            }
 
+            // update event, the winners move from the waiting list counter to pending like in the app
+            t.set(eventRef, {
+                "lotteryComplete": true,
+                "invites": invitesIds,
+                "waitingList": waitingList,
+                "pendingCount": FieldValue.increment(winnerIds.length),
+                "waitingCount": FieldValue.increment(-winnerIds.length),
+            }, {
+                merge: true,
+            });
+
+            return { eventSnap, winnerIds, waitingList };
+        });
+        if (draw == null) return;
+
+        const { eventSnap, winnerIds, waitingList } = draw;
         const tasks: Promise<unknown>[] = [];
 
-        for (let i = 0; i < inviteCount; i++) {
-            const inviteRef = this.invitationsRef.doc();
-            invitesIds.push(inviteRef.id);
-
-            // pick random index and remove from waitingList
-            const index = Math.floor(Math.random() * waitingList.length);
-            const [recipientId] = waitingList.splice(index, 1);
-
-            winnerIds.push(recipientId);
-
-            // create invite
-            tasks.push(inviteRef.create({
-                accepted: false,
-                cancelTime: null,
-                cancelled: false,
-                event: eventSnap.id,
-                invitation: inviteRef.id,
-                organizerID: organizerId,
-                recipientID: recipientId,
-                responseTime: null,
-                sendTime: Timestamp.now(),
-            }));
-        }
-
-        // update event
-        tasks.push(eventRef.set({
-            "lotteryComplete": true,
-            "invites": invitesIds,
-            "waitingList": waitingList,
-        }, {
-            merge: true,
-        }));
-
         if (early) {
             tasks.push(this.deleteLotteryTask(eventSnap));
         }
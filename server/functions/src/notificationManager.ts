@@ -5,6 +5,7 @@ import { logger } from "firebase-functions/v2";
 import { HttpsError, onCall } from "firebase-functions/v2/https";
 import { getMessaging, Messaging } from "firebase-admin/messaging";
 import { onDocumentWritten } from "firebase-functions/v2/firestore";
+import { expireAt } from "./archiveManager";
 
 interface Notification {
     id: number;
@@ -15,12 +16,16 @@ interface Notification {
     creationDate: Timestamp;
     sent: boolean;
     deleted: boolean;
+    /** when the TTL policy deletes the notification */
+    expireAt?: Timestamp;
 }
 
 interface UserNotification {
     userId: string,
     notificationId: number,
     sent: boolean;
+    /** when the TTL policy deletes the fan-out, the same as its notification's */
+    expireAt?: Timestamp;
 }
 
 interface NotificationData extends DocumentData, Notification { }
@@ -181,6 +186,7 @@ export class NotificationManager {
 
         const notifRef = this.notifsRef.doc(String(id));
 
+        const creationDate = Timestamp.now();
         const batch = this.db.batch();
 
         for (const recipientId of recipientIds) {
@@ -190,6 +196,7 @@ export class NotificationManager {
                 userId: recipientId,
                 notificationId: id,
                 sent: false,
+                expireAt: expireAt(creationDate),
             } as UserNotification);
         }
 
@@ -201,9 +208,10 @@ export class NotificationManager {
             organizerId,
             title,
             description,
-            creationDate: Timestamp.now(),
+            creationDate,
             sent: true,
             deleted: false,
+            expireAt: expireAt(creationDate),
         } as Notification);
 
         await sendTask;
@@ -0,0 +1,204 @@
+/*
+ * Runs the archival job against the Firestore emulator, with a synthetic dataset of several
+ * years of events, to check it and see how long it takes before it runs on real data.
+ *
+ *   firebase emulators:start --only firestore
+ *   npm run build
+ *   FIRESTORE_EMULATOR_HOST=localhost:8080 npm run emulator:seed -- 3
+ *   FIRESTORE_EMULATOR_HOST=localhost:8080 npm run emulator:archive
+ */
+import { initializeApp } from "firebase-admin/app";
+import {
+    DocumentData, Firestore, GeoPoint, getFirestore, Timestamp,
+} from "firebase-admin/firestore";
+import { ArchiveManager, eventRetentionDays } from "../archiveManager";
+
+const projectId = "demo-syzygy";
+const millisPerDay = 1000 * 60 * 60 * 24;
+
+/** How many events are made for every week of the dataset */
+const eventsPerWeek = 20;
+
+/** The most entrants one synthetic event has */
+const maxEntrants = 60;
+
+/**
+ * A small seeded random number generator (mulberry32), so every seed makes the same dataset
+ *
+ * @param {number} seed the seed
+ * @return {function} gives the next number, from 0 up to 1
+ */
+function random(seed: number): () => number {
+    let state = seed >>> 0;
+    return () => {
+        state = (state + 0x6d2b79f5) >>> 0;
+        let t = state;
+        t = Math.imul(t ^ (t >>> 15), t | 1);
+        t ^= t + Math.imul(t ^ (t >>> 7), t | 61);
+        return ((t ^ (t >>> 14)) >>> 0) / 4294967296;
+    };
+}
+
+/**
+ * Fills the emulator with events taking place every week over the past years, each with
+ * invitations in every state, entrant locations, counter shards and notifications with fan-out.
+ * Notifications are written without an expiry, like the ones written before they had one.
+ *
+ * @param {Firestore} db the emulator's database
+ * @param {number} years how many years of events to make
+ */
+async function seed(db: Firestore, years: number) {
+    const next = random(years);
+    const now = Date.now();
+    const weeks = Math.ceil(years * 52);
+    const writer = db.bulkWriter();
+    let events = 0;
+    let invitations = 0;
+    let notifId = 1;
+
+    for (let week = 0; week < weeks; week++) {
+        for (let i = 0; i < eventsPerWeek; i++) {
+            const eventId = `event-${week}-${i}`;
+            const eventRef = db.collection("events").doc(eventId);
+            const eventTime = Timestamp.fromMillis(now - (week * 7 + next() * 7) * millisPerDay);
+            const registrationEnd = Timestamp.fromMillis(eventTime.toMillis() - 7 * millisPerDay);
+            const organizerID = `organizer-${Math.floor(next() * 50)}`;
+            const entrants = 1 + Math.floor(next() * maxEntrants);
+            const waitingList: string[] = [];
+
+            for (let e = 0; e < entrants; e++) {
+                const recipientID = `user-${Math.floor(next() * 5000)}`;
+                const roll = next();
+                if (roll < 0.3) {
+                    waitingList.push(recipientID);
+                    continue;
+                }
+                const state = roll < 0.6 ? "ACCEPTED" :
+                    roll < 0.8 ? "DECLINED" : roll < 0.9 ? "PENDING" : "CANCELLED";
+                const invite: DocumentData = {
+                    event: eventId,
+                    organizer: organizerID,
+                    recipientID: recipientID,
+                    sendTime: registrationEnd,
+                    responseTime: state === "ACCEPTED" || state === "DECLINED" ?
+                        eventTime : null,
+                    accepted: state === "ACCEPTED" ? true : state === "DECLINED" ? false : null,
+                    cancelled: state === "CANCELLED",
+                    state: state,
+                    version: 0,
+                };
+                writer.set(db.collection("invitations").doc(`${eventId}-${e}`), invite);
+                writer.set(eventRef.collection("entrantLocations").doc(recipientID), {
+                    userID: recipientID,
+                    location: new GeoPoint(53 + next(), -114 + next()),
+                    joinedAt: registrationEnd,
+                });
+                invitations++;
+            }
+
+            writer.set(eventRef, {
+                eventID: eventId,
+                name: `Synthetic event ${week}-${i}`,
+                organizerID: organizerID,
+                locationName: "Emulator Hall",
+                eventTime: eventTime,
+                registrationStart: Timestamp.fromMillis(
+                    registrationEnd.toMillis() - 14 * millisPerDay),
+                registrationEnd: registrationEnd,
+                maxAttendees: 1 + Math.floor(next() * maxEntrants),
+                lotteryComplete: true,
+                waitingList: waitingList,
+                waitingCount: waitingList.length,
+            });
+
+            const notifRef = db.collection("notifications").doc(String(notifId));
+            writer.set(notifRef, {
+                id: notifId,
+                title: "Lottery results",
+                description: `The lottery for ${eventId} was drawn`,
+                eventId: eventId,
+                organizerId: organizerID,
+                creationDate: registrationEnd,
+                sent: true,
+                deleted: false,
+            });
+            const userId = waitingList[0] ?? "user-0";
+            writer.set(db.collection("userNotifications").doc(`${userId}-${notifId}`), {
+                userId: userId,
+                notificationId: notifId,
+                sent: true,
+            });
+            notifId++;
+            events++;
+        }
+    }
+
+    await writer.close();
+    console.log(`Seeded ${events} events with ${invitations} invitations over ${years} years`);
+}
+
+/**
+ * Runs the archival job until every finished event is archived, then checks that none are left
+ * and that every archived event has a summary.
+ *
+ * @param {Firestore} db the emulator's database
+ */
+async function archive(db: Firestore) {
+    const manager = new ArchiveManager(db);
+    const now = Timestamp.now();
+    const started = Date.now();
+    let runs = 0;
+
+    for (;;) {
+        const result = await manager.archiveFinishedEvents(now);
+        runs++;
+        console.log(`Run ${runs}:`, result);
+        if (result.done || result.events === 0) break;
+    }
+    console.log(`Archived in ${runs} runs and ${(Date.now() - started) / 1000}s`);
+
+    const cutoff = Timestamp.fromMillis(now.toMillis() - eventRetentionDays * millisPerDay);
+    const left = await db.collection("events").where("eventTime", "<", cutoff).count().get();
+    const archived = await db.collection("archivedEvents").count().get();
+    const summaries = await db.collection("eventSummaries").count().get();
+    const expiring = await db.collection("notifications").where("expireAt", "!=", null)
+        .count().get();
+    console.log(`Finished events left: ${left.data().count}`);
+    console.log(`Archived events: ${archived.data().count}, summaries: ${summaries.data().count}`);
+    console.log(`Notifications with an expiry: ${expiring.data().count}`);
+
+    if (left.data().count !== 0 || archived.data().count !== summaries.data().count) {
+        process.exitCode = 1;
+    }
+}
+
+/**
+ * Reads the command and runs it
+ */
+async function main() {
+    if (process.env.FIRESTORE_EMULATOR_HOST === undefined) {
+        console.error("FIRESTORE_EMULATOR_HOST isn't set, this only runs against the emulator");
+        process.exit(1);
+    }
+
+    initializeApp({ projectId: projectId });
+    const db = getFirestore();
+
+    const [command, arg] = process.argv.slice(2);
+    switch (command) {
+    case "seed":
+        await seed(db, Number(arg ?? 3));
+        break;
+    case "archive":
+        await archive(db);
+        break;
+    default:
+        console.error("Usage: emulatorArchive seed [years] | archive");
+        process.exit(1);
+    }
+}
+
+main().catch((err) => {
+    console.error(err);
+    process.exit(1);
+});